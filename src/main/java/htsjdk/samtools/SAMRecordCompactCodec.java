@@ -0,0 +1,271 @@
+package htsjdk.samtools;
+
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.StringUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact encoding of headerless SAMRecords as byte arrays, for moving reads through a Spark shuffle.
+ *
+ * The layout is the BAM record layout, except that:
+ * <ul>
+ *     <li>the block size is not stored, since it is implied by the length of the array;</li>
+ *     <li>the reference and mate reference are stored as indices into the sequence dictionary of the header,
+ *     instead of as names;</li>
+ *     <li>the read group tag is replaced by an index into the read groups of the header, together with the position
+ *     of the tag in the attributes so that the attribute order is preserved.</li>
+ * </ul>
+ *
+ * Decoding produces a {@link BAMRecord}, which only decodes the read name, cigar, bases, qualities and attributes
+ * when they are first accessed. The fixed length fields can also be read directly from the encoded array
+ * (see {@link #getReferenceIndex(byte[])} etc.), so encoded reads can be compared without decoding them at all.
+ *
+ * Instances are not thread-safe.
+ */
+public final class SAMRecordCompactCodec {
+    private static final int REFERENCE_INDEX_OFFSET = 0;
+    private static final int POSITION_OFFSET = 4;
+    private static final int READ_NAME_LENGTH_OFFSET = 8;
+    private static final int MAPPING_QUALITY_OFFSET = 9;
+    private static final int CIGAR_LENGTH_OFFSET = 12;
+    private static final int FLAGS_OFFSET = 14;
+    private static final int READ_LENGTH_OFFSET = 16;
+    private static final int MATE_REFERENCE_INDEX_OFFSET = 20;
+    private static final int MATE_POSITION_OFFSET = 24;
+    private static final int INSERT_SIZE_OFFSET = 28;
+    private static final int READ_GROUP_INDEX_OFFSET = BAMFileConstants.FIXED_BLOCK_SIZE;
+    private static final int READ_GROUP_TAG_POSITION_OFFSET = READ_GROUP_INDEX_OFFSET + 2;
+    private static final int VARIABLE_BLOCK_OFFSET = READ_GROUP_TAG_POSITION_OFFSET + 4;
+
+    private static final short READ_GROUP_TAG = (short) ('G' << 8 | 'R');
+    private static final short NO_READ_GROUP_INDEX = -1;
+
+    private final SAMRecordFactory samRecordFactory = new DefaultSAMRecordFactory();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final BinaryCodec binaryCodec = new BinaryCodec(bytes);
+    private final BinaryTagCodec binaryTagCodec = new BinaryTagCodec(binaryCodec);
+
+    private final String[] referenceNames;
+    private final Map<String, Integer> referenceIndices = new HashMap<>();
+    private final byte[][] readGroupTags;
+    private final Map<String, Short> readGroupIndices = new HashMap<>();
+
+    /**
+     * @param header the header providing the sequence dictionary and read groups used to index references and read
+     *               groups; the same header must be used for encoding and decoding
+     */
+    public SAMRecordCompactCodec(final SAMFileHeader header) {
+        final List<SAMSequenceRecord> sequences = header.getSequenceDictionary().getSequences();
+        referenceNames = new String[sequences.size()];
+        for (int i = 0; i < sequences.size(); i++) {
+            referenceNames[i] = sequences.get(i).getSequenceName();
+            referenceIndices.put(referenceNames[i], i);
+        }
+        final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+        // read group indices must fit in a short, any read groups beyond that are encoded inline
+        readGroupTags = new byte[Math.min(readGroups.size(), Short.MAX_VALUE)][];
+        for (int i = 0; i < readGroupTags.length; i++) {
+            final String readGroupId = readGroups.get(i).getReadGroupId();
+            readGroupIndices.put(readGroupId, (short) i);
+            readGroupTags[i] = encodeReadGroupTag(readGroupId);
+        }
+    }
+
+    /**
+     * Encodes a record, which must only refer to references in the header.
+     */
+    public byte[] encode(final SAMRecord record) {
+        final int readLength = record.getReadLength();
+        byte[] qualities = record.getBaseQualities();
+        if (readLength != qualities.length && qualities.length != 0) {
+            throw new SAMFormatException("Mismatch between read length and quals length writing read " +
+                    record.getReadName() + "; read length: " + readLength + "; quals length: " + qualities.length);
+        }
+        if (qualities.length == 0) {
+            qualities = new byte[readLength];
+            Arrays.fill(qualities, (byte) 0xFF);
+        }
+
+        // a missing read name is encoded as an empty one, as BAMRecordCodec does
+        final String readName = record.getReadName() == null ? "" : record.getReadName();
+        final Object readGroup = record.getAttribute(READ_GROUP_TAG);
+        final Short readGroupIndex = readGroup instanceof String ? readGroupIndices.get(readGroup) : null;
+        final int[] binaryCigar = BinaryCigarCodec.encode(record.getCigar());
+
+        // the position of the read group tag in the variable length block, if it is not encoded inline
+        int readGroupTagPosition = readName.length() + 1 + binaryCigar.length * 4 + (readLength + 1) / 2 + readLength;
+        if (readGroupIndex != null) {
+            for (SAMBinaryTagAndValue attribute = record.getBinaryAttributes(); attribute != null && attribute.tag != READ_GROUP_TAG; attribute = attribute.getNext()) {
+                readGroupTagPosition += BinaryTagCodec.getTagSize(attribute.value);
+            }
+        }
+
+        bytes.reset();
+        binaryCodec.writeInt(getEncodedReferenceIndex(record.getReferenceName()));
+        binaryCodec.writeInt(record.getAlignmentStart() - 1);
+        binaryCodec.writeUByte((short) (readName.length() + 1));
+        binaryCodec.writeUByte((short) record.getMappingQuality());
+        binaryCodec.writeUShort(0); // index bin is not used
+        binaryCodec.writeUShort(binaryCigar.length);
+        binaryCodec.writeUShort(record.getFlags());
+        binaryCodec.writeInt(readLength);
+        binaryCodec.writeInt(getEncodedReferenceIndex(record.getMateReferenceName()));
+        binaryCodec.writeInt(record.getMateAlignmentStart() - 1);
+        binaryCodec.writeInt(record.getInferredInsertSize());
+        binaryCodec.writeShort(readGroupIndex == null ? NO_READ_GROUP_INDEX : readGroupIndex);
+        binaryCodec.writeInt(readGroupIndex == null ? 0 : readGroupTagPosition);
+
+        binaryCodec.writeString(readName, false, true);
+        for (final int cigarElement : binaryCigar) {
+            binaryCodec.writeInt(cigarElement);
+        }
+        binaryCodec.writeBytes(SAMUtils.bytesToCompressedBases(record.getReadBases()));
+        binaryCodec.writeBytes(qualities);
+        for (SAMBinaryTagAndValue attribute = record.getBinaryAttributes(); attribute != null; attribute = attribute.getNext()) {
+            if (readGroupIndex == null || attribute.tag != READ_GROUP_TAG) {
+                binaryTagCodec.writeTag(attribute.tag, attribute.value, attribute.isUnsignedArray());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a record. The record is headerless, and its variable length fields are decoded lazily.
+     */
+    public SAMRecord decode(final byte[] encoded) {
+        final ByteBuffer buffer = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+        final short readGroupIndex = buffer.getShort(READ_GROUP_INDEX_OFFSET);
+        final byte[] restOfRecord;
+        if (readGroupIndex == NO_READ_GROUP_INDEX) {
+            restOfRecord = Arrays.copyOfRange(encoded, VARIABLE_BLOCK_OFFSET, encoded.length);
+        } else {
+            // splice the read group tag back in where it was
+            final byte[] readGroupTag = readGroupTags[readGroupIndex];
+            final int readGroupTagPosition = buffer.getInt(READ_GROUP_TAG_POSITION_OFFSET);
+            final int variableBlockLength = encoded.length - VARIABLE_BLOCK_OFFSET;
+            restOfRecord = new byte[variableBlockLength + readGroupTag.length];
+            System.arraycopy(encoded, VARIABLE_BLOCK_OFFSET, restOfRecord, 0, readGroupTagPosition);
+            System.arraycopy(readGroupTag, 0, restOfRecord, readGroupTagPosition, readGroupTag.length);
+            System.arraycopy(encoded, VARIABLE_BLOCK_OFFSET + readGroupTagPosition, restOfRecord,
+                    readGroupTagPosition + readGroupTag.length, variableBlockLength - readGroupTagPosition);
+        }
+
+        final SAMRecord record = samRecordFactory.createBAMRecord(null,
+                SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, // reference names are set below
+                buffer.getInt(POSITION_OFFSET) + 1,
+                (short) (encoded[READ_NAME_LENGTH_OFFSET] & 0xFF),
+                (short) (encoded[MAPPING_QUALITY_OFFSET] & 0xFF),
+                0,
+                buffer.getShort(CIGAR_LENGTH_OFFSET) & 0xFFFF,
+                buffer.getShort(FLAGS_OFFSET) & 0xFFFF,
+                buffer.getInt(READ_LENGTH_OFFSET),
+                SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX,
+                buffer.getInt(MATE_POSITION_OFFSET) + 1,
+                buffer.getInt(INSERT_SIZE_OFFSET),
+                restOfRecord);
+
+        // clear indexing bin after decoding to ensure all SAMRecords compare properly
+        record.setFlags(record.getFlags());
+
+        final int referenceIndex = buffer.getInt(REFERENCE_INDEX_OFFSET);
+        final int mateReferenceIndex = buffer.getInt(MATE_REFERENCE_INDEX_OFFSET);
+        record.setReferenceName(referenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ? SAMRecord.NO_ALIGNMENT_REFERENCE_NAME : referenceNames[referenceIndex]);
+        record.setMateReferenceName(mateReferenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ? SAMRecord.NO_ALIGNMENT_REFERENCE_NAME : referenceNames[mateReferenceIndex]);
+        // Explicitly clear the reference indices, since setting the names above won't do so if either name is "*"
+        record.setHeaderStrict(null);
+        return record;
+    }
+
+    private int getEncodedReferenceIndex(final String referenceName) {
+        if (referenceName == null || SAMRecord.NO_ALIGNMENT_REFERENCE_NAME.equals(referenceName)) {
+            return SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX;
+        }
+        final Integer referenceIndex = referenceIndices.get(referenceName);
+        if (referenceIndex == null) {
+            throw new IllegalArgumentException("Reference " + referenceName + " is not in the sequence dictionary of the header");
+        }
+        return referenceIndex;
+    }
+
+    private static byte[] encodeReadGroupTag(final String readGroupId) {
+        final byte[] id = StringUtil.stringToBytes(readGroupId);
+        final byte[] tag = new byte[id.length + 4];
+        tag[0] = 'R';
+        tag[1] = 'G';
+        tag[2] = 'Z';
+        System.arraycopy(id, 0, tag, 3, id.length);
+        tag[tag.length - 1] = 0;
+        return tag;
+    }
+
+    /**
+     * @return the index of the reference in the sequence dictionary, or {@link SAMRecord#NO_ALIGNMENT_REFERENCE_INDEX}
+     */
+    public static int getReferenceIndex(final byte[] encoded) {
+        return readInt(encoded, REFERENCE_INDEX_OFFSET);
+    }
+
+    /**
+     * @return the 1-based alignment start, as returned by {@link SAMRecord#getAlignmentStart()}
+     */
+    public static int getAlignmentStart(final byte[] encoded) {
+        return readInt(encoded, POSITION_OFFSET) + 1;
+    }
+
+    public static int getFlags(final byte[] encoded) {
+        return (encoded[FLAGS_OFFSET] & 0xFF) | (encoded[FLAGS_OFFSET + 1] & 0xFF) << 8;
+    }
+
+    public static int getMappingQuality(final byte[] encoded) {
+        return encoded[MAPPING_QUALITY_OFFSET] & 0xFF;
+    }
+
+    /**
+     * @return the index of the mate reference in the sequence dictionary, or {@link SAMRecord#NO_ALIGNMENT_REFERENCE_INDEX}
+     */
+    public static int getMateReferenceIndex(final byte[] encoded) {
+        return readInt(encoded, MATE_REFERENCE_INDEX_OFFSET);
+    }
+
+    /**
+     * @return the 1-based mate alignment start, as returned by {@link SAMRecord#getMateAlignmentStart()}
+     */
+    public static int getMateAlignmentStart(final byte[] encoded) {
+        return readInt(encoded, MATE_POSITION_OFFSET) + 1;
+    }
+
+    public static int getInferredInsertSize(final byte[] encoded) {
+        return readInt(encoded, INSERT_SIZE_OFFSET);
+    }
+
+    /**
+     * Compares the read names of two encoded records lexicographically, without decoding them. Read names are
+     * restricted to printable ASCII, so this is the same as comparing the names as Strings.
+     */
+    public static int compareReadNames(final byte[] first, final byte[] second) {
+        final int firstLength = (first[READ_NAME_LENGTH_OFFSET] & 0xFF) - 1;
+        final int secondLength = (second[READ_NAME_LENGTH_OFFSET] & 0xFF) - 1;
+        final int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            final int result = Integer.compare(first[VARIABLE_BLOCK_OFFSET + i] & 0xFF, second[VARIABLE_BLOCK_OFFSET + i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    private static int readInt(final byte[] encoded, final int offset) {
+        return (encoded[offset] & 0xFF)
+                | (encoded[offset + 1] & 0xFF) << 8
+                | (encoded[offset + 2] & 0xFF) << 16
+                | (encoded[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.cmdline.PicardCommandLineProgramExecutor;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.PicardNonZeroExitException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.ClassIndex;
 import org.broadinstitute.hellbender.utils.ClassUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
@@ -81,7 +82,7 @@ public class Main {
     /**
      * exit value when any unrecoverable exception other than {@link UserException} occurs
      */
-    private static final int ANY_OTHER_EXCEPTION_EXIT_VALUE = 3;
+    static final int ANY_OTHER_EXCEPTION_EXIT_VALUE = 3;
     private static final String STACK_TRACE_ON_USER_EXCEPTION_PROPERTY = "GATK_STACKTRACE_ON_USER_EXCEPTION";
 
     /**
@@ -199,32 +200,46 @@ public class Main {
      * Note: this is the only method that is allowed to call System.exit (because gatk tools may be run from test harness etc)
      */
     protected final void mainEntry(final String[] args) {
+        final int exitValue = runAndGetExitValue(args);
+        //no explicit System.exit(0) since that causes issues when running in Yarn containers
+        if (exitValue != 0) {
+            System.exit(exitValue);
+        }
+    }
+
+    /**
+     * Run the command line and handle its result or any error as {@link #mainEntry(String[])} does, but return the
+     * exit value instead of calling System.exit.
+     *
+     * @return the value the process should exit with
+     */
+    final int runAndGetExitValue(final String[] args) {
 
         CommandLineProgram program = null;
         try {
             program = setupConfigAndExtractProgram(args, getPackageList(), getClassList(), getCommandLineName());
             final Object result = runCommandLineProgram(program, args);
             handleResult(result);
-            //no explicit System.exit(0) since that causes issues when running in Yarn containers
+            return 0;
         } catch (final CommandLineException e){
             if (program != null) {
                 System.err.println(program.getUsage());
             }
             handleUserException(e);
-            System.exit(COMMANDLINE_EXCEPTION_EXIT_VALUE);
+            return COMMANDLINE_EXCEPTION_EXIT_VALUE;
         } catch (final PicardNonZeroExitException e) {
             // a Picard tool returned a non-zero exit code
             handleResult(e.getToolReturnCode());
-            System.exit(PICARD_TOOL_EXCEPTION);
+            return PICARD_TOOL_EXCEPTION;
         } catch (final UserException e){
             handleUserException(e);
-            System.exit(USER_EXCEPTION_EXIT_VALUE);
+            return USER_EXCEPTION_EXIT_VALUE;
         } catch (final StorageException e) {
             handleStorageException(e);
-            System.exit(ANY_OTHER_EXCEPTION_EXIT_VALUE);
+            return ANY_OTHER_EXCEPTION_EXIT_VALUE;
         } catch (final Exception e){
             handleNonUserException(e);
-            System.exit(ANY_OTHER_EXCEPTION_EXIT_VALUE);
+            return ANY_OTHER_EXCEPTION_EXIT_VALUE;
         }
     }
 
@@ -304,13 +319,12 @@ public class Main {
                                                           final List<Class<? extends CommandLineProgram>> classList,
                                                           final String commandLineName ) {
         /** Get the set of classes that are our command line programs **/
-        final ClassFinder classFinder = new ClassFinder();
+        final Set<Class<?>> toCheck = new LinkedHashSet<>();
         for (final String pkg : packageList) {
-            classFinder.find(pkg, picard.cmdline.CommandLineProgram.class);
-            classFinder.find(pkg, CommandLineProgram.class);
+            toCheck.addAll(ClassIndex.findClasses(pkg, picard.cmdline.CommandLineProgram.class));
+            toCheck.addAll(ClassIndex.findClasses(pkg, CommandLineProgram.class));
         }
         String missingAnnotationClasses = "";
-        final Set<Class<?>> toCheck = classFinder.getClasses();
         toCheck.addAll(classList);
         final Map<String, Class<?>> simpleNameToClass = new LinkedHashMap<>();
         for (final Class<?> clazz : toCheck) {
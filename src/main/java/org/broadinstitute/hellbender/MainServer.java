@@ -0,0 +1,326 @@
+package org.broadinstitute.hellbender;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A long-lived local server that runs GATK command lines sent by the gatk launcher script inside a single JVM, so
+ * that JVM startup, class loading, configuration and JIT warm-up are paid once rather than by every short invocation.
+ *
+ * The server listens on a loopback TCP port and runs one command line at a time through {@link Main}, exactly as
+ * {@link Main#main} would except that it doesn't exit. While a command runs, System.out and System.err (and so the
+ * log output) are sent to the client that submitted it; clients that connect in the meantime wait their turn.
+ * The JVM can't change its working directory, so a command from a client in a different directory than the
+ * server is rejected, and the client is expected to run it itself. Neither the environment nor the JVM options of
+ * the client are forwarded.
+ *
+ * Commands share the JVM, so the System properties are restored after each command, and a command that fails with
+ * an Error rather than an exception is reported to its client with a failed exit value without stopping the server.
+ * Any other static state a command changes (for example the global log level, or htsjdk and Picard defaults) is not
+ * restored, and is seen by the commands that follow it.
+ *
+ * Any local user can connect to a loopback port, so every request must carry a token that is generated randomly
+ * when the server starts and written to a file only its owner can read (see {@link #getTokenFile}). Requests
+ * without the token are rejected before anything else in them is looked at.
+ *
+ * Protocol, in which ints are big-endian and strings are an int byte length followed by UTF-8 bytes:
+ * <ul>
+ *     <li>request: {@link #PROTOCOL_VERSION}, the token, the working directory, the number of arguments, and the
+ *     arguments</li>
+ *     <li>response: any number of {@link #STDOUT} or {@link #STDERR} frames (the frame type byte followed by a
+ *     string), then either {@link #EXIT} followed by the exit value as an int, or {@link #REJECTED} followed by
+ *     the reason as a string</li>
+ * </ul>
+ * A request whose only argument is {@link #SHUTDOWN_COMMAND} stops the server.
+ */
+public final class MainServer {
+    private static final Logger logger = LogManager.getLogger(MainServer.class);
+
+    public static final int PROTOCOL_VERSION = 2;
+    public static final String SHUTDOWN_COMMAND = "--shutdown-server";
+
+    public static final byte STDOUT = 1;
+    public static final byte STDERR = 2;
+    public static final byte EXIT = 3;
+    public static final byte REJECTED = 4;
+
+    private static final int TOKEN_LENGTH = 32;
+
+    private final ServerSocket serverSocket;
+    private final Main main;
+    private final byte[] token;
+    private final String workingDirectory;
+
+    /**
+     * @param token the token every request must carry, as made by {@link #createToken}
+     */
+    public MainServer(final ServerSocket serverSocket, final Main main, final String token) {
+        this.serverSocket = serverSocket;
+        this.main = main;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.workingDirectory = canonicalPath(System.getProperty("user.dir"));
+    }
+
+    /**
+     * @return a new random token, as a hex string
+     */
+    public static String createToken() {
+        final byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder(2 * TOKEN_LENGTH);
+        for (final byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    /**
+     * @return the file in which the server on the given port keeps its token, where the gatk launcher looks for it
+     */
+    public static Path getTokenFile(final int port) {
+        return Paths.get(System.getProperty("user.home"), ".gatk", "server-" + port + ".token");
+    }
+
+    /**
+     * Writes the token to a new file that only the current user can read or write, replacing any file left behind by
+     * a server that didn't shut down cleanly
+     */
+    public static void writeTokenFile(final Path tokenFile, final String token) throws IOException {
+        final boolean isPosix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        final Path directory = tokenFile.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            if (isPosix) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(EnumSet.of(
+                        PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        Files.deleteIfExists(tokenFile);
+        if (isPosix) {
+            // created with its permissions, so that the token is never readable by others
+            final Set<PosixFilePermission> ownerOnly = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(ownerOnly));
+        } else {
+            final File file = Files.createFile(tokenFile).toFile();
+            if (!(file.setReadable(false, false) && file.setReadable(true, true) &&
+                    file.setWritable(false, false) && file.setWritable(true, true))) {
+                throw new UserException.CouldNotCreateOutputFile(file, "could not make the server token file private");
+            }
+        }
+        Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Run command lines from clients until a {@link #SHUTDOWN_COMMAND} is received
+     */
+    public void serve() throws IOException {
+        logger.info("GATK server listening on port " + serverSocket.getLocalPort() + " in " + workingDirectory);
+        boolean shutdown = false;
+        while (!shutdown) {
+            try (final Socket socket = serverSocket.accept()) {
+                shutdown = handle(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+            } catch (final IOException e) {
+                logger.warn("Lost connection to a client", e);
+            } catch (final Throwable e) {
+                logger.error("Failed to handle a request", e);
+            }
+        }
+        serverSocket.close();
+        logger.info("GATK server shut down");
+    }
+
+    /**
+     * @return true if the server should shut down
+     */
+    private boolean handle(final DataInputStream in, final DataOutputStream out) throws IOException {
+        final int version = in.readInt();
+        if (version != PROTOCOL_VERSION) {
+            reject(out, "protocol version " + version + " is not supported by this server (expected " + PROTOCOL_VERSION + ")");
+            return false;
+        }
+        final byte[] clientToken = readBytes(in, token.length);
+        if (clientToken == null || !MessageDigest.isEqual(clientToken, token)) {
+            logger.warn("Rejected a request without the server token");
+            reject(out, "the request does not carry the token of this server");
+            return false;
+        }
+        final String clientDirectory = canonicalPath(readString(in));
+        final String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readString(in);
+        }
+
+        if (args.length == 1 && args[0].equals(SHUTDOWN_COMMAND)) {
+            exit(out, 0);
+            return true;
+        }
+        if (!clientDirectory.equals(workingDirectory)) {
+            reject(out, "the server is running in " + workingDirectory + ", not " + clientDirectory);
+            return false;
+        }
+
+        logger.info("Running: " + String.join(" ", args));
+        final PrintStream stdout = System.out;
+        final PrintStream stderr = System.err;
+        final Properties systemProperties = (Properties) System.getProperties().clone();
+        int exitValue;
+        try (final PrintStream clientOut = new PrintStream(new FrameOutputStream(out, STDOUT), true, StandardCharsets.UTF_8.name());
+             final PrintStream clientErr = new PrintStream(new FrameOutputStream(out, STDERR), true, StandardCharsets.UTF_8.name())) {
+            System.setOut(clientOut);
+            System.setErr(clientErr);
+            try {
+                exitValue = main.runAndGetExitValue(args);
+            } catch (final Throwable e) {
+                // Main handles exceptions, but not Errors, which would otherwise take the server down with them
+                e.printStackTrace(clientErr);
+                logger.error("Failed to run: " + String.join(" ", args), e);
+                exitValue = Main.ANY_OTHER_EXCEPTION_EXIT_VALUE;
+            }
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+            System.setProperties(systemProperties);
+        }
+        exit(out, exitValue);
+        return false;
+    }
+
+    private static void exit(final DataOutputStream out, final int exitValue) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(exitValue);
+            out.flush();
+        }
+    }
+
+    private static void reject(final DataOutputStream out, final String reason) throws IOException {
+        synchronized (out) {
+            out.writeByte(REJECTED);
+            writeString(out, reason);
+            out.flush();
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the bytes of a string, or null if it isn't {@code expectedLength} bytes long (in which case it is not read,
+     * so that an unauthenticated client can't make the server allocate an arbitrarily large buffer)
+     */
+    private static byte[] readBytes(final DataInputStream in, final int expectedLength) throws IOException {
+        final int length = in.readInt();
+        if (length != expectedLength) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String canonicalPath(final String path) {
+        try {
+            return Paths.get(path).toRealPath().toString();
+        } catch (final IOException e) {
+            return Paths.get(path).toAbsolutePath().normalize().toString();
+        }
+    }
+
+    /**
+     * Sends everything written to it to the client as frames of one type. The tool, its logging and any threads it
+     * starts may all write to the client, so frames are written while holding the lock on the underlying stream.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte frameType;
+
+        FrameOutputStream(final DataOutputStream out, final byte frameType) {
+            this.out = out;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(frameType);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Start a server listening on the given port of the loopback interface, with its token in {@link #getTokenFile}
+     *
+     * @param args the port
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new UserException.BadInput("Usage: MainServer <port>");
+        }
+        final int port;
+        try {
+            port = Integer.parseInt(args[0]);
+        } catch (final NumberFormatException e) {
+            throw new UserException.BadInput("Not a valid port: " + args[0]);
+        }
+        final ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        final String token = createToken();
+        final Path tokenFile = getTokenFile(serverSocket.getLocalPort());
+        writeTokenFile(tokenFile, token);
+        try {
+            new MainServer(serverSocket, new Main(), token).serve();
+        } finally {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+}
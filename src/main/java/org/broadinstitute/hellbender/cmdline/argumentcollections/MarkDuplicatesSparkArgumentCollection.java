@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.cmdline.argumentcollections;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
@@ -19,6 +20,7 @@ public final class MarkDuplicatesSparkArgumentCollection implements Serializable
     public static final String DUPLICATE_TAGGING_POLICY_LONG_NAME = "duplicate-tagging-policy";
     public static final String REMOVE_ALL_DUPLICATE_READS = "remove-all-duplicates";
     public static final String REMOVE_SEQUENCING_DUPLICATE_READS = "remove-sequencing-duplicates";
+    public static final String COMPACT_SHUFFLE_RECORDS_LONG_NAME = "compact-shuffle-records";
 
     @Argument(shortName = StandardArgumentDefinitions.DUPLICATE_SCORING_STRATEGY_SHORT_NAME, fullName = StandardArgumentDefinitions.DUPLICATE_SCORING_STRATEGY_LONG_NAME, doc = "The scoring strategy for choosing the non-duplicate among candidates.")
     public MarkDuplicatesScoringStrategy duplicatesScoringStrategy = MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES;
@@ -37,4 +39,8 @@ public final class MarkDuplicatesSparkArgumentCollection implements Serializable
     @Argument(fullName = MarkDuplicatesSparkArgumentCollection.REMOVE_SEQUENCING_DUPLICATE_READS, doc = "If true do not write optical/sequencing duplicates to the output file instead of writing them with appropriate flags set.",
             mutex = {MarkDuplicatesSparkArgumentCollection.DUPLICATE_TAGGING_POLICY_LONG_NAME, MarkDuplicatesSparkArgumentCollection.REMOVE_ALL_DUPLICATE_READS}, optional = true)
     public boolean removeSequencingDuplicates = false;
-}
\ No newline at end of file
+
+    @Advanced
+    @Argument(fullName = MarkDuplicatesSparkArgumentCollection.COMPACT_SHUFFLE_RECORDS_LONG_NAME, doc = "If true, shuffle the duplicate marking records as compact binary encoded byte arrays rather than serializing them as objects. This reduces shuffle size and executor garbage collection on large inputs.", optional = true)
+    public boolean compactShuffleRecords = false;
+}
@@ -10,12 +10,12 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.Argument;
-import org.broadinstitute.barclay.argparser.ClassFinder;
 import org.broadinstitute.barclay.argparser.CommandLineParser;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
+import org.broadinstitute.hellbender.utils.ClassIndex;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
@@ -74,12 +74,12 @@ public final class FeatureManager implements AutoCloseable {
         // Get our configuration:
         final GATKConfig config = ConfigFactory.getInstance().getGATKConfig();
 
-        final ClassFinder finder = new ClassFinder();
+        final Set<Class<?>> codecs = new LinkedHashSet<>();
         for ( final String codecPackage : config.codec_packages() ) {
-            finder.find(codecPackage, CODEC_BASE_CLASS);
+            // Exclude abstract classes and interfaces from the list of discovered codec classes
+            ClassIndex.findClasses(codecPackage, CODEC_BASE_CLASS).stream().filter(ClassIndex::isConcrete).forEach(codecs::add);
         }
-        // Exclude abstract classes and interfaces from the list of discovered codec classes
-        DISCOVERED_CODECS = Collections.unmodifiableSet(finder.getConcreteClasses());
+        DISCOVERED_CODECS = Collections.unmodifiableSet(codecs);
     }
 
     /**
@@ -1,20 +1,56 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFRecordCodec;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
-import org.broadinstitute.hellbender.engine.filters.VariantFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.StreamSupport;
 
 /**
  * A VariantWalker that makes multiple passes through the variants.
  * This allows the user to store internal states during early passes, which the user can then
- * process and access during later passes
+ * process and access during later passes.
+ *
+ * By default each pass re-reads the driving variants from their source. With
+ * {@link #CACHE_VARIANTS_BETWEEN_PASSES_LONG_NAME}, the driving variants are cached during the first pass
+ * and later passes replay them from the cache, so the input is only read and decoded once. The variant filters
+ * are applied on every pass in either case, so they report the same counts.
  **/
 public abstract class MultiplePassVariantWalker extends VariantWalker {
 
+    public static final String CACHE_VARIANTS_BETWEEN_PASSES_LONG_NAME = "cache-variants-between-passes";
+    public static final String MAX_CACHED_VARIANTS_IN_RAM_LONG_NAME = "max-cached-variants-in-ram";
+
+    @Advanced
+    @Argument(fullName = CACHE_VARIANTS_BETWEEN_PASSES_LONG_NAME,
+            doc = "Read and decode the variants only once, during the first pass, and replay them from a cache during later passes",
+            optional = true)
+    public boolean cacheVariantsBetweenPasses = false;
+
+    @Advanced
+    @Argument(fullName = MAX_CACHED_VARIANTS_IN_RAM_LONG_NAME,
+            doc = "When caching variants between passes, the maximum number of variants to hold in memory.  Any further variants are spilled to a temporary file.",
+            optional = true, minValue = 0)
+    public int maxCachedVariantsInRam = 1_000_000;
+
     protected abstract int numberOfPasses();
 
     /**
@@ -34,14 +70,30 @@ public abstract class MultiplePassVariantWalker extends VariantWalker {
         final CountingVariantFilter countingVariantFilter = makeVariantFilter();
         final CountingReadFilter readFilter = makeReadFilter();
 
-        for (int n = 0; n < numberOfPasses(); n++) {
-            logger.info("Starting pass " + n + " through the variants");
-            final int nCopyInLambda = n;
-            traverseVariants(countingVariantFilter, readFilter, (vc, rc, ref, fc) -> nthPassApply(vc, rc, ref, fc, nCopyInLambda));
-            logger.info("Finished pass " + n + " through the variants");
+        try (final VariantCache cache = cacheVariantsBetweenPasses ? new VariantCache(getHeaderForVariants(), maxCachedVariantsInRam) : null) {
+            for (int n = 0; n < numberOfPasses(); n++) {
+                logger.info("Starting pass " + n + " through the variants");
+                final int nCopyInLambda = n;
+                final VariantConsumer variantConsumer = (vc, rc, ref, fc) -> nthPassApply(vc, rc, ref, fc, nCopyInLambda);
+                if (cache == null) {
+                    traverseVariants(action -> StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
+                            .filter(countingVariantFilter).forEach(action), readFilter, variantConsumer);
+                } else if (n == 0) {
+                    traverseVariants(action -> StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
+                            .peek(cache::add).filter(countingVariantFilter).forEach(action), readFilter, variantConsumer);
+                    cache.finishAdding();
+                } else {
+                    traverseVariants(action -> cache.forEach(variant -> {
+                        if (countingVariantFilter.test(variant)) {
+                            action.accept(variant);
+                        }
+                    }), readFilter, variantConsumer);
+                }
+                logger.info("Finished pass " + n + " through the variants");
 
-            // Process the data accumulated during the nth pass
-            afterNthPass(n);
+                // Process the data accumulated during the nth pass
+                afterNthPass(n);
+            }
         }
 
         logger.info(countingVariantFilter.getSummaryLine());
@@ -69,17 +121,15 @@ public abstract class MultiplePassVariantWalker extends VariantWalker {
      */
     protected abstract void afterNthPass(final int n);
 
-    private void traverseVariants(final VariantFilter variantFilter, final CountingReadFilter readFilter, final VariantConsumer variantConsumer){
-        StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
-                .filter(variantFilter)
-                .forEach(variant -> {
-                    final SimpleInterval variantInterval = new SimpleInterval(variant);
-                    variantConsumer.consume(variant,
-                            new ReadsContext(reads, variantInterval, readFilter),
-                            new ReferenceContext(reference, variantInterval),
-                            new FeatureContext(features, variantInterval));
-                    progressMeter.update(variantInterval);
-                });
+    private void traverseVariants(final Consumer<Consumer<VariantContext>> variantSource, final CountingReadFilter readFilter, final VariantConsumer variantConsumer){
+        variantSource.accept(variant -> {
+            final SimpleInterval variantInterval = new SimpleInterval(variant);
+            variantConsumer.consume(variant,
+                    new ReadsContext(reads, variantInterval, readFilter),
+                    new ReferenceContext(reference, variantInterval),
+                    new FeatureContext(features, variantInterval));
+            progressMeter.update(variantInterval);
+        });
     }
 
     @FunctionalInterface
@@ -87,6 +137,81 @@ public abstract class MultiplePassVariantWalker extends VariantWalker {
         void consume(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext reference, final FeatureContext features);
     }
 
+    /**
+     * Holds the driving variants read during the first pass so that later passes need not re-read and
+     * re-decode the input.  Up to a fixed number of variants are kept in memory as decoded VariantContexts (including
+     * any genotypes the tool decoded during the first pass); the remainder are spilled in order to a temporary
+     * VCF-encoded file.
+     */
+    private static final class VariantCache implements AutoCloseable {
+        private final VCFHeader header;
+        private final int maxVariantsInRam;
+        private final List<VariantContext> variantsInRam = new ArrayList<>();
+        private File spillFile = null;
+        private OutputStream spillOutput = null;
+        private VCFRecordCodec spillEncoder = null;
+        private long numSpilled = 0;
+
+        VariantCache(final VCFHeader header, final int maxVariantsInRam) {
+            this.header = header;
+            this.maxVariantsInRam = maxVariantsInRam;
+        }
+
+        void add(final VariantContext variant) {
+            if (variantsInRam.size() < maxVariantsInRam) {
+                variantsInRam.add(variant);
+                return;
+            }
+            if (spillEncoder == null) {
+                spillFile = IOUtils.createTempFile("multiplePassVariants", ".vcf");
+                try {
+                    spillOutput = new BufferedOutputStream(new FileOutputStream(spillFile));
+                } catch (final IOException e) {
+                    throw new UserException.CouldNotCreateOutputFile(spillFile, "Could not open the variant cache file", e);
+                }
+                spillEncoder = new VCFRecordCodec(header, true);
+                spillEncoder.setOutputStream(spillOutput);
+            }
+            spillEncoder.encode(variant);
+            numSpilled++;
+        }
+
+        void finishAdding() {
+            if (spillOutput != null) {
+                try {
+                    spillOutput.close();
+                } catch (final IOException e) {
+                    throw new UserException.CouldNotCreateOutputFile(spillFile, "Could not write the variant cache file", e);
+                }
+                spillOutput = null;
+            }
+        }
+
+        void forEach(final Consumer<VariantContext> action) {
+            variantsInRam.forEach(action);
+            if (spillFile == null) {
+                return;
+            }
+            try (final InputStream spillInput = new BufferedInputStream(new FileInputStream(spillFile))) {
+                final VCFRecordCodec decoder = new VCFRecordCodec(header, true);
+                decoder.setInputStream(spillInput);
+                for (long i = 0; i < numSpilled; i++) {
+                    action.accept(decoder.decode());
+                }
+            } catch (final IOException e) {
+                throw new UserException.CouldNotReadInputFile(spillFile, "Could not read the variant cache file", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            finishAdding();
+            if (spillFile != null) {
+                spillFile.delete();
+            }
+        }
+    }
+
     /**
      * Make final to hide it from subclasses
      */
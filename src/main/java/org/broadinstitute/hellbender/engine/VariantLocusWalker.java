@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
+import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
@@ -73,7 +74,7 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
         // This is the data source for the driving source of variants,
         // which uses a cache lookahead of getDrivingVariantCacheLookAheadBases()
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                referenceArguments.getReferencePath());
+                new GenomicsDBOptions(referenceArguments.getReferencePath()), getDrivingVariantsProjection());
 
         // Also add the driving datasource to the feature manager so that it can be queried. Setting cache lookahead
         // to 0 to avoid caching. Note: we are disabling lookahead here because of windowed queries that need to "look behind" as well.
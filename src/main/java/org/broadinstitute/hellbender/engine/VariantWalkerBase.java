@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.engine.filters.VariantFilterLibrary;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.IndexUtils;
+import org.broadinstitute.hellbender.utils.variant.VariantProjection;
 
 import java.util.Spliterator;
 import java.util.stream.Stream;
@@ -128,6 +129,21 @@ public abstract class VariantWalkerBase extends WalkerBase {
         return DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES;
     }
 
+    /**
+     * Returns the parts of each driving variant that this tool needs: which INFO keys, FORMAT keys and samples.
+     * Driving variants read from VCF files are decoded with only those parts (and their header has only the
+     * projected samples), which saves most of the parsing when a tool needs a few fields or samples of a wide VCF.
+     * Other sources of variants are decoded in full.
+     *
+     * This is called while the driving variants are initialized, so it can depend on the tool's arguments but not on
+     * the header. The default implementation keeps everything.
+     *
+     * Subclasses can override it to declare what they use; they must not use anything else from the driving variants.
+     */
+    protected VariantProjection getDrivingVariantsProjection() {
+        return VariantProjection.ALL;
+    }
+
     /**
      * Returns the pre-filter variant transformer (simple or composite) that will be applied to the variants before filtering.
      * The default implementation uses the {@link VariantTransformer#identity()}.
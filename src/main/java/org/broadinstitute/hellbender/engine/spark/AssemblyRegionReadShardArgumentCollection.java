@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 
 import java.io.Serializable;
@@ -15,4 +16,31 @@ public class AssemblyRegionReadShardArgumentCollection implements Serializable {
 
     @Argument(fullName="read-shard-padding", shortName="read-shard-padding", doc = "Each read shard has this many bases of extra context on each side. Read shards must have as much or more padding than assembly regions.", optional = true)
     public int readShardPadding = DEFAULT_READSHARD_PADDING_SIZE;
+
+    public static final String ADAPTIVE_READ_SHARDS_LONG_NAME = "adaptive-read-shards";
+    public static final String READ_SHARD_COST_TRACK_LONG_NAME = "read-shard-cost-track";
+    public static final String MIN_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME = "min-adaptive-read-shard-size";
+    public static final String MAX_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME = "max-adaptive-read-shard-size";
+
+    public static final int DEFAULT_MIN_ADAPTIVE_READSHARD_SIZE = 1000;
+    public static final int DEFAULT_MAX_ADAPTIVE_READSHARD_SIZE = 50000;
+
+    @Advanced
+    @Argument(fullName = ADAPTIVE_READ_SHARDS_LONG_NAME, doc = "Choose read shard boundaries so that each shard has roughly the same estimated cost, rather than the same size. " +
+            "Costs are estimated from the read index, or from the cost track if one is given. Read shards are then between the minimum and maximum adaptive read shard sizes, " +
+            "and a shard of average cost covers read-shard-size bases.", optional = true)
+    public boolean adaptiveReadShards = false;
+
+    @Advanced
+    @Argument(fullName = READ_SHARD_COST_TRACK_LONG_NAME, doc = "Read counts (as produced by CollectReadCounts, in TSV or HDF5 format) to use as the cost of each region when choosing adaptive read shards, " +
+            "instead of estimating costs from the read index.", optional = true)
+    public String readShardCostTrack = null;
+
+    @Advanced
+    @Argument(fullName = MIN_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME, doc = "Minimum size of each adaptive read shard, in bases. This should be larger than the maximum assembly region size.", optional = true)
+    public int minAdaptiveReadShardSize = DEFAULT_MIN_ADAPTIVE_READSHARD_SIZE;
+
+    @Advanced
+    @Argument(fullName = MAX_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME, doc = "Maximum size of each adaptive read shard, in bases.", optional = true)
+    public int maxAdaptiveReadShardSize = DEFAULT_MAX_ADAPTIVE_READSHARD_SIZE;
 }
@@ -1,19 +1,26 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.CloserUtil;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
@@ -83,14 +90,56 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
     protected List<SimpleInterval> editIntervals(List<SimpleInterval> rawIntervals) {
         SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
         List<SimpleInterval> intervals = rawIntervals == null ? IntervalUtils.getAllIntervalsForReference(sequenceDictionary) : rawIntervals;
-        intervalShards = intervals.stream()
-                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, shardingArgs.readShardSize, shardingArgs.readShardPadding, sequenceDictionary).stream())
-                .collect(Collectors.toList());
+        if (shardingArgs.adaptiveReadShards) {
+            intervalShards = getShardCostModel(sequenceDictionary).divideIntervalsIntoShards(intervals, shardingArgs.readShardSize,
+                    shardingArgs.minAdaptiveReadShardSize, shardingArgs.maxAdaptiveReadShardSize, shardingArgs.readShardPadding, sequenceDictionary);
+            logger.info(String.format("Divided %d intervals into %d adaptive read shards", intervals.size(), intervalShards.size()));
+        } else {
+            intervalShards = intervals.stream()
+                    .flatMap(interval -> Shard.divideIntervalIntoShards(interval, shardingArgs.readShardSize, shardingArgs.readShardPadding, sequenceDictionary).stream())
+                    .collect(Collectors.toList());
+        }
         List<SimpleInterval> paddedIntervalsForReads =
                 intervals.stream().map(interval -> interval.expandWithinContig(shardingArgs.readShardPadding, sequenceDictionary)).collect(Collectors.toList());
         return paddedIntervalsForReads;
     }
 
+    /**
+     * @return the model used to estimate the cost of each read shard, from the cost track if one was given or else
+     * from the indices of the reads
+     */
+    private ShardCostModel getShardCostModel(final SAMSequenceDictionary sequenceDictionary) {
+        if (shardingArgs.minAdaptiveReadShardSize < 1 || shardingArgs.minAdaptiveReadShardSize > shardingArgs.readShardSize) {
+            throw new CommandLineException.BadArgumentValue(AssemblyRegionReadShardArgumentCollection.MIN_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME,
+                    String.valueOf(shardingArgs.minAdaptiveReadShardSize), "must be positive and no larger than the read shard size");
+        }
+        if (shardingArgs.maxAdaptiveReadShardSize < shardingArgs.readShardSize) {
+            throw new CommandLineException.BadArgumentValue(AssemblyRegionReadShardArgumentCollection.MAX_ADAPTIVE_READ_SHARD_SIZE_LONG_NAME,
+                    String.valueOf(shardingArgs.maxAdaptiveReadShardSize), "must be no smaller than the read shard size");
+        }
+        if (shardingArgs.readShardCostTrack != null) {
+            return ShardCostModel.readCoverageTrack(shardingArgs.readShardCostTrack);
+        }
+        final List<BAMIndex> indices = new ArrayList<>();
+        final List<SamReader> readers = new ArrayList<>();
+        try {
+            for (final Path readPath : readArguments.getReadPaths()) {
+                final SamReader reader = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency()).open(readPath);
+                readers.add(reader);
+                if (reader.type() != SamReader.Type.BAM_TYPE || !reader.hasIndex()) {
+                    throw new UserException.BadInput("Adaptive read shards need an indexed BAM to estimate shard costs from, " +
+                            "or a cost track (--" + AssemblyRegionReadShardArgumentCollection.READ_SHARD_COST_TRACK_LONG_NAME + "), but " + readPath.toUri() + " is not an indexed BAM");
+                }
+                indices.add(reader.indexing().getIndex());
+            }
+            return ShardCostModel.fromBamIndices(indices, sequenceDictionary);
+        } finally {
+            for (final SamReader reader : readers) {
+                CloserUtil.close(reader);
+            }
+        }
+    }
+
     /**
      * Loads assembly regions and the corresponding reference and features into a {@link JavaRDD} for the intervals specified.
      *
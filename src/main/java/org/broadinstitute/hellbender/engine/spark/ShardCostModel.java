@@ -0,0 +1,288 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * An estimate of the relative cost of processing each part of the genome, used to choose read shard boundaries so
+ * that every shard carries roughly the same amount of work, rather than covering the same number of bases.
+ * <p>
+ *     The model is a piecewise constant cost per base along each contig. It can be estimated from the BAM index, where
+ *     the cost of each 16kb index window is the number of compressed bytes of the file that hold its reads, or from
+ *     a prior coverage track, such as the counts produced by CollectReadCounts for a similar sample. Regions that are
+ *     not covered by the model have no cost.
+ * </p>
+ */
+public final class ShardCostModel {
+
+    // The resolution of the linear index in a BAI file
+    static final int BAM_INDEX_WINDOW_SIZE = 1 << 14;
+
+    private final Map<String, ContigCosts> costsByContig = new HashMap<>();
+
+    /**
+     * @param intervals non-overlapping intervals with a known cost, in any order
+     * @param costs the cost of each interval, must be non-negative
+     */
+    public ShardCostModel(final List<SimpleInterval> intervals, final double[] costs) {
+        Utils.nonNull(intervals);
+        Utils.nonNull(costs);
+        Utils.validateArg(intervals.size() == costs.length, "there must be one cost for each interval");
+        final Map<String, List<Integer>> indicesByContig = new LinkedHashMap<>();
+        for (int i = 0; i < intervals.size(); i++) {
+            Utils.validateArg(costs[i] >= 0, () -> "costs must be non-negative");
+            indicesByContig.computeIfAbsent(intervals.get(i).getContig(), contig -> new ArrayList<>()).add(i);
+        }
+        for (final Map.Entry<String, List<Integer>> entry : indicesByContig.entrySet()) {
+            final List<Integer> indices = entry.getValue();
+            indices.sort(Comparator.comparingInt(i -> intervals.get(i).getStart()));
+            final int[] starts = new int[indices.size()];
+            final int[] ends = new int[indices.size()];
+            final double[] costPerBase = new double[indices.size()];
+            for (int n = 0; n < indices.size(); n++) {
+                final SimpleInterval interval = intervals.get(indices.get(n));
+                Utils.validateArg(n == 0 || interval.getStart() > ends[n - 1], () -> "intervals must not overlap, but found " + interval);
+                starts[n] = interval.getStart();
+                ends[n] = interval.getEnd();
+                costPerBase[n] = costs[indices.get(n)] / interval.size();
+            }
+            costsByContig.put(entry.getKey(), new ContigCosts(starts, ends, costPerBase));
+        }
+    }
+
+    /**
+     * Estimates costs from one or more BAM indices, summing the estimates if there is more than one.
+     * The cost of each index window is the approximate number of compressed bytes spanned by the chunks overlapping it,
+     * see {@link #getWindowCosts}.
+     */
+    public static ShardCostModel fromBamIndices(final List<BAMIndex> indices, final SAMSequenceDictionary dictionary) {
+        Utils.nonEmpty(indices);
+        Utils.nonNull(dictionary);
+        final List<SimpleInterval> windows = new ArrayList<>();
+        final List<Double> windowCosts = new ArrayList<>();
+        for (final SAMSequenceRecord sequence : dictionary.getSequences()) {
+            final List<SimpleInterval> contigWindows = new ArrayList<>();
+            for (int start = 1; start <= sequence.getSequenceLength(); start += BAM_INDEX_WINDOW_SIZE) {
+                final int end = Math.min(start + BAM_INDEX_WINDOW_SIZE - 1, sequence.getSequenceLength());
+                contigWindows.add(new SimpleInterval(sequence.getSequenceName(), start, end));
+            }
+            final double[] contigCosts = new double[contigWindows.size()];
+            for (final BAMIndex index : indices) {
+                final List<List<Chunk>> chunksByWindow = new ArrayList<>(contigWindows.size());
+                for (final SimpleInterval window : contigWindows) {
+                    final BAMFileSpan span = index.getSpanOverlapping(sequence.getSequenceIndex(), window.getStart(), window.getEnd());
+                    chunksByWindow.add(span == null ? Collections.emptyList() : span.getChunks());
+                }
+                final double[] indexCosts = getWindowCosts(chunksByWindow);
+                for (int w = 0; w < contigCosts.length; w++) {
+                    contigCosts[w] += indexCosts[w];
+                }
+            }
+            windows.addAll(contigWindows);
+            for (final double cost : contigCosts) {
+                windowCosts.add(cost);
+            }
+        }
+        return new ShardCostModel(windows, windowCosts.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * The cost of each of a series of windows, from the chunks of the file that hold their reads. The cost of a chunk
+     * is the distance between the compressed addresses of the BGZF blocks it starts and ends in; offsets within the
+     * uncompressed blocks are not comparable to those, and are ignored. Chunks (or parts of chunks) that hold reads
+     * of several windows, such as the chunks of bins larger than a window, are only counted in the first of them.
+     *
+     * @param chunksByWindow the chunks overlapping each window, in order
+     * @return the cost of each window
+     */
+    static double[] getWindowCosts(final List<List<Chunk>> chunksByWindow) {
+        Utils.nonNull(chunksByWindow);
+        // disjoint ranges [start, end) of block addresses that have already been counted, by start
+        final TreeMap<Long, Long> countedRanges = new TreeMap<>();
+        final double[] costs = new double[chunksByWindow.size()];
+        for (int w = 0; w < costs.length; w++) {
+            for (final Chunk chunk : chunksByWindow.get(w)) {
+                costs[w] += countOnce(countedRanges,
+                        BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkStart()),
+                        BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkEnd()));
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Adds the range [start, end) to the counted ranges
+     *
+     * @return the number of addresses in the range that had not been counted yet
+     */
+    private static long countOnce(final TreeMap<Long, Long> countedRanges, final long start, final long end) {
+        if (end <= start) {
+            return 0;
+        }
+        long uncounted = 0;
+        long position = start;
+        long mergedStart = start;
+        long mergedEnd = end;
+        final Long previousStart = countedRanges.floorKey(start);
+        final Long firstOverlapping = previousStart != null && countedRanges.get(previousStart) >= start ? previousStart : countedRanges.ceilingKey(start);
+        if (firstOverlapping != null) {
+            final Iterator<Map.Entry<Long, Long>> overlapping = countedRanges.tailMap(firstOverlapping, true).entrySet().iterator();
+            while (overlapping.hasNext()) {
+                final Map.Entry<Long, Long> range = overlapping.next();
+                if (range.getKey() > end) {
+                    break;
+                }
+                if (range.getKey() > position) {
+                    uncounted += range.getKey() - position;
+                }
+                position = Math.max(position, range.getValue());
+                mergedStart = Math.min(mergedStart, range.getKey());
+                mergedEnd = Math.max(mergedEnd, range.getValue());
+                overlapping.remove();
+            }
+        }
+        if (position < end) {
+            uncounted += end - position;
+        }
+        countedRanges.put(mergedStart, mergedEnd);
+        return uncounted;
+    }
+
+    /**
+     * Estimates costs from a coverage track, where the cost of each interval is its count.
+     */
+    public static ShardCostModel fromCoverageTrack(final SimpleCountCollection coverage) {
+        Utils.nonNull(coverage);
+        final List<SimpleCount> counts = coverage.getRecords();
+        final List<SimpleInterval> intervals = new ArrayList<>(counts.size());
+        final double[] costs = new double[counts.size()];
+        for (int i = 0; i < counts.size(); i++) {
+            intervals.add(counts.get(i).getInterval());
+            costs[i] = counts.get(i).getCount();
+        }
+        return new ShardCostModel(intervals, costs);
+    }
+
+    /**
+     * @return the estimated cost of the given interval
+     */
+    public double estimateCost(final SimpleInterval interval) {
+        Utils.nonNull(interval);
+        final ContigCosts contigCosts = costsByContig.get(interval.getContig());
+        return contigCosts == null ? 0 : contigCosts.estimateCost(interval.getStart(), interval.getEnd());
+    }
+
+    /**
+     * Divides intervals into shards of roughly equal cost. The target cost of a shard is the cost that a shard of
+     * {@code nominalShardSize} bases would have if the total cost were spread evenly over all the intervals, so the
+     * number of shards is about the same as with fixed size sharding. Shards are built greedily from windows of
+     * {@code minShardSize} bases: hot regions are split into shards as small as a single window, and cold regions are
+     * merged into shards of up to {@code maxShardSize} bases. Shards never span more than one interval.
+     *
+     * @param intervals intervals to shard; must be on contigs in the provided dictionary
+     * @param nominalShardSize the size of a shard of average cost
+     * @param minShardSize the smallest shard size, and the granularity of shard boundaries
+     * @param maxShardSize the largest shard size
+     * @param shardPadding each shard's interval will be padded on both sides by this number of bases (may be 0)
+     * @param dictionary sequence dictionary for reads
+     * @return List of {@link ShardBoundary} objects spanning the intervals, in the same order as the intervals
+     */
+    public List<ShardBoundary> divideIntervalsIntoShards(final List<SimpleInterval> intervals, final int nominalShardSize,
+                                                         final int minShardSize, final int maxShardSize,
+                                                         final int shardPadding, final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(intervals);
+        Utils.nonNull(dictionary);
+        Utils.validateArg(minShardSize >= 1, "minShardSize must be >= 1");
+        Utils.validateArg(minShardSize <= nominalShardSize && nominalShardSize <= maxShardSize,
+                "the shard sizes must satisfy minShardSize <= nominalShardSize <= maxShardSize");
+        Utils.validateArg(shardPadding >= 0, "shardPadding must be >= 0");
+
+        long totalBases = 0;
+        double totalCost = 0;
+        for (final SimpleInterval interval : intervals) {
+            Utils.validateArg(IntervalUtils.intervalIsOnDictionaryContig(interval, dictionary), () ->
+                    "Interval " + interval + " not within the bounds of a contig in the provided dictionary");
+            totalBases += interval.size();
+            totalCost += estimateCost(interval);
+        }
+        final double targetCost = totalBases == 0 ? 0 : totalCost * nominalShardSize / totalBases;
+
+        final List<ShardBoundary> shards = new ArrayList<>();
+        for (final SimpleInterval interval : intervals) {
+            int start = interval.getStart();
+            while (start <= interval.getEnd()) {
+                int end = Math.min(start + minShardSize - 1, interval.getEnd());
+                double cost = estimateCost(new SimpleInterval(interval.getContig(), start, end));
+                while (end < interval.getEnd()) {
+                    final int nextEnd = Math.min(end + minShardSize, interval.getEnd());
+                    if (nextEnd - start + 1 > maxShardSize) {
+                        break;
+                    }
+                    final double nextCost = estimateCost(new SimpleInterval(interval.getContig(), end + 1, nextEnd));
+                    if (cost + nextCost > targetCost) {
+                        break;
+                    }
+                    cost += nextCost;
+                    end = nextEnd;
+                }
+                final SimpleInterval shardInterval = new SimpleInterval(interval.getContig(), start, end);
+                shards.add(new ShardBoundary(shardInterval, shardInterval.expandWithinContig(shardPadding, dictionary)));
+                start = end + 1;
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Loads a cost model from a coverage track in any format supported by {@link SimpleCountCollection}.
+     */
+    public static ShardCostModel readCoverageTrack(final String coverageTrack) {
+        Utils.nonNull(coverageTrack);
+        return fromCoverageTrack(SimpleCountCollection.read(new File(coverageTrack)));
+    }
+
+    private static final class ContigCosts {
+        private final int[] starts;
+        private final int[] ends;
+        private final double[] costPerBase;
+
+        ContigCosts(final int[] starts, final int[] ends, final double[] costPerBase) {
+            this.starts = starts;
+            this.ends = ends;
+            this.costPerBase = costPerBase;
+        }
+
+        double estimateCost(final int start, final int end) {
+            // find the first segment that ends at or after the start of the query
+            int low = 0;
+            int high = ends.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (ends[mid] < start) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            double cost = 0;
+            for (int i = low; i < starts.length && starts[i] <= end; i++) {
+                final int overlap = Math.min(end, ends[i]) - Math.max(start, starts[i]) + 1;
+                cost += overlap * costPerBase[i];
+            }
+            return cost;
+        }
+    }
+}
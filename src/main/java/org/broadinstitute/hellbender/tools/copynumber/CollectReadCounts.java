@@ -1,11 +1,7 @@
 package org.broadinstitute.hellbender.tools.copynumber;
 
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multiset;
 import htsjdk.samtools.SAMSequenceDictionary;
-import htsjdk.samtools.util.Locatable;
-import htsjdk.samtools.util.OverlapDetector;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
@@ -17,7 +13,6 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.HDF5SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
@@ -26,16 +21,13 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.MetadataU
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
 import org.broadinstitute.hellbender.utils.IntervalMergingRule;
-import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Collects read counts at specified intervals.  The count for each interval is calculated by counting
@@ -94,7 +86,7 @@ import java.util.stream.Collectors;
 @DocumentedFeature
 public final class CollectReadCounts extends ReadWalker {
     public enum Format {
-        TSV, HDF5
+        TSV, HDF5, BINARY
     }
 
     private static final int DEFAULT_MINIMUM_MAPPING_QUALITY = 30;
@@ -122,14 +114,10 @@ public final class CollectReadCounts extends ReadWalker {
 
     private List<SimpleInterval> intervals;
 
-    private String currentContig = null;
-
     /**
-     * Overlap detector used to determine when read starts overlap with input intervals.
+     * Counts read starts in the input intervals.
      */
-    private CachedOverlapDetector<SimpleInterval> intervalCachedOverlapDetector;
-
-    private Multiset<SimpleInterval> intervalMultiset;
+    private IntervalBinCounter intervalBinCounter;
 
     @Override
     public boolean requiresIntervals() {
@@ -159,7 +147,7 @@ public final class CollectReadCounts extends ReadWalker {
         }
 
         intervals = intervalArgumentCollection.getIntervals(sequenceDictionary);
-        intervalMultiset = HashMultiset.create(intervals.size());
+        intervalBinCounter = new IntervalBinCounter(intervals);
 
         logger.info("Collecting read counts...");
     }
@@ -171,35 +159,24 @@ public final class CollectReadCounts extends ReadWalker {
 
     @Override
     public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
-        if (currentContig == null || !read.getContig().equals(currentContig)) {
-            //if we are on a new contig, create an OverlapDetector covering the contig
-            currentContig = read.getContig();
-            final List<SimpleInterval> intervalsOnCurrentContig = intervals.stream()
-                    .filter(i -> i.getContig().equals(currentContig))
-                    .collect(Collectors.toList());
-            intervalCachedOverlapDetector = new CachedOverlapDetector<>(intervalsOnCurrentContig);
-        }
-        final SimpleInterval overlappingInterval = intervalCachedOverlapDetector.getOverlap(
-                new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
-
-        //if read doesn't overlap any of the provided intervals, do nothing
-        if (overlappingInterval == null) {
-            return;
-        }
-        intervalMultiset.add(overlappingInterval);
+        //if read doesn't overlap any of the provided intervals, this does nothing
+        intervalBinCounter.add(read.getContig(), read.getStart());
     }
 
     @Override
     public Object onTraversalSuccess() {
         logger.info(String.format("Writing read counts to %s...", outputCountsFile.getAbsolutePath()));
+        final int[] counts = intervalBinCounter.getCounts();
         final SimpleCountCollection readCounts = new SimpleCountCollection(
                 metadata,
-                ImmutableList.copyOf(intervals.stream()     //making this an ImmutableList avoids a defensive copy in SimpleCountCollection
-                        .map(i -> new SimpleCount(i, intervalMultiset.count(i)))
+                ImmutableList.copyOf(IntStream.range(0, intervals.size())     //making this an ImmutableList avoids a defensive copy in SimpleCountCollection
+                        .mapToObj(i -> new SimpleCount(intervals.get(i), counts[i]))
                         .iterator()));
 
         if (format == Format.HDF5) {
             readCounts.writeHDF5(outputCountsFile);
+        } else if (format == Format.BINARY) {
+            readCounts.writeBinary(outputCountsFile);
         } else {
             readCounts.write(outputCountsFile);
         }
@@ -210,43 +187,90 @@ public final class CollectReadCounts extends ReadWalker {
     }
 
     /**
-     * A simple wrapper around {@link OverlapDetector} to provide naive caching and ensure that overlap sets
-     * only contain a single interval.
+     * Counts the read starts falling in each of a list of non-overlapping intervals, which are held as flat arrays
+     * of the starts and ends of the intervals on each contig, sorted by start.  Since reads are traversed in
+     * coordinate order, a cursor into the arrays for the current contig is advanced from the previous query,
+     * which makes lookups amortized constant time without allocation; a query that moves backwards
+     * falls back to binary search.
      */
-    private final class CachedOverlapDetector<T extends Locatable> {
-        private final OverlapDetector<T> overlapDetector;
-        private T cachedResult;
+    static final class IntervalBinCounter {
+        private final int[] counts;
+        private final Map<String, ContigBins> contigBinsMap;
 
-        CachedOverlapDetector(final List<T> intervals) {
+        private String currentContig = null;
+        private ContigBins currentContigBins = null;    //null if there are no intervals on the current contig
+        private int cursor;
+
+        /**
+         * @param intervals non-overlapping intervals; counts are returned in the same order
+         */
+        IntervalBinCounter(final List<SimpleInterval> intervals) {
             Utils.nonEmpty(intervals);
-            this.overlapDetector = OverlapDetector.create(intervals);
-            //double check that intervals do not overlap
-            Utils.validateArg(intervals.stream().noneMatch(i -> overlapDetector.getOverlaps(i).size() > 1),
-                    "Input intervals may not be overlapping.");
-            cachedResult = intervals.get(0);
+            counts = new int[intervals.size()];
+            final Map<String, List<Integer>> intervalIndicesByContig = new LinkedHashMap<>();
+            for (int intervalIndex = 0; intervalIndex < intervals.size(); intervalIndex++) {
+                intervalIndicesByContig.computeIfAbsent(intervals.get(intervalIndex).getContig(), c -> new ArrayList<>()).add(intervalIndex);
+            }
+            contigBinsMap = new HashMap<>(intervalIndicesByContig.size());
+            intervalIndicesByContig.forEach((contig, intervalIndices) -> contigBinsMap.put(contig, new ContigBins(intervals, intervalIndices)));
         }
 
         /**
-         * We check the previously cached result first.  Assuming that queries will be made in sorted order,
-         * this may slightly save on lookup time.
-         * @return {@code null} if no interval overlaps {@code locatable}
+         * Increments the count of the interval containing {@code position}, if there is one.
          */
-        T getOverlap(final Locatable locatable) {
-            if (IntervalUtils.overlaps(cachedResult, locatable)) {
-                return cachedResult;
+        void add(final String contig, final int position) {
+            if (!contig.equals(currentContig)) {
+                currentContig = contig;
+                currentContigBins = contigBinsMap.get(contig);
+                cursor = 0;
             }
-            final Set<T> overlaps = overlapDetector.getOverlaps(locatable);
-            if (overlaps.size() > 1) {
-                //should not reach here since intervals are checked for overlaps;
-                //performing a redundant check to protect against future code changes
-                throw new GATKException.ShouldNeverReachHereException("Intervals should be non-overlapping, " +
-                        "so at most one interval should intersect with the start of a read.");
+            if (currentContigBins == null) {
+                return;
             }
-            final T firstOverlap = overlaps.stream().findFirst().orElse(null);
-            if (firstOverlap != null) {
-                cachedResult = firstOverlap;
+            final int[] starts = currentContigBins.starts;
+            if (position < starts[cursor]) {
+                //find the last interval starting at or before the position
+                final int searchResult = Arrays.binarySearch(starts, position);
+                final int bin = searchResult >= 0 ? searchResult : -searchResult - 2;
+                if (bin < 0) {
+                    return;
+                }
+                cursor = bin;
+            } else {
+                while (cursor + 1 < starts.length && starts[cursor + 1] <= position) {
+                    cursor++;
+                }
+            }
+            if (position <= currentContigBins.ends[cursor]) {
+                counts[currentContigBins.intervalIndices[cursor]]++;
+            }
+        }
+
+        /**
+         * @return the counts, in the order of the intervals given at construction
+         */
+        int[] getCounts() {
+            return counts;
+        }
+
+        private static final class ContigBins {
+            private final int[] starts;
+            private final int[] ends;
+            private final int[] intervalIndices;
+
+            ContigBins(final List<SimpleInterval> intervals,
+                       final List<Integer> intervalIndicesOnContig) {
+                final int[] sortedIndices = intervalIndicesOnContig.stream()
+                        .sorted(Comparator.comparingInt(i -> intervals.get(i).getStart()))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                starts = Arrays.stream(sortedIndices).map(i -> intervals.get(i).getStart()).toArray();
+                ends = Arrays.stream(sortedIndices).map(i -> intervals.get(i).getEnd()).toArray();
+                intervalIndices = sortedIndices;
+                for (int bin = 1; bin < starts.length; bin++) {
+                    Utils.validateArg(ends[bin - 1] < starts[bin], "Input intervals may not be overlapping.");
+                }
             }
-            return firstOverlap;
         }
     }
 }
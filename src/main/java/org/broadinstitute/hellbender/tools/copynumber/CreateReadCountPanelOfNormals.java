@@ -19,7 +19,9 @@ import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStanda
 import org.broadinstitute.hellbender.tools.copynumber.denoising.GCBiasCorrector;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.HDF5SVDReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AnnotatedIntervalCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinaryColumnarCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.annotation.CopyNumberAnnotations;
 import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -138,6 +140,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     public static final String EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME = "extreme-sample-median-percentile";
     public static final String IMPUTE_ZEROS_LONG_NAME = "do-impute-zeros";
     public static final String EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME = "extreme-outlier-truncation-percentile";
+    public static final String NUMBER_OF_SVD_THREADS_LONG_NAME = "number-of-svd-threads";
     public static final String MAXIMUM_CHUNK_SIZE = "maximum-chunk-size";
 
     @Argument(
@@ -249,6 +252,16 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private int maximumChunkSize = DEFAULT_MAXIMUM_CHUNK_SIZE;
 
+    @Advanced
+    @Argument(
+            doc = "Number of threads to use for the randomized truncated SVD, which is performed instead of a full SVD " +
+                    "when the number of eigensamples is much smaller than the number of samples retained after filtering.",
+            fullName = NUMBER_OF_SVD_THREADS_LONG_NAME,
+            minValue = 1,
+            optional = true
+    )
+    private int numSVDThreads = 1;
+
     @Override
     protected void runPipeline(final JavaSparkContext ctx) {
         if (!new HDF5Library().load(null)) {  //Note: passing null means using the default temp dir.
@@ -291,7 +304,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
                 sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
                 minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
                 extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
-                maximumChunkSize, ctx);
+                maximumChunkSize, numSVDThreads, ctx);
 
         logger.info(String.format("%s complete.", getClass().getSimpleName()));
     }
@@ -324,13 +337,27 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
             final int sampleIndex = inputReadCountFilesIterator.nextIndex();
             final File inputReadCountFile = inputReadCountFilesIterator.next();
             logger.info(String.format("Aggregating read-counts file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
-            final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
-            if (!CopyNumberArgumentValidationUtils.isSameDictionary(readCounts.getMetadata().getSequenceDictionary(), sequenceDictionary)) {
+            final SampleLocatableMetadata metadata;
+            final double[] counts;
+            final boolean isMatchingIntervals;
+            if (BinaryColumnarCollection.isBinaryColumnarFile(inputReadCountFile.toPath())) {
+                //read the counts straight from the mapped file, without constructing a record for each interval
+                final BinaryColumnarCollection readCounts = new BinaryColumnarCollection(inputReadCountFile);
+                metadata = readCounts.getMetadata();
+                isMatchingIntervals = readCounts.hasIntervals(intervals);
+                counts = readCounts.getDoubleValues();
+            } else {
+                final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
+                metadata = readCounts.getMetadata();
+                isMatchingIntervals = readCounts.getIntervals().equals(intervals);
+                counts = readCounts.getCounts();
+            }
+            if (!CopyNumberArgumentValidationUtils.isSameDictionary(metadata.getSequenceDictionary(), sequenceDictionary)) {
                 logger.warn(String.format("Sequence dictionary for read-counts file %s does not match those in other read-counts files.", inputReadCountFile));
             }
-            Utils.validateArg(readCounts.getIntervals().equals(intervals),
+            Utils.validateArg(isMatchingIntervals,
                     String.format("Intervals for read-counts file %s do not match those in other read-counts files.", inputReadCountFile));
-            readCountMatrix.setRow(sampleIndex, readCounts.getCounts());
+            readCountMatrix.setRow(sampleIndex, counts);
         }
         return readCountMatrix;
     }
@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgume
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.*;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AnnotatedIntervalCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinaryColumnarCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CopyRatioCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.annotation.CopyNumberAnnotations;
@@ -89,6 +90,12 @@ import java.io.File;
  *     </li>
  * </ul>
  *
+ * <p>
+ *     With {@code --format BINARY}, both files are instead written in the binary columnar format of
+ *     {@link BinaryColumnarCollection}, which {@link ModelSegments} and the plotting tools read directly,
+ *     without parsing text.
+ * </p>
+ *
  * <h3>Usage examples</h3>
  *
  * <pre>
@@ -123,6 +130,12 @@ import java.io.File;
 )
 @DocumentedFeature
 public final class DenoiseReadCounts extends CommandLineProgram {
+    public enum Format {
+        TSV, BINARY
+    }
+
+    public static final String FORMAT_LONG_NAME = "format";
+
     @Argument(
             doc = "Input TSV or HDF5 file containing integer read counts in genomic intervals for a single case sample (output of CollectReadCounts).",
             fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
@@ -168,6 +181,13 @@ public final class DenoiseReadCounts extends CommandLineProgram {
     )
     private Integer numEigensamplesRequested = null;
 
+    @Argument(
+            doc = "Output file format for the standardized and denoised copy ratios.",
+            fullName = FORMAT_LONG_NAME,
+            optional = true
+    )
+    private Format format = Format.TSV;
+
     @Override
     protected Object doWork() {
         if (!new HDF5Library().load(null)) { //Note: passing null means using the default temp dir.
@@ -246,6 +266,10 @@ public final class DenoiseReadCounts extends CommandLineProgram {
         logger.info(String.format("Writing standardized and denoised copy ratios to %s and %s...",
                 outputStandardizedCopyRatiosFile.getAbsolutePath(),
                 outputDenoisedCopyRatiosFile.getAbsolutePath()));
-        result.write(outputStandardizedCopyRatiosFile, outputDenoisedCopyRatiosFile);
+        if (format == Format.BINARY) {
+            result.writeBinary(outputStandardizedCopyRatiosFile, outputDenoisedCopyRatiosFile);
+        } else {
+            result.write(outputStandardizedCopyRatiosFile, outputDenoisedCopyRatiosFile);
+        }
     }
 }
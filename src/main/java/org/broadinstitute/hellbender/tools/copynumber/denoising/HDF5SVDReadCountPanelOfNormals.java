@@ -22,6 +22,9 @@ import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.spark.SparkConverter;
+import org.broadinstitute.hellbender.utils.svd.RandomizedSingularValueDecomposer;
+import org.broadinstitute.hellbender.utils.svd.SVD;
+import org.broadinstitute.hellbender.utils.svd.SVDFactory;
 
 import java.io.File;
 import java.io.StringWriter;
@@ -236,6 +239,9 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
      * The dimensions of {@code originalReadCounts} should be samples x intervals.
      * To reduce memory footprint, {@code originalReadCounts} is modified in place.
      * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     * If the number of eigensamples is much smaller than the dimensions of the filtered panel
+     * (see {@link SVDFactory#isRandomizedSVDPreferred}), a randomized truncated SVD using {@code numSVDThreads}
+     * threads is performed; otherwise, the SVD is performed using Spark.
      */
     public static void create(final File outFile,
                               final String commandLine,
@@ -252,6 +258,7 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                               final double extremeOutlierTruncationPercentile,
                               final int numEigensamplesRequested,
                               final int maximumChunkSize,
+                              final int numSVDThreads,
                               final JavaSparkContext ctx) {
         try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE)) {
             logger.info(String.format("Creating read-count panel of normals at %s...", outFile.getAbsolutePath()));
@@ -321,10 +328,30 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
             logger.info(String.format("Performing SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
                     numEigensamples, numPanelIntervals, numPanelSamples));
             if (numPanelSamples > 1 && numEigensamples > 0) {
-                final SingularValueDecomposition<RowMatrix, Matrix> svd = SparkConverter.convertRealMatrixToSparkRowMatrix(
-                        ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
-                        .computeSVD(numEigensamples, true, EPSILON);
-                final double[] singularValues = svd.s().toArray();    //should be in decreasing order (with corresponding matrices below)
+                final double[] singularValues;      //should be in decreasing order (with corresponding eigensample vectors below)
+                final double[][] eigensampleVectors;
+                if (SVDFactory.isRandomizedSVDPreferred(numPanelSamples, numPanelIntervals, numEigensamples)) {
+                    //the standardized counts are decomposed directly (rather than transposed), so the eigensample vectors are the right singular vectors;
+                    //as in the Spark decomposition below, singular values less than EPSILON times the largest are discarded
+                    final SVD svd = new RandomizedSingularValueDecomposer(numEigensamples, numSVDThreads)
+                            .createSVD(preprocessedStandardizedResult.preprocessedStandardizedValues);
+                    final double largestSingularValue = svd.getSingularValues()[0];
+                    final int numNonZeroSingularValues = (int) Arrays.stream(svd.getSingularValues())
+                            .filter(s -> s > EPSILON * largestSingularValue)
+                            .count();
+                    singularValues = Arrays.copyOf(svd.getSingularValues(), numNonZeroSingularValues);
+                    eigensampleVectors = numNonZeroSingularValues == 0
+                            ? new double[numPanelIntervals][0]
+                            : svd.getV().getSubMatrix(0, numPanelIntervals - 1, 0, numNonZeroSingularValues - 1).getData();
+                } else {
+                    final SingularValueDecomposition<RowMatrix, Matrix> svd = SparkConverter.convertRealMatrixToSparkRowMatrix(
+                            ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
+                            .computeSVD(numEigensamples, true, EPSILON);
+                    singularValues = svd.s().toArray();
+                    eigensampleVectors = singularValues.length == 0
+                            ? new double[numPanelIntervals][0]
+                            : SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
+                }
                 if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
                     //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
                     throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
@@ -334,7 +361,6 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                     logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
                             numEigensamples, singularValues.length));
                 }
-                final double[][] eigensampleVectors = SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
 
                 logger.info(String.format("Writing singular values (%d)...", singularValues.length));
                 pon.writeSingularValues(singularValues);
@@ -64,4 +64,16 @@ public final class SVDDenoisedCopyRatioResult {
         standardizedCopyRatios.write(standardizedCopyRatiosFile);
         denoisedCopyRatios.write(denoisedCopyRatiosFile);
     }
+
+    /**
+     * As {@link #write}, but in the binary columnar format of
+     * {@link org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinaryColumnarCollection}.
+     */
+    public void writeBinary(final File standardizedCopyRatiosFile,
+                            final File denoisedCopyRatiosFile) {
+        Utils.nonNull(standardizedCopyRatiosFile);
+        Utils.nonNull(denoisedCopyRatiosFile);
+        standardizedCopyRatios.writeBinary(standardizedCopyRatiosFile);
+        denoisedCopyRatios.writeBinary(denoisedCopyRatiosFile);
+    }
 }
@@ -0,0 +1,326 @@
+package org.broadinstitute.hellbender.tools.copynumber.formats.collections;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.util.BufferedLineReader;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helper class for {@link SimpleCountCollection} and {@link CopyRatioCollection} used to read/write
+ * a binary columnar format.  Files are memory mapped when read, and the values are returned as primitive arrays
+ * without parsing text or constructing a record per interval, which makes this format much faster to load than TSV
+ * for large numbers of intervals (e.g., when building a panel of normals from many samples).
+ * Tools that only need the values can read them directly using the public methods of this class.
+ *
+ * <p>
+ *     All numbers are big-endian.  The file consists of:
+ * </p>
+ * <ul>
+ *     <li>
+ *         header: the 8-byte signature {@code GATKCNBC}, the format version, the value type (0 for integer counts,
+ *         1 for double values), the sample name, the sequence dictionary (as SAM header text) and the number of intervals;
+ *         integers are 4 bytes and strings are written as a 4-byte length followed by UTF-8 bytes
+ *     </li>
+ *     <li>
+ *         columns, each starting at a multiple of 8 bytes: contig indices in the sequence dictionary, interval starts
+ *         and interval ends as 4-byte integers, followed by the values as 4-byte integers or 8-byte doubles
+ *     </li>
+ * </ul>
+ */
+public final class BinaryColumnarCollection {
+    private static final byte[] SIGNATURE = "GATKCNBC".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int ALIGNMENT = 8;
+
+    public enum ValueType {
+        INTEGER(Integer.BYTES),
+        DOUBLE(Double.BYTES);
+
+        private final int numBytes;
+
+        ValueType(final int numBytes) {
+            this.numBytes = numBytes;
+        }
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final ValueType valueType;
+    private final SampleLocatableMetadata metadata;
+    private final int numIntervals;
+    private final int contigIndicesOffset;
+    private final int startsOffset;
+    private final int endsOffset;
+    private final int valuesOffset;
+
+    /**
+     * Maps the file and reads its header; the columns are only read when requested.
+     */
+    public BinaryColumnarCollection(final File file) {
+        Utils.nonNull(file);
+        this.file = file;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new UserException.BadInput(String.format("Binary collection %s is too large to be memory mapped.", file));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(file.toPath(), "Could not map binary collection.", e);
+        }
+        try {
+            final byte[] signature = new byte[SIGNATURE.length];
+            buffer.get(signature);
+            if (!Arrays.equals(signature, SIGNATURE)) {
+                throw new UserException.MalformedFile(file, "Not a binary copy-number collection.");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new UserException.MalformedFile(file, String.format("Unsupported binary collection version %d.", version));
+            }
+            final int valueTypeOrdinal = buffer.getInt();
+            if (valueTypeOrdinal < 0 || valueTypeOrdinal >= ValueType.values().length) {
+                throw new UserException.MalformedFile(file, String.format("Unknown value type %d.", valueTypeOrdinal));
+            }
+            valueType = ValueType.values()[valueTypeOrdinal];
+            final String sampleName = readString(buffer);
+            final SAMSequenceDictionary sequenceDictionary = new SAMTextHeaderCodec()
+                    .decode(BufferedLineReader.fromString(readString(buffer)), file.getAbsolutePath())
+                    .getSequenceDictionary();
+            metadata = new SimpleSampleLocatableMetadata(sampleName, sequenceDictionary);
+            numIntervals = buffer.getInt();
+            if (numIntervals < 0 || numIntervals > buffer.capacity() / (3 * Integer.BYTES + valueType.numBytes)) {
+                throw new UserException.MalformedFile(file, "Binary collection is truncated.");
+            }
+            contigIndicesOffset = align(buffer.position());
+            startsOffset = align(contigIndicesOffset + numIntervals * Integer.BYTES);
+            endsOffset = align(startsOffset + numIntervals * Integer.BYTES);
+            valuesOffset = align(endsOffset + numIntervals * Integer.BYTES);
+            if ((long) valuesOffset + (long) numIntervals * valueType.numBytes > buffer.capacity()) {
+                throw new UserException.MalformedFile(file, "Binary collection is truncated.");
+            }
+        } catch (final BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new UserException.MalformedFile(file, "Could not read header of binary collection.", e);
+        }
+    }
+
+    /**
+     * @return whether the file starts with the signature of this format
+     */
+    public static boolean isBinaryColumnarFile(final Path candidate) {
+        try (final DataInputStream candidateStream = new DataInputStream(Files.newInputStream(candidate))) {
+            final byte[] candidateSignature = new byte[SIGNATURE.length];
+            final int numBytesRead = candidateStream.read(candidateSignature, 0, candidateSignature.length);
+            return numBytesRead == SIGNATURE.length && Arrays.equals(candidateSignature, SIGNATURE);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(String.format("I/O error reading from input stream %s", candidate), e);
+        }
+    }
+
+    public SampleLocatableMetadata getMetadata() {
+        return metadata;
+    }
+
+    public ValueType getValueType() {
+        return valueType;
+    }
+
+    public int size() {
+        return numIntervals;
+    }
+
+    public List<SimpleInterval> getIntervals() {
+        final int[] contigIndices = readIntColumn(contigIndicesOffset);
+        final int[] starts = readIntColumn(startsOffset);
+        final int[] ends = readIntColumn(endsOffset);
+        final List<String> contigs = getContigs();
+        final List<SimpleInterval> intervals = new ArrayList<>(numIntervals);
+        for (int i = 0; i < numIntervals; i++) {
+            intervals.add(new SimpleInterval(contigs.get(contigIndices[i]), starts[i], ends[i]));
+        }
+        return intervals;
+    }
+
+    /**
+     * Checks whether the intervals in the file are identical to {@code intervals}, without constructing them.
+     */
+    public boolean hasIntervals(final List<SimpleInterval> intervals) {
+        Utils.nonNull(intervals);
+        if (intervals.size() != numIntervals) {
+            return false;
+        }
+        final int[] contigIndices = readIntColumn(contigIndicesOffset);
+        final int[] starts = readIntColumn(startsOffset);
+        final int[] ends = readIntColumn(endsOffset);
+        final List<String> contigs = getContigs();
+        for (int i = 0; i < numIntervals; i++) {
+            final SimpleInterval interval = intervals.get(i);
+            if (interval.getStart() != starts[i] || interval.getEnd() != ends[i] ||
+                    !interval.getContig().equals(contigs.get(contigIndices[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the values of a collection of integer counts
+     */
+    public int[] getIntegerValues() {
+        Utils.validate(valueType == ValueType.INTEGER, () -> String.format("Binary collection %s does not contain integer values.", file));
+        return readIntColumn(valuesOffset);
+    }
+
+    /**
+     * @return the values, converting integer counts to doubles if necessary
+     */
+    public double[] getDoubleValues() {
+        if (valueType == ValueType.INTEGER) {
+            return Arrays.stream(readIntColumn(valuesOffset)).asDoubleStream().toArray();
+        }
+        final double[] values = new double[numIntervals];
+        final ByteBuffer column = buffer.duplicate();
+        column.position(valuesOffset);
+        column.asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * @param intervals note that no particular sort order is assumed or checked for here,
+     *                  but this package-protected method should only be called by collections,
+     *                  which enforce the order specified by {@link AbstractSampleLocatableCollection}
+     */
+    static void writeIntegerValues(final File outFile,
+                                   final SampleLocatableMetadata metadata,
+                                   final List<SimpleInterval> intervals,
+                                   final int[] values) {
+        Utils.nonNull(values);
+        Utils.validateArg(intervals.size() == values.length, "Number of intervals and values must match.");
+        write(outFile, metadata, intervals, ValueType.INTEGER, output -> {
+            for (final int value : values) {
+                output.writeInt(value);
+            }
+        });
+    }
+
+    /**
+     * See {@link #writeIntegerValues}.
+     */
+    static void writeDoubleValues(final File outFile,
+                                  final SampleLocatableMetadata metadata,
+                                  final List<SimpleInterval> intervals,
+                                  final double[] values) {
+        Utils.nonNull(values);
+        Utils.validateArg(intervals.size() == values.length, "Number of intervals and values must match.");
+        write(outFile, metadata, intervals, ValueType.DOUBLE, output -> {
+            for (final double value : values) {
+                output.writeDouble(value);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(final DataOutputStream output) throws IOException;
+    }
+
+    private static void write(final File outFile,
+                              final SampleLocatableMetadata metadata,
+                              final List<SimpleInterval> intervals,
+                              final ValueType valueType,
+                              final ValueWriter valueWriter) {
+        Utils.nonNull(outFile);
+        Utils.nonNull(metadata);
+        Utils.nonEmpty(intervals);
+        final SAMSequenceDictionary sequenceDictionary = metadata.getSequenceDictionary();
+        final StringWriter stringWriter = new StringWriter();
+        new SAMTextHeaderCodec().encode(stringWriter, new SAMFileHeader(sequenceDictionary));
+
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            output.write(SIGNATURE);
+            output.writeInt(VERSION);
+            output.writeInt(valueType.ordinal());
+            writeString(output, metadata.getSampleName());
+            writeString(output, stringWriter.toString());
+            output.writeInt(intervals.size());
+            pad(output);
+            for (final SimpleInterval interval : intervals) {
+                final SAMSequenceRecord sequence = sequenceDictionary.getSequence(interval.getContig());
+                Utils.validateArg(sequence != null,
+                        () -> String.format("Contig %s is not in the sequence dictionary.", interval.getContig()));
+                output.writeInt(sequence.getSequenceIndex());
+            }
+            pad(output);
+            for (final SimpleInterval interval : intervals) {
+                output.writeInt(interval.getStart());
+            }
+            pad(output);
+            for (final SimpleInterval interval : intervals) {
+                output.writeInt(interval.getEnd());
+            }
+            pad(output);
+            valueWriter.write(output);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outFile, e);
+        }
+    }
+
+    private List<String> getContigs() {
+        final List<String> contigs = new ArrayList<>();
+        metadata.getSequenceDictionary().getSequences().forEach(s -> contigs.add(s.getSequenceName()));
+        return contigs;
+    }
+
+    private int[] readIntColumn(final int offset) {
+        final int[] column = new int[numIntervals];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.asIntBuffer().get(column);
+        return column;
+    }
+
+    private static int align(final int offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static void pad(final DataOutputStream output) throws IOException {
+        while (output.size() % ALIGNMENT != 0) {
+            output.writeByte(0);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final DataOutputStream output, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
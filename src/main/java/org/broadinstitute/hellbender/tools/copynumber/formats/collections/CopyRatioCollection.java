@@ -4,6 +4,8 @@ import htsjdk.samtools.util.OverlapDetector;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
@@ -12,6 +14,7 @@ import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
@@ -54,6 +57,30 @@ public final class CopyRatioCollection extends AbstractSampleLocatableCollection
         super(metadata, copyRatios, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER);
     }
 
+    /**
+     * Read all copy ratios from a file (TSV or binary).
+     */
+    public static CopyRatioCollection read(final File file) {
+        IOUtils.canReadFile(file);
+        if (!BinaryColumnarCollection.isBinaryColumnarFile(file.toPath())) {
+            return new CopyRatioCollection(file);
+        }
+        final BinaryColumnarCollection binaryCopyRatioCollection = new BinaryColumnarCollection(file);
+        final List<SimpleInterval> intervals = binaryCopyRatioCollection.getIntervals();
+        final double[] log2CopyRatios = binaryCopyRatioCollection.getDoubleValues();
+        return new CopyRatioCollection(
+                binaryCopyRatioCollection.getMetadata(),
+                IntStream.range(0, intervals.size())
+                        .mapToObj(i -> new CopyRatio(intervals.get(i), log2CopyRatios[i]))
+                        .collect(Collectors.toList()));
+    }
+
+    public void writeBinary(final File file) {
+        Utils.nonNull(file);
+        BinaryColumnarCollection.writeDoubleValues(file, getMetadata(), getIntervals(),
+                getRecords().stream().mapToDouble(CopyRatio::getLog2CopyRatioValue).toArray());
+    }
+
     public List<Double> getLog2CopyRatioValues() {
         return getRecords().stream().map(CopyRatio::getLog2CopyRatioValue).collect(Collectors.toList());
     }
@@ -26,7 +26,7 @@ import java.util.stream.IntStream;
 
 /**
  * Simple data structure to pass and read/write a List of {@link SimpleCount} objects.
- * Supports both TSV and HDF5.
+ * Supports TSV, HDF5, and the binary columnar format of {@link BinaryColumnarCollection}.
  *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
@@ -75,7 +75,7 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
     }
 
     /**
-     * Read all counts from a file (HDF5 or TSV).
+     * Read all counts from a file (HDF5, TSV, or binary).
      */
     public static SimpleCountCollection read(final File file) {
         IOUtils.canReadFile(file);
@@ -83,7 +83,7 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
     }
 
     /**
-     * From a file (HDF5 or TSV), subset only the counts with intervals coinciding with intervals from a given list.
+     * From a file (HDF5, TSV, or binary), subset only the counts with intervals coinciding with intervals from a given list.
      * The list may contain intervals that do not coincide with any count intervals.
      * Unlike {@link #readOverlappingSubsetFromGCS(String, List)}, this method first reads and constructs a {@link SimpleCountCollection}
      * using the entire file, and then creates and returns a second {@link SimpleCountCollection} containing only the
@@ -96,7 +96,9 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
         IOUtils.canReadFile(file);
         final SimpleCountCollection simpleCounts = IOUtils.isHDF5File(file.toPath())
                 ? readHDF5(new HDF5File(file))
-                : readTSV(file);
+                : BinaryColumnarCollection.isBinaryColumnarFile(file.toPath())
+                        ? readBinary(file)
+                        : readTSV(file);
         if (intervalSubset == null || intervalSubset.isEmpty()) {
             return simpleCounts;
         }
@@ -124,6 +126,17 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
         return new SimpleCountCollection(metadata, simpleCounts);
     }
 
+    private static SimpleCountCollection readBinary(final File file) {
+        IOUtils.canReadFile(file);
+        final BinaryColumnarCollection binaryCountCollection = new BinaryColumnarCollection(file);
+        final List<SimpleInterval> intervals = binaryCountCollection.getIntervals();
+        final int[] counts = binaryCountCollection.getIntegerValues();
+        final List<SimpleCount> simpleCounts = IntStream.range(0, intervals.size())
+                .mapToObj(i -> new SimpleCount(intervals.get(i), counts[i]))
+                .collect(Collectors.toList());
+        return new SimpleCountCollection(binaryCountCollection.getMetadata(), simpleCounts);
+    }
+
     /**
      * Read all counts from a Google Cloud Storage URL.
      * A corresponding index for the counts file must also be present.
@@ -174,6 +187,12 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
         HDF5SimpleCountCollection.write(file, getMetadata(), getIntervals(), getCounts());
     }
 
+    public void writeBinary(final File file) {
+        Utils.nonNull(file);
+        BinaryColumnarCollection.writeIntegerValues(file, getMetadata(), getIntervals(),
+                getRecords().stream().mapToInt(SimpleCount::getCount).toArray());
+    }
+
     public double[] getCounts() {
         return getRecords().stream().mapToDouble(SimpleCount::getCount).toArray();
     }
@@ -43,8 +43,9 @@ import static org.broadinstitute.hellbender.utils.MathUtils.log10ToLog;
 final class AlleleFractionLikelihoods {
     private static final double EPSILON = 1E-10;
 
-    private static final FunctionCache<Double> logGammaCache = new FunctionCache<>(Gamma::logGamma);
-    private static final FunctionCache<Double> logCache = new FunctionCache<>(AlleleFractionLikelihoods::log);
+    //the caches are not thread-safe, so each thread sampling segments in parallel keeps its own
+    private static final ThreadLocal<FunctionCache<Double>> logGammaCaches = ThreadLocal.withInitial(() -> new FunctionCache<>(Gamma::logGamma));
+    private static final ThreadLocal<FunctionCache<Double>> logCaches = ThreadLocal.withInitial(() -> new FunctionCache<>(AlleleFractionLikelihoods::log));
 
     private AlleleFractionLikelihoods() {}
 
@@ -56,6 +57,8 @@ final class AlleleFractionLikelihoods {
         final double pi = parameters.getOutlierProbability();
 
         //we cache some quantities that will be reused
+        final FunctionCache<Double> logCache = logCaches.get();
+        final FunctionCache<Double> logGammaCache = logGammaCaches.get();
         final double logPi = logCache.computeIfAbsent(pi);
         final double logNotPi = logCache.computeIfAbsent((1 - pi) / 2);
         final double logcCommon = alpha * logCache.computeIfAbsent(beta) - logGammaCache.computeIfAbsent(alpha);
@@ -60,6 +60,7 @@ public final class AlleleFractionModeller {
     private static final double MIN_MINOR_FRACTION_SAMPLING_WIDTH = 1E-3;
 
     private final SampleLocatableMetadata metadata;
+    private final SegmentSamplingExecutor segmentSamplingExecutor;
     private final ParameterizedModel<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> model;
 
     private final List<Double> meanBiasSamples = new ArrayList<>();
@@ -74,11 +75,22 @@ public final class AlleleFractionModeller {
     AlleleFractionModeller(final AllelicCountCollection allelicCounts,
                            final SimpleIntervalCollection segments,
                            final AlleleFractionPrior prior) {
+        this(allelicCounts, segments, prior, SegmentSamplingExecutor.SEQUENTIAL);
+    }
+
+    /**
+     * As above, but sampling the minor-allele fractions of the segments using {@code segmentSamplingExecutor}.
+     */
+    AlleleFractionModeller(final AllelicCountCollection allelicCounts,
+                           final SimpleIntervalCollection segments,
+                           final AlleleFractionPrior prior,
+                           final SegmentSamplingExecutor segmentSamplingExecutor) {
         Utils.nonNull(allelicCounts);
         Utils.nonNull(segments);
         Utils.validateArg(allelicCounts.getMetadata().getSequenceDictionary().equals(segments.getMetadata().getSequenceDictionary()),
                 "Metadata of the allelic counts and the segments do not match.");
         Utils.nonNull(prior);
+        this.segmentSamplingExecutor = Utils.nonNull(segmentSamplingExecutor);
 
         metadata = allelicCounts.getMetadata();
         final AlleleFractionSegmentedData data = new AlleleFractionSegmentedData(allelicCounts, segments);
@@ -109,7 +121,7 @@ public final class AlleleFractionModeller {
         final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> outlierProbabilitySampler =
                 new AlleleFractionSamplers.OutlierProbabilitySampler(MAX_REASONABLE_OUTLIER_PROBABILITY, outlierProbabilitySamplingWidths);
         final ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> minorFractionsSampler =
-                new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths);
+                new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths, segmentSamplingExecutor);
 
         model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
                 .addParameterSampler(AlleleFractionParameter.MEAN_BIAS, meanBiasSampler, Double.class)
@@ -128,7 +140,7 @@ public final class AlleleFractionModeller {
      */
     void fitMCMC(final int numSamples, final int numBurnIn) {
         //run MCMC
-        final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
+        final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler = segmentSamplingExecutor.createGibbsSampler(numSamples, model);
         gibbsSampler.runMCMC();
 
         //update posterior samples
@@ -7,7 +7,6 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.mcmc.MinibatchSliceSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -123,33 +122,34 @@ final class AlleleFractionSamplers {
 
         private final Function<Double, Double> logPrior;
         private final List<Double> sliceSamplingWidths;
+        private final SegmentSamplingExecutor segmentSamplingExecutor;
 
         MinorFractionsSampler(final AlleleFractionPrior prior,
-                              final List<Double> sliceSamplingWidths) {
+                              final List<Double> sliceSamplingWidths,
+                              final SegmentSamplingExecutor segmentSamplingExecutor) {
             logPrior = f -> new BetaDistribution(null, prior.getMinorAlleleFractionPriorAlpha(), PRIOR_BETA).logDensity(2 * f);
             this.sliceSamplingWidths = sliceSamplingWidths;
+            this.segmentSamplingExecutor = segmentSamplingExecutor;
         }
 
         @Override
         public AlleleFractionState.MinorFractions sample(final RandomGenerator rng, final AlleleFractionState state, final AlleleFractionSegmentedData data) {
-            final List<Double> minorFractions = new ArrayList<>(data.getNumSegments());
             final BiFunction<AlleleFractionSegmentedData.IndexedAllelicCount, Double, Double> logConditionalPDF = (iac, newMinorFraction) ->
                     AlleleFractionLikelihoods.hetLogLikelihood(state.globalParameters(), newMinorFraction, iac);
-            for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
+            final List<Double> minorFractions = segmentSamplingExecutor.sample(rng, data.getNumSegments(), (segmentRng, segmentIndex) -> {
                 logger.debug(String.format("Sampling minor fraction for segment %d...", segmentIndex));
                 final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment =
                         data.getIndexedAllelicCountsInSegment(segmentIndex);
                 if (allelicCountsInSegment.isEmpty()){
-                    minorFractions.add(Double.NaN);
-                } else {
-                    final MinibatchSliceSampler<AlleleFractionSegmentedData.IndexedAllelicCount> sampler =
-                            new MinibatchSliceSampler<>(
-                                    rng, allelicCountsInSegment, logPrior, logConditionalPDF,
-                                    MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segmentIndex),
-                                    SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
-                    minorFractions.add(sampler.sample(state.segmentMinorFraction(segmentIndex)));
+                    return Double.NaN;
                 }
-            }
+                final MinibatchSliceSampler<AlleleFractionSegmentedData.IndexedAllelicCount> sampler =
+                        new MinibatchSliceSampler<>(
+                                segmentRng, allelicCountsInSegment, logPrior, logConditionalPDF,
+                                MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segmentIndex),
+                                SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
+                return sampler.sample(state.segmentMinorFraction(segmentIndex));
+            });
             return new AlleleFractionState.MinorFractions(minorFractions);
         }
     }
@@ -39,6 +39,7 @@ public final class CopyRatioModeller {
     private static final double OUTLIER_PROBABILITY_PRIOR_BETA = 95.;
 
     private final SampleLocatableMetadata metadata;
+    private final SegmentSamplingExecutor segmentSamplingExecutor;
     private final ParameterizedModel<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> model;
 
     private final List<Double> varianceSamples = new ArrayList<>();
@@ -51,8 +52,18 @@ public final class CopyRatioModeller {
      */
     CopyRatioModeller(final CopyRatioCollection copyRatios,
                       final SimpleIntervalCollection segments) {
+        this(copyRatios, segments, SegmentSamplingExecutor.SEQUENTIAL);
+    }
+
+    /**
+     * As above, but sampling the means of the segments using {@code segmentSamplingExecutor}.
+     */
+    CopyRatioModeller(final CopyRatioCollection copyRatios,
+                      final SimpleIntervalCollection segments,
+                      final SegmentSamplingExecutor segmentSamplingExecutor) {
         Utils.nonNull(copyRatios);
         Utils.nonNull(segments);
+        this.segmentSamplingExecutor = Utils.nonNull(segmentSamplingExecutor);
         Utils.validateArg(copyRatios.getMetadata().getSequenceDictionary().equals(segments.getMetadata().getSequenceDictionary()),
                 "Metadata of the copy ratios and the segments do not match.");
         Utils.nonEmpty(segments.getRecords());
@@ -89,7 +100,7 @@ public final class CopyRatioModeller {
         final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierProbabilitySampler =
                 new CopyRatioSamplers.OutlierProbabilitySampler(OUTLIER_PROBABILITY_PRIOR_ALPHA, OUTLIER_PROBABILITY_PRIOR_BETA);
         final ParameterSampler<CopyRatioState.SegmentMeans, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> segmentMeansSampler =
-                new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth);
+                new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth, segmentSamplingExecutor);
         final ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierIndicatorsSampler =
                 new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood);
 
@@ -114,7 +125,7 @@ public final class CopyRatioModeller {
         Utils.validateArg(numBurnIn < numSamples, "Number of samples must be greater than number of burn-in samples.");
 
         //run MCMC
-        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
+        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = segmentSamplingExecutor.createGibbsSampler(numSamples, model);
         gibbsSampler.runMCMC();
 
         //update posterior samples
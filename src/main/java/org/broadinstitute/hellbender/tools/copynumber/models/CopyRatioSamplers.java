@@ -106,37 +106,38 @@ final class CopyRatioSamplers {
         private final double meanMin;
         private final double meanMax;
         private final double meanSliceSamplingWidth;
+        private final SegmentSamplingExecutor segmentSamplingExecutor;
 
         SegmentMeansSampler(final double meanMin, 
                             final double meanMax, 
-                            final double meanSliceSamplingWidth) {
+                            final double meanSliceSamplingWidth,
+                            final SegmentSamplingExecutor segmentSamplingExecutor) {
             this.meanMin = meanMin;
             this.meanMax = meanMax;
             this.meanSliceSamplingWidth = meanSliceSamplingWidth;
+            this.segmentSamplingExecutor = segmentSamplingExecutor;
         }
 
         @Override
         public CopyRatioState.SegmentMeans sample(final RandomGenerator rng,
                                                   final CopyRatioState state,
                                                   final CopyRatioSegmentedData data) {
-            final List<Double> means = new ArrayList<>(data.getNumSegments());
             final BiFunction<CopyRatioSegmentedData.IndexedCopyRatio, Double, Double> logConditionalPDF = (icr, newMean) ->
                     state.outlierIndicator(icr.getIndex())
                             ? 0.
                             : -normalTerm(icr.getLog2CopyRatioValue(), newMean, state.variance());
-            for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
+            final List<Double> means = segmentSamplingExecutor.sample(rng, data.getNumSegments(), (segmentRng, segmentIndex) -> {
                 final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segmentIndex);
                 if (indexedCopyRatiosInSegment.isEmpty()) {
-                    means.add(Double.NaN);
-                } else {
-                    logger.debug(String.format("Sampling mean for segment %d...", segmentIndex));
-                    final MinibatchSliceSampler<CopyRatioSegmentedData.IndexedCopyRatio> sampler = new MinibatchSliceSampler<>(
-                            rng, indexedCopyRatiosInSegment, UNIFORM_LOG_PRIOR, logConditionalPDF,
-                            meanMin, meanMax, meanSliceSamplingWidth,
-                            SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
-                    means.add(sampler.sample(state.segmentMean(segmentIndex)));
+                    return Double.NaN;
                 }
-            }
+                logger.debug(String.format("Sampling mean for segment %d...", segmentIndex));
+                final MinibatchSliceSampler<CopyRatioSegmentedData.IndexedCopyRatio> sampler = new MinibatchSliceSampler<>(
+                        segmentRng, indexedCopyRatiosInSegment, UNIFORM_LOG_PRIOR, logConditionalPDF,
+                        meanMin, meanMax, meanSliceSamplingWidth,
+                        SEGMENT_MINIBATCH_SIZE, APPROX_THRESHOLD);
+                return sampler.sample(state.segmentMean(segmentIndex));
+            });
             return new CopyRatioState.SegmentMeans(means);
         }
     }
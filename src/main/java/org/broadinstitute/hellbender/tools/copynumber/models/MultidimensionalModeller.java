@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.util.OverlapDetector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.*;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleLocatableMetadata;
@@ -17,6 +18,10 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -48,6 +53,7 @@ public final class MultidimensionalModeller {
     private final int numBurnInCopyRatio;
     private final int numSamplesAlleleFraction;
     private final int numBurnInAlleleFraction;
+    private final SegmentSamplingExecutor segmentSamplingExecutor;
 
     /**
      * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
@@ -62,12 +68,32 @@ public final class MultidimensionalModeller {
                                     final int numBurnInCopyRatio,
                                     final int numSamplesAlleleFraction,
                                     final int numBurnInAlleleFraction) {
+        this(multidimensionalSegments, denoisedCopyRatios, allelicCounts, alleleFractionPrior,
+                numSamplesCopyRatio, numBurnInCopyRatio, numSamplesAlleleFraction, numBurnInAlleleFraction, 1);
+    }
+
+    /**
+     * As above, but using {@code numThreads} threads for model fitting.  If this is greater than one,
+     * the copy-ratio and allele-fraction models are fit concurrently and the segment-level parameters
+     * of each model are sampled in parallel.  Results then depend on whether more than one thread is used,
+     * but not on the number of threads.
+     */
+    public MultidimensionalModeller(final MultidimensionalSegmentCollection multidimensionalSegments,
+                                    final CopyRatioCollection denoisedCopyRatios,
+                                    final AllelicCountCollection allelicCounts,
+                                    final AlleleFractionPrior alleleFractionPrior,
+                                    final int numSamplesCopyRatio,
+                                    final int numBurnInCopyRatio,
+                                    final int numSamplesAlleleFraction,
+                                    final int numBurnInAlleleFraction,
+                                    final int numThreads) {
         Utils.validateArg(Stream.of(
                 Utils.nonNull(multidimensionalSegments).getMetadata(),
                 Utils.nonNull(denoisedCopyRatios).getMetadata(),
                 Utils.nonNull(allelicCounts).getMetadata()).distinct().count() == 1,
                 "Metadata from all inputs must match.");
         ParamUtils.isPositive(multidimensionalSegments.size(), "Number of segments must be positive.");
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
         metadata = multidimensionalSegments.getMetadata();
         currentSegments = new SimpleIntervalCollection(
                 new SimpleLocatableMetadata(metadata.getSequenceDictionary()),
@@ -81,6 +107,7 @@ public final class MultidimensionalModeller {
         this.numBurnInCopyRatio = numBurnInCopyRatio;
         this.numSamplesAlleleFraction = numSamplesAlleleFraction;
         this.numBurnInAlleleFraction = numBurnInAlleleFraction;
+        segmentSamplingExecutor = numThreads == 1 ? SegmentSamplingExecutor.SEQUENTIAL : new SegmentSamplingExecutor(numThreads);
         logger.info("Fitting initial model...");
         fitModel();
     }
@@ -95,12 +122,31 @@ public final class MultidimensionalModeller {
      */
     private void fitModel() {
         //perform MCMC to generate posterior samples
-        logger.info("Fitting copy-ratio model...");
-        copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments);
-        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
-        logger.info("Fitting allele-fraction model...");
-        alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior);
-        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+        if (segmentSamplingExecutor.getNumThreads() == 1) {
+            logger.info("Fitting copy-ratio model...");
+            copyRatioModeller = fitCopyRatioModel();
+            logger.info("Fitting allele-fraction model...");
+            alleleFractionModeller = fitAlleleFractionModel();
+        } else {
+            //the models share no parameters, so the allele-fraction chain is run on a second thread
+            logger.info("Fitting copy-ratio and allele-fraction models concurrently...");
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                final Future<AlleleFractionModeller> alleleFractionModellerFuture = executor.submit(this::fitAlleleFractionModel);
+                copyRatioModeller = fitCopyRatioModel();
+                alleleFractionModeller = alleleFractionModellerFuture.get();
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Problem fitting allele-fraction model", e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while fitting allele-fraction model", e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
 
         //update list of ModeledSegment with new PosteriorSummaries
         modeledSegments.clear();
@@ -120,6 +166,18 @@ public final class MultidimensionalModeller {
         isModelFit = true;
     }
 
+    private CopyRatioModeller fitCopyRatioModel() {
+        final CopyRatioModeller modeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments, segmentSamplingExecutor);
+        modeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
+        return modeller;
+    }
+
+    private AlleleFractionModeller fitAlleleFractionModel() {
+        final AlleleFractionModeller modeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior, segmentSamplingExecutor);
+        modeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+        return modeller;
+    }
+
     /**
      * @param numSmoothingIterationsPerFit  if this is zero, no refitting will be performed between smoothing iterations
      */
@@ -0,0 +1,104 @@
+package org.broadinstitute.hellbender.tools.copynumber.models;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.mcmc.DataCollection;
+import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
+import org.broadinstitute.hellbender.utils.mcmc.ParameterEnum;
+import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
+import org.broadinstitute.hellbender.utils.mcmc.ParameterizedState;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Samples segment-level parameters, which are conditionally independent given the global parameters of a model,
+ * in parallel when more than one thread is requested.
+ * <p>
+ *     With one thread, segments are sampled in order using the generator of the Gibbs sampler, exactly as in a plain
+ *     sequential loop.  With more threads, a seed for each segment is first drawn in order from that generator and
+ *     each segment is then sampled with its own generator, so results do not depend on the number of threads.
+ * </p>
+ */
+final class SegmentSamplingExecutor {
+    static final SegmentSamplingExecutor SEQUENTIAL = new SegmentSamplingExecutor(1);
+
+    @FunctionalInterface
+    interface SegmentSampler {
+        double sample(final RandomGenerator rng, final int segmentIndex);
+    }
+
+    private final int numThreads;
+    private final ForkJoinPool pool;
+
+    /**
+     * Worker threads are daemon threads and terminate when idle, so the executor does not need to be shut down.
+     */
+    SegmentSamplingExecutor(final int numThreads) {
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        this.numThreads = numThreads;
+        pool = numThreads == 1 ? null : new ForkJoinPool(numThreads);
+    }
+
+    int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * With one thread, the chain uses the generator shared by all Gibbs samplers, exactly as a purely sequential fit
+     * does.  With more threads, the chains of the copy-ratio and allele-fraction models are run concurrently, so each
+     * is given its own generator; since the generator is reseeded when the chain starts, the samples are the same.
+     */
+    <V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> GibbsSampler<V, S, T> createGibbsSampler(
+            final int numSamples,
+            final ParameterizedModel<V, S, T> model) {
+        return pool == null
+                ? new GibbsSampler<>(numSamples, model)
+                : new GibbsSampler<>(numSamples, model, RandomGeneratorFactory.createRandomGenerator(new Random()));
+    }
+
+    /**
+     * @return  the samples for the segments with indices [0, numSegments), in order
+     */
+    List<Double> sample(final RandomGenerator rng,
+                        final int numSegments,
+                        final SegmentSampler segmentSampler) {
+        Utils.nonNull(rng);
+        ParamUtils.isPositiveOrZero(numSegments, "Number of segments must be non-negative.");
+        Utils.nonNull(segmentSampler);
+        if (pool == null) {
+            final List<Double> samples = new ArrayList<>(numSegments);
+            for (int segmentIndex = 0; segmentIndex < numSegments; segmentIndex++) {
+                samples.add(segmentSampler.sample(rng, segmentIndex));
+            }
+            return samples;
+        }
+
+        final long[] seeds = new long[numSegments];
+        for (int segmentIndex = 0; segmentIndex < numSegments; segmentIndex++) {
+            seeds[segmentIndex] = rng.nextLong();
+        }
+        try {
+            return pool.submit(() -> IntStream.range(0, numSegments).parallel()
+                    .mapToObj(segmentIndex -> segmentSampler.sample(
+                            RandomGeneratorFactory.createRandomGenerator(new Random(seeds[segmentIndex])), segmentIndex))
+                    .collect(Collectors.toList())).get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Problem sampling segments", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while sampling segments", e);
+        }
+    }
+}
@@ -131,8 +131,8 @@ public final class PlotDenoisedCopyRatios extends CommandLineProgram {
         validateArguments();
 
         logger.info("Reading and validating input files...");
-        final CopyRatioCollection standardizedCopyRatios = new CopyRatioCollection(inputStandardizedCopyRatiosFile);
-        final CopyRatioCollection denoisedCopyRatios = new CopyRatioCollection(inputDenoisedCopyRatiosFile);
+        final CopyRatioCollection standardizedCopyRatios = CopyRatioCollection.read(inputStandardizedCopyRatiosFile);
+        final CopyRatioCollection denoisedCopyRatios = CopyRatioCollection.read(inputDenoisedCopyRatiosFile);
         Utils.validateArg(standardizedCopyRatios.getIntervals().equals(denoisedCopyRatios.getIntervals()),
                 "Intervals in input files must be identical.");
 
@@ -170,7 +170,7 @@ public final class PlotModeledSegments extends CommandLineProgram {
         validateArguments();
 
         logger.info("Reading and validating input files...");
-        denoisedCopyRatios = inputDenoisedCopyRatiosFile == null ? null : new CopyRatioCollection(inputDenoisedCopyRatiosFile);
+        denoisedCopyRatios = inputDenoisedCopyRatiosFile == null ? null : CopyRatioCollection.read(inputDenoisedCopyRatiosFile);
         allelicCounts = inputAllelicCountsFile == null ? null : new AllelicCountCollection(inputAllelicCountsFile);
         modeledSegments = new ModeledSegmentCollection(inputModeledSegmentsFile);
 
@@ -15,6 +15,7 @@ public class BwaArgumentCollection implements Serializable {
     public static final String SINGLE_END_ALIGNMENT_SHORT_NAME = "se";
     public static final String BWA_MEM_INDEX_IMAGE_FULL_NAME = "bwa-mem-index-image";
     public static final String BWA_MEM_INDEX_IMAGE_SHORT_NAME = "image";
+    public static final String PRELOAD_BWA_MEM_INDEX_IMAGE_FULL_NAME = "preload-bwa-mem-index-image";
 
     /**
      * The BWA-MEM index image file name that you've distributed to each executor. The image file can be generated using
@@ -35,4 +36,15 @@ public class BwaArgumentCollection implements Serializable {
             shortName = SINGLE_END_ALIGNMENT_SHORT_NAME,
             optional = true)
     public boolean singleEndAlignment = false;
+
+    /**
+     * Bring the index image into the OS page cache by reading it sequentially before loading it.
+     * Co-located executors and successive runs that open the same local image file then reuse the cached pages
+     * instead of each reading the image from disk. This is most effective when the image is distributed to the
+     * same local path on each node and passed in with --bwa-mem-index-image.
+     */
+    @Argument(doc = "Preload the BWA-MEM index image into the page cache before loading it",
+            fullName = PRELOAD_BWA_MEM_INDEX_IMAGE_FULL_NAME,
+            optional = true)
+    public boolean preloadIndexImage = false;
 }
@@ -9,6 +9,7 @@ public final class PSBwaArgumentCollection implements Serializable {
 
     public static final String MICROBE_BWA_IMAGE_LONG_NAME = "microbe-bwa-image";
     public static final String MICROBE_BWA_IMAGE_SHORT_NAME = "MI";
+    public static final String PRELOAD_MICROBE_BWA_IMAGE_LONG_NAME = "preload-microbe-bwa-image";
     public static final String MICROBE_FASTA_LONG_NAME = "microbe-fasta";
     public static final String MICROBE_FASTA_SHORT_NAME = "MF";
     public static final String MICROBE_MIN_SEED_LENGTH_LONG_NAME = "microbe-min-seed-length";
@@ -23,6 +24,15 @@ public final class PSBwaArgumentCollection implements Serializable {
             shortName = MICROBE_BWA_IMAGE_SHORT_NAME)
     public String bwaImage;
 
+    /**
+     * Bring the microbe image into the OS page cache by reading it sequentially before loading it, so that
+     * co-located executors and successive runs reuse the cached pages instead of each reading the image from disk.
+     */
+    @Argument(doc = "Preload the microbe BWA index image into the page cache before loading it",
+            fullName = PRELOAD_MICROBE_BWA_IMAGE_LONG_NAME,
+            optional = true)
+    public boolean preloadBwaImage = false;
+
     @Argument(doc = "Reference corresponding to the microbe reference image file",
             fullName = MICROBE_FASTA_LONG_NAME,
             shortName = MICROBE_FASTA_SHORT_NAME)
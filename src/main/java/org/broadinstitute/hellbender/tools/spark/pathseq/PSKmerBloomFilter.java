@@ -8,6 +8,9 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Kmer Bloom Filter class that encapsulates the filter, kmer size, and kmer mask
  */
@@ -47,6 +50,20 @@ public final class PSKmerBloomFilter extends PSKmerCollection {
         return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
     }
 
+    /**
+     * Input should be canonicalized/masked
+     */
+    @Override
+    int countCanonicalizedAndMasked(final long[] maskedKmers, final int numKmers, final int maxCount) {
+        int count = 0;
+        for (int i = 0; i < numKmers; i++) {
+            if (kmerSet.contains(maskedKmers[i]) && ++count >= maxCount) {
+                return count;
+            }
+        }
+        return count;
+    }
+
     @Override
     public int kmerSize() {
         return kmerSize;
@@ -62,6 +79,12 @@ public final class PSKmerBloomFilter extends PSKmerCollection {
         return falsePositiveProbability;
     }
 
+    @Override
+    void writeMapped(final DataOutputStream output) throws IOException {
+        PSKmerMappedCollection.writeHeader(output, PSKmerMappedCollection.BLOOM_FILTER_TYPE, kmerSize, kmerMask, falsePositiveProbability);
+        kmerSet.writeFlat(output);
+    }
+
     private void serialize(final Kryo kryo, final Output output) {
         output.writeInt(kmerSize);
         output.writeLong(kmerMask.getLong());
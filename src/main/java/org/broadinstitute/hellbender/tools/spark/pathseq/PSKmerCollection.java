@@ -1,6 +1,11 @@
 package org.broadinstitute.hellbender.tools.spark.pathseq;
 
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 /**
  * Classes that provide a way to test kmers for set membership and keep track of the kmer size and mask
@@ -12,6 +17,30 @@ public abstract class PSKmerCollection {
     abstract SVKmerShort getMask();
     abstract double getFalsePositiveProbability();
 
+    /**
+     * Counts the first {@code numKmers} values of {@code maskedKmers} that are in the collection, returning early once
+     * {@code maxCount} is reached. Values should have been run through {@link #canonicalizeAndMask}.
+     */
+    abstract int countCanonicalizedAndMasked(final long[] maskedKmers, final int numKmers, final int maxCount);
+
+    /**
+     * Writes the collection in the format read by {@link PSKmerMappedCollection}
+     */
+    void writeMapped(final DataOutputStream output) throws IOException {
+        throw new GATKException("Kmer collection of type " + getClass().getSimpleName() + " cannot be written in memory-mapped format");
+    }
+
+    /**
+     * Counts the kmers of the given bases that are in the collection, returning early once {@code maxCount} is reached.
+     * All kmers of the read are packed, canonicalized, and masked at once and then probed as a batch.
+     */
+    public final int countKmers(final byte[] bases, final int maxCount) {
+        final int kmerSize = kmerSize();
+        final long[] maskedKmers = new long[Math.max(0, bases.length - kmerSize + 1)];
+        final int numKmers = canonicalizeAndMaskKmers(bases, kmerSize, getMask(), maskedKmers);
+        return countCanonicalizedAndMasked(maskedKmers, numKmers, maxCount);
+    }
+
     /**
      * Definition for the order of canonicalization and masking
      */
@@ -19,4 +48,40 @@ public abstract class PSKmerCollection {
         return val.canonical(kmerSize).mask(mask).getLong();
     }
 
+    /**
+     * Writes the canonicalized and masked values of all consecutive kmers of {@code bases} to {@code destination} and
+     * returns the number of kmers. Gives the same values as running each kmer produced by {@link
+     * org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer} through {@link #canonicalizeAndMask}, including
+     * skipping kmers that contain bases other than A, C, G, or T, but without creating a kmer object for each position.
+     * The destination must have room for {@code bases.length - kmerSize + 1} values.
+     */
+    public final static int canonicalizeAndMaskKmers(final byte[] bases, final int kmerSize, final SVKmerShort mask,
+                                                     final long[] destination) {
+        Utils.validateArg((kmerSize & 1) != 0, "Kmer length must be odd to canonicalize.");
+        final long kmerBits = (1L << kmerSize * 2) - 1L;
+        final int firstBaseShift = kmerSize * 2 - 2;
+        final long maskBits = mask.getLong();
+        long forward = 0;
+        long reverseComplement = 0;
+        int validBaseCount = 0;
+        int numKmers = 0;
+        for (final byte base : bases) {
+            final long value;
+            switch (base) {
+                case 'a': case 'A': value = 0L; break;
+                case 'c': case 'C': value = 1L; break;
+                case 'g': case 'G': value = 2L; break;
+                case 't': case 'T': value = 3L; break;
+                default: validBaseCount = 0; continue;
+            }
+            forward = ((forward << 2) | value) & kmerBits;
+            reverseComplement = (reverseComplement >>> 2) | ((3L - value) << firstBaseShift);
+            if (++validBaseCount >= kmerSize) {
+                //same test as SVKmerShort.canonical: the middle base of a canonical kmer is A or C
+                final long canonical = ((forward >> kmerSize) & 1L) == 0 ? forward : reverseComplement;
+                destination[numKmers++] = canonical & maskBits;
+            }
+        }
+        return numKmers;
+    }
 }
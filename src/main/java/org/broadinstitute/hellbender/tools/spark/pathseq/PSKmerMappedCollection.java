@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedFileBuffer;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.function.LongPredicate;
+
+/**
+ * Kmer collection that is queried in place in a memory-mapped file instead of being deserialized into the heap.
+ * Loading is nearly instantaneous, and the pages of the file are shared through the operating system's page cache by
+ * all executors on a node, so only one copy of the kmer library is held in memory per node.
+ *
+ * The file consists of a 48-byte header (magic number, format version, collection type, kmer size, kmer mask, and
+ * false positive probability) followed by the flat representation of a {@link LargeLongHopscotchSet},
+ * {@link LongBloomFilter}, or {@link LongBlockedBloomFilter}. The file must be on a local (or locally mounted) file
+ * system.
+ */
+public final class PSKmerMappedCollection extends PSKmerCollection {
+
+    private static final long MAGIC = 0x4741544B50534B4DL; //"GATKPSKM"
+    private static final long VERSION = 1;
+    private static final long HEADER_BYTES = 6L * Long.BYTES;
+    private static final long MAX_KMER_SIZE = 31;
+
+    static final long HOPSCOTCH_SET_TYPE = 0;
+    static final long BLOOM_FILTER_TYPE = 1;
+    static final long BLOCKED_BLOOM_FILTER_TYPE = 2;
+
+    private final LongPredicate kmerSet;
+    private final int kmerSize;
+    private final SVKmerShort kmerMask;
+    private final double falsePositiveProbability;
+
+    public PSKmerMappedCollection(final String uri) {
+        Utils.nonNull(uri);
+        final Path path = IOUtils.getPath(uri);
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            throw new UserException.BadInput("Memory-mapped kmer files must be on a local file system: " + uri);
+        }
+        final MappedFileBuffer buffer = new MappedFileBuffer(path);
+        buffer.validateRange(0, HEADER_BYTES);
+        if (buffer.getLong(0) != MAGIC) {
+            throw new UserException.MalformedFile(path, "Not a memory-mapped kmer file.");
+        }
+        if (buffer.getLong(Long.BYTES) != VERSION) {
+            throw new UserException.MalformedFile(path, "Unsupported memory-mapped kmer file version " + buffer.getLong(Long.BYTES));
+        }
+        final long type = buffer.getLong(2L * Long.BYTES);
+        final long kmerSizeValue = buffer.getLong(3L * Long.BYTES);
+        if (kmerSizeValue < 1 || kmerSizeValue > MAX_KMER_SIZE) {
+            throw new UserException.MalformedFile(path, "Invalid kmer size " + kmerSizeValue);
+        }
+        kmerSize = (int) kmerSizeValue;
+        kmerMask = new SVKmerShort(buffer.getLong(4L * Long.BYTES));
+        falsePositiveProbability = buffer.getDouble(5L * Long.BYTES);
+        if (type == HOPSCOTCH_SET_TYPE) {
+            kmerSet = new LargeLongHopscotchSet.Mapped(buffer, HEADER_BYTES)::contains;
+        } else if (type == BLOOM_FILTER_TYPE) {
+            kmerSet = new LongBloomFilter.Mapped(buffer, HEADER_BYTES)::contains;
+        } else if (type == BLOCKED_BLOOM_FILTER_TYPE) {
+            kmerSet = new LongBlockedBloomFilter.Mapped(buffer, HEADER_BYTES)::contains;
+        } else {
+            throw new UserException.MalformedFile(path, "Unknown kmer collection type " + type);
+        }
+    }
+
+    /**
+     * Writes the header that precedes the flat representation of the collection
+     */
+    static void writeHeader(final DataOutputStream output, final long type, final int kmerSize,
+                            final SVKmerShort kmerMask, final double falsePositiveProbability) throws IOException {
+        output.writeLong(MAGIC);
+        output.writeLong(VERSION);
+        output.writeLong(type);
+        output.writeLong(kmerSize);
+        output.writeLong(kmerMask.getLong());
+        output.writeDouble(falsePositiveProbability);
+    }
+
+    /**
+     * Input should not be canonicalized/masked
+     */
+    @Override
+    public boolean contains(final SVKmerShort rawKmer) {
+        return kmerSet.test(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
+    }
+
+    /**
+     * Input should be canonicalized/masked
+     */
+    @Override
+    int countCanonicalizedAndMasked(final long[] maskedKmers, final int numKmers, final int maxCount) {
+        int count = 0;
+        for (int i = 0; i < numKmers; i++) {
+            if (kmerSet.test(maskedKmers[i]) && ++count >= maxCount) {
+                return count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int kmerSize() {
+        return kmerSize;
+    }
+
+    @Override
+    public SVKmerShort getMask() {
+        return kmerMask;
+    }
+
+    @Override
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+}
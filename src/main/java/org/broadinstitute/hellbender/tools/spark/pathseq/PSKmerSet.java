@@ -9,6 +9,9 @@ import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.LongIterator;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Kmer Hopscotch set class that encapsulates the filter, kmer size, and kmer mask
  */
@@ -48,6 +51,20 @@ public final class PSKmerSet extends PSKmerCollection {
         return kmerSet.iterator();
     }
 
+    /**
+     * Input should be canonicalized/masked
+     */
+    @Override
+    int countCanonicalizedAndMasked(final long[] maskedKmers, final int numKmers, final int maxCount) {
+        int count = 0;
+        for (int i = 0; i < numKmers; i++) {
+            if (kmerSet.contains(maskedKmers[i]) && ++count >= maxCount) {
+                return count;
+            }
+        }
+        return count;
+    }
+
     @Override
     public int kmerSize() {
         return kmerSize;
@@ -67,6 +84,12 @@ public final class PSKmerSet extends PSKmerCollection {
         return kmerSet.size();
     }
 
+    @Override
+    void writeMapped(final DataOutputStream output) throws IOException {
+        PSKmerMappedCollection.writeHeader(output, PSKmerMappedCollection.HOPSCOTCH_SET_TYPE, kmerSize, kmerMask, 0);
+        kmerSet.writeFlat(output);
+    }
+
     private void serialize(final Kryo kryo, final Output output) {
         output.writeInt(kmerSize);
         output.writeLong(kmerMask.getLong());
@@ -2,15 +2,14 @@ package org.broadinstitute.hellbender.tools.spark.pathseq;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -61,14 +60,20 @@ public final class PSScorer {
         //Get the original reads, now with their pathseq hit tags set
         final JavaRDD<GATKRead> readsFinal = flattenIterableKeys(readHits);
 
-        //Compute taxonomic scores from the alignment hits
+        //Compute taxonomic scores from the alignment hits, aggregating them into arrays indexed by taxon in each partition
+        final PSTaxonomyAncestorTable ancestorTable = new PSTaxonomyAncestorTable(taxDB.tree);
+        final Broadcast<PSTaxonomyAncestorTable> ancestorTableBroadcast = ctx.broadcast(ancestorTable);
         final JavaRDD<PSPathogenAlignmentHit> alignmentHits = readHits.map(Tuple2::_2);
         final boolean divideByGenomeLength = scoreArgs.divideByGenomeLength; //To prevent serialization of PSScorer
-        final JavaPairRDD<Integer, PSPathogenTaxonScore> taxScoresRdd = alignmentHits
-                .mapPartitionsToPair(iter -> computeTaxScores(iter, taxonomyDatabaseBroadcast.value(), divideByGenomeLength));
-
-        //Reduce scores by taxon and compute normalized scores
-        Map<Integer, PSPathogenTaxonScore> taxScoresMap = new HashMap<>(taxScoresRdd.reduceByKey(PSPathogenTaxonScore::add).collectAsMap());
+        final JavaRDD<PSTaxonScoreArrays> taxScoreArraysRdd = alignmentHits
+                .mapPartitions(iter -> Iterators.singletonIterator(computeTaxScoreArrays(iter, ancestorTableBroadcast.value(), divideByGenomeLength)));
+
+        //Merge scores across partitions and compute normalized scores
+        final PSTaxonScoreArrays taxScoreArrays = taxScoreArraysRdd.treeAggregate(new PSTaxonScoreArrays(ancestorTable.size()),
+                PSTaxonScoreArrays::inPlaceCombine,
+                PSTaxonScoreArrays::inPlaceCombine,
+                Math.max(1, (int) (Math.log(taxScoreArraysRdd.getNumPartitions()) / Math.log(2))));
+        Map<Integer, PSPathogenTaxonScore> taxScoresMap = taxScoreArrays.toScoreMap(ancestorTable);
         taxScoresMap = computeNormalizedScores(taxScoresMap, taxDB.tree, scoreArgs.notNormalizedByKingdom);
 
         //Write scores to file
@@ -278,63 +283,76 @@ public final class PSScorer {
     }
 
     /**
-     * Computes abundance scores and returns key-values of taxonomic id and scores
+     * Computes abundance scores, accumulating them into arrays indexed by the nodes of the ancestor table.
+     * Lineages are walked through the table's parent indices, and a pair of stamp arrays deduplicates hits and
+     * ancestors, so no objects are created per hit.
      */
-    public static Iterator<Tuple2<Integer, PSPathogenTaxonScore>> computeTaxScores(final Iterator<PSPathogenAlignmentHit> taxonHits,
-                                                                                  final PSTaxonomyDatabase taxonomyDatabase,
-                                                                                  final boolean divideByGenomeLength) {
-        final PSTree tree = taxonomyDatabase.tree;
-        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = new HashMap<>();
+    public static PSTaxonScoreArrays computeTaxScoreArrays(final Iterator<PSPathogenAlignmentHit> taxonHits,
+                                                           final PSTaxonomyAncestorTable ancestorTable,
+                                                           final boolean divideByGenomeLength) {
+        final int numNodes = ancestorTable.size();
+        final PSTaxonScoreArrays scores = new PSTaxonScoreArrays(numNodes);
         final Set<Integer> invalidIds = new HashSet<>();
+        final int[] hitStamps = new int[numNodes]; //Marks nodes already counted as hits of the current read
+        final int[] pathStamps = new int[numNodes]; //Marks hits and ancestors already visited for the current read
+        int stamp = 0;
+        int[] hitIndices = new int[16];
         while (taxonHits.hasNext()) {
             final PSPathogenAlignmentHit hit = taxonHits.next();
-            final Set<Integer> hitTaxIds = new HashSet<>(hit.taxIDs);
-            final Set<Integer> hitInvalidTaxIds = new HashSet<>(SVUtils.hashMapCapacity(hitTaxIds.size()));
-            for (final int taxId : hitTaxIds) {
-                if (!tree.hasNode(taxId) || tree.getLengthOf(taxId) == 0) hitInvalidTaxIds.add(taxId);
+            if (++stamp == 0) {
+                Arrays.fill(hitStamps, 0);
+                Arrays.fill(pathStamps, 0);
+                stamp = 1;
             }
-            hitTaxIds.removeAll(hitInvalidTaxIds);
-            invalidIds.addAll(hitInvalidTaxIds);
 
-            //Number of genomes hit by this read and number of mates in the tuple (1 for single, 2 for pair)
-            final int numHits = hitTaxIds.size();
+            //Number of unique, valid genomes hit by this read
+            int numHits = 0;
+            for (final int taxId : hit.taxIDs) {
+                final int index = ancestorTable.indexOf(taxId);
+                if (index == PSTaxonomyAncestorTable.NO_NODE || ancestorTable.getLength(index) == 0) {
+                    invalidIds.add(taxId);
+                } else if (hitStamps[index] != stamp) {
+                    hitStamps[index] = stamp;
+                    if (numHits == hitIndices.length) {
+                        hitIndices = Arrays.copyOf(hitIndices, 2 * numHits);
+                    }
+                    hitIndices[numHits++] = index;
+                }
+            }
             if (numHits == 0) continue;
 
             //Unambiguous read scores for the lowest common ancestor and its ancestors
-            final int lowestCommonAncestor = tree.getLCA(hitTaxIds);
-            final List<Integer> lcaPath = tree.getPathOf(lowestCommonAncestor);
-            for (final int taxId : lcaPath) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addUnambiguousReads(hit.numMates);
+            int lowestCommonAncestor = hitIndices[0];
+            for (int i = 1; i < numHits; i++) {
+                lowestCommonAncestor = ancestorTable.getLCA(lowestCommonAncestor, hitIndices[i]);
+            }
+            for (int node = lowestCommonAncestor; node != PSTaxonomyAncestorTable.NO_NODE; node = ancestorTable.getParent(node)) {
+                scores.unambiguousReads[node] += hit.numMates;
             }
 
             //Scores normalized by genome length and degree of ambiguity (number of hits)
-            final Set<Integer> hitPathNodes = new HashSet<>(); //Set of all unique hits and ancestors
-            for (final int taxId : hitTaxIds) {
+            for (int i = 0; i < numHits; i++) {
+                final int hitIndex = hitIndices[i];
                 double score = hit.numMates / (double) numHits;
-                if (divideByGenomeLength) score *= SCORE_GENOME_LENGTH_UNITS / tree.getLengthOf(taxId);
-                //Get list containing this node and its ancestors
-                final List<Integer> path = tree.getPathOf(taxId);
-                hitPathNodes.addAll(path);
-                for (final int pathTaxId : path) {
-                    final PSPathogenTaxonScore info = getOrAddScoreInfo(pathTaxId, taxIdsToScores, tree);
-                    if (pathTaxId == taxId) {
-                        info.addSelfScore(score);
-                    } else {
-                        info.addDescendentScore(score);
-                    }
-                    taxIdsToScores.put(pathTaxId, info);
+                if (divideByGenomeLength) score *= SCORE_GENOME_LENGTH_UNITS / ancestorTable.getLength(hitIndex);
+                scores.selfScores[hitIndex] += score;
+                for (int node = ancestorTable.getParent(hitIndex); node != PSTaxonomyAncestorTable.NO_NODE; node = ancestorTable.getParent(node)) {
+                    scores.descendentScores[node] += score;
                 }
-            }
 
-            //"reads" score is the number of reads that COULD belong to each node i.e. an upper-bound
-            for (final int taxId : hitPathNodes) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addTotalReads(hit.numMates);
+                //"reads" score is the number of reads that COULD belong to each node i.e. an upper-bound
+                //Stops at the first visited node, since its ancestors have been visited as well
+                for (int node = hitIndex; node != PSTaxonomyAncestorTable.NO_NODE && pathStamps[node] != stamp; node = ancestorTable.getParent(node)) {
+                    pathStamps[node] = stamp;
+                    scores.totalReads[node] += hit.numMates;
+                    scores.isScored[node] = true;
+                }
             }
         }
         PSUtils.logItemizedWarning(logger, invalidIds, "The following taxonomic ID hits were ignored because " +
                 "they either could not be found in the tree or had a reference length of 0 (this may happen when " +
                 "the catalog file, taxdump file, and/or pathogen reference are inconsistent)");
-        return taxIdsToScores.entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
+        return scores;
     }
 
     /**
@@ -398,23 +416,6 @@ public final class PSScorer {
         }
     }
 
-    /**
-     * Helper function for handling PSPathogenTaxonScore retrieval from the taxScores map
-     */
-    private static PSPathogenTaxonScore getOrAddScoreInfo(final int taxId,
-                                                          final Map<Integer, PSPathogenTaxonScore> taxScores,
-                                                          final PSTree tree) {
-        final PSPathogenTaxonScore score;
-        if (taxScores.containsKey(taxId)) {
-            score = taxScores.get(taxId);
-        } else {
-            score = new PSPathogenTaxonScore();
-            score.setReferenceLength(tree.getLengthOf(taxId));
-            taxScores.put(taxId, score);
-        }
-        return score;
-    }
-
     /**
      * Reads taxonomy database that has been serialized to a file
      */
@@ -0,0 +1,76 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unnormalized taxon scores stored in primitive arrays indexed by the node indices of a {@link PSTaxonomyAncestorTable}.
+ * Used to aggregate scores within a partition and then merge them across partitions without creating a
+ * {@link PSPathogenTaxonScore} for every hit.
+ */
+public final class PSTaxonScoreArrays implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final double[] selfScores;
+    final double[] descendentScores;
+    final int[] totalReads;
+    final int[] unambiguousReads;
+    final boolean[] isScored; //Whether the node is a hit or the ancestor of a hit
+
+    public PSTaxonScoreArrays(final int numNodes) {
+        Utils.validateArg(numNodes >= 0, "Number of nodes must be non-negative");
+        selfScores = new double[numNodes];
+        descendentScores = new double[numNodes];
+        totalReads = new int[numNodes];
+        unambiguousReads = new int[numNodes];
+        isScored = new boolean[numNodes];
+    }
+
+    public int size() {
+        return selfScores.length;
+    }
+
+    /**
+     * Adds the scores of another set of arrays to this one and returns this
+     */
+    public PSTaxonScoreArrays inPlaceCombine(final PSTaxonScoreArrays other) {
+        Utils.nonNull(other, "Cannot add taxon scores to null");
+        if (other.size() != size()) {
+            throw new GATKException("Cannot add taxon scores for different numbers of nodes.");
+        }
+        for (int i = 0; i < selfScores.length; i++) {
+            selfScores[i] += other.selfScores[i];
+            descendentScores[i] += other.descendentScores[i];
+            totalReads[i] += other.totalReads[i];
+            unambiguousReads[i] += other.unambiguousReads[i];
+            isScored[i] |= other.isScored[i];
+        }
+        return this;
+    }
+
+    /**
+     * Creates a score for each node that is a hit or the ancestor of a hit, keyed by tax ID
+     */
+    public Map<Integer, PSPathogenTaxonScore> toScoreMap(final PSTaxonomyAncestorTable ancestorTable) {
+        Utils.nonNull(ancestorTable);
+        Utils.validateArg(ancestorTable.size() == size(), "Ancestor table does not match the taxon scores");
+        final Map<Integer, PSPathogenTaxonScore> scores = new HashMap<>();
+        for (int i = 0; i < selfScores.length; i++) {
+            if (isScored[i]) {
+                final PSPathogenTaxonScore score = new PSPathogenTaxonScore();
+                score.setReferenceLength(ancestorTable.getLength(i));
+                score.addSelfScore(selfScores[i]);
+                score.addDescendentScore(descendentScores[i]);
+                score.addTotalReads(totalReads[i]);
+                score.addUnambiguousReads(unambiguousReads[i]);
+                scores.put(ancestorTable.getTaxId(i), score);
+            }
+        }
+        return scores;
+    }
+}
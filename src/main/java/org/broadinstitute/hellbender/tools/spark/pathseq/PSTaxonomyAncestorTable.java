@@ -0,0 +1,119 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Ancestor table for the nodes of a {@link PSTree}. Nodes are assigned dense indices (in order of tax ID), and the
+ * parent, depth, and reference length of each node are stored in primitive arrays, so that lineages can be walked
+ * and lowest common ancestors found without map lookups or allocating path lists.
+ */
+public final class PSTaxonomyAncestorTable implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Index returned for the parent of a root and for tax IDs not in the tree
+     */
+    public static final int NO_NODE = -1;
+    private static final int DEPTH_UNKNOWN = -1;
+    private static final int DEPTH_IN_PROGRESS = -2;
+
+    private final int[] taxIds;
+    private final int[] parents;
+    private final int[] depths;
+    private final long[] lengths;
+
+    public PSTaxonomyAncestorTable(final PSTree tree) {
+        Utils.nonNull(tree);
+        taxIds = tree.getNodeIDs().stream().mapToInt(Integer::intValue).sorted().toArray();
+        final int numNodes = taxIds.length;
+        parents = new int[numNodes];
+        lengths = new long[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            final int parentId = tree.getParentOf(taxIds[i]);
+            if (parentId == PSTree.NULL_NODE) {
+                parents[i] = NO_NODE;
+            } else {
+                parents[i] = indexOf(parentId);
+                if (parents[i] == NO_NODE) {
+                    throw new UserException.BadInput("Parent node " + parentId + " not found in tree while getting path");
+                }
+            }
+            lengths[i] = tree.getLengthOf(taxIds[i]);
+        }
+        depths = new int[numNodes];
+        Arrays.fill(depths, DEPTH_UNKNOWN);
+        final int[] stack = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            //walk up to the first node of known depth (or the root), then assign depths on the way back down
+            int stackSize = 0;
+            int node = i;
+            while (node != NO_NODE && depths[node] == DEPTH_UNKNOWN) {
+                depths[node] = DEPTH_IN_PROGRESS;
+                stack[stackSize++] = node;
+                node = parents[node];
+            }
+            if (node != NO_NODE && depths[node] == DEPTH_IN_PROGRESS) {
+                throw new UserException.BadInput("The tree contains a cycle at node " + taxIds[node]);
+            }
+            int depth = node == NO_NODE ? -1 : depths[node];
+            while (stackSize > 0) {
+                depths[stack[--stackSize]] = ++depth;
+            }
+        }
+    }
+
+    public int size() {
+        return taxIds.length;
+    }
+
+    /**
+     * @return  index of the node with the given tax ID, or {@link #NO_NODE} if it is not in the tree
+     */
+    public int indexOf(final int taxId) {
+        final int index = Arrays.binarySearch(taxIds, taxId);
+        return index < 0 ? NO_NODE : index;
+    }
+
+    public int getTaxId(final int index) {
+        return taxIds[index];
+    }
+
+    /**
+     * @return  index of the parent of the node, or {@link #NO_NODE} for a root
+     */
+    public int getParent(final int index) {
+        return parents[index];
+    }
+
+    public int getDepth(final int index) {
+        return depths[index];
+    }
+
+    public long getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Gets the index of the lowest common ancestor of two nodes by lifting the deeper node to the depth of the other
+     * and then walking both up together.
+     */
+    public int getLCA(int index1, int index2) {
+        while (depths[index1] > depths[index2]) index1 = parents[index1];
+        while (depths[index2] > depths[index1]) index2 = parents[index2];
+        while (index1 != index2) {
+            index1 = parents[index1];
+            index2 = parents[index2];
+        }
+        if (index1 == NO_NODE) {
+            //This should never happen if the tree structure has been checked
+            throw new GATKException.ShouldNeverReachHereException("Could not find common ancester of node set.");
+        }
+        return index1;
+    }
+}
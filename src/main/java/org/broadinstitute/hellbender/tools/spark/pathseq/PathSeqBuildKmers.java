@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.spark.pathseq;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
@@ -7,11 +8,14 @@ import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.MetagenomicsProgramGroup;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceFileSparkSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 
 import java.util.Collection;
+import java.util.function.BiConsumer;
 
 /**
  * Produce a set of k-mers from the given host reference. The output file from this tool is required to run the PathSeq pipeline.
@@ -80,6 +84,8 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
     public static final String REFERENCE_SHORT_NAME = StandardArgumentDefinitions.REFERENCE_SHORT_NAME;
     public static final String BLOOM_FILTER_FALSE_POSITIVE_P_LONG_NAME = "bloom-false-positive-probability";
     public static final String BLOOM_FILTER_FALSE_POSITIVE_P_SHORT_NAME = "P";
+    public static final String CACHE_BLOCKED_BLOOM_FILTER_LONG_NAME = "cache-blocked-bloom-filter";
+    public static final String MEMORY_MAPPED_FORMAT_LONG_NAME = "memory-mapped-format";
     public static final String KMER_SIZE_LONG_NAME = "kmer-size";
     public static final String KMER_SIZE_SHORT_NAME = "SZ";
     public static final String KMER_MASK_LONG_NAME = "kmer-mask";
@@ -89,7 +95,9 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
 
     @Argument(doc = "File for k-mer set output. Extension will be automatically added if not present ("
             + PSKmerUtils.HOPSCOTCH_SET_EXTENSION + " for hash set or "
-            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter)",
+            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter or "
+            + PSKmerUtils.BLOCKED_BLOOM_FILTER_EXTENSION + " for cache-blocked Bloom filter or "
+            + PSKmerUtils.MAPPED_KMER_COLLECTION_EXTENSION + " for memory-mapped format)",
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME)
     public String outputFile;
@@ -112,6 +120,29 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             optional = true)
     public double bloomFpp = 0;
 
+    /**
+     * <p>A cache-blocked Bloom filter stores all bits for a given k-mer in a single 512-bit block, so that each query
+     * touches one cache line instead of one per hash function. This speeds up host read filtering at the cost of
+     * slightly more memory for the same false positive probability.</p>
+     */
+    @Advanced
+    @Argument(doc = "Creates a cache-blocked Bloom filter instead of a standard Bloom filter (requires --"
+            + BLOOM_FILTER_FALSE_POSITIVE_P_LONG_NAME + ")",
+            fullName = CACHE_BLOCKED_BLOOM_FILTER_LONG_NAME,
+            optional = true)
+    public boolean cacheBlockedBloomFilter = false;
+
+    /**
+     * <p>Writes the hash set or Bloom filter in a flat format that is memory-mapped and queried in place rather than
+     * deserialized into the heap. Executors start filtering immediately, and executors on the same node share a single
+     * copy of the k-mers through the page cache. The file must be available at the same local path on every node.</p>
+     */
+    @Advanced
+    @Argument(doc = "Writes the k-mer set in memory-mapped format",
+            fullName = MEMORY_MAPPED_FORMAT_LONG_NAME,
+            optional = true)
+    public boolean memoryMappedFormat = false;
+
     /**
      * Reducing the k-mer length will increase the number of host reads subtracted in the
      * filtering phase of the pipeline, but it may also increase the number of non-host (i.e. microbial)
@@ -152,6 +183,11 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
     @Override
     protected Object doWork() {
 
+        if (cacheBlockedBloomFilter && bloomFpp == 0) {
+            throw new UserException.BadInput("A non-zero value of --" + BLOOM_FILTER_FALSE_POSITIVE_P_LONG_NAME
+                    + " is required to create a cache-blocked Bloom filter");
+        }
+
         final ReferenceFileSparkSource reference = new ReferenceFileSparkSource(this.reference);
 
         final byte[] maskBytes = PSUtils.parseMask(kmerMaskString, kmerSize);
@@ -160,18 +196,32 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
         logger.info("Loading reference kmers...");
         final Collection<long[]> maskedKmerCollection = PSKmerUtils.getMaskedKmersFromLocalReference(reference, kmerSize, kmerSpacing, kmerMask);
         final long numLongs = PSKmerUtils.longArrayCollectionSize(maskedKmerCollection);
-        if (bloomFpp > 0) {
+        if (bloomFpp > 0 && cacheBlockedBloomFilter) {
+            logger.info("Building cache-blocked Bloom filter with false positive probability " + bloomFpp + "...");
+            final LongBlockedBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBlockedBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
+            final PSKmerBlockedBloomFilter kmerBloomFilter = new PSKmerBlockedBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
+            logger.info("Theoretical Bloom filter false positive probability: " + kmerBloomFilter.getFalsePositiveProbability());
+            writeKmerCollection(kmerBloomFilter, PSKmerUtils::writeKmerBlockedBloomFilter);
+        } else if (bloomFpp > 0) {
             logger.info("Building Bloom filter with false positive probability " + bloomFpp + "...");
             final LongBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
             final PSKmerBloomFilter kmerBloomFilter = new PSKmerBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
             logger.info("Theoretical Bloom filter false positive probability: " + kmerBloomFilter.getFalsePositiveProbability());
-            PSKmerUtils.writeKmerBloomFilter(outputFile, kmerBloomFilter);
+            writeKmerCollection(kmerBloomFilter, PSKmerUtils::writeKmerBloomFilter);
         } else {
             logger.info("Building kmer hash set...");
             final LargeLongHopscotchSet kmerHopscotchSet = PSKmerUtils.longArrayCollectionToSet(maskedKmerCollection, numLongs);
             final PSKmerSet kmerSet = new PSKmerSet(kmerHopscotchSet, kmerSize, kmerMask);
-            PSKmerUtils.writeKmerSet(outputFile, kmerSet);
+            writeKmerCollection(kmerSet, PSKmerUtils::writeKmerSet);
         }
         return null;
     }
+
+    private <T extends PSKmerCollection> void writeKmerCollection(final T kmerCollection, final BiConsumer<String, T> writer) {
+        if (memoryMappedFormat) {
+            PSKmerUtils.writeMappedKmerCollection(outputFile, kmerCollection);
+        } else {
+            writer.accept(outputFile, kmerCollection);
+        }
+    }
 }
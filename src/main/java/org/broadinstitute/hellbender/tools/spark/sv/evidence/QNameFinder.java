@@ -1,8 +1,8 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
 import org.apache.commons.collections4.iterators.SingletonIterator;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.FrozenSVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVInterval;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalTree;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.Collections;
@@ -18,13 +18,13 @@ public final class QNameFinder implements Function<GATKRead, Iterator<QNameAndIn
     private final List<SVInterval> intervals;
     private final SVReadFilter filter;
     private static final Iterator<QNameAndInterval> noName = Collections.emptyIterator();
-    private final SVIntervalTree<SVInterval> highCoverageSubIntervals;
+    private final FrozenSVIntervalTree<SVInterval> highCoverageSubIntervals;
     private int intervalsIndex = 0;
 
     public QNameFinder(final ReadMetadata metadata,
                        final List<SVInterval> intervals,
                        final SVReadFilter filter,
-                       final SVIntervalTree<SVInterval> highCoverageSubIntervals) {
+                       final FrozenSVIntervalTree<SVInterval> highCoverageSubIntervals) {
         this.metadata = metadata;
         this.intervals = intervals;
         this.filter = filter;
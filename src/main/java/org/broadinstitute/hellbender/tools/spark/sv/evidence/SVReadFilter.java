@@ -1,7 +1,7 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
+import org.broadinstitute.hellbender.tools.spark.sv.utils.FrozenSVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVInterval;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
@@ -65,15 +65,8 @@ public class SVReadFilter implements Serializable {
                 read.getStart() - allowedShortFragmentOverhang <= read.getMateStart();
     }
 
-    public boolean containedInRegionToIgnore(final SVInterval interval, final SVIntervalTree<SVInterval> regionsToIgnore) {
-        final Iterator<SVIntervalTree.Entry<SVInterval>> overlappers = regionsToIgnore.overlappers(interval);
-        while (overlappers.hasNext()) {
-            SVIntervalTree.Entry<SVInterval> depthFilteredInterval = overlappers.next();
-            if (depthFilteredInterval.getInterval().overlapLen(interval) == interval.getLength()) {
-                return true;
-            }
-        }
-        return false;
+    public boolean containedInRegionToIgnore(final SVInterval interval, final FrozenSVIntervalTree<?> regionsToIgnore) {
+        return regionsToIgnore.hasContainer(interval);
     }
 
     public Iterator<GATKRead> applyFilter( final Iterator<GATKRead> readItr, final BiPredicate<SVReadFilter, GATKRead> predicate ) {
@@ -0,0 +1,267 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only copy of an {@link SVIntervalTree} that is stored in flat arrays.
+ * Intervals are kept in the same order as in the source tree (by contig, then start, then end), and the sorted array
+ * is treated as an implicit, balanced binary tree in which each node is augmented with the maximum end of its
+ * sub-tree (the layout described by H. Li for cgranges). Queries walk array indices rather than node pointers, so they
+ * stay in cache, and overlaps are reported as primitive indices without allocating an entry for each one.
+ * The arrays are also much cheaper to serialize and broadcast than the nodes of a red-black tree.
+ * <p>
+ * Positions are encoded as longs, with the contig in the high 32 bits and the offset coordinate in the low 32 bits, so
+ * that comparisons across contigs need no special cases.
+ */
+@DefaultSerializer(FrozenSVIntervalTree.Serializer.class)
+public final class FrozenSVIntervalTree<V> {
+    //sub-trees at or below this level are scanned linearly rather than descended
+    private static final int LINEAR_SCAN_MAX_LEVEL = 3;
+    private static final int MAX_STACK_SIZE = 64;
+
+    private final long[] startKeys;
+    private final long[] endKeys;
+    private final long[] maxEndKeys;
+    private final Object[] values;
+    private final int rootLevel;
+
+    public FrozenSVIntervalTree( final SVIntervalTree<V> tree ) {
+        Utils.nonNull(tree);
+        final int size = tree.size();
+        startKeys = new long[size];
+        endKeys = new long[size];
+        values = new Object[size];
+        int idx = 0;
+        for ( final SVIntervalTree.Entry<V> entry : tree ) {
+            final SVInterval interval = entry.getInterval();
+            startKeys[idx] = toKey(interval.getContig(), interval.getStart());
+            endKeys[idx] = toKey(interval.getContig(), interval.getEnd());
+            values[idx] = entry.getValue();
+            idx += 1;
+        }
+        maxEndKeys = new long[size];
+        rootLevel = buildIndex(endKeys, maxEndKeys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private FrozenSVIntervalTree( final Kryo kryo, final Input input ) {
+        final int size = input.readInt();
+        startKeys = input.readLongs(size);
+        endKeys = input.readLongs(size);
+        values = new Object[size];
+        for ( int idx = 0; idx != size; ++idx ) {
+            values[idx] = kryo.readClassAndObject(input);
+        }
+        maxEndKeys = new long[size];
+        rootLevel = buildIndex(endKeys, maxEndKeys);
+    }
+
+    private void serialize( final Kryo kryo, final Output output ) {
+        output.writeInt(size());
+        output.writeLongs(startKeys);
+        output.writeLongs(endKeys);
+        for ( final Object value : values ) {
+            kryo.writeClassAndObject(output, value);
+        }
+    }
+
+    /**
+     * Fills in the maximum end of the sub-tree rooted at each index and returns the level of the root.
+     * Index i is at level k if its k lowest bits are 1 and bit k is 0; its children are at i - 2^(k-1) and i + 2^(k-1).
+     * Nodes past the end of the array are "virtual": they are never stored, and the maximum end of a virtual right
+     * child is taken from the last real node at that level.
+     */
+    private static int buildIndex( final long[] endKeys, final long[] maxEndKeys ) {
+        final int size = endKeys.length;
+        if ( size == 0 ) return -1;
+        int lastIdx = 0;
+        long lastMax = Long.MIN_VALUE;
+        for ( int idx = 0; idx < size; idx += 2 ) {
+            lastIdx = idx;
+            lastMax = maxEndKeys[idx] = endKeys[idx];
+        }
+        int level = 1;
+        for ( ; 1L << level <= size; ++level ) {
+            final int halfStep = 1 << (level - 1);
+            final long firstIdx = (2L * halfStep) - 1;
+            final long step = 4L * halfStep;
+            for ( long idx = firstIdx; idx < size; idx += step ) {
+                final int node = (int)idx;
+                final long leftMax = maxEndKeys[node - halfStep];
+                final long rightMax = node + (long)halfStep < size ? maxEndKeys[node + halfStep] : lastMax;
+                maxEndKeys[node] = Math.max(endKeys[node], Math.max(leftMax, rightMax));
+            }
+            lastIdx = ((lastIdx >> level) & 1) != 0 ? lastIdx - halfStep : lastIdx + halfStep;
+            if ( lastIdx < size && maxEndKeys[lastIdx] > lastMax ) {
+                lastMax = maxEndKeys[lastIdx];
+            }
+        }
+        return level - 1;
+    }
+
+    private static long toKey( final int contig, final int position ) {
+        return ((long)contig << 32) + ((long)position - Integer.MIN_VALUE);
+    }
+
+    private static int contigOf( final long key ) {
+        return (int)(key >> 32);
+    }
+
+    private static int positionOf( final long key ) {
+        return (int)((key & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+    }
+
+    /**
+     * Return the number of intervals in the tree.
+     */
+    public int size() {
+        return startKeys.length;
+    }
+
+    public int getContig( final int idx ) { return contigOf(startKeys[idx]); }
+    public int getStart( final int idx ) { return positionOf(startKeys[idx]); }
+    public int getEnd( final int idx ) { return positionOf(endKeys[idx]); }
+
+    public SVInterval getInterval( final int idx ) {
+        //the interval was validated when it was added to the source tree
+        return new SVInterval(getContig(idx), getStart(idx), getEnd(idx), SVInterval.SVIntervalConstructorArgsValidator.ACCEPTS_ALL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getValue( final int idx ) {
+        return (V)values[idx];
+    }
+
+    /**
+     * Check the tree against a probe interval to see if there's an overlapping interval.
+     */
+    public boolean hasOverlapper( final SVInterval interval ) {
+        return new OverlapIterator(interval).hasNext();
+    }
+
+    /**
+     * Check whether some interval in the tree entirely contains the probe interval.
+     */
+    public boolean hasContainer( final SVInterval interval ) {
+        final OverlapIterator overlappers = new OverlapIterator(interval);
+        final long startKey = toKey(interval.getContig(), interval.getStart());
+        final long endKey = toKey(interval.getContig(), interval.getEnd());
+        while ( overlappers.hasNext() ) {
+            final int idx = overlappers.nextIndex();
+            if ( startKeys[idx] <= startKey && endKeys[idx] >= endKey ) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return an iterator over the indices of all intervals overlapping the specified interval, in sorted order.
+     */
+    public OverlapIterator overlappers( final SVInterval interval ) {
+        return new OverlapIterator(interval);
+    }
+
+    /**
+     * Iterates over the indices of the intervals that overlap a query interval.
+     * It can be {@link #reset} to a new query interval, so that a single iterator can be used for many queries
+     * without any allocation.
+     */
+    public final class OverlapIterator {
+        private final int[] stackIndices = new int[MAX_STACK_SIZE];
+        private final int[] stackLevels = new int[MAX_STACK_SIZE];
+        private final boolean[] stackLeftDone = new boolean[MAX_STACK_SIZE];
+        private int stackSize;
+        private int scanIdx;
+        private int scanEnd;
+        private long queryStartKey;
+        private long queryEndKey;
+        private int next;
+
+        public OverlapIterator( final SVInterval interval ) {
+            reset(interval);
+        }
+
+        public void reset( final SVInterval interval ) {
+            Utils.nonNull(interval);
+            queryStartKey = toKey(interval.getContig(), interval.getStart());
+            queryEndKey = toKey(interval.getContig(), interval.getEnd());
+            stackSize = 0;
+            scanIdx = scanEnd = 0;
+            if ( rootLevel >= 0 ) {
+                push((1 << rootLevel) - 1, rootLevel, false);
+            }
+            next = advance();
+        }
+
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        public int nextIndex() {
+            if ( next < 0 ) {
+                throw new NoSuchElementException("No next element.");
+            }
+            final int result = next;
+            next = advance();
+            return result;
+        }
+
+        private void push( final int idx, final int level, final boolean leftDone ) {
+            stackIndices[stackSize] = idx;
+            stackLevels[stackSize] = level;
+            stackLeftDone[stackSize++] = leftDone;
+        }
+
+        /**
+         * An in-order traversal that skips sub-trees that end before the query starts, and stops once intervals
+         * start after the query ends.
+         */
+        private int advance() {
+            final int size = size();
+            while ( true ) {
+                if ( scanIdx < scanEnd ) {
+                    final int idx = scanIdx++;
+                    if ( startKeys[idx] >= queryEndKey ) {
+                        scanIdx = scanEnd;
+                    } else if ( queryStartKey < endKeys[idx] ) {
+                        return idx;
+                    }
+                    continue;
+                }
+                if ( stackSize == 0 ) return -1;
+                final int idx = stackIndices[--stackSize];
+                final int level = stackLevels[stackSize];
+                if ( level <= LINEAR_SCAN_MAX_LEVEL ) {
+                    scanIdx = idx >> level << level;
+                    scanEnd = (int)Math.min(size, (long)scanIdx + (1L << (level + 1)) - 1);
+                } else if ( !stackLeftDone[stackSize] ) {
+                    final int leftIdx = idx - (1 << (level - 1));
+                    push(idx, level, true);
+                    if ( leftIdx >= size || maxEndKeys[leftIdx] > queryStartKey ) {
+                        push(leftIdx, level - 1, false);
+                    }
+                } else if ( idx < size && startKeys[idx] < queryEndKey ) {
+                    push(idx + (1 << (level - 1)), level - 1, false);
+                    if ( queryStartKey < endKeys[idx] ) return idx;
+                }
+            }
+        }
+    }
+
+    public static final class Serializer<T> extends com.esotericsoftware.kryo.Serializer<FrozenSVIntervalTree<T>> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final FrozenSVIntervalTree<T> tree ) {
+            tree.serialize(kryo, output);
+        }
+
+        @Override
+        public FrozenSVIntervalTree<T> read( final Kryo kryo, final Input input, final Class<FrozenSVIntervalTree<T>> klass ) {
+            return new FrozenSVIntervalTree<>(kryo, input);
+        }
+    }
+}
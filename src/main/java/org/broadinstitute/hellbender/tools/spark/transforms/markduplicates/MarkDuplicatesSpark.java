@@ -198,6 +198,21 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
                                          final OpticalDuplicateFinder opticalDuplicateFinder,
                                          final int numReducers, final boolean dontMarkUnmappedMates,
                                          final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy) {
+        return mark(reads, header, scoringStrategy, opticalDuplicateFinder, numReducers, dontMarkUnmappedMates, taggingPolicy, false);
+    }
+
+    /**
+     * As {@link #mark(JavaRDD, SAMFileHeader, MarkDuplicatesScoringStrategy, OpticalDuplicateFinder, int, boolean, MarkDuplicates.DuplicateTaggingPolicy)}
+     * with control over the shuffle encoding of the duplicate marking records.
+     *
+     * @param compactShuffle when true, duplicate marking records are shuffled as compact binary encoded byte arrays
+     */
+    public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
+                                         final MarkDuplicatesScoringStrategy scoringStrategy,
+                                         final OpticalDuplicateFinder opticalDuplicateFinder,
+                                         final int numReducers, final boolean dontMarkUnmappedMates,
+                                         final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy,
+                                         final boolean compactShuffle) {
         final boolean markUnmappedMates = !dontMarkUnmappedMates;
         SAMFileHeader headerForTool = header.clone();
 
@@ -207,7 +222,7 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
         // If we need to remove optical duplicates or tag them, then make sure we are keeping track
         final boolean markOpticalDups = (taggingPolicy != MarkDuplicates.DuplicateTaggingPolicy.DontTag);
 
-        final JavaPairRDD<MarkDuplicatesSparkUtils.IndexPair<String>, Integer> namesOfNonDuplicates = MarkDuplicatesSparkUtils.transformToDuplicateNames(headerForTool, scoringStrategy, opticalDuplicateFinder, sortedReadsForMarking, numReducers, markOpticalDups);
+        final JavaPairRDD<MarkDuplicatesSparkUtils.IndexPair<String>, Integer> namesOfNonDuplicates = MarkDuplicatesSparkUtils.transformToDuplicateNames(headerForTool, scoringStrategy, opticalDuplicateFinder, sortedReadsForMarking, numReducers, markOpticalDups, compactShuffle);
 
         // Here we explicitly repartition the read names of the unmarked reads to match the partitioning of the original bam
         final JavaRDD<Tuple2<String,Integer>> repartitionedReadNames = namesOfNonDuplicates
@@ -224,44 +239,66 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
                 });
 
             return Utils.stream(readsIter)
-                    .peek(read -> read.setIsDuplicate(false))
-                    .peek(read -> read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, (String) null))
                     .peek(read -> {
-                        // Handle reads that have been marked as non-duplicates (which also get tagged with optical duplicate summary statistics)
-                        if (namesOfNonDuplicateReadsAndOpticalCounts.containsKey(read.getName())) {
-                            // If its an optical duplicate, mark it. (Note: we only expect these to exist if optical duplicate marking is on)
-                            if (namesOfNonDuplicateReadsAndOpticalCounts.get(read.getName()) == OPTICAL_DUPLICATE_MARKER) {
-                                read.setIsDuplicate(true);
-                                read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_SEQUENCING);
-
-                            // Otherwise treat it normally as a non-duplicate.
-                            } else {
-                                read.setIsDuplicate(false);
-                                if (markUnmappedMates || !read.isUnmapped()) {
-                                    int dupCount = namesOfNonDuplicateReadsAndOpticalCounts.replace(read.getName(), NO_OPTICAL_MARKER);
-                                    if (dupCount > -1) {
-                                        read.setTransientAttribute(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, dupCount);
-                                    }
-                                }
-                            }
-                            // Mark unmapped read pairs as non-duplicates
-                        } else if (ReadUtils.readAndMateAreUnmapped(read)) {
-                            read.setIsDuplicate(false);
-                            // Everything else is a duplicate
-                        } else {
-                            if (markUnmappedMates || !read.isUnmapped()) {
-                                read.setIsDuplicate(true);
-                                if (taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.All) {
-                                    read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_LIBRARY);
-                                }
-                            } else {
-                                read.setIsDuplicate(false);
-                            }
+                        final Integer marker = namesOfNonDuplicateReadsAndOpticalCounts.get(read.getName());
+                        final Integer updatedMarker = applyDuplicateMarker(read, marker, markUnmappedMates, taggingPolicy);
+                        if (marker != null && !marker.equals(updatedMarker)) {
+                            namesOfNonDuplicateReadsAndOpticalCounts.put(read.getName(), updatedMarker);
                         }
                     }).iterator();
         });
     }
 
+    /**
+     * Sets the duplicate flag and duplicate type tag on a single read given the result of duplicate marking for its read name.
+     *
+     * @param read read to be marked
+     * @param marker optical duplicate count or marker computed for the read's name, or null if the name was not reported
+     *               among the non-duplicates (in which case the read is treated as a duplicate)
+     * @param markUnmappedMates when false, unmapped mates of duplicate fragments will be marked as non-duplicates
+     * @param taggingPolicy determines whether optical duplicates and library duplicates are labeled with the "DT" tag
+     * @return the marker to apply to subsequent reads sharing this read's name, so that the optical duplicate count is
+     *         only recorded on one read of the template
+     */
+    public static Integer applyDuplicateMarker(final GATKRead read, final Integer marker, final boolean markUnmappedMates,
+                                               final MarkDuplicates.DuplicateTaggingPolicy taggingPolicy) {
+        read.setIsDuplicate(false);
+        read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, (String) null);
+
+        // Handle reads that have been marked as non-duplicates (which also get tagged with optical duplicate summary statistics)
+        if (marker != null) {
+            // If its an optical duplicate, mark it. (Note: we only expect these to exist if optical duplicate marking is on)
+            if (marker == OPTICAL_DUPLICATE_MARKER) {
+                read.setIsDuplicate(true);
+                read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_SEQUENCING);
+
+            // Otherwise treat it normally as a non-duplicate.
+            } else {
+                read.setIsDuplicate(false);
+                if (markUnmappedMates || !read.isUnmapped()) {
+                    if (marker > -1) {
+                        read.setTransientAttribute(MarkDuplicatesSparkUtils.OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, marker);
+                    }
+                    return NO_OPTICAL_MARKER;
+                }
+            }
+            // Mark unmapped read pairs as non-duplicates
+        } else if (ReadUtils.readAndMateAreUnmapped(read)) {
+            read.setIsDuplicate(false);
+            // Everything else is a duplicate
+        } else {
+            if (markUnmappedMates || !read.isUnmapped()) {
+                read.setIsDuplicate(true);
+                if (taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.All) {
+                    read.setAttribute(MarkDuplicates.DUPLICATE_TYPE_TAG, MarkDuplicates.DUPLICATE_TYPE_LIBRARY);
+                }
+            } else {
+                read.setIsDuplicate(false);
+            }
+        }
+        return marker;
+    }
+
     public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
                                          final OpticalDuplicateFinder finder,
                                          final MarkDuplicatesSparkArgumentCollection mdArgs,
@@ -272,7 +309,8 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
                     finder,
                     numReducers,
                     mdArgs.dontMarkUnmappedMates,
-                    mdArgs.taggingPolicy);
+                    mdArgs.taggingPolicy,
+                    mdArgs.compactShuffleRecords);
     }
 
 
@@ -2,7 +2,6 @@ package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
 
 import com.esotericsoftware.kryo.DefaultSerializer;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.*;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
@@ -85,8 +84,7 @@ public class MarkDuplicatesSparkUtils {
             return index;
         }
 
-        @VisibleForTesting
-        IndexPair(T value, int index) {
+        public IndexPair(T value, int index) {
             this.value = value;
             this.index = index;
         }
@@ -116,6 +114,15 @@ public class MarkDuplicatesSparkUtils {
      *   (b) Determine which duplicates are optical duplicates and increase the overall count.
      */
     static JavaPairRDD<IndexPair<String>, Integer> transformToDuplicateNames(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead>  reads, final int numReducers, final boolean markOpticalDups) {
+        return transformToDuplicateNames(header, scoringStrategy, finder, reads, numReducers, markOpticalDups, false);
+    }
+
+    /**
+     * As {@link #transformToDuplicateNames(SAMFileHeader, MarkDuplicatesScoringStrategy, OpticalDuplicateFinder, JavaRDD, int, boolean)}
+     * but optionally shuffles the MarkDuplicatesSparkRecord objects in step (4) as compact byte arrays produced by
+     * {@link MarkDuplicatesSparkRecordCodec} instead of through Kryo object serialization.
+     */
+    static JavaPairRDD<IndexPair<String>, Integer> transformToDuplicateNames(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead>  reads, final int numReducers, final boolean markOpticalDups, final boolean compactShuffle) {
         // we treat these specially and don't mark them as duplicates
         final JavaRDD<GATKRead> mappedReads = reads.filter(ReadFilterLibrary.MAPPED::test);
 
@@ -125,77 +132,104 @@ public class MarkDuplicatesSparkUtils {
         final Broadcast<Map<String, Byte>> libraryIndex = JavaSparkContext.fromSparkContext(reads.context()).broadcast( constructLibraryIndex(header));
 
         // Place all the reads into a single RDD of MarkDuplicatesSparkRecord objects
-        final JavaPairRDD<ReadsKey, MarkDuplicatesSparkRecord> pairedEnds = keyedReads.flatMapToPair(keyedRead -> {
-            final List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> out = Lists.newArrayList();
-            final IndexPair<?>[] hadNonPrimaryRead = {null};
-
-            final List<IndexPair<GATKRead>> primaryReads = Utils.stream(keyedRead._2())
-                    ////// Making The Fragments //////
-                    // Make a PairedEnd object with no second read for each fragment (and an empty one for each paired read)
-                    .peek(readWithIndex -> {
-                        final GATKRead read = readWithIndex.getValue();
-                        if (!(read.isSecondaryAlignment()||read.isSupplementaryAlignment())) {
-                            PairedEnds fragment = (ReadUtils.readHasMappedMate(read)) ?
-                                    MarkDuplicatesSparkRecord.newEmptyFragment(read, header, libraryIndex.getValue()) :
-                                    MarkDuplicatesSparkRecord.newFragment(read, header, readWithIndex.getIndex(), scoringStrategy, libraryIndex.getValue());
-
-                            out.add(new Tuple2<>(fragment.key(), fragment));
-                        } else {
-                            hadNonPrimaryRead[0] = readWithIndex;
-                        }
-                    })
-                    .filter(indexPair -> !(indexPair.getValue().isSecondaryAlignment()||indexPair.getValue().isSupplementaryAlignment()))
-                    .collect(Collectors.toList());
-
-            // Catching the case where there are only secondary and supplementary reads in the readname group
-            if (primaryReads.isEmpty()) {
-                final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough((GATKRead)hadNonPrimaryRead[0].getValue(), hadNonPrimaryRead[0].getIndex());
-                out.add(new Tuple2<>(pass.key(), pass));
-                return out.iterator();
-
-                // Mark duplicates cant properly handle templates with more than two reads in a pair
-            } else if (primaryReads.size()>2) {
-                throw new UserException.UnimplementedFeature(String.format("MarkDuplicatesSpark only supports singleton fragments and pairs. We found the following group with >2 primary reads: ( %d number of reads)." +
-                        " \n%s.", primaryReads.size(), primaryReads.stream().map(Object::toString).collect(Collectors.joining("\n"))));
-            }
+        final JavaPairRDD<ReadsKey, MarkDuplicatesSparkRecord> pairedEnds = keyedReads.flatMapToPair(keyedRead ->
+                getRecordsForReadNameGroup(keyedRead._2(), header, scoringStrategy, headerReadGroupIndexMap.getValue(), libraryIndex.getValue()).iterator());
 
-            ////// Making The Paired Reads //////
-            // Write each paired read with a mapped mate as a pair
-            final List<IndexPair<GATKRead>> mappedPair = primaryReads.stream()
-                    .filter(readWithIndex -> ReadUtils.readHasMappedMate(readWithIndex.getValue()))
-                    .collect(Collectors.toList());
-
-            // If there are two primary reads in the group pass them as a pair
-            if (mappedPair.size()==2) {
-                final GATKRead firstRead = mappedPair.get(0).getValue();
-                final IndexPair<GATKRead> secondRead = mappedPair.get(1);
-                final Pair pair = MarkDuplicatesSparkRecord.newPair(firstRead, secondRead.getValue(), header, secondRead.getIndex(), scoringStrategy, libraryIndex.getValue());
-                // Validate and add the read group to the pair
-                final Short readGroup = headerReadGroupIndexMap.getValue().get(firstRead.getReadGroup());
-                if (readGroup != null) {
-                    pair.setReadGroup(readGroup);
-                } else {
-                    throw (firstRead.getReadGroup()==null) ?
-                            new UserException.ReadMissingReadGroup(firstRead) :
-                            new UserException.HeaderMissingReadGroup(firstRead);
-                }
-                out.add(new Tuple2<>(pair.key(), pair));
+        final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs = compactShuffle ?
+                groupByKeyAsBytes(pairedEnds) :
+                pairedEnds.groupByKey(); //TODO evaluate replacing this with a smart aggregate by key.
+
+        return markDuplicateRecords(keyedPairs, finder, markOpticalDups);
+    }
+
+    /**
+     * Converts the reads sharing a single read name into the MarkDuplicatesSparkRecord objects used for duplicate marking,
+     * keyed by their alignment information. This corresponds to step (3) of {@link #transformToDuplicateNames}.
+     *
+     * @param readNameGroup mapped reads sharing a read name, each paired with the index used to locate them again after marking
+     * @param headerReadGroupIndexMap map from read group ID to its index, see {@link #getHeaderReadGroupIndexMap}
+     * @param libraryIndex map from library name to its index, see {@link #constructLibraryIndex}
+     */
+    public static List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> getRecordsForReadNameGroup(final Iterable<IndexPair<GATKRead>> readNameGroup,
+                                                                                             final SAMFileHeader header,
+                                                                                             final MarkDuplicatesScoringStrategy scoringStrategy,
+                                                                                             final Map<String, Short> headerReadGroupIndexMap,
+                                                                                             final Map<String, Byte> libraryIndex) {
+        final List<Tuple2<ReadsKey, MarkDuplicatesSparkRecord>> out = Lists.newArrayList();
+        final IndexPair<?>[] hadNonPrimaryRead = {null};
+
+        final List<IndexPair<GATKRead>> primaryReads = Utils.stream(readNameGroup)
+                ////// Making The Fragments //////
+                // Make a PairedEnd object with no second read for each fragment (and an empty one for each paired read)
+                .peek(readWithIndex -> {
+                    final GATKRead read = readWithIndex.getValue();
+                    if (!(read.isSecondaryAlignment()||read.isSupplementaryAlignment())) {
+                        PairedEnds fragment = (ReadUtils.readHasMappedMate(read)) ?
+                                MarkDuplicatesSparkRecord.newEmptyFragment(read, header, libraryIndex) :
+                                MarkDuplicatesSparkRecord.newFragment(read, header, readWithIndex.getIndex(), scoringStrategy, libraryIndex);
+
+                        out.add(new Tuple2<>(fragment.key(), fragment));
+                    } else {
+                        hadNonPrimaryRead[0] = readWithIndex;
+                    }
+                })
+                .filter(indexPair -> !(indexPair.getValue().isSecondaryAlignment()||indexPair.getValue().isSupplementaryAlignment()))
+                .collect(Collectors.toList());
+
+        // Catching the case where there are only secondary and supplementary reads in the readname group
+        if (primaryReads.isEmpty()) {
+            final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough((GATKRead)hadNonPrimaryRead[0].getValue(), hadNonPrimaryRead[0].getIndex());
+            out.add(new Tuple2<>(pass.key(), pass));
+            return out;
+
+            // Mark duplicates cant properly handle templates with more than two reads in a pair
+        } else if (primaryReads.size()>2) {
+            throw new UserException.UnimplementedFeature(String.format("MarkDuplicatesSpark only supports singleton fragments and pairs. We found the following group with >2 primary reads: ( %d number of reads)." +
+                    " \n%s.", primaryReads.size(), primaryReads.stream().map(Object::toString).collect(Collectors.joining("\n"))));
+        }
 
-                // If there is one paired read in the template this probably means the bam is missing its mate, don't duplicate mark it
-            } else if (mappedPair.size()==1) {
-                final IndexPair<GATKRead> firstRead = mappedPair.get(0);
-                final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough(firstRead.getValue(), firstRead.getIndex());
-                out.add(new Tuple2<>(pass.key(), pass));
+        ////// Making The Paired Reads //////
+        // Write each paired read with a mapped mate as a pair
+        final List<IndexPair<GATKRead>> mappedPair = primaryReads.stream()
+                .filter(readWithIndex -> ReadUtils.readHasMappedMate(readWithIndex.getValue()))
+                .collect(Collectors.toList());
+
+        // If there are two primary reads in the group pass them as a pair
+        if (mappedPair.size()==2) {
+            final GATKRead firstRead = mappedPair.get(0).getValue();
+            final IndexPair<GATKRead> secondRead = mappedPair.get(1);
+            final Pair pair = MarkDuplicatesSparkRecord.newPair(firstRead, secondRead.getValue(), header, secondRead.getIndex(), scoringStrategy, libraryIndex);
+            // Validate and add the read group to the pair
+            final Short readGroup = headerReadGroupIndexMap.get(firstRead.getReadGroup());
+            if (readGroup != null) {
+                pair.setReadGroup(readGroup);
+            } else {
+                throw (firstRead.getReadGroup()==null) ?
+                        new UserException.ReadMissingReadGroup(firstRead) :
+                        new UserException.HeaderMissingReadGroup(firstRead);
             }
-            // If mappedPair is empty here, it probably means that we had a fragment with an unmapped mate, which has already been built
-            // and added to out. So we just pass through and return.
+            out.add(new Tuple2<>(pair.key(), pair));
 
-            return out.iterator();
-        });
+            // If there is one paired read in the template this probably means the bam is missing its mate, don't duplicate mark it
+        } else if (mappedPair.size()==1) {
+            final IndexPair<GATKRead> firstRead = mappedPair.get(0);
+            final MarkDuplicatesSparkRecord pass = MarkDuplicatesSparkRecord.getPassthrough(firstRead.getValue(), firstRead.getIndex());
+            out.add(new Tuple2<>(pass.key(), pass));
+        }
+        // If mappedPair is empty here, it probably means that we had a fragment with an unmapped mate, which has already been built
+        // and added to out. So we just pass through and return.
 
-        final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs = pairedEnds.groupByKey(); //TODO evaluate replacing this with a smart aggregate by key.
+        return out;
+    }
 
-        return markDuplicateRecords(keyedPairs, finder, markOpticalDups);
+    /**
+     * Groups the records by key while shuffling each record as a byte[] encoded by {@link MarkDuplicatesSparkRecordCodec}.
+     * The records are decoded lazily on the reduce side as each group is iterated.
+     */
+    private static JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> groupByKeyAsBytes(final JavaPairRDD<ReadsKey, MarkDuplicatesSparkRecord> pairedEnds) {
+        return pairedEnds.mapValues(MarkDuplicatesSparkRecordCodec::encode)
+                .groupByKey()
+                .mapValues(encodedRecords -> Iterables.transform(encodedRecords, MarkDuplicatesSparkRecordCodec::decode));
     }
 
     /**
@@ -217,7 +251,7 @@ public class MarkDuplicatesSparkUtils {
     /**
      * Method which generates a map of the readgroups from the header so they can be serialized as indexes
      */
-    private static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
+    public static Map<String, Short> getHeaderReadGroupIndexMap(final SAMFileHeader header) {
         final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
         if (readGroups.size() > 65535) {
             throw new GATKException("Detected too many read groups in the header, currently MarkDuplicatesSpark only supports up to 65535 unique readgroup IDs but " + readGroups.size() + " were found");
@@ -283,38 +317,48 @@ public class MarkDuplicatesSparkUtils {
      *  - Farms out to methods which handles each group
      *  - Collects the results and returns an iterator
      */
-    @SuppressWarnings("unchecked")
     private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs,
                                                                                 final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
-        return keyedPairs.flatMapToPair(keyedPair -> {
-            Iterable<MarkDuplicatesSparkRecord> pairGroups = keyedPair._2();
-
-            final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
-            final Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> stratifiedByType = splitByType(pairGroups);
-
-            // Each key corresponds to either fragments or paired ends, not a mixture of both.
-            final List<MarkDuplicatesSparkRecord> emptyFragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
-            final List<MarkDuplicatesSparkRecord> fragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.FRAGMENT);
-            final List<Pair> pairs = (List<Pair>)(List)stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PAIR);
-            final List<MarkDuplicatesSparkRecord> passthroughs = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PASSTHROUGH);
-
-            //empty MarkDuplicatesSparkRecord signify that a pair has a mate somewhere else
-            // If there are any non-fragment placeholders at this site, mark everything as duplicates, otherwise compute the best score
-            if (Utils.isNonEmpty(fragments) && !Utils.isNonEmpty(emptyFragments)) {
-                final Tuple2<IndexPair<String>, Integer> bestFragment = handleFragments(fragments, finder);
-                nonDuplicates.add(bestFragment);
-            }
+        return keyedPairs.flatMapToPair(keyedPair -> markDuplicateRecordGroup(keyedPair._2(), finder, markOpticalDups).iterator());
+    }
 
-            if (Utils.isNonEmpty(pairs)) {
-                nonDuplicates.addAll(handlePairs(pairs, finder, markOpticalDups));
-            }
+    /**
+     * Marks a single group of MarkDuplicatesSparkRecord objects sharing the same {@link ReadsKey}. This corresponds to
+     * step (5) of {@link #transformToDuplicateNames}.
+     *
+     * NOTE: the OpticalDuplicateFinder caches read name parsing state and so must not be shared between threads.
+     *
+     * @return the name and index of every non-duplicate (and, if markOpticalDups is set, every optical duplicate) in the
+     *         group along with its optical duplicate count or marker
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Tuple2<IndexPair<String>, Integer>> markDuplicateRecordGroup(final Iterable<MarkDuplicatesSparkRecord> pairGroups,
+                                                                                   final OpticalDuplicateFinder finder, final boolean markOpticalDups) {
+        final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
+        final Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> stratifiedByType = splitByType(pairGroups);
+
+        // Each key corresponds to either fragments or paired ends, not a mixture of both.
+        final List<MarkDuplicatesSparkRecord> emptyFragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
+        final List<MarkDuplicatesSparkRecord> fragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.FRAGMENT);
+        final List<Pair> pairs = (List<Pair>)(List)stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PAIR);
+        final List<MarkDuplicatesSparkRecord> passthroughs = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PASSTHROUGH);
+
+        //empty MarkDuplicatesSparkRecord signify that a pair has a mate somewhere else
+        // If there are any non-fragment placeholders at this site, mark everything as duplicates, otherwise compute the best score
+        if (Utils.isNonEmpty(fragments) && !Utils.isNonEmpty(emptyFragments)) {
+            final Tuple2<IndexPair<String>, Integer> bestFragment = handleFragments(fragments, finder);
+            nonDuplicates.add(bestFragment);
+        }
 
-            if (Utils.isNonEmpty(passthroughs)) {
-                nonDuplicates.addAll(handlePassthroughs(passthroughs));
-            }
+        if (Utils.isNonEmpty(pairs)) {
+            nonDuplicates.addAll(handlePairs(pairs, finder, markOpticalDups));
+        }
 
-            return nonDuplicates.iterator();
-        });
+        if (Utils.isNonEmpty(passthroughs)) {
+            nonDuplicates.addAll(handlePassthroughs(passthroughs));
+        }
+
+        return nonDuplicates;
     }
 
     /**
@@ -403,14 +447,7 @@ public class MarkDuplicatesSparkUtils {
                     final String library = LibraryIdGenerator.getLibraryName(header, read.getReadGroup());
                     GATKDuplicationMetrics metrics = new GATKDuplicationMetrics();
                     metrics.LIBRARY = library;
-                    metrics.updateMetrics(read);
-                    // NOTE: we use the SAMRecord transientAttribute field here specifically to prevent the already
-                    // serialized read from being parsed again here for performance reasons.
-                    if (read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME)!=null) {
-                        // NOTE: there is a safety check above in getReadsGroupedByName()
-                        metrics.READ_PAIR_OPTICAL_DUPLICATES +=
-                                (int)(read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME));
-                    }
+                    addReadToMetrics(metrics, read);
                     return new Tuple2<>(library, metrics);
                 })
                 .foldByKey(new GATKDuplicationMetrics(), (metricsSum, m) -> {
@@ -421,19 +458,39 @@ public class MarkDuplicatesSparkUtils {
                     }
                     return metricsSum;
                 })
-                .mapValues(metrics -> {
-                    final GATKDuplicationMetrics copy = metrics.copy();
-                    // Divide these by 2 because they are counted for each read
-                    // when they should be counted by pair.
-                    copy.READ_PAIRS_EXAMINED = metrics.READ_PAIRS_EXAMINED / 2;
-                    copy.READ_PAIR_DUPLICATES = metrics.READ_PAIR_DUPLICATES / 2;
-
-                    copy.calculateDerivedFields();
-                    if (copy.ESTIMATED_LIBRARY_SIZE == null) {
-                        copy.ESTIMATED_LIBRARY_SIZE = 0L;
-                    }
-                    return copy;
-                });
+                .mapValues(MarkDuplicatesSparkUtils::finalizeLibraryMetrics);
+    }
+
+    /**
+     * Adds a single duplicate marked read to the metrics for its library, including the optical duplicate count
+     * recorded on the read during marking.
+     */
+    public static void addReadToMetrics(final GATKDuplicationMetrics metrics, final GATKRead read) {
+        metrics.updateMetrics(read);
+        // NOTE: we use the SAMRecord transientAttribute field here specifically to prevent the already
+        // serialized read from being parsed again here for performance reasons.
+        if (read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME)!=null) {
+            // NOTE: there is a safety check above in getReadsGroupedByName()
+            metrics.READ_PAIR_OPTICAL_DUPLICATES +=
+                    (int)(read.getTransientAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME));
+        }
+    }
+
+    /**
+     * Returns a copy of the summed per-read metrics for a library with the pair counts corrected and derived fields calculated.
+     */
+    public static GATKDuplicationMetrics finalizeLibraryMetrics(final GATKDuplicationMetrics metrics) {
+        final GATKDuplicationMetrics copy = metrics.copy();
+        // Divide these by 2 because they are counted for each read
+        // when they should be counted by pair.
+        copy.READ_PAIRS_EXAMINED = metrics.READ_PAIRS_EXAMINED / 2;
+        copy.READ_PAIR_DUPLICATES = metrics.READ_PAIR_DUPLICATES / 2;
+
+        copy.calculateDerivedFields();
+        if (copy.ESTIMATED_LIBRARY_SIZE == null) {
+            copy.ESTIMATED_LIBRARY_SIZE = 0L;
+        }
+        return copy;
     }
 
     /**
@@ -442,9 +499,18 @@ public class MarkDuplicatesSparkUtils {
      * @param result metrics object, potentially pre-initialized with headers,
      */
     public static void saveMetricsRDD(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final JavaPairRDD<String, GATKDuplicationMetrics> metricsRDD, final String metricsOutputPath) {
+        saveMetrics(result, header, metricsRDD.collectAsMap(), metricsOutputPath);
+    }
+
+    /**
+     * Saves the metrics to a file.
+     * Note: the SamFileHeader is needed in order to include libraries that didn't have any duplicates.
+     * @param result metrics object, potentially pre-initialized with headers,
+     * @param nonEmptyMetricsByLibrary finalized metrics for each library that had reads, see {@link #finalizeLibraryMetrics}
+     */
+    public static void saveMetrics(final MetricsFile<GATKDuplicationMetrics, Double> result, final SAMFileHeader header, final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary, final String metricsOutputPath) {
         final LibraryIdGenerator libraryIdGenerator = new LibraryIdGenerator(header);
 
-        final Map<String, GATKDuplicationMetrics> nonEmptyMetricsByLibrary = metricsRDD.collectAsMap();           //Unknown Library
         final Map<String, GATKDuplicationMetrics> emptyMapByLibrary = libraryIdGenerator.getMetricsByLibraryMap();//with null
 
         final List<String> sortedListOfLibraryNames = new ArrayList<>(Sets.union(emptyMapByLibrary.keySet(), nonEmptyMetricsByLibrary.keySet()));
@@ -5,9 +5,12 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 
@@ -74,6 +77,23 @@ public final class LargeLongHopscotchSet implements Serializable {
         kryo.setReferences(oldReferences);
     }
 
+    /**
+     * Writes the set in a flat format that can be memory-mapped and queried in place using {@link Mapped}: the number
+     * of partitions, the byte offset of each partition relative to the start of the set, and then each partition as
+     * written by {@link LongHopscotchSet#writeFlat}. All sections are multiples of 8 bytes long.
+     */
+    public void writeFlat(final DataOutputStream output) throws IOException {
+        output.writeLong(numSets);
+        long offset = (1L + numSets) * Long.BYTES;
+        for (final LongHopscotchSet set : sets) {
+            output.writeLong(offset);
+            offset += set.flatSizeInBytes();
+        }
+        for (final LongHopscotchSet set : sets) {
+            set.writeFlat(output);
+        }
+    }
+
     public boolean add(final long entryValue) {
         final int hashValue = longHash(entryValue);
         final int setIndex = setIndexOf(hashValue);
@@ -161,6 +181,66 @@ public final class LargeLongHopscotchSet implements Serializable {
         return sets.stream().mapToInt(LongHopscotchSet::hashCode).sum();
     }
 
+    /**
+     * Read-only view of a set written by {@link #writeFlat} that is queried in place in a memory-mapped file,
+     * following the same collision-resolution chains as {@link LongHopscotchSet#contains(long, int)}.
+     */
+    public static final class Mapped {
+        private static final long PARTITION_HEADER_BYTES = 2L * Long.BYTES;
+
+        private final MappedFileBuffer buffer;
+        private final int numSets;
+        private final long[] bucketsStarts;
+        private final long[] statusStarts;
+        private final int[] capacities;
+
+        public Mapped(final MappedFileBuffer buffer, final long start) {
+            this.buffer = Utils.nonNull(buffer);
+            buffer.validateRange(start, Long.BYTES);
+            final long numSetsValue = buffer.getLong(start);
+            if (numSetsValue <= 0 || numSetsValue > Integer.MAX_VALUE) {
+                throw new UserException.MalformedFile(buffer.getPath(), "Invalid number of hash set partitions: " + numSetsValue);
+            }
+            numSets = (int) numSetsValue;
+            buffer.validateRange(start, (1L + numSets) * Long.BYTES);
+            bucketsStarts = new long[numSets];
+            statusStarts = new long[numSets];
+            capacities = new int[numSets];
+            for (int i = 0; i < numSets; i++) {
+                final long setStart = start + buffer.getLong(start + (1L + i) * Long.BYTES);
+                buffer.validateRange(setStart, PARTITION_HEADER_BYTES);
+                final long capacity = buffer.getLong(setStart);
+                if (capacity <= 0 || capacity > Integer.MAX_VALUE) {
+                    throw new UserException.MalformedFile(buffer.getPath(), "Invalid hash set partition capacity: " + capacity);
+                }
+                buffer.validateRange(setStart, PARTITION_HEADER_BYTES + capacity * Long.BYTES + MappedFileBuffer.align(capacity));
+                capacities[i] = (int) capacity;
+                bucketsStarts[i] = setStart + PARTITION_HEADER_BYTES;
+                statusStarts[i] = bucketsStarts[i] + capacity * Long.BYTES;
+            }
+        }
+
+        public boolean contains(final long key) {
+            final int hash = longHash(key);
+            final int setIndex = Integer.remainderUnsigned(hash, numSets);
+            final int capacity = capacities[setIndex];
+            final long bucketsStart = bucketsStarts[setIndex];
+            final long statusStart = statusStarts[setIndex];
+            int bucketIndex = hash % capacity;
+            if (bucketIndex < 0) bucketIndex += capacity;
+            byte status = buffer.getByte(statusStart + bucketIndex);
+            if ((status & Byte.MIN_VALUE) == 0) return false; //not a chain head
+            while (true) {
+                if ((buffer.getLong(bucketsStart + (long) bucketIndex * Long.BYTES) & Long.MAX_VALUE) == key) return true;
+                final int offset = status & Byte.MAX_VALUE;
+                if (offset == 0) return false;
+                bucketIndex += offset;
+                if (bucketIndex >= capacity) bucketIndex -= capacity;
+                status = buffer.getByte(statusStart + bucketIndex);
+            }
+        }
+    }
+
     public static final class Serializer extends com.esotericsoftware.kryo.Serializer<LargeLongHopscotchSet> {
         @Override
         public void write(final Kryo kryo, final Output output, final LargeLongHopscotchSet hopscotchSet) {
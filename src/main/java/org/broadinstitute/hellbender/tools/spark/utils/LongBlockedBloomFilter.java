@@ -0,0 +1,284 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Cache-blocked Bloom filter for primitive longs. Unlike {@link LongBloomFilter}, which sets bits anywhere in the
+ * filter, each value is assigned to a single 512-bit block (the size of a typical cache line) by its first hash, and
+ * all of its bits are set within that block using a second hash. A query therefore touches one block instead of one
+ * cache line per hash function, at the cost of a slightly higher false positive probability for the same number of
+ * bits, which is compensated for when sizing the filter.
+ *
+ * Use {@link #countContained} to query many values at once: hashes for a batch of values are computed before any
+ * block is read, so that the memory accesses of the batch are independent of each other.
+ *
+ * See Putze, Sanders and Singler. 2009. Cache-, hash-, and space-efficient Bloom filters. Journal of Experimental
+ * Algorithmics. 14, 4.4.
+ */
+@DefaultSerializer(LongBlockedBloomFilter.Serializer.class)
+public final class LongBlockedBloomFilter {
+
+    private static final int LONGS_PER_BLOCK = 8;
+    private static final int BITS_PER_BLOCK = LONGS_PER_BLOCK * Long.SIZE;
+    private static final int BLOCKS_PER_ARRAY = 1 << 22; //256MB arrays
+    private static final int PROBE_BATCH_SIZE = 32;
+    private static final double BLOCK_GROWTH_FACTOR = 1.05;
+    private static final int MAX_SIZING_ITERATIONS = 100;
+    private final static long HASH_SEED_2 = 0x6cebe6dca7f118a6L;
+
+    private final long numBlocks;
+    private final int numHashes;
+    private final long[][] blocks;
+
+    public LongBlockedBloomFilter(final long numElements, final double fpp) {
+        Utils.validateArg(numElements > 0, "Number of elements must be greater than 0");
+        Utils.validateArg(fpp > 0 && fpp < 1, "False positive probability must be between 0 and 1");
+
+        final int optimalNumberOfHashes = (int) Math.ceil(-Math.log(fpp) / Math.log(2));
+        numHashes = optimalNumberOfHashes > 0 ? optimalNumberOfHashes : 1;
+
+        //start from the optimal size of a standard Bloom filter and grow until the blocked filter meets the requested fpp
+        long candidateNumBlocks = Math.max(1, LongBloomFilter.getOptimalNumberOfBits(numElements, fpp) / BITS_PER_BLOCK);
+        int iteration = 0;
+        while (getTheoreticalFPP(numElements, candidateNumBlocks, numHashes) > fpp) {
+            if (++iteration > MAX_SIZING_ITERATIONS) {
+                throw new GATKException("Could not create blocked Bloom filter for " + numElements +
+                        " elements with false positive probability " + fpp);
+            }
+            candidateNumBlocks = (long) Math.ceil(candidateNumBlocks * BLOCK_GROWTH_FACTOR);
+        }
+        numBlocks = candidateNumBlocks;
+        blocks = allocateBlocks(numBlocks);
+    }
+
+    private LongBlockedBloomFilter(final Kryo kryo, final Input input) {
+        numBlocks = input.readLong();
+        numHashes = input.readInt();
+        blocks = allocateBlocks(numBlocks);
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = input.readLongs(blocks[i].length);
+        }
+    }
+
+    private void serialize(final Kryo kryo, final Output output) {
+        output.writeLong(numBlocks);
+        output.writeInt(numHashes);
+        for (final long[] array : blocks) {
+            output.writeLongs(array);
+        }
+    }
+
+    private static long[][] allocateBlocks(final long numBlocks) {
+        final int numArrays = (int) ((numBlocks + BLOCKS_PER_ARRAY - 1) / BLOCKS_PER_ARRAY);
+        final long[][] blocks = new long[numArrays][];
+        for (int i = 0; i < numArrays; i++) {
+            final long blocksInArray = Math.min(BLOCKS_PER_ARRAY, numBlocks - (long) i * BLOCKS_PER_ARRAY);
+            blocks[i] = new long[(int) blocksInArray * LONGS_PER_BLOCK];
+        }
+        return blocks;
+    }
+
+    /**
+     * Theoretical false positive probability, assuming the number of values per block is Poisson distributed
+     */
+    public double getTheoreticalFPP(final long numElements) {
+        return getTheoreticalFPP(numElements, numBlocks, numHashes);
+    }
+
+    private static double getTheoreticalFPP(final long numElements, final long numBlocks, final int numHashes) {
+        final double meanValuesPerBlock = numElements / (double) numBlocks;
+        final int maxValuesPerBlock = (int) Math.ceil(meanValuesPerBlock + 10 * Math.sqrt(meanValuesPerBlock) + 10);
+        final double log1MinusInverseBits = Math.log1p(-1. / BITS_PER_BLOCK);
+        double fpp = 0;
+        double logPoissonProbability = -meanValuesPerBlock; //log P(0)
+        for (int j = 0; j <= maxValuesPerBlock; j++) {
+            if (j > 0) {
+                logPoissonProbability += Math.log(meanValuesPerBlock / j);
+            }
+            final double bitSetProbability = -Math.expm1(numHashes * j * log1MinusInverseBits);
+            fpp += Math.exp(logPoissonProbability) * Math.pow(bitSetProbability, numHashes);
+        }
+        return Math.min(1., fpp);
+    }
+
+    public void add(final long entryValue) {
+        final long blockIndex = blockIndex(SVUtils.fnvLong64(entryValue));
+        final long bitHash = SVUtils.fnvLong64(HASH_SEED_2, entryValue);
+        final long[] array = blocks[(int) (blockIndex / BLOCKS_PER_ARRAY)];
+        final int offset = (int) (blockIndex % BLOCKS_PER_ARRAY) * LONGS_PER_BLOCK;
+        for (int i = 0; i < numHashes; i++) {
+            final int bit = bitInBlock(bitHash, i);
+            array[offset + (bit >>> 6)] |= 1L << (bit & 63);
+        }
+    }
+
+    public void addAll(final long[] entryValues) {
+        for (final long val : entryValues) {
+            add(val);
+        }
+    }
+
+    public boolean contains(final long key) {
+        return blockContains(blockIndex(SVUtils.fnvLong64(key)), SVUtils.fnvLong64(HASH_SEED_2, key));
+    }
+
+    /**
+     * Counts the number of the first {@code numKeys} values in {@code keys} that are contained in the filter,
+     * returning early once {@code maxCount} is reached.
+     */
+    public int countContained(final long[] keys, final int numKeys, final int maxCount) {
+        Utils.nonNull(keys);
+        Utils.validateArg(numKeys >= 0 && numKeys <= keys.length, "Number of keys must be between 0 and the array length");
+        final long[] blockIndices = new long[PROBE_BATCH_SIZE];
+        final long[] bitHashes = new long[PROBE_BATCH_SIZE];
+        int count = 0;
+        for (int batchStart = 0; batchStart < numKeys; batchStart += PROBE_BATCH_SIZE) {
+            final int batchSize = Math.min(PROBE_BATCH_SIZE, numKeys - batchStart);
+            for (int i = 0; i < batchSize; i++) {
+                final long key = keys[batchStart + i];
+                blockIndices[i] = blockIndex(SVUtils.fnvLong64(key));
+                bitHashes[i] = SVUtils.fnvLong64(HASH_SEED_2, key);
+            }
+            for (int i = 0; i < batchSize; i++) {
+                if (blockContains(blockIndices[i], bitHashes[i]) && ++count >= maxCount) {
+                    return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    private long blockIndex(final long hash) {
+        return blockIndex(hash, numBlocks);
+    }
+
+    private static long blockIndex(final long hash, final long numBlocks) {
+        return (hash & Long.MAX_VALUE) % numBlocks;
+    }
+
+    /**
+     * Position within its block of the ith bit of a value, by double hashing with the two halves of the second hash;
+     * the step is odd, so the positions are distinct
+     */
+    private static int bitInBlock(final long bitHash, final int i) {
+        final int start = (int) bitHash;
+        final int step = (int) (bitHash >>> 32) | 1;
+        return (start + i * step) & (BITS_PER_BLOCK - 1);
+    }
+
+    private boolean blockContains(final long blockIndex, final long bitHash) {
+        final long[] array = blocks[(int) (blockIndex / BLOCKS_PER_ARRAY)];
+        final int offset = (int) (blockIndex % BLOCKS_PER_ARRAY) * LONGS_PER_BLOCK;
+        for (int i = 0; i < numHashes; i++) {
+            final int bit = bitInBlock(bitHash, i);
+            if ((array[offset + (bit >>> 6)] & (1L << (bit & 63))) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the filter in a flat format that can be memory-mapped and queried in place using {@link Mapped}: the
+     * number of blocks, the number of hashes, and then all blocks contiguously.
+     */
+    public void writeFlat(final DataOutputStream output) throws IOException {
+        output.writeLong(numBlocks);
+        output.writeLong(numHashes);
+        for (final long[] array : blocks) {
+            for (final long word : array) {
+                output.writeLong(word);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        for (final long[] array : blocks) {
+            for (final long word : array) {
+                if (word != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("SimplifiableIfStatement")
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongBlockedBloomFilter)) return false;
+
+        final LongBlockedBloomFilter that = (LongBlockedBloomFilter) o;
+
+        if (numBlocks != that.numBlocks) return false;
+        if (numHashes != that.numHashes) return false;
+        for (int i = 0; i < blocks.length; i++) {
+            if (!Arrays.equals(blocks[i], that.blocks[i])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (numBlocks ^ (numBlocks >>> 32));
+        result = 31 * result + numHashes;
+        for (final long[] array : blocks) {
+            result = 31 * result + Arrays.hashCode(array);
+        }
+        return result;
+    }
+
+    /**
+     * Read-only view of a filter written by {@link #writeFlat} that is queried in place in a memory-mapped file.
+     */
+    public static final class Mapped {
+        private final MappedFileBuffer buffer;
+        private final long numBlocks;
+        private final int numHashes;
+        private final long blocksStart;
+
+        public Mapped(final MappedFileBuffer buffer, final long start) {
+            this.buffer = Utils.nonNull(buffer);
+            buffer.validateRange(start, 2L * Long.BYTES);
+            numBlocks = buffer.getLong(start);
+            final long numHashesValue = buffer.getLong(start + Long.BYTES);
+            if (numBlocks <= 0 || numBlocks > Long.MAX_VALUE / (LONGS_PER_BLOCK * Long.BYTES)
+                    || numHashesValue <= 0 || numHashesValue > Integer.MAX_VALUE) {
+                throw new UserException.MalformedFile(buffer.getPath(), "Invalid blocked Bloom filter header.");
+            }
+            numHashes = (int) numHashesValue;
+            blocksStart = start + 2L * Long.BYTES;
+            buffer.validateRange(blocksStart, numBlocks * LONGS_PER_BLOCK * Long.BYTES);
+        }
+
+        public boolean contains(final long key) {
+            final long blockStart = blocksStart + blockIndex(SVUtils.fnvLong64(key), numBlocks) * LONGS_PER_BLOCK * Long.BYTES;
+            final long bitHash = SVUtils.fnvLong64(HASH_SEED_2, key);
+            for (int i = 0; i < numHashes; i++) {
+                final int bit = bitInBlock(bitHash, i);
+                if ((buffer.getLong(blockStart + (bit >>> 6) * Long.BYTES) & (1L << (bit & 63))) == 0) return false;
+            }
+            return true;
+        }
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<LongBlockedBloomFilter> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final LongBlockedBloomFilter bloomFilter) {
+            bloomFilter.serialize(kryo, output);
+        }
+
+        @Override
+        public LongBlockedBloomFilter read(final Kryo kryo, final Input input, final Class<LongBlockedBloomFilter> klass) {
+            return new LongBlockedBloomFilter(kryo, input);
+        }
+    }
+}
@@ -8,9 +8,12 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
@@ -183,6 +186,10 @@ public final class LongBloomFilter {
      * Structures & Algorithms. 33:2, 187-218.
      */
     private long applyHashFunction(final int i, final long fnvHash1, final long fnvHash2) {
+        return applyHashFunction(i, fnvHash1, fnvHash2, totalBits);
+    }
+
+    private static long applyHashFunction(final int i, final long fnvHash1, final long fnvHash2, final long totalBits) {
         final long result = (fnvHash1+ i * fnvHash2) % totalBits;
         return result < 0 ? result + totalBits : result;
     }
@@ -208,6 +215,19 @@ public final class LongBloomFilter {
         return (byte) (1 << (bitIndex & 7));
     }
 
+    /**
+     * Writes the filter in a flat format that can be memory-mapped and queried in place using {@link Mapped}: the
+     * number of bits, the number of hashes, and then all buckets contiguously, padded to a multiple of 8 bytes.
+     */
+    public void writeFlat(final DataOutputStream output) throws IOException {
+        output.writeLong(totalBits);
+        output.writeLong(numHashes);
+        for (final byte[] array : buckets) {
+            output.write(array);
+        }
+        MappedFileBuffer.padToAlignment(output, totalBuckets);
+    }
+
     public void clear() {
         for (int i = 0; i < numBucketArrays; i++) {
             Arrays.fill(buckets[i], (byte) 0);
@@ -250,6 +270,39 @@ public final class LongBloomFilter {
         return result;
     }
 
+    /**
+     * Read-only view of a filter written by {@link #writeFlat} that is queried in place in a memory-mapped file.
+     */
+    public static final class Mapped {
+        private final MappedFileBuffer buffer;
+        private final long totalBits;
+        private final int numHashes;
+        private final long bucketsStart;
+
+        public Mapped(final MappedFileBuffer buffer, final long start) {
+            this.buffer = Utils.nonNull(buffer);
+            buffer.validateRange(start, 2L * Long.BYTES);
+            totalBits = buffer.getLong(start);
+            final long numHashesValue = buffer.getLong(start + Long.BYTES);
+            if (totalBits <= 0 || numHashesValue <= 0 || numHashesValue > Integer.MAX_VALUE) {
+                throw new UserException.MalformedFile(buffer.getPath(), "Invalid Bloom filter header.");
+            }
+            numHashes = (int) numHashesValue;
+            bucketsStart = start + 2L * Long.BYTES;
+            buffer.validateRange(bucketsStart, MappedFileBuffer.align((totalBits >>> 3) + (totalBits % 8 > 0 ? 1 : 0)));
+        }
+
+        public boolean contains(final long key) {
+            final long hash1 = SVUtils.fnvLong64(key);
+            final long hash2 = SVUtils.fnvLong64(HASH_SEED_2, key);
+            for (int i = 0; i < numHashes; i++) {
+                final long bitIndex = applyHashFunction(i, hash1, hash2, totalBits);
+                if (((1 << (bitIndex & 7)) & buffer.getByte(bucketsStart + (bitIndex >>> 3))) == 0) return false;
+            }
+            return true;
+        }
+    }
+
     public static final class Serializer extends com.esotericsoftware.kryo.Serializer<LongBloomFilter> {
         @Override
         public void write(final Kryo kryo, final Output output, final LongBloomFilter bloomFilter) {
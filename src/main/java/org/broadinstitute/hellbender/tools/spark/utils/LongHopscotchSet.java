@@ -8,6 +8,8 @@ import com.google.common.annotations.VisibleForTesting;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -120,6 +122,27 @@ public final class LongHopscotchSet implements Serializable {
         }
     }
 
+    /**
+     * Writes the table as flat arrays (capacity, size, buckets, and status bytes padded to a multiple of 8 bytes) that
+     * can be queried in place by {@link LargeLongHopscotchSet.Mapped}.
+     */
+    void writeFlat(final DataOutputStream output) throws IOException {
+        output.writeLong(capacity);
+        output.writeLong(size);
+        for (final long bucket : buckets) {
+            output.writeLong(bucket);
+        }
+        output.write(status);
+        MappedFileBuffer.padToAlignment(output, capacity);
+    }
+
+    /**
+     * @return  the number of bytes written by {@link #writeFlat}
+     */
+    long flatSizeInBytes() {
+        return 2L * Long.BYTES + (long) capacity * Long.BYTES + MappedFileBuffer.align(capacity);
+    }
+
     public final boolean add(final long entryValue) {
         final int hashValue = longHash(entryValue);
         return add(entryValue, hashValue);
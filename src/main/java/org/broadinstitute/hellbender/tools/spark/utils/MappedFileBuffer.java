@@ -0,0 +1,98 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a local file that is memory-mapped in chunks, so that files larger than the 2GB limit of a single
+ * mapping can be addressed. The file is not loaded into the heap: pages are read on demand and shared through the
+ * page cache by all processes that map the same file.
+ *
+ * Values are big-endian (as written by {@link DataOutputStream}). Longs must be 8-byte aligned so that they never
+ * straddle two chunks; writers can use {@link #padToAlignment} after writing unaligned data.
+ */
+public final class MappedFileBuffer {
+
+    private static final int CHUNK_SHIFT = 30; //1GB chunks
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Path path;
+    private final long size;
+    private final MappedByteBuffer[] chunks;
+
+    public MappedFileBuffer(final Path path) {
+        Utils.nonNull(path);
+        this.path = path;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            final int numChunks = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                final long chunkStart = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_SIZE, size - chunkStart));
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, "Could not memory-map file.", e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte getByte(final long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * @param position  byte position in the file, which must be a multiple of 8
+     */
+    public long getLong(final long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * @param position  byte position in the file, which must be a multiple of 8
+     */
+    public double getDouble(final long position) {
+        return Double.longBitsToDouble(getLong(position));
+    }
+
+    /**
+     * Throws a {@link UserException.MalformedFile} if [start, start + length) is not contained in the file.
+     */
+    public void validateRange(final long start, final long length) {
+        if (start < 0 || length < 0 || start > size - length) {
+            throw new UserException.MalformedFile(path, "File is truncated or corrupt.");
+        }
+    }
+
+    /**
+     * @return  the smallest multiple of 8 that is at least {@code numBytes}
+     */
+    public static long align(final long numBytes) {
+        return (numBytes + Long.BYTES - 1) & ~(long) (Long.BYTES - 1);
+    }
+
+    /**
+     * Writes zero bytes until the number of bytes written to {@code output} is a multiple of 8.
+     * Note that {@link DataOutputStream#size} saturates at 2GB, so the number of bytes written so far must be supplied.
+     */
+    public static void padToAlignment(final DataOutputStream output, final long numBytesWritten) throws IOException {
+        for (long i = numBytesWritten; i < align(numBytesWritten); i++) {
+            output.writeByte(0);
+        }
+    }
+}
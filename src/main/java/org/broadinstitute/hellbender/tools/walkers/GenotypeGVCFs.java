@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.samtools.util.OverlapDetector;
@@ -13,20 +17,37 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.engine.FeatureManager;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.VariantLocusWalker;
+import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
+import org.broadinstitute.hellbender.engine.spark.GATKRegistrator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBImport;
+import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StandardAnnotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_QualByDepth;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
 import org.broadinstitute.hellbender.tools.walkers.mutect.M2ArgumentCollection;
 import org.broadinstitute.hellbender.utils.*;
+import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
+import org.broadinstitute.hellbender.utils.iterators.ShardedIntervalIterator;
+import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.objenesis.strategy.StdInstantiatorStrategy;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 /**
  * Perform joint genotyping on one or more samples pre-called with HaplotypeCaller
@@ -68,6 +89,15 @@ import java.util.*;
  *   --tmp-dir=/path/to/large/tmp
  * </pre>
  *
+ * <h4>Genotype partitions of the intervals on several threads</h4>
+ * <pre>
+ * gatk --java-options "-Xmx16g" GenotypeGVCFs \
+ *   -R Homo_sapiens_assembly38.fasta \
+ *   -V gendb://my_database \
+ *   -O output.vcf.gz \
+ *   --genotyping-threads 8
+ * </pre>
+ *
  * <h3>Caveats</h3>
  * <ul>
  *   <li>Only GVCF files produced by HaplotypeCaller (or CombineGVCFs) can be used as input for this tool. Some other
@@ -95,6 +125,8 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
     public static final String KEEP_COMBINED_LONG_NAME = "keep-combined-raw-annotations";
     public static final String KEEP_COMBINED_SHORT_NAME = "keep-combined";
     public static final String FORCE_OUTPUT_INTERVALS_NAME = "force-output-intervals";
+    public static final String GENOTYPING_THREADS_LONG_NAME = "genotyping-threads";
+    public static final String GENOTYPING_PARTITION_SIZE_LONG_NAME = "genotyping-partition-size";
 
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             doc="File to which variants should be written", optional=false)
@@ -165,6 +197,26 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
     @ArgumentCollection
     private final DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
 
+    /**
+     * With more than one thread, the intervals are cut into partitions of --genotyping-partition-size bases, and this
+     * many partitions are genotyped at once. Each thread has its own query of the input, reference and other feature
+     * inputs, and its own genotyping and annotation engines; the calls are written in the same order as with one
+     * thread. This uses all the cores of a machine without scattering the intervals over several runs, but memory use
+     * grows with the number of threads, since the calls of partitions that are genotyped ahead of the output are held
+     * in memory.
+     *
+     * The jitter of too high QD and AS_QD values is drawn from a generator seeded by each partition, so the output
+     * doesn't depend on the number of threads, as long as there is more than one; it only differs from the output of
+     * one thread in those jittered values, which one thread draws from the generator shared by the whole run.
+     */
+    @Advanced
+    @Argument(fullName = GENOTYPING_THREADS_LONG_NAME, doc = "Number of threads to genotype partitions of the intervals on", optional = true, minValue = 1)
+    private int numGenotypingThreads = 1;
+
+    @Advanced
+    @Argument(fullName = GENOTYPING_PARTITION_SIZE_LONG_NAME, doc = "Size in bases of the partitions of the intervals that are genotyped on each thread, if there is more than one", optional = true, minValue = 1)
+    private int genotypingPartitionSize = 100_000;
+
     // the annotation engine
     private VariantAnnotatorEngine annotationEngine;
 
@@ -181,6 +233,8 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     private GenotypeGVCFsEngine gvcfEngine;
 
+    private boolean genotypeByVariant;
+
     /**
      * Get the largest interval per contig that contains the intervals specified on the command line.
      * @param getIntervals intervals to be transformed
@@ -229,7 +283,8 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
         forceOutputIntervals = OverlapDetector.create(forceOutputLocs.toList());
 
-        if (!(includeNonVariants || forceOutputIntervalsPresent)) {
+        genotypeByVariant = !(includeNonVariants || forceOutputIntervalsPresent);
+        if (genotypeByVariant) {
             changeTraversalModeToByVariant();
         }
 
@@ -260,18 +315,245 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     }
 
+    /**
+     * Genotype partitions of the intervals concurrently if more than one thread was requested, and traverse the
+     * variants as usual otherwise.
+     *
+     * {@link VariantLocusWalker#traverse()} is not meant to be overridden outside of the engine. This tool is an
+     * exception because each thread needs its own query of the driving variants, reference and features, and its own
+     * genotyping and annotation engines, none of which the engine walkers can provide; with one thread it leaves the
+     * traversal to the engine.
+     */
+    @Override
+    public void traverse() {
+        if (numGenotypingThreads == 1) {
+            super.traverse();
+            return;
+        }
+
+        final List<SimpleInterval> partitions = Utils.stream(new ShardedIntervalIterator(getTraversalIntervals().iterator(), genotypingPartitionSize))
+                .collect(Collectors.toList());
+        logger.info(String.format("Genotyping %d partitions of the intervals on %d threads", partitions.size(), numGenotypingThreads));
+
+        final List<PartitionGenotyper> genotypers = new ArrayList<>(numGenotypingThreads);
+        final BlockingQueue<PartitionGenotyper> idleGenotypers = new ArrayBlockingQueue<>(numGenotypingThreads);
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("genotyper-thread-%d")
+                .setDaemon(true)
+                .build();
+        final ExecutorService executorService = Executors.newFixedThreadPool(numGenotypingThreads, threadFactory);
+        // one filter shared by the genotypers, so that its counts can be reported as they would be for one thread
+        final CountingVariantFilter variantFilter = makeVariantFilter();
+        final CountingVariantFilter sharedVariantFilter = new CountingVariantFilter(variant -> {
+            synchronized (variantFilter) {
+                return variantFilter.test(variant);
+            }
+        });
+        try {
+            for (int i = 0; i < numGenotypingThreads; i++) {
+                final PartitionGenotyper genotyper = new PartitionGenotyper(sharedVariantFilter);
+                genotypers.add(genotyper);
+                idleGenotypers.add(genotyper);
+            }
+
+            // only genotype a few partitions ahead of the output, since their calls are held in memory until written
+            final Deque<Future<List<VariantContext>>> pendingPartitions = new ArrayDeque<>();
+            int nextPartition = 0;
+            while (nextPartition < partitions.size() || !pendingPartitions.isEmpty()) {
+                while (nextPartition < partitions.size() && pendingPartitions.size() < 2 * numGenotypingThreads) {
+                    final SimpleInterval partition = partitions.get(nextPartition);
+                    final SimpleInterval previousPartition = nextPartition == 0 ? null : partitions.get(nextPartition - 1);
+                    pendingPartitions.add(executorService.submit(() -> {
+                        final PartitionGenotyper genotyper = idleGenotypers.take();
+                        try {
+                            return genotyper.genotype(partition, previousPartition);
+                        } finally {
+                            idleGenotypers.add(genotyper);
+                        }
+                    }));
+                    nextPartition++;
+                }
+                for (final VariantContext call : getPartitionCalls(pendingPartitions.remove())) {
+                    vcfWriter.add(call);
+                    progressMeter.update(call);
+                }
+            }
+        } finally {
+            // the threads can't be stopped in the middle of a query, so wait for them before closing what they read
+            executorService.shutdownNow();
+            if (awaitTermination(executorService)) {
+                genotypers.forEach(PartitionGenotyper::close);
+            } else {
+                logger.warn("Interrupted while waiting for the genotyping threads to finish; their inputs are left open");
+            }
+        }
+        logger.info(variantFilter.getSummaryLine());
+    }
+
+    /**
+     * @return true once all the tasks of the executor have finished, or false if interrupted while waiting for them
+     */
+    private boolean awaitTermination(final ExecutorService executorService) {
+        try {
+            while (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for the genotyping threads to finish");
+            }
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return new instances of the annotations, with the same arguments, made by a round trip through Kryo as when
+     * Spark tools send an annotation engine to each executor, so that each partition genotyper has annotations of its own
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Annotation> copyAnnotations(final Collection<Annotation> annotations) {
+        final Kryo kryo = new Kryo();
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        new GATKRegistrator().registerClasses(kryo);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final Output output = new Output(bytes)) {
+            kryo.writeClassAndObject(output, new ArrayList<>(annotations));
+        }
+        try (final Input input = new Input(bytes.toByteArray())) {
+            return (List<Annotation>) kryo.readClassAndObject(input);
+        }
+    }
+
+    private static List<VariantContext> getPartitionCalls(final Future<List<VariantContext>> partition) {
+        try {
+            return partition.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new GATKException("Problem genotyping a partition of the intervals", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while genotyping a partition of the intervals", e);
+        }
+    }
+
     @Override
     public void apply(final Locatable loc, List<VariantContext> variants, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        final VariantContext call = callLocus(loc, variants, ref, features, gvcfEngine, merger);
+        if (call != null) {
+            vcfWriter.add(call);
+        }
+    }
 
+    /**
+     * @return the call to output at loc, or null if there is none
+     */
+    private VariantContext callLocus(final Locatable loc, final List<VariantContext> variants, final ReferenceContext ref, final FeatureContext features,
+                                     final GenotypeGVCFsEngine engine, final ReferenceConfidenceVariantContextMerger variantMerger) {
         final boolean inForceOutputIntervals = forceOutputIntervalsPresent && forceOutputIntervals.overlapsAny(loc);
         final boolean forceOutput = includeNonVariants || inForceOutputIntervals;
-        final VariantContext regenotypedVC = gvcfEngine.callRegion(loc, variants, ref, features, merger, somaticInput, tlodThreshold, afTolerance, forceOutput);
+        final VariantContext regenotypedVC = engine.callRegion(loc, variants, ref, features, variantMerger, somaticInput, tlodThreshold, afTolerance, forceOutput);
 
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if ((inForceOutputIntervals || !GATKVariantContextUtils.isSpanningDeletionOnly(regenotypedVC)) &&
                     (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains (variantStart)))) {
-                vcfWriter.add(regenotypedVC);
+                return regenotypedVC;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Genotypes partitions of the intervals, one at a time, with its own sources of data and engines, so that
+     * several of them can genotype partitions concurrently.
+     */
+    private final class PartitionGenotyper implements AutoCloseable {
+        private final FeatureDataSource<VariantContext> drivingVariants;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+        private final ReferenceConfidenceVariantContextMerger merger;
+        private final GenotypeGVCFsEngine engine;
+        private final CountingVariantFilter variantFilter;
+        private final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+        private final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+        // reseeded for each partition, so that its calls don't depend on which partitions this genotyper had before
+        private final Random randomGenerator = new Random();
+
+        PartitionGenotyper(final CountingVariantFilter variantFilter) {
+            this.variantFilter = variantFilter;
+            drivingVariants = new FeatureDataSource<>(new FeatureInput<>(drivingVariantFile, "drivingVariantFile"), getDrivingVariantCacheLookAheadBases(),
+                    VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    new GenomicsDBOptions(referenceArguments.getReferencePath()), getDrivingVariantsProjection());
+            reference = ReferenceDataSource.of(referenceArguments.getReferencePath());
+            final FeatureManager featureManager = new FeatureManager(GenotypeGVCFs.this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES,
+                    cloudPrefetchBuffer, cloudIndexPrefetchBuffer, getGenomicsDBOptions());
+            features = featureManager.isEmpty() ? null : featureManager;
+            final List<Annotation> annotations = copyAnnotations(makeVariantAnnotations());
+            for (final Annotation annotation : annotations) {
+                if (annotation instanceof QualByDepth) {
+                    ((QualByDepth) annotation).setRandomGenerator(randomGenerator);
+                } else if (annotation instanceof AS_QualByDepth) {
+                    ((AS_QualByDepth) annotation).setRandomGenerator(randomGenerator);
+                }
+            }
+            final VariantAnnotatorEngine annotationEngine = new VariantAnnotatorEngine(annotations, dbsnp.dbsnp, Collections.emptyList(), false, keepCombined);
+            merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput);
+            engine = new GenotypeGVCFsEngine(annotationEngine, genotypeArgs, includeNonVariants, getHeaderForVariants());
+            engine.createOutputHeader(getDefaultToolVCFHeaderLines(), keepCombined, dbsnp);
+        }
+
+        /**
+         * Genotype the loci (or the variants, when genotyping by variant) in a partition. A variant that overlaps the
+         * previous partition too is only genotyped in that one, as when the intervals are traversed in one pass.
+         *
+         * @param partition the partition to genotype
+         * @param previousPartition the partition before it in traversal order, or null if it is the first
+         * @return the calls to output in the partition, in order
+         */
+        List<VariantContext> genotype(final SimpleInterval partition, final SimpleInterval previousPartition) {
+            randomGenerator.setSeed(31L * partition.getContig().hashCode() + partition.getStart());
+            final List<VariantContext> calls = new ArrayList<>();
+            if (genotypeByVariant) {
+                final Spliterator<VariantContext> variants = Utils.stream(drivingVariants.query(partition))
+                        .filter(variant -> previousPartition == null || !previousPartition.overlaps(variant))
+                        .spliterator();
+                getTransformedVariantStream(variants, preTransformer, variantFilter, postTransformer)
+                        .forEachOrdered(variant -> genotypeLocus(calls, new SimpleInterval(variant), Collections.singletonList(variant)));
+            } else {
+                Utils.stream(new ShardedIntervalIterator(Collections.singletonList(partition).iterator(), getDrivingVariantCacheLookAheadBases()))
+                        .filter(shard -> drivingVariants.query(shard).hasNext())
+                        .flatMap(shard -> Utils.stream(new IntervalLocusIterator(Collections.singletonList(shard).iterator())))
+                        .forEachOrdered(locus -> {
+                            final List<VariantContext> variants = getTransformedVariantStream(
+                                    Spliterators.spliteratorUnknownSize(drivingVariants.query(locus), 0),
+                                    preTransformer,
+                                    variantFilter,
+                                    postTransformer)
+                                    .collect(Collectors.toList());
+                            if (!variants.isEmpty()) {
+                                genotypeLocus(calls, locus, variants);
+                            }
+                        });
+            }
+            return calls;
+        }
+
+        private void genotypeLocus(final List<VariantContext> calls, final SimpleInterval locus, final List<VariantContext> variants) {
+            final VariantContext call = callLocus(locus, variants, new ReferenceContext(reference, locus), new FeatureContext(features, locus), engine, merger);
+            if (call != null) {
+                calls.add(call);
+            }
+        }
+
+        @Override
+        public void close() {
+            drivingVariants.close();
+            reference.close();
+            if (features != null) {
+                features.close();
             }
         }
     }
@@ -371,6 +371,16 @@ public class GenotypeGVCFsEngine
 
      */
     public VariantContextWriter setupVCFWriter(Set<VCFHeaderLine> defaultToolVCFHeaderLines, boolean keepCombined, DbsnpArgumentCollection dbsnp, VariantContextWriter vcfWriter) {
+        vcfWriter.writeHeader(createOutputHeader(defaultToolVCFHeaderLines, keepCombined, dbsnp));
+        return vcfWriter;
+    }
+
+    /**
+     * Create the VCF header of the output, which the engine needs before it can call any regions
+     *
+     * @return the output header
+     */
+    public VCFHeader createOutputHeader(Set<VCFHeaderLine> defaultToolVCFHeaderLines, boolean keepCombined, DbsnpArgumentCollection dbsnp) {
         final Set<VCFHeaderLine> headerLines = new LinkedHashSet<>(inputVCFHeader.getMetaDataInInputOrder());
         headerLines.addAll(defaultToolVCFHeaderLines);
 
@@ -395,9 +405,7 @@ public class GenotypeGVCFsEngine
 
         final Set<String> sampleNameSet = samples.asSetOfSamples();
         outputHeader = new VCFHeader(headerLines, new TreeSet<>(sampleNameSet));
-        vcfWriter.writeHeader(outputHeader);
-
-        return vcfWriter;
+        return outputHeader;
     }
 
 
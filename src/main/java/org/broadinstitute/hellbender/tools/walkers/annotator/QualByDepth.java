@@ -17,6 +17,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Variant confidence normalized by unfiltered depth of variant samples
@@ -52,6 +53,17 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
     static final double IDEAL_HIGH_QD = 30;
     private static final double JITTER_SIGMA = 3;
 
+    // the source of the jitter of too high QDs, shared by all the tools' annotations unless it is replaced
+    private transient Random randomGenerator = Utils.getRandomGenerator();
+
+    /**
+     * Jitter too high QDs with the given generator rather than the one shared by all the tools' annotations, so that
+     * calls annotated concurrently can be reproduced
+     */
+    public void setRandomGenerator(final Random randomGenerator) {
+        this.randomGenerator = Utils.nonNull(randomGenerator);
+    }
+
     @Override
     public Map<String, Object> annotate(final ReferenceContext ref,
                                         final VariantContext vc,
@@ -76,7 +88,7 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
         double QD = qual / depth;
 
         // Hack: see note in the fixTooHighQD method below
-        QD = fixTooHighQD(QD);
+        QD = fixTooHighQD(QD, randomGenerator);
 
         return Collections.singletonMap(getKeyNames().get(0), String.format("%.2f", QD));
     }
@@ -91,10 +103,17 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
      * @return a QD value
      */
     public static double fixTooHighQD(final double QD) {
+        return fixTooHighQD(QD, Utils.getRandomGenerator());
+    }
+
+    /**
+     * As {@link #fixTooHighQD(double)}, drawing the jitter from the given generator
+     */
+    public static double fixTooHighQD(final double QD, final Random randomGenerator) {
         if ( QD < MAX_QD_BEFORE_FIXING ) {
             return QD;
         } else {
-            return IDEAL_HIGH_QD + Utils.getRandomGenerator().nextGaussian() * JITTER_SIGMA;
+            return IDEAL_HIGH_QD + randomGenerator.nextGaussian() * JITTER_SIGMA;
         }
     }
 
@@ -1,9 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator;
 
-import com.google.common.primitives.Doubles;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.MannWhitneyU;
 import org.broadinstitute.hellbender.utils.QualityUtils;
@@ -26,31 +26,50 @@ public abstract class RankSumTest extends InfoFieldAnnotation implements Annotat
     public Map<String, Object> annotate(final ReferenceContext ref,
                                         final VariantContext vc,
                                         final AlleleLikelihoods<GATKRead, Allele> likelihoods) {
+        return annotate(Collections.singletonList(this), vc, likelihoods);
+    }
+
+    /**
+     * Evaluate several rank sum tests together. The best allele of each read is computed once and every test's
+     * element for the read is extracted in the same sweep, rather than each test computing the best alleles of all
+     * the reads in all the samples and walking over them separately.
+     *
+     * @param tests the rank sum tests to evaluate
+     * @param vc the variant context to annotate
+     * @param likelihoods likelihoods indexed by sample, allele, and read within sample. May be null
+     * @return the annotations of all of the tests, the same as the union of calling {@link #annotate} on each of them
+     */
+    public static Map<String, Object> annotate(final List<? extends RankSumTest> tests,
+                                               final VariantContext vc,
+                                               final AlleleLikelihoods<GATKRead, Allele> likelihoods) {
+        Utils.nonNull(tests, "tests is null");
         Utils.nonNull(vc, "vc is null");
 
         final GenotypesContext genotypes = vc.getGenotypes();
-        if (genotypes == null || genotypes.isEmpty()) {
+        if (genotypes == null || genotypes.isEmpty() || likelihoods == null || tests.isEmpty()) {
             return Collections.emptyMap();
         }
 
-        final List<Double> refQuals = new ArrayList<>();
-        final List<Double> altQuals = new ArrayList<>();
+        final DoubleArrayList[] refQuals = new DoubleArrayList[tests.size()];
+        final DoubleArrayList[] altQuals = new DoubleArrayList[tests.size()];
+        fillQualsFromLikelihood(tests, vc, likelihoods, refQuals, altQuals, vc.getStart());
 
-        final int refLoc = vc.getStart();
-
-        if( likelihoods != null) {
-            fillQualsFromLikelihood(vc, likelihoods, refQuals, altQuals, refLoc);
+        final Map<String, Object> annotations = new LinkedHashMap<>();
+        for (int i = 0; i < tests.size(); i++) {
+            annotations.putAll(tests.get(i).annotationForRankSum(refQuals[i].toDoubleArray(), altQuals[i].toDoubleArray()));
         }
+        return annotations;
+    }
 
-
-        if ( refQuals.isEmpty() && altQuals.isEmpty() ) {
+    private Map<String, Object> annotationForRankSum(final double[] refQuals, final double[] altQuals) {
+        if ( refQuals.length == 0 && altQuals.length == 0 ) {
             return Collections.emptyMap();
         }
 
         final MannWhitneyU mannWhitneyU = new MannWhitneyU();
 
         // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
-        final MannWhitneyU.Result result = mannWhitneyU.test(Doubles.toArray(altQuals), Doubles.toArray(refQuals), MannWhitneyU.TestType.FIRST_DOMINATES);
+        final MannWhitneyU.Result result = mannWhitneyU.test(altQuals, refQuals, MannWhitneyU.TestType.FIRST_DOMINATES);
         final double zScore = result.getZ();
 
         if (Double.isNaN(zScore)) {
@@ -61,17 +80,43 @@ public abstract class RankSumTest extends InfoFieldAnnotation implements Annotat
     }
 
     protected void fillQualsFromLikelihood(VariantContext vc, AlleleLikelihoods<GATKRead, Allele> likelihoods, List<Double> refQuals, List<Double> altQuals, int refLoc) {
+        final DoubleArrayList[] testRefQuals = new DoubleArrayList[1];
+        final DoubleArrayList[] testAltQuals = new DoubleArrayList[1];
+        fillQualsFromLikelihood(Collections.singletonList(this), vc, likelihoods, testRefQuals, testAltQuals, refLoc);
+        refQuals.addAll(testRefQuals[0]);
+        altQuals.addAll(testAltQuals[0]);
+    }
+
+    /**
+     * Fill the ref and alt elements of several tests in a single sweep over the best alleles of the reads
+     *
+     * @param refQuals filled with the ref elements of each test, in the order of {@code tests}
+     * @param altQuals filled with the alt elements of each test, in the order of {@code tests}
+     */
+    private static void fillQualsFromLikelihood(final List<? extends RankSumTest> tests,
+                                                final VariantContext vc,
+                                                final AlleleLikelihoods<GATKRead, Allele> likelihoods,
+                                                final DoubleArrayList[] refQuals,
+                                                final DoubleArrayList[] altQuals,
+                                                final int refLoc) {
+        for (int i = 0; i < tests.size(); i++) {
+            refQuals[i] = new DoubleArrayList();
+            altQuals[i] = new DoubleArrayList();
+        }
+
         for (final AlleleLikelihoods<GATKRead, Allele>.BestAllele bestAllele : likelihoods.bestAllelesBreakingTies()) {
-            final GATKRead read = bestAllele.evidence;
             final Allele allele = bestAllele.allele;
-            if (bestAllele.isInformative() && isUsableRead(read, refLoc)) {
-                final OptionalDouble value = getElementForRead(read, refLoc, bestAllele);
-                // Bypass read if the clipping goal is not reached or the refloc is inside a spanning deletion
-                if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ) {
-                    if (allele.isReference()) {
-                        refQuals.add(value.getAsDouble());
-                    } else if (vc.hasAllele(allele)) {
-                        altQuals.add(value.getAsDouble());
+            if (!bestAllele.isInformative() || !(allele.isReference() || vc.hasAllele(allele))) {
+                continue;
+            }
+            final GATKRead read = bestAllele.evidence;
+            for (int i = 0; i < tests.size(); i++) {
+                final RankSumTest test = tests.get(i);
+                if (test.isUsableRead(read, refLoc)) {
+                    final OptionalDouble value = test.getElementForRead(read, refLoc, bestAllele);
+                    // Bypass read if the clipping goal is not reached or the refloc is inside a spanning deletion
+                    if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ) {
+                        (allele.isReference() ? refQuals[i] : altQuals[i]).add(value.getAsDouble());
                     }
                 }
             }
@@ -38,6 +38,7 @@ public final class VariantAnnotatorEngine {
     private boolean expressionAlleleConcordance;
     private final boolean useRawAnnotations;
     private final boolean keepRawCombinedAnnotations;
+    private final Set<InfoFieldAnnotation> sharedRankSumTests;
 
     private final static Logger logger = LogManager.getLogger(VariantAnnotatorEngine.class);
 
@@ -81,6 +82,8 @@ public final class VariantAnnotatorEngine {
                 }
             }
         }
+        sharedRankSumTests = Collections.newSetFromMap(new IdentityHashMap<>());
+        infoAnnotations.stream().filter(VariantAnnotatorEngine::canShareRankSumSweep).forEach(sharedRankSumTests::add);
     }
 
     private VariantOverlapAnnotator initializeOverlapAnnotator(final FeatureInput<VariantContext> dbSNPInput, final List<FeatureInput<VariantContext>> featureInputs) {
@@ -284,10 +287,20 @@ public final class VariantAnnotatorEngine {
         final Map<String, Object> infoAnnotMap = new LinkedHashMap<>(newGenotypeAnnotatedVC.getAttributes());
         annotateExpressions(vc, features, ref, infoAnnotMap);
 
+        // the rank sum tests share a single sweep over the best alleles of the reads, done when the first one is reached
+        final List<RankSumTest> rankSumTests = this.infoAnnotations.stream()
+                .filter(annotationType -> sharedRankSumTests.contains(annotationType) && addAnnot.test(annotationType))
+                .map(annotationType -> (RankSumTest) annotationType)
+                .collect(Collectors.toList());
+        boolean rankSumTestsDone = false;
+
         for ( final InfoFieldAnnotation annotationType : this.infoAnnotations) {
             if (addAnnot.test(annotationType)){
                 final Map<String, Object> annotationsFromCurrentType;
-                if (useRawAnnotations && annotationType instanceof ReducibleAnnotation) {
+                if (rankSumTests.size() > 1 && sharedRankSumTests.contains(annotationType)) {
+                    annotationsFromCurrentType = rankSumTestsDone ? null : RankSumTest.annotate(rankSumTests, newGenotypeAnnotatedVC, likelihoods);
+                    rankSumTestsDone = true;
+                } else if (useRawAnnotations && annotationType instanceof ReducibleAnnotation) {
                     annotationsFromCurrentType = ((ReducibleAnnotation) annotationType).annotateRawData(ref, newGenotypeAnnotatedVC, likelihoods);
                 } else {
                     annotationsFromCurrentType = annotationType.annotate(ref, newGenotypeAnnotatedVC, likelihoods);
@@ -305,6 +318,22 @@ public final class VariantAnnotatorEngine {
         return variantOverlapAnnotator.annotateOverlaps(features, variantOverlapAnnotator.annotateRsID(features, annotated));
     }
 
+    /**
+     * Can this annotation be evaluated together with other rank sum tests by {@link RankSumTest#annotate(List, VariantContext, AlleleLikelihoods)}?
+     * Rank sum tests that annotate differently, like the allele-specific ones, are evaluated on their own.
+     */
+    private static boolean canShareRankSumSweep(final InfoFieldAnnotation annotationType) {
+        if (!(annotationType instanceof RankSumTest) || annotationType instanceof ReducibleAnnotation) {
+            return false;
+        }
+        try {
+            return annotationType.getClass().getMethod("annotate", ReferenceContext.class, VariantContext.class, AlleleLikelihoods.class)
+                    .getDeclaringClass() == RankSumTest.class;
+        } catch (final NoSuchMethodException e) {
+            throw new GATKException("RankSumTest is missing its annotate method", e);
+        }
+    }
+
     private GenotypesContext annotateGenotypes(final ReferenceContext ref,
                                                final VariantContext vc,
                                                final AlleleLikelihoods<GATKRead, Allele> likelihoods,
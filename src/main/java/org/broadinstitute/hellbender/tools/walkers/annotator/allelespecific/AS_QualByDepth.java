@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.AnnotationUtils;
 import org.broadinstitute.hellbender.tools.walkers.annotator.InfoFieldAnnotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
 import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
 import org.broadinstitute.hellbender.utils.help.HelpConstants;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -49,6 +50,17 @@ import java.util.stream.Collectors;
 @DocumentedFeature(groupName=HelpConstants.DOC_CAT_ANNOTATORS, groupSummary=HelpConstants.DOC_CAT_ANNOTATORS_SUMMARY, summary="Allele-specific call confidence normalized by depth of sample reads supporting the allele (AS_QD)")
 public class AS_QualByDepth extends InfoFieldAnnotation implements ReducibleAnnotation, AS_StandardAnnotation, AlleleSpecificAnnotation {
 
+    // the source of the jitter of too high QDs, shared by all the tools' annotations unless it is replaced
+    private transient Random randomGenerator = Utils.getRandomGenerator();
+
+    /**
+     * Jitter too high QDs with the given generator rather than the one shared by all the tools' annotations, so that
+     * calls annotated concurrently can be reproduced
+     */
+    public void setRandomGenerator(final Random randomGenerator) {
+        this.randomGenerator = Utils.nonNull(randomGenerator);
+    }
+
     @Override
     public List<String> getKeyNames() { return Arrays.asList(GATKVCFConstants.AS_QUAL_BY_DEPTH_KEY); }
 
@@ -149,7 +161,7 @@ public class AS_QualByDepth extends InfoFieldAnnotation implements ReducibleAnno
         for (int i = 0; i < alleleQualList.size(); i++) {
             double AS_QD = alleleQualList.get(i) / ((double)standardDepth.get(i+1) + refDepth); //+1 to skip the reference field of the AD, add ref counts to each to match biallelic case
             // Hack: see note in the fixTooHighQD method below
-            AS_QD = QualByDepth.fixTooHighQD(AS_QD);
+            AS_QD = QualByDepth.fixTooHighQD(AS_QD, randomGenerator);
             QDlist.add(AS_QD);
         }
 
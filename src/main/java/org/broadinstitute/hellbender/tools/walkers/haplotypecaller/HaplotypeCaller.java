@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter;
 
 import java.nio.file.Path;
 import java.util.Collection;
@@ -199,6 +200,10 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary, createOutputVariantIndex, createOutputVariantMD5, outputSitesOnlyVCFs);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
+        if ( vcfWriter instanceof GVCFWriter && ((GVCFWriter) vcfWriter).acceptsHomRefSites() ) {
+            // hand hom-ref sites straight to the block combiner rather than materializing a VariantContext per base
+            hcEngine.writeReferenceConfidenceTo((GVCFWriter) vcfWriter);
+        }
     }
 
     private static CachingIndexedFastaSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
@@ -435,6 +435,21 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
     }
 
 
+    /**
+     * Stream the reference confidence output of {@link #callRegion} directly to a GVCF writer. Hom-ref sites are then
+     * submitted to the writer's block combiner without creating a VariantContext for each site, and {@link #callRegion}
+     * returns no variants; everything it would have returned is written to the writer in the same order.
+     *
+     * @param gvcfWriter writer to which all reference confidence output should be written, which must
+     *                   {@link GVCFWriter#acceptsHomRefSites() accept hom-ref sites}
+     */
+    public void writeReferenceConfidenceTo( final GVCFWriter gvcfWriter ) {
+        Utils.nonNull(gvcfWriter);
+        Utils.validate(emitReferenceConfidence(), "reference confidence can only be written to a GVCF writer in GVCF mode");
+        Utils.validateArg(gvcfWriter.acceptsHomRefSites(), "the GVCF writer must accept primitive hom-ref sites");
+        referenceConfidenceModel.setGVCFWriter(gvcfWriter);
+    }
+
     /**
      * Given a pileup, returns an ActivityProfileState containing the probability (0.0 to 1.0) that it's an "active" site.
      *
@@ -17,14 +17,17 @@ import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.locusiterator.AlignmentStateMachine;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.*;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Code for estimating the reference confidence
@@ -47,6 +50,8 @@ public class ReferenceConfidenceModel {
 
     private final PosteriorProbabilitiesUtils.PosteriorProbabilitiesOptions options;
 
+    private GVCFWriter gvcfWriter = null;
+
     /**
      * Surrogate quality score for no base calls.
      * <p>
@@ -139,6 +144,27 @@ public class ReferenceConfidenceModel {
         return headerLines;
     }
 
+    /**
+     * Write the results of {@link #calculateRefConfidence} directly to a GVCF writer, in order, instead of returning them.
+     * Reference confidence sites computed without priors are then handed to the writer as primitive records, so that
+     * VariantContexts are only created for the hom-ref blocks it emits and for the variant calls.
+     *
+     * @param gvcfWriter the writer, or null to return the results from {@link #calculateRefConfidence}
+     */
+    public void setGVCFWriter(final GVCFWriter gvcfWriter) {
+        this.gvcfWriter = gvcfWriter;
+    }
+
+    /**
+     * Whether {@link #calculateRefConfidence} may accumulate the reference confidence for the whole region into
+     * primitive arrays, in a single sweep over the aligned bases of each read, rather than building a pileup for every
+     * reference position.  The results are identical.  Subclasses that override {@link #calcGenotypeLikelihoodsOfRefVsAny},
+     * {@link #doIndelRefConfCalc} or {@link #addGenotypeData} must return false so that their overrides are applied.
+     */
+    protected boolean useArrayBasedRefConfidence() {
+        return true;
+    }
+
     public List<VariantContext> calculateRefConfidence(final Haplotype refHaplotype,
                                                        final Collection<Haplotype> calledHaplotypes,
                                                        final SimpleInterval paddedReferenceLoc,
@@ -169,7 +195,8 @@ public class ReferenceConfidenceModel {
      *                     correct order by genomic position, and any variant in this list will stop us emitting a ref confidence
      *                     under any position it covers (for snps and insertions that is 1 bp, but for deletions its the entire ref span)
      * @return an ordered list of variant contexts that spans activeRegion.getLoc() and includes both reference confidence
-     *         contexts as well as calls from variantCalls if any were provided
+     *         contexts as well as calls from variantCalls if any were provided, or an empty list if they were written
+     *         to the writer given to {@link #setGVCFWriter}
      */
     public List<VariantContext> calculateRefConfidence(final Haplotype refHaplotype,
                                                        final Collection<Haplotype> calledHaplotypes,
@@ -192,31 +219,52 @@ public class ReferenceConfidenceModel {
         final int ploidy = ploidyModel.samplePloidy(0); // the first sample = the only sample in reference-confidence mode.
 
         final SimpleInterval refSpan = activeRegion.getSpan();
-        final List<ReadPileup> refPileups = AssemblyBasedCallerUtils.getPileupsOverReference(activeRegion.getHeader(), refSpan, readLikelihoods, samples);
         final byte[] ref = refHaplotype.getBases();
-        final List<VariantContext> results = new ArrayList<>(refSpan.size());
+        final List<VariantContext> results = gvcfWriter == null ? new ArrayList<>(refSpan.size()) : new ArrayList<>(0);
+        final Consumer<VariantContext> output = gvcfWriter == null ? results::add : gvcfWriter::add;
         final String sampleName = readLikelihoods.getSample(0);
 
         final int globalRefOffset = refSpan.getStart() - activeRegion.getPaddedSpan().getStart();
+        final List<ReadPileup> refPileups;
+        final RegionRefVsAnySums regionSums;
+        if (useArrayBasedRefConfidence()) {
+            refPileups = null;
+            regionSums = new RegionRefVsAnySums(activeRegion.getHeader(), refSpan, readLikelihoods, ploidy, ref, globalRefOffset);
+        } else {
+            refPileups = AssemblyBasedCallerUtils.getPileupsOverReference(activeRegion.getHeader(), refSpan, readLikelihoods, samples);
+            regionSums = null;
+        }
+
         // Note, we use an indexed for-loop here because this method has a large impact on the profile of HaplotypeCaller runtime in GVCF mode
-        final int refPileupsSize = refPileups.size();
-        for (int i = 0; i < refPileupsSize; i++) {
-            final ReadPileup pileup = refPileups.get(i);
-            final Locatable curPos = pileup.getLocation();
-            final int offset = curPos.getStart() - refSpan.getStart();
+        final int refSpanSize = refSpan.size();
+        for (int offset = 0; offset < refSpanSize; offset++) {
+            final Locatable curPos = refPileups == null ? new SimpleInterval(refSpan.getContig(), refSpan.getStart() + offset, refSpan.getStart() + offset)
+                    : refPileups.get(offset).getLocation();
 
             final VariantContext overlappingSite = GATKVariantContextUtils.getOverlappingVariantContext(curPos, variantCalls);
             final List<VariantContext> currentPriors = VCpriors.isEmpty() ? Collections.emptyList() : getMatchingPriors(curPos, overlappingSite, VCpriors);
             if (overlappingSite != null && overlappingSite.getStart() == curPos.getStart()) {
                 if (applyPriors) {
-                    results.add(PosteriorProbabilitiesUtils.calculatePosteriorProbs(overlappingSite, currentPriors,
+                    output.accept(PosteriorProbabilitiesUtils.calculatePosteriorProbs(overlappingSite, currentPriors,
                             numRefSamplesForPrior, options));
                 } else {
-                    results.add(overlappingSite);
+                    output.accept(overlappingSite);
                 }
-            } else {
+            } else if (regionSums != null) {
                 // otherwise emit a reference confidence variant context
-                results.add(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, currentPriors));
+                final int refOffset = offset + globalRefOffset;
+                final RefVsAnyResult homRefCalc = regionSums.getRefVsAnyResult(offset);
+                final int nIndelInformativeReads = regionSums.countReadsWithNoPlausibleIndels(offset, ref, refOffset, indelInformativeDepthIndelSize);
+                applyIndelRefConfCalc(ploidy, nIndelInformativeReads, homRefCalc);
+                if (gvcfWriter != null && !applyPriors) {
+                    final int[] pls = homRefCalc.finalPhredScaledGenotypeLikelihoods;
+                    gvcfWriter.addHomRefSite(curPos.getContig(), curPos.getStart(), Allele.create(ref[refOffset], true), sampleName,
+                            ploidy, GATKVariantContextUtils.calculateGQFromPLs(pls), homRefCalc.getDP(), pls);
+                } else {
+                    output.accept(makeReferenceConfidenceVariantContext(ploidy, ref[refOffset], sampleName, curPos, homRefCalc, applyPriors, currentPriors));
+                }
+            } else {
+                output.accept(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, refPileups.get(offset), curPos, offset, applyPriors, currentPriors));
             }
         }
 
@@ -245,6 +293,18 @@ public class ReferenceConfidenceModel {
         final byte refBase = ref[refOffset];
         final ReferenceConfidenceResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null, true);
 
+        doIndelRefConfCalc(ploidy, ref, pileup, refOffset, homRefCalc);
+
+        return makeReferenceConfidenceVariantContext(ploidy, refBase, sampleName, curPos, homRefCalc, applyPriors, VCpriors);
+    }
+
+    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
+                                                                 final byte refBase,
+                                                                 final String sampleName,
+                                                                 final Locatable curPos,
+                                                                 final ReferenceConfidenceResult homRefCalc,
+                                                                 final boolean applyPriors,
+                                                                 final List<VariantContext> VCpriors) {
         final Allele refAllele = Allele.create(refBase, true);
         final List<Allele> refSiteAlleles = Arrays.asList(refAllele, Allele.NON_REF_ALLELE);
         final VariantContextBuilder vcb = new VariantContextBuilder("HC", curPos.getContig(), curPos.getStart(), curPos.getStart(), refSiteAlleles);
@@ -252,9 +312,7 @@ public class ReferenceConfidenceModel {
         gb.AD(homRefCalc.getAD());
         gb.DP(homRefCalc.getDP());
 
-        doIndelRefConfCalc(ploidy, ref, pileup, refOffset, homRefCalc);
-
-       addGenotypeData(homRefCalc, gb);
+        addGenotypeData(homRefCalc, gb);
         if(!applyPriors) {
             return vcb.genotypes(gb.make()).make();
         }
@@ -265,10 +323,13 @@ public class ReferenceConfidenceModel {
     }
 
     public void doIndelRefConfCalc(final int ploidy, final byte[] ref, final ReadPileup pileup, final int refOffset, final ReferenceConfidenceResult refResult) {
-        final RefVsAnyResult homRefCalc = (RefVsAnyResult)refResult;
+        final int nIndelInformativeReads = calcNReadsWithNoPlausibleIndelsReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
+        applyIndelRefConfCalc(ploidy, nIndelInformativeReads, (RefVsAnyResult)refResult);
+    }
+
+    private void applyIndelRefConfCalc(final int ploidy, final int nIndelInformativeReads, final RefVsAnyResult homRefCalc) {
         // genotype likelihood calculation
         final GenotypeLikelihoods snpGLs = GenotypeLikelihoods.fromLog10Likelihoods(homRefCalc.getGenotypeLikelihoodsCappedByHomRefLikelihood());
-        final int nIndelInformativeReads = calcNReadsWithNoPlausibleIndelsReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
         final GenotypeLikelihoods indelGLs = getIndelPLs(ploidy,nIndelInformativeReads);
 
         // now that we have the SNP and indel GLs, we take the one with the least confidence,
@@ -391,30 +452,42 @@ public class ReferenceConfidenceModel {
 
     private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips, final boolean readsWereRealigned) {
         final boolean isAlt = readsWereRealigned ? isAltAfterAssembly(element, refBase) : isAltBeforeAssembly(element, refBase);
+        if (isAlt) {
+            result.nonRefDepth++;
+        } else {
+            result.refDepth++;
+        }
+        addRefVsNonRefLikelihoods(result.genotypeLikelihoods, 0, likelihoodCount, log10Ploidy, isAlt, qual);
+        if (isAlt && hqSoftClips != null && element.isNextToSoftClip()) {
+            hqSoftClips.add(AlignmentUtils.calcNumHighQualitySoftClips(element.getRead(), HQ_BASE_QUALITY_SOFTCLIP_THRESHOLD));
+        }
+    }
+
+    /**
+     * Adds the contribution of a single base call to the ref-vs-any genotype likelihoods stored in
+     * {@code likelihoods[from]} through {@code likelihoods[from + likelihoodCount - 1]}
+     */
+    private static void addRefVsNonRefLikelihoods(final double[] likelihoods, final int from, final int likelihoodCount,
+                                                  final double log10Ploidy, final boolean isAlt, final byte qual) {
         final double referenceLikelihood;
         final double nonRefLikelihood;
         if (isAlt) {
             nonRefLikelihood = QualityUtils.qualToProbLog10(qual);
             referenceLikelihood = QualityUtils.qualToErrorProbLog10(qual) + MathUtils.LOG10_ONE_THIRD;
-            result.nonRefDepth++;
         } else {
             referenceLikelihood = QualityUtils.qualToProbLog10(qual);
             nonRefLikelihood = QualityUtils.qualToErrorProbLog10(qual) + MathUtils.LOG10_ONE_THIRD;
-            result.refDepth++;
         }
         // Homozygous likelihoods don't need the logSum trick.
-        result.genotypeLikelihoods[0] += referenceLikelihood + log10Ploidy;
-        result.genotypeLikelihoods[likelihoodCount - 1] += nonRefLikelihood + log10Ploidy;
+        likelihoods[from] += referenceLikelihood + log10Ploidy;
+        likelihoods[from + likelihoodCount - 1] += nonRefLikelihood + log10Ploidy;
         // Heterozygous likelihoods need the logSum trick:
         for (int i = 1, j = likelihoodCount - 2; i < likelihoodCount - 1; i++, j--) {
-            result.genotypeLikelihoods[i] +=
+            likelihoods[from + i] +=
                     MathUtils.approximateLog10SumLog10(
                             referenceLikelihood + MathUtils.log10(j),
                             nonRefLikelihood + MathUtils.log10(i));
         }
-        if (isAlt && hqSoftClips != null && element.isNextToSoftClip()) {
-            hqSoftClips.add(AlignmentUtils.calcNumHighQualitySoftClips(element.getRead(), HQ_BASE_QUALITY_SOFTCLIP_THRESHOLD));
-        }
     }
 
     protected static boolean isAltBeforeAssembly(final PileupElement element, final byte refBase){
@@ -729,6 +802,10 @@ public class ReferenceConfidenceModel {
      */
     @VisibleForTesting
     protected int getCigarModifiedOffset (final PileupElement p){
+        return cigarModifiedOffset(p);
+    }
+
+    private static int cigarModifiedOffset(final PileupElement p) {
         final GATKRead read = p.getRead();
         int offset = (p.getCurrentCigarElement().getOperator().consumesReferenceBases() || p.getCurrentCigarElement().getOperator() == CigarOperator.S)? p.getOffsetInCurrentCigar() : 0;
         for (int i = 0; i < p.getCurrentCigarOffset(); i++) {
@@ -740,6 +817,151 @@ public class ReferenceConfidenceModel {
         return offset;
     }
 
+    /**
+     * The ref-vs-any likelihoods, depths, and indel evidence for every position of an active region, gathered in a
+     * single sweep over the aligned bases of each read.
+     *
+     * Reads are swept in coordinate order, which is the order in which they appear in the pileups produced by
+     * {@link AssemblyBasedCallerUtils#getPileupsOverReference}, so the likelihoods at each position are summed in the
+     * same order and are identical to those computed by {@link #calcGenotypeLikelihoodsOfRefVsAny}.  The indel
+     * informativeness of a read depends on the first position at which it is evaluated (see
+     * {@link #readHasNoPlausibleIdealsOfSize}), so it is not computed during the sweep; instead the cigar-modified
+     * offset of each read at each position is recorded, and reads are evaluated lazily, position by position, only
+     * at the positions that emit a reference confidence.
+     */
+    private static final class RegionRefVsAnySums {
+        private static final int NOT_INDEL_EVIDENCE = -1;
+
+        private final int likelihoodCount;
+        private final double log10Ploidy;
+        private final double[] genotypeLikelihoods; // likelihoodCount entries for each position
+        private final int[] readCounts;
+        private final int[] refDepths;
+        private final int[] nonRefDepths;
+
+        // reads overlapping the region in pileup order, the region offset of the first position each one covers, and
+        // its cigar-modified offset at each covered position (or NOT_INDEL_EVIDENCE)
+        private final GATKRead[] reads;
+        private final int[] readFirstOffsets;
+        private final int[][] readIndelOffsets;
+        private int firstActiveRead = 0;
+
+        RegionRefVsAnySums(final SAMFileHeader readsHeader,
+                           final SimpleInterval refSpan,
+                           final AlleleLikelihoods<GATKRead, Haplotype> readLikelihoods,
+                           final int ploidy,
+                           final byte[] ref,
+                           final int globalRefOffset) {
+            final int regionSize = refSpan.size();
+            likelihoodCount = ploidy + 1;
+            log10Ploidy = MathUtils.log10(ploidy);
+            genotypeLikelihoods = new double[regionSize * likelihoodCount];
+            readCounts = new int[regionSize];
+            refDepths = new int[regionSize];
+            nonRefDepths = new int[regionSize];
+
+            final List<GATKRead> sortedReads = new ArrayList<>(readLikelihoods.sampleEvidence(0));
+            sortedReads.sort(new ReadCoordinateComparator(readsHeader));
+            reads = new GATKRead[sortedReads.size()];
+            readFirstOffsets = new int[sortedReads.size()];
+            readIndelOffsets = new int[sortedReads.size()][];
+
+            int nReads = 0;
+            for (final GATKRead read : sortedReads) {
+                if (read.getEnd() < refSpan.getStart() || read.getStart() > refSpan.getEnd()) {
+                    continue;
+                }
+                final AlignmentStateMachine state = new AlignmentStateMachine(read);
+                CigarOperator op = state.stepForwardOnGenome();
+                while (op != null && state.getGenomePosition() < refSpan.getStart()) {
+                    op = state.stepForwardOnGenome();
+                }
+                if (op == null) {
+                    // reads that are all insertions / soft clips never appear in a pileup
+                    continue;
+                }
+                final int firstOffset = state.getGenomePosition() - refSpan.getStart();
+                final int[] indelOffsets = new int[Math.min(read.getEnd(), refSpan.getEnd()) - state.getGenomePosition() + 1];
+                Arrays.fill(indelOffsets, NOT_INDEL_EVIDENCE);
+
+                while (op != null && state.getGenomePosition() <= refSpan.getEnd()) {
+                    final int position = state.getGenomePosition();
+                    if (op != CigarOperator.N && !ReadUtils.isBaseInsideAdaptor(read, position)) {
+                        final int offset = position - refSpan.getStart();
+                        final PileupElement element = state.makePileupElement();
+                        addElement(element, offset, ref[offset + globalRefOffset]);
+                        if (!(element.isBeforeDeletionStart() || element.isBeforeInsertion() || element.isDeletion())) {
+                            indelOffsets[offset - firstOffset] = cigarModifiedOffset(element);
+                        }
+                    }
+                    op = state.stepForwardOnGenome();
+                }
+
+                reads[nReads] = read;
+                readFirstOffsets[nReads] = firstOffset;
+                readIndelOffsets[nReads] = indelOffsets;
+                nReads++;
+            }
+            for (int i = 0; i < readCounts.length; i++) {
+                final double denominator = readCounts[i] * log10Ploidy;
+                for (int j = i * likelihoodCount; j < (i + 1) * likelihoodCount; j++) {
+                    genotypeLikelihoods[j] -= denominator;
+                }
+            }
+        }
+
+        private void addElement(final PileupElement element, final int offset, final byte refBase) {
+            final byte qual = element.isDeletion() ? REF_MODEL_DELETION_QUAL : element.getQual();
+            if (!element.isDeletion() && qual <= BASE_QUAL_THRESHOLD) {
+                return;
+            }
+            readCounts[offset]++;
+            final boolean isAlt = isAltAfterAssembly(element, refBase);
+            if (isAlt) {
+                nonRefDepths[offset]++;
+            } else {
+                refDepths[offset]++;
+            }
+            addRefVsNonRefLikelihoods(genotypeLikelihoods, offset * likelihoodCount, likelihoodCount, log10Ploidy, isAlt, qual);
+        }
+
+        /**
+         * @return a new ref-vs-any result for the position at the given offset into the region
+         */
+        RefVsAnyResult getRefVsAnyResult(final int offset) {
+            final RefVsAnyResult result = new RefVsAnyResult(likelihoodCount);
+            System.arraycopy(genotypeLikelihoods, offset * likelihoodCount, result.genotypeLikelihoods, 0, likelihoodCount);
+            result.refDepth = refDepths[offset];
+            result.nonRefDepth = nonRefDepths[offset];
+            return result;
+        }
+
+        /**
+         * Equivalent to {@link #calcNReadsWithNoPlausibleIndelsReads} on the pileup at the given offset into the region.
+         * Must be called with increasing offsets.
+         */
+        int countReadsWithNoPlausibleIndels(final int offset, final byte[] ref, final int refOffset, final int maxIndelSize) {
+            while (firstActiveRead < reads.length && reads[firstActiveRead] != null
+                    && readFirstOffsets[firstActiveRead] + readIndelOffsets[firstActiveRead].length <= offset) {
+                firstActiveRead++;
+            }
+            int nInformative = 0;
+            for (int i = firstActiveRead; i < reads.length && reads[i] != null && readFirstOffsets[i] <= offset; i++) {
+                final int indexInRead = offset - readFirstOffsets[i];
+                if (indexInRead >= readIndelOffsets[i].length || readIndelOffsets[i][indexInRead] == NOT_INDEL_EVIDENCE) {
+                    continue;
+                }
+                if (readHasNoPlausibleIdealsOfSize(reads[i], readIndelOffsets[i][indexInRead], ref, refOffset, maxIndelSize, USE_CACHED_READ_INDEL_INFORMATIVENESS_VALUES)) {
+                    nInformative++;
+                    if (nInformative > MAX_N_INDEL_INFORMATIVE_READS) {
+                        return MAX_N_INDEL_INFORMATIVE_READS;
+                    }
+                }
+            }
+            return nInformative;
+        }
+    }
+
     /**
      * Create a reference haplotype for an active region
      *
@@ -0,0 +1,120 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.RuntimeEOFException;
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecordCodec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Comparator;
+
+/**
+ * A {@link MarkDuplicatesSparkRecord} encoded by {@link MarkDuplicatesSparkRecordCodec} together with its packed
+ * {@link ReadsKey}, used to spill duplicate marking records to disk and sort them so that records sharing a key
+ * end up adjacent to each other.
+ */
+final class KeyedDuplicateRecord {
+    private static final byte FRAGMENT_KEY = 0;
+    private static final byte PAIR_KEY = 1;
+
+    /**
+     * Orders records by their key. The order between keys is arbitrary but consistent, which is all that is needed to
+     * bring the members of each duplicate set together.
+     */
+    static final Comparator<KeyedDuplicateRecord> KEY_COMPARATOR = Comparator
+            .comparingInt((KeyedDuplicateRecord r) -> r.keyType)
+            .thenComparingLong(r -> r.firstKeyValue)
+            .thenComparingLong(r -> r.secondKeyValue);
+
+    private final byte keyType;
+    private final long firstKeyValue;
+    private final long secondKeyValue;
+    private final byte[] encodedRecord;
+
+    KeyedDuplicateRecord(final ReadsKey key, final MarkDuplicatesSparkRecord record) {
+        Utils.nonNull(key);
+        Utils.nonNull(record);
+        if (key instanceof ReadsKey.KeyForPair) {
+            this.keyType = PAIR_KEY;
+            this.firstKeyValue = ((ReadsKey.KeyForPair) key).getFirstReadKeyValue();
+            this.secondKeyValue = ((ReadsKey.KeyForPair) key).getSecondReadKeyValue();
+        } else if (key instanceof ReadsKey.KeyForFragment) {
+            this.keyType = FRAGMENT_KEY;
+            this.firstKeyValue = ((ReadsKey.KeyForFragment) key).getKeyValue();
+            this.secondKeyValue = 0;
+        } else {
+            throw new GATKException.ShouldNeverReachHereException("Unexpected ReadsKey type " + key.getClass().getSimpleName());
+        }
+        this.encodedRecord = MarkDuplicatesSparkRecordCodec.encode(record);
+    }
+
+    private KeyedDuplicateRecord(final byte keyType, final long firstKeyValue, final long secondKeyValue, final byte[] encodedRecord) {
+        this.keyType = keyType;
+        this.firstKeyValue = firstKeyValue;
+        this.secondKeyValue = secondKeyValue;
+        this.encodedRecord = encodedRecord;
+    }
+
+    /**
+     * @return true if this record shares its key with the other record and so belongs to the same duplicate set
+     */
+    boolean hasSameKey(final KeyedDuplicateRecord other) {
+        return keyType == other.keyType && firstKeyValue == other.firstKeyValue && secondKeyValue == other.secondKeyValue;
+    }
+
+    MarkDuplicatesSparkRecord decodeRecord() {
+        return MarkDuplicatesSparkRecordCodec.decode(encodedRecord);
+    }
+
+    /**
+     * Binary codec for spilling records in a {@link SortingCollection}.
+     */
+    static final class Codec implements SortingCollection.Codec<KeyedDuplicateRecord> {
+        private final BinaryCodec binaryCodec = new BinaryCodec();
+
+        @Override
+        public void setOutputStream(final OutputStream os) {
+            binaryCodec.setOutputStream(os);
+        }
+
+        @Override
+        public void setInputStream(final InputStream is) {
+            binaryCodec.setInputStream(is);
+        }
+
+        @Override
+        public void encode(final KeyedDuplicateRecord record) {
+            binaryCodec.writeInt(record.encodedRecord.length);
+            binaryCodec.writeByte(record.keyType);
+            binaryCodec.writeLong(record.firstKeyValue);
+            binaryCodec.writeLong(record.secondKeyValue);
+            binaryCodec.writeBytes(record.encodedRecord);
+        }
+
+        @Override
+        public KeyedDuplicateRecord decode() {
+            final int recordLength;
+            try {
+                recordLength = binaryCodec.readInt();
+            } catch (final RuntimeEOFException e) {
+                return null;
+            }
+            final byte keyType = binaryCodec.readByte();
+            final long firstKeyValue = binaryCodec.readLong();
+            final long secondKeyValue = binaryCodec.readLong();
+            final byte[] encodedRecord = new byte[recordLength];
+            binaryCodec.readBytes(encodedRecord);
+            return new KeyedDuplicateRecord(keyType, firstKeyValue, secondKeyValue, encodedRecord);
+        }
+
+        @Override
+        public Codec clone() {
+            return new Codec();
+        }
+    }
+}
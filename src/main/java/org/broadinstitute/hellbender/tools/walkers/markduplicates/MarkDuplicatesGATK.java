@@ -0,0 +1,380 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.metrics.MetricsFile;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.PeekableIterator;
+import htsjdk.samtools.util.RuntimeEOFException;
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.MarkDuplicatesSparkArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
+import org.broadinstitute.hellbender.engine.GATKTool;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSparkUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.GATKDuplicationMetrics;
+import org.broadinstitute.hellbender.utils.read.markduplicates.LibraryIdGenerator;
+import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
+import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
+import picard.sam.markduplicates.MarkDuplicates;
+import picard.sam.markduplicates.util.OpticalDuplicateFinder;
+import scala.Tuple2;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Single-node, streaming duplicate marking for queryname-grouped alignments.
+ *
+ * <p>This tool identifies duplicates using exactly the same scoring, keying and optical duplicate logic as
+ * MarkDuplicatesSpark, but without the overhead of running Spark locally. Reads are streamed twice:</p>
+ *
+ * <ol>
+ *     <li>Reads are grouped by read name and turned into compact duplicate marking records which are spilled to disk
+ *     and externally sorted so that members of each duplicate set become adjacent.</li>
+ *     <li>The sorted duplicate sets are marked in parallel, and the results (sorted by template) are merged back
+ *     into a second pass over the reads which sets the duplicate flags and writes the output.</li>
+ * </ol>
+ *
+ * <p>Memory use is bounded by --max-records-in-ram rather than by the size of the input. Unlike MarkDuplicatesSpark the
+ * output is written in the input (queryname-grouped) order rather than being coordinate sorted.</p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ *  gatk MarkDuplicatesGATK \
+ *        -I input.bam \
+ *        -O marked_duplicates.bam \
+ *        -M marked_dup_metrics.txt
+ * </pre>
+ *
+ * <h3>Notes</h3>
+ * <ol>
+ *     <li>The input must be queryname sorted or querygrouped, and must be a BAM or CRAM so that it can be traversed twice.</li>
+ * </ol>
+ */
+@DocumentedFeature
+@BetaFeature
+@CommandLineProgramProperties(
+        summary = "Marks duplicates in queryname-grouped reads on a single machine using the MarkDuplicatesSpark duplicate marking logic",
+        oneLineSummary = "Streaming single-node MarkDuplicates for queryname-grouped reads",
+        programGroup = ReadDataManipulationProgramGroup.class)
+public final class MarkDuplicatesGATK extends GATKTool {
+    public static final String MAX_RECORDS_IN_RAM_LONG_NAME = "max-records-in-ram";
+    public static final String MARKING_THREADS_LONG_NAME = "marking-threads";
+
+    // Number of duplicate sets handed to a marking thread at a time
+    private static final int DUPLICATE_SETS_PER_BATCH = 10000;
+
+    @Argument(doc = "the output bam", shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, optional = false)
+    protected String output;
+
+    @Argument(doc = "Path to write duplication metrics to.", optional=true,
+            shortName = StandardArgumentDefinitions.METRICS_FILE_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.METRICS_FILE_LONG_NAME)
+    protected String metricsFile;
+
+    @Argument(shortName = StandardArgumentDefinitions.DUPLICATE_SCORING_STRATEGY_SHORT_NAME, fullName = StandardArgumentDefinitions.DUPLICATE_SCORING_STRATEGY_LONG_NAME, doc = "The scoring strategy for choosing the non-duplicate among candidates.")
+    public MarkDuplicatesScoringStrategy duplicatesScoringStrategy = MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES;
+
+    @Argument(fullName = MarkDuplicatesSparkArgumentCollection.DO_NOT_MARK_UNMAPPED_MATES_LONG_NAME, doc = "Enabling this option will mean unmapped mates of duplicate marked reads will not be marked as duplicates.")
+    public boolean dontMarkUnmappedMates = false;
+
+    @Argument(fullName = MarkDuplicatesSparkArgumentCollection.DUPLICATE_TAGGING_POLICY_LONG_NAME, doc = "Determines how duplicate types are recorded in the DT optional attribute.", optional = true,
+            mutex = {MarkDuplicatesSparkArgumentCollection.REMOVE_ALL_DUPLICATE_READS, MarkDuplicatesSparkArgumentCollection.REMOVE_SEQUENCING_DUPLICATE_READS})
+    public MarkDuplicates.DuplicateTaggingPolicy taggingPolicy = MarkDuplicates.DuplicateTaggingPolicy.DontTag;
+
+    @Argument(fullName = MarkDuplicatesSparkArgumentCollection.REMOVE_ALL_DUPLICATE_READS, doc = "If true do not write duplicates to the output file instead of writing them with appropriate flags set.",
+            mutex = {MarkDuplicatesSparkArgumentCollection.DUPLICATE_TAGGING_POLICY_LONG_NAME, MarkDuplicatesSparkArgumentCollection.REMOVE_SEQUENCING_DUPLICATE_READS}, optional = true)
+    public boolean removeAllDuplicates = false;
+
+    @Argument(fullName = MarkDuplicatesSparkArgumentCollection.REMOVE_SEQUENCING_DUPLICATE_READS, doc = "If true do not write optical/sequencing duplicates to the output file instead of writing them with appropriate flags set.",
+            mutex = {MarkDuplicatesSparkArgumentCollection.DUPLICATE_TAGGING_POLICY_LONG_NAME, MarkDuplicatesSparkArgumentCollection.REMOVE_ALL_DUPLICATE_READS}, optional = true)
+    public boolean removeSequencingDuplicates = false;
+
+    @Advanced
+    @Argument(fullName = MAX_RECORDS_IN_RAM_LONG_NAME, doc = "Maximum number of duplicate marking records to hold in memory before spilling them to disk.", optional = true, minValue = 1)
+    public int maxRecordsInRam = 1000000;
+
+    @Argument(fullName = MARKING_THREADS_LONG_NAME, doc = "Number of threads used to mark the sorted duplicate sets.", optional = true, minValue = 1)
+    public int markingThreads = 1;
+
+    @ArgumentCollection
+    protected OpticalDuplicatesArgumentCollection opticalDuplicatesArgumentCollection = new OpticalDuplicatesArgumentCollection();
+
+    private SAMFileHeader header;
+    private boolean markOpticalDups;
+
+    @Override
+    public boolean requiresReads() { return true; }
+
+    @Override
+    public void onTraversalStart() {
+        header = getHeaderForReads();
+        if (!ReadUtils.isReadNameGroupedBam(header)) {
+            throw new UserException.BadInput(String.format("%s requires input reads to be queryname sorted or querygrouped, yet the header indicated it was in %s order instead",
+                    getToolName(), header.getSortOrder()));
+        }
+        if (!directlyAccessEngineReadsDataSource().supportsSerialIteration()) {
+            throw new UserException.BadInput(getToolName() + " traverses the reads twice and so requires BAM or CRAM input");
+        }
+        // If we need to remove optical duplicates, set the engine to mark optical duplicates using the DT tag.
+        if (removeSequencingDuplicates && taggingPolicy == MarkDuplicates.DuplicateTaggingPolicy.DontTag) {
+            taggingPolicy = MarkDuplicates.DuplicateTaggingPolicy.OpticalOnly;
+        }
+        markOpticalDups = (taggingPolicy != MarkDuplicates.DuplicateTaggingPolicy.DontTag);
+    }
+
+    @Override
+    public void traverse() {
+        final SortingCollection<KeyedDuplicateRecord> keyedRecords = collectDuplicateMarkingRecords();
+        final SortingCollection<Long> templateMarkers = markDuplicateSets(keyedRecords);
+        keyedRecords.cleanup();
+        try {
+            writeMarkedReads(templateMarkers);
+        } finally {
+            templateMarkers.cleanup();
+        }
+    }
+
+    /**
+     * First pass: convert each read name group into keyed duplicate marking records and spill them into a sorting collection.
+     */
+    private SortingCollection<KeyedDuplicateRecord> collectDuplicateMarkingRecords() {
+        final Map<String, Short> readGroupIndexMap = MarkDuplicatesSparkUtils.getHeaderReadGroupIndexMap(header);
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+        final SortingCollection<KeyedDuplicateRecord> keyedRecords = SortingCollection.newInstance(KeyedDuplicateRecord.class,
+                new KeyedDuplicateRecord.Codec(), KeyedDuplicateRecord.KEY_COMPARATOR, maxRecordsInRam, tmpDir.toPath());
+
+        logger.info("Collecting duplicate marking records");
+        final Iterator<List<GATKRead>> readNameGroups = new ReadNameGroupIterator(getTransformedReadStream(ReadFilterLibrary.ALLOW_ALL_READS).iterator());
+        int templateIndex = 0;
+        while (readNameGroups.hasNext()) {
+            final int index = templateIndex++;
+            final List<MarkDuplicatesSparkUtils.IndexPair<GATKRead>> mappedReads = readNameGroups.next().stream()
+                    .filter(ReadFilterLibrary.MAPPED::test)
+                    .map(read -> new MarkDuplicatesSparkUtils.IndexPair<>(read, index))
+                    .collect(Collectors.toList());
+            if (!mappedReads.isEmpty()) {
+                for (final Tuple2<ReadsKey, MarkDuplicatesSparkRecord> keyedRecord :
+                        MarkDuplicatesSparkUtils.getRecordsForReadNameGroup(mappedReads, header, duplicatesScoringStrategy, readGroupIndexMap, libraryIndex)) {
+                    keyedRecords.add(new KeyedDuplicateRecord(keyedRecord._1(), keyedRecord._2()));
+                }
+            }
+        }
+        keyedRecords.doneAdding();
+        return keyedRecords;
+    }
+
+    /**
+     * Marks each set of records sharing a key, in parallel batches, and returns the resulting template markers sorted
+     * by template index. Each marker is packed into a long with the template index in the upper 32 bits and the optical
+     * duplicate count or marker in the lower 32 bits.
+     */
+    private SortingCollection<Long> markDuplicateSets(final SortingCollection<KeyedDuplicateRecord> keyedRecords) {
+        final SortingCollection<Long> templateMarkers = SortingCollection.newInstance(Long.class,
+                new LongCodec(), Comparator.naturalOrder(), maxRecordsInRam, tmpDir.toPath());
+
+        // The OpticalDuplicateFinder caches read name parsing state, so each marking thread needs its own
+        final String readNameRegex = opticalDuplicatesArgumentCollection.READ_NAME_REGEX;
+        final int opticalDuplicatePixelDistance = opticalDuplicatesArgumentCollection.OPTICAL_DUPLICATE_PIXEL_DISTANCE;
+        final ThreadLocal<OpticalDuplicateFinder> finder = ThreadLocal.withInitial(() ->
+                readNameRegex != null ? new OpticalDuplicateFinder(readNameRegex, opticalDuplicatePixelDistance, null) : null);
+
+        logger.info("Marking duplicate sets");
+        try (final CloseableIterator<KeyedDuplicateRecord> sortedRecords = keyedRecords.iterator()) {
+            final Iterator<List<List<KeyedDuplicateRecord>>> batches = Iterators.partition(new DuplicateSetIterator(sortedRecords), DUPLICATE_SETS_PER_BATCH);
+            Utils.transformParallel(batches, batch -> markBatch(batch, finder.get()), markingThreads)
+                    .forEachRemaining(markers -> markers.forEach(templateMarkers::add));
+        }
+        templateMarkers.doneAdding();
+        return templateMarkers;
+    }
+
+    private List<Long> markBatch(final List<List<KeyedDuplicateRecord>> duplicateSets, final OpticalDuplicateFinder finder) {
+        final List<Long> markers = new ArrayList<>();
+        for (final List<KeyedDuplicateRecord> duplicateSet : duplicateSets) {
+            final List<MarkDuplicatesSparkRecord> records = duplicateSet.stream()
+                    .map(KeyedDuplicateRecord::decodeRecord)
+                    .collect(Collectors.toList());
+            for (final Tuple2<MarkDuplicatesSparkUtils.IndexPair<String>, Integer> marked : MarkDuplicatesSparkUtils.markDuplicateRecordGroup(records, finder, markOpticalDups)) {
+                markers.add(((long) marked._1().getIndex() << 32) | (marked._2() & 0xFFFFFFFFL));
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * Second pass: apply the template markers to the reads in input order, collecting metrics and writing the output.
+     */
+    private void writeMarkedReads(final SortingCollection<Long> templateMarkers) {
+        final boolean markUnmappedMates = !dontMarkUnmappedMates;
+        final Map<String, GATKDuplicationMetrics> metricsByLibrary = new LinkedHashMap<>();
+
+        logger.info("Writing duplicate marked reads");
+        try (final SAMFileGATKReadWriter writer = createSAMWriter(IOUtils.getPath(output), true);
+             final PeekableIterator<Long> markers = new PeekableIterator<>(templateMarkers.iterator())) {
+            final Iterator<List<GATKRead>> readNameGroups = new ReadNameGroupIterator(getTransformedReadStream(ReadFilterLibrary.ALLOW_ALL_READS).iterator());
+            long templateIndex = 0;
+            while (readNameGroups.hasNext()) {
+                final List<GATKRead> readNameGroup = readNameGroups.next();
+                Integer marker = null;
+                while (markers.hasNext() && (markers.peek() >>> 32) == templateIndex) {
+                    if (marker != null) {
+                        throw new GATKException(String.format("Detected multiple mark duplicate records objects corresponding to read with name '%s', this could be the result of the file sort order being incorrect", readNameGroup.get(0).getName()));
+                    }
+                    marker = (int) markers.next().longValue();
+                }
+                templateIndex++;
+
+                for (final GATKRead read : readNameGroup) {
+                    marker = MarkDuplicatesSpark.applyDuplicateMarker(read, marker, markUnmappedMates, taggingPolicy);
+                    if (metricsFile != null) {
+                        final String library = LibraryIdGenerator.getLibraryName(header, read.getReadGroup());
+                        final GATKDuplicationMetrics metrics = metricsByLibrary.computeIfAbsent(library, lib -> {
+                            final GATKDuplicationMetrics newMetrics = new GATKDuplicationMetrics();
+                            newMetrics.LIBRARY = lib;
+                            return newMetrics;
+                        });
+                        MarkDuplicatesSparkUtils.addReadToMetrics(metrics, read);
+                    }
+                    if (shouldWrite(read)) {
+                        writer.addRead(read);
+                    }
+                    progressMeter.update(null);
+                }
+            }
+        }
+
+        if (metricsFile != null) {
+            final Map<String, GATKDuplicationMetrics> finalizedMetrics = new LinkedHashMap<>();
+            metricsByLibrary.forEach((library, metrics) -> finalizedMetrics.put(library, MarkDuplicatesSparkUtils.finalizeLibraryMetrics(metrics)));
+            final MetricsFile<GATKDuplicationMetrics, Double> resultMetrics = getMetricsFile();
+            MarkDuplicatesSparkUtils.saveMetrics(resultMetrics, header, finalizedMetrics, metricsFile);
+        }
+    }
+
+    private boolean shouldWrite(final GATKRead read) {
+        if (removeAllDuplicates) {
+            return !read.isDuplicate();
+        } else if (removeSequencingDuplicates) {
+            return !MarkDuplicates.DUPLICATE_TYPE_SEQUENCING.equals(read.getAttributeAsString(MarkDuplicates.DUPLICATE_TYPE_TAG));
+        }
+        return true;
+    }
+
+    /**
+     * Groups consecutive reads sharing a read name. Assumes the input is queryname grouped.
+     */
+    private static final class ReadNameGroupIterator implements Iterator<List<GATKRead>> {
+        private final PeekableIterator<GATKRead> reads;
+
+        ReadNameGroupIterator(final Iterator<GATKRead> reads) {
+            this.reads = new PeekableIterator<>(reads);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reads.hasNext();
+        }
+
+        @Override
+        public List<GATKRead> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final List<GATKRead> group = new ArrayList<>(2);
+            final String name = reads.peek().getName();
+            while (reads.hasNext() && Objects.equals(name, reads.peek().getName())) {
+                group.add(reads.next());
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Groups consecutive records sharing a key out of a key sorted iterator.
+     */
+    private static final class DuplicateSetIterator implements Iterator<List<KeyedDuplicateRecord>> {
+        private final PeekableIterator<KeyedDuplicateRecord> records;
+
+        DuplicateSetIterator(final Iterator<KeyedDuplicateRecord> records) {
+            this.records = new PeekableIterator<>(records);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return records.hasNext();
+        }
+
+        @Override
+        public List<KeyedDuplicateRecord> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final List<KeyedDuplicateRecord> duplicateSet = new ArrayList<>();
+            final KeyedDuplicateRecord first = records.next();
+            duplicateSet.add(first);
+            while (records.hasNext() && first.hasSameKey(records.peek())) {
+                duplicateSet.add(records.next());
+            }
+            return duplicateSet;
+        }
+    }
+
+    /**
+     * Binary codec for spilling packed template markers in a {@link SortingCollection}.
+     */
+    private static final class LongCodec implements SortingCollection.Codec<Long> {
+        private final BinaryCodec binaryCodec = new BinaryCodec();
+
+        @Override
+        public void setOutputStream(final OutputStream os) {
+            binaryCodec.setOutputStream(os);
+        }
+
+        @Override
+        public void setInputStream(final InputStream is) {
+            binaryCodec.setInputStream(is);
+        }
+
+        @Override
+        public void encode(final Long value) {
+            binaryCodec.writeLong(value);
+        }
+
+        @Override
+        public Long decode() {
+            try {
+                return binaryCodec.readLong();
+            } catch (final RuntimeEOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public LongCodec clone() {
+            return new LongCodec();
+        }
+    }
+}
@@ -39,6 +39,14 @@ public class SomaticReferenceConfidenceModel extends ReferenceConfidenceModel {
         this.genotypingEngine = genotypingEngine;
     }
 
+    /**
+     * The somatic model computes its likelihoods from pileups, so it cannot use the array-based germline sweep
+     */
+    @Override
+    protected boolean useArrayBasedRefConfidence() {
+        return false;
+    }
+
         /**
          * Calculate the genotype likelihoods for the sample in pileup for being hom-ref contrasted with being ref vs. alt
          *
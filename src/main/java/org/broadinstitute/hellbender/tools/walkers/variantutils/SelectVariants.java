@@ -431,6 +431,9 @@ public final class SelectVariants extends VariantWalker {
     private SortedSet<String> samples = new TreeSet<>();
     private boolean noSamplesSpecified = false;
 
+    // the number of samples in the input, which may be more than the driving variants have if they are projected
+    private int numInputSamples = 0;
+
     private Set<VariantContext.Type> selectedTypes = new LinkedHashSet<>();
     private final ArrayList<String> selectNames = new ArrayList<>();
     private List<VariantContextUtils.JexlVCMatchExp> jexls = null;
@@ -453,6 +456,19 @@ public final class SelectVariants extends VariantWalker {
 
     final private PriorityQueue<VariantContext> pendingVariants = new PriorityQueue<>(Comparator.comparingInt(VariantContext::getStart));
 
+    /**
+     * When the samples are given only by name, decode the genotypes of those samples alone. Excluded samples are
+     * still projected, since every sample named on the command line is checked against the header; they are removed
+     * from the output afterwards.
+     */
+    @Override
+    protected VariantProjection getDrivingVariantsProjection() {
+        if (sampleNames.isEmpty() || !sampleExpressions.isEmpty()) {
+            return VariantProjection.ALL;
+        }
+        return VariantProjection.ALL.withSamples(sampleNames);
+    }
+
     /**
      * Set up the VCF writer, the sample expressions and regexs, filters inputs, and the JEXL matcher
      *
@@ -474,6 +490,7 @@ public final class SelectVariants extends VariantWalker {
 
         // Prepare the sample names and types to be used by the corresponding filters
         samples = createSampleNameInclusionList(vcfHeaders);
+        numInputSamples = ((VCFHeader) getHeaderForFeatures(getDrivingVariantsFeatureInput())).getNGenotypeSamples();
         selectedTypes = createSampleTypeInclusionList();
 
         // Look at the parameters to decide which analysis to perform
@@ -1047,8 +1064,8 @@ public final class SelectVariants extends VariantWalker {
         // strip out the alternate alleles that aren't being used
         final VariantContext sub = vc.subContextFromSamples(samples, removeUnusedAlternates);
 
-        // If no subsetting happened, exit now
-        if (sub.getNSamples() == vc.getNSamples() && sub.getNAlleles() == vc.getNAlleles()) {
+        // If no subsetting happened, exit now (the genotypes of the driving variants may already be a subset)
+        if (sub.getNSamples() == numInputSamples && sub.getNAlleles() == vc.getNAlleles()) {
             return vc;
         }
 
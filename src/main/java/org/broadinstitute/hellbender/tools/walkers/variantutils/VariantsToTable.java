@@ -21,6 +21,7 @@ import org.broadinstitute.hellbender.engine.VariantWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.VariantProjection;
 import org.broadinstitute.hellbender.utils.variant.VcfUtils;
 
 import java.io.FileNotFoundException;
@@ -202,11 +203,36 @@ public final class VariantsToTable extends VariantWalker {
 
     private static final String MISSING_DATA = "NA";
 
+    // standard fields whose values are counted from the genotypes of all samples
+    private static final Set<String> GENOTYPE_COUNT_FIELDS = new HashSet<>(Arrays.asList("HET", "HOM-REF", "HOM-VAR", "NO-CALL", "VAR", "NSAMPLES", "NCALLED"));
+
     private SortedSet<String> samples;
     private long nRecords = 0L;
     private PrintStream outputStream = null;
     private VCFHeader inputHeader;
 
+    /**
+     * Decode only the INFO and FORMAT fields that go in the table, and the genotypes only if they are needed.
+     */
+    @Override
+    protected VariantProjection getDrivingVariantsProjection() {
+        VariantProjection projection = VariantProjection.ALL;
+        if (fieldsToTake.stream().noneMatch(VariantsToTable::isWildCard)) {
+            final Set<String> infoKeys = new LinkedHashSet<>(fieldsToTake);
+            infoKeys.addAll(asFieldsToTake);
+            projection = projection.withInfoKeys(infoKeys);
+        }
+
+        final Set<String> formatKeys = new LinkedHashSet<>(genotypeFieldsToTake);
+        formatKeys.addAll(asGenotypeFieldsToTake);
+        if (fieldsToTake.stream().anyMatch(GENOTYPE_COUNT_FIELDS::contains)) {
+            formatKeys.add(VCFConstants.GENOTYPE_KEY);
+        }
+        return formatKeys.isEmpty() ?
+                projection.withFormatKeys(formatKeys).withSamples(Collections.emptySet()) :
+                projection.withFormatKeys(formatKeys);
+    }
+
     @Override
     public void onTraversalStart() {
         inputHeader = getHeaderForVariants();
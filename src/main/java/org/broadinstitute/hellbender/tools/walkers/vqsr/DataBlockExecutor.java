@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a computation over contiguous blocks of data indices, in parallel when more than one thread is requested,
+ * and returns the per-block results in block order so that callers can combine partial sums deterministically.
+ * <p>
+ *     With one thread all the data form a single block, so a reduction that seeds the first block with its initial
+ *     value performs exactly the same floating-point operations as a plain sequential loop. With more threads the data
+ *     are split into blocks of {@link #BLOCK_SIZE}, so results depend on the block size but not on the number of threads.
+ * </p>
+ */
+final class DataBlockExecutor implements AutoCloseable {
+    static final int BLOCK_SIZE = 1 << 14;
+
+    @FunctionalInterface
+    interface BlockFunction<T> {
+        /**
+         * @param start first data index in the block, inclusive
+         * @param end last data index in the block, exclusive
+         */
+        T apply( final int start, final int end );
+    }
+
+    private final int numThreads;
+    private final ExecutorService executorService;
+
+    DataBlockExecutor( final int numThreads ) {
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+        this.numThreads = numThreads;
+        executorService = numThreads == 1 ? null : Executors.newFixedThreadPool(numThreads);
+    }
+
+    int getNumThreads() { return numThreads; }
+
+    /**
+     * Applies {@code function} to each block of the indices [0, numData). There is always at least one block.
+     * @return the result for each block, in block order
+     */
+    <T> List<T> map( final int numData, final BlockFunction<T> function ) {
+        Utils.validateArg(numData >= 0, "numData must be non-negative");
+        Utils.nonNull(function);
+        if( executorService == null || numData <= BLOCK_SIZE ) {
+            return Collections.singletonList(function.apply(0, numData));
+        }
+
+        final List<Callable<T>> tasks = new ArrayList<>();
+        for( int start = 0; start < numData; start += BLOCK_SIZE ) {
+            final int blockStart = start;
+            final int blockEnd = Math.min(start + BLOCK_SIZE, numData);
+            tasks.add(() -> function.apply(blockStart, blockEnd));
+        }
+        try {
+            final List<T> results = new ArrayList<>(tasks.size());
+            for( final Future<T> future : executorService.invokeAll(tasks) ) {
+                results.add(future.get());
+            }
+            return results;
+        } catch( final ExecutionException e ) {
+            if( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Problem running task", e);
+        } catch( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while running task", e);
+        }
+    }
+
+    /**
+     * Applies {@code consumer} to each block of the indices [0, numData), for blocks that write disjoint results.
+     */
+    void forEach( final int numData, final BlockConsumer consumer ) {
+        Utils.nonNull(consumer);
+        map(numData, (start, end) -> {
+            consumer.accept(start, end);
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    interface BlockConsumer {
+        void accept( final int start, final int end );
+    }
+
+    @Override
+    public void close() {
+        if( executorService != null ) {
+            executorService.shutdown();
+        }
+    }
+}
@@ -120,32 +120,39 @@ class GaussianMixtureModel {
         }
     }
 
-    public void expectationStep( final List<VariantDatum> data ) {
+    public void expectationStep( final VariantDataColumns data, final DataBlockExecutor executor ) {
 
         for( final MultivariateGaussian gaussian : gaussians ) {
             gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
         }
 
-        for( final VariantDatum datum : data ) {
-            final double[] pVarInGaussianLog10 = gaussians.stream().mapToDouble(g -> g.evaluateDatumLog10(datum)).toArray();
-            final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pVarInGaussianLog10, false);
-            int gaussianIndex = 0;
-            for( final MultivariateGaussian gaussian : gaussians ) {
-                gaussian.assignPVarInGaussian( pVarInGaussianNormalized[gaussianIndex++] );
+        // each datum only writes its own membership probabilities, so the blocks are independent
+        executor.forEach(data.getNumData(), (start, end) -> {
+            final double[] annotations = new double[data.getNumAnnotations()];
+            final double[] pVarInGaussianLog10 = new double[gaussians.size()];
+            for( int datumIndex = start; datumIndex < end; datumIndex++ ) {
+                data.getAnnotations( datumIndex, annotations );
+                for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                    pVarInGaussianLog10[gaussianIndex] = gaussians.get(gaussianIndex).evaluateDatumLog10( annotations );
+                }
+                final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pVarInGaussianLog10, false);
+                for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                    gaussians.get(gaussianIndex).assignPVarInGaussian( datumIndex, pVarInGaussianNormalized[gaussianIndex] );
+                }
             }
-        }
+        });
     }
 
-    public void maximizationStep( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts));
+    public void maximizationStep( final VariantDataColumns data, final DataBlockExecutor executor ) {
+        gaussians.forEach(g -> g.maximizeGaussian( data, executor, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts));
     }
 
     private double getSumHyperParameterLambda() {
         return gaussians.stream().mapToDouble(g -> g.hyperParameter_lambda).sum();
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.evaluateFinalModelParameters(data));
+    public void evaluateFinalModelParameters( final VariantDataColumns data, final DataBlockExecutor executor ) {
+        gaussians.forEach(g -> g.evaluateFinalModelParameters(data, executor));
         normalizePMixtureLog10();
     }
 
@@ -191,10 +198,8 @@ class GaussianMixtureModel {
     }
 
     public double evaluateDatum( final VariantDatum datum ) {
-        for( final boolean isNull : datum.isNull ) {
-            if( isNull ) {
-                return evaluateDatumMarginalized( datum );
-            }
+        if( hasMissingAnnotations( datum ) ) {
+            return evaluateDatumMarginalized( datum );
         }
         // Fill an array with the log10 probability coming from each Gaussian and then use MathUtils to sum them up correctly
         final double[] pVarInGaussianLog10 = new double[gaussians.size()];
@@ -205,6 +210,43 @@ class GaussianMixtureModel {
         return nanTolerantLog10SumLog10(pVarInGaussianLog10); // Sum(pi_k * p(v|n,k))
     }
 
+    /**
+     * Evaluates, in parallel, every datum that has no missing annotations. Data with missing annotations are
+     * marginalized over random draws, so their entries are left as NaN for the caller to evaluate in order with
+     * {@link #evaluateDatum}, which keeps the sequence of random numbers, and hence the results, reproducible.
+     *
+     * @return the log10 probability of each datum, in the order of {@code data}
+     */
+    public double[] evaluateDataWithoutMissingAnnotations( final List<VariantDatum> data, final DataBlockExecutor executor ) {
+        final VariantDatum[] dataArray = data.toArray(new VariantDatum[data.size()]);
+        final double[] lods = new double[dataArray.length];
+        executor.forEach(dataArray.length, (start, end) -> {
+            final double[] pVarInGaussianLog10 = new double[gaussians.size()];
+            for( int datumIndex = start; datumIndex < end; datumIndex++ ) {
+                final VariantDatum datum = dataArray[datumIndex];
+                if( hasMissingAnnotations( datum ) ) {
+                    lods[datumIndex] = Double.NaN;
+                    continue;
+                }
+                int gaussianIndex = 0;
+                for( final MultivariateGaussian gaussian : gaussians ) {
+                    pVarInGaussianLog10[gaussianIndex++] = gaussian.pMixtureLog10 + gaussian.evaluateDatumLog10( datum );
+                }
+                lods[datumIndex] = nanTolerantLog10SumLog10(pVarInGaussianLog10); // Sum(pi_k * p(v|n,k))
+            }
+        });
+        return lods;
+    }
+
+    public static boolean hasMissingAnnotations( final VariantDatum datum ) {
+        for( final boolean isNull : datum.isNull ) {
+            if( isNull ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Used only to decide which covariate dimension is most divergent in order to report in the culprit info field annotation
     public Double evaluateDatumInOneDimension( final VariantDatum datum, final int iii ) {
         if(datum.isNull[iii]) { return null; }
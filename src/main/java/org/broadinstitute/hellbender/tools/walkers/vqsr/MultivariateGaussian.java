@@ -23,14 +23,12 @@ class MultivariateGaussian {
     private double cachedDenomLog10;
     private Matrix cachedSigmaInverse;
     final private double[] pVarInGaussian;
-    int pVarInGaussianIndex;
     final private static double EPSILON = 1e-100;
 
     public MultivariateGaussian( final int numVariants, final int numAnnotations  ) {
         mu = new double[numAnnotations];
         sigma = new Matrix(numAnnotations, numAnnotations);
         pVarInGaussian = new double[numVariants];
-        pVarInGaussianIndex = 0;
     }
 
     public void zeroOutMu() {
@@ -132,6 +130,10 @@ class MultivariateGaussian {
     }
 
     public double evaluateDatumLog10( final VariantDatum datum ) {
+        return evaluateDatumLog10( datum.annotations );
+    }
+
+    public double evaluateDatumLog10( final double[] annotations ) {
         if (pMixtureLog10 == Double.NEGATIVE_INFINITY) {
             return Double.NEGATIVE_INFINITY;
         }
@@ -140,38 +142,32 @@ class MultivariateGaussian {
         Arrays.fill(crossProdTmp, 0.0);
         for( int iii = 0; iii < mu.length; iii++ ) {
             for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                crossProdTmp[iii] += (datum.annotations[jjj] - mu[jjj]) * cachedSigmaInverse.get(jjj, iii);
+                crossProdTmp[iii] += (annotations[jjj] - mu[jjj]) * cachedSigmaInverse.get(jjj, iii);
             }
         }
         for( int iii = 0; iii < mu.length; iii++ ) {
-            sumKernel += crossProdTmp[iii] * (datum.annotations[iii] - mu[iii]);
+            sumKernel += crossProdTmp[iii] * (annotations[iii] - mu[iii]);
         }
 
         return (( -0.5 * sumKernel ) / Math.log(10.0)) + cachedDenomLog10; // This is the definition of a Gaussian PDF Log10
     }
 
-    public void assignPVarInGaussian( final double pVar ) {
-        pVarInGaussian[pVarInGaussianIndex++] = pVar;
+    public void assignPVarInGaussian( final int datumIndex, final double pVar ) {
+        pVarInGaussian[datumIndex] = pVar;
     }
 
     public void resetPVarInGaussian() {
         Arrays.fill(pVarInGaussian, 0.0);
-        pVarInGaussianIndex = 0;
     }
 
-    public void maximizeGaussian(final List<VariantDatum> data, final double[] empiricalMu, final Matrix empiricalSigma,
+    public void maximizeGaussian(final VariantDataColumns data, final DataBlockExecutor executor, final double[] empiricalMu, final Matrix empiricalSigma,
                                  final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM ) {
         sumProb = 1E-10;
         final Matrix wishart = new Matrix(mu.length, mu.length);
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        addWeightedSums( data, executor );
         divideEqualsMu( sumProb );
 
         final double shrinkageFactor = (SHRINKAGE * sumProb) / (SHRINKAGE + sumProb);
@@ -182,18 +178,7 @@ class MultivariateGaussian {
             }
         }
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                double deltaMu = prob * (datum.annotations[iii]-mu[iii]);
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, deltaMu * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
+        addWeightedScatter( data, executor );
 
         sigma.plusEquals( empiricalSigma );
         sigma.plusEquals( wishart );
@@ -209,32 +194,85 @@ class MultivariateGaussian {
         resetPVarInGaussian(); // clean up some memory
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
+    public void evaluateFinalModelParameters( final VariantDataColumns data, final DataBlockExecutor executor ) {
         sumProb = 0.0;
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        addWeightedSums( data, executor );
         divideEqualsMu( sumProb );
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
+        addWeightedScatter( data, executor );
+        sigma.timesEquals( 1.0 / sumProb );
+
+        resetPVarInGaussian(); // clean up some memory
+    }
+
+    /**
+     * Adds the membership probabilities of the data to sumProb and the probability-weighted annotations to mu.
+     * Each block is summed separately and the block sums are then added in order, with the first block starting from
+     * the current values so that a single block sums in exactly the same order as a sequential loop over the data.
+     */
+    private void addWeightedSums( final VariantDataColumns data, final DataBlockExecutor executor ) {
+        final int numAnnotations = mu.length;
+        final List<double[]> blockSums = executor.map(data.getNumData(), (start, end) -> {
+            final double[] sums = new double[numAnnotations + 1];
+            if( start == 0 ) {
+                sums[0] = sumProb;
+                System.arraycopy(mu, 0, sums, 1, numAnnotations);
+            }
+            for( int ddd = start; ddd < end; ddd++ ) {
+                sums[0] += pVarInGaussian[ddd];
+            }
+            for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                double sum = sums[jjj + 1];
+                for( int ddd = start; ddd < end; ddd++ ) {
+                    sum += pVarInGaussian[ddd] * data.get(ddd, jjj);
                 }
+                sums[jjj + 1] = sum;
+            }
+            return sums;
+        });
+
+        final double[] totals = blockSums.get(0);
+        for( int block = 1; block < blockSums.size(); block++ ) {
+            final double[] sums = blockSums.get(block);
+            for( int jjj = 0; jjj < totals.length; jjj++ ) {
+                totals[jjj] += sums[jjj];
             }
-            sigma.plusEquals( pVarSigma );
         }
-        sigma.timesEquals( 1.0 / sumProb );
+        sumProb = totals[0];
+        System.arraycopy(totals, 1, mu, 0, numAnnotations);
+    }
 
-        resetPVarInGaussian(); // clean up some memory
+    /**
+     * Adds the probability-weighted scatter matrix of the data around mu to sigma, combining blocks as in {@link #addWeightedSums}.
+     */
+    private void addWeightedScatter( final VariantDataColumns data, final DataBlockExecutor executor ) {
+        final int numAnnotations = mu.length;
+        final List<double[][]> blockScatters = executor.map(data.getNumData(), (start, end) -> {
+            final double[][] scatter = start == 0 ? sigma.getArrayCopy() : new double[numAnnotations][numAnnotations];
+            for( int iii = 0; iii < numAnnotations; iii++ ) {
+                for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                    double sum = scatter[iii][jjj];
+                    for( int ddd = start; ddd < end; ddd++ ) {
+                        sum += pVarInGaussian[ddd] * (data.get(ddd, iii) - mu[iii]) * (data.get(ddd, jjj) - mu[jjj]);
+                    }
+                    scatter[iii][jjj] = sum;
+                }
+            }
+            return scatter;
+        });
+
+        final double[][] totals = blockScatters.get(0);
+        for( int block = 1; block < blockScatters.size(); block++ ) {
+            final double[][] scatter = blockScatters.get(block);
+            for( int iii = 0; iii < numAnnotations; iii++ ) {
+                for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                    totals[iii][jjj] += scatter[iii][jjj];
+                }
+            }
+        }
+        sigma.setMatrix(0, numAnnotations - 1, 0, numAnnotations - 1, new Matrix(totals));
     }
-}
\ No newline at end of file
+}
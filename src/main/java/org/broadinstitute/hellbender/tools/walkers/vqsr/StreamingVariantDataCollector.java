@@ -0,0 +1,153 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Collects what the streaming mode of {@link VariantRecalibrator} needs from its first pass over the variants, in
+ * memory bounded by the sample size rather than by the size of the callset:
+ * <ul>
+ *     <li>running statistics of each (unnormalized) annotation, from which the normalization is calculated,</li>
+ *     <li>a uniform reservoir sample of the variants at training sites, used to train the positive model,</li>
+ *     <li>a uniform reservoir sample of all variants, from which the worst scoring variants under the positive model
+ *     are selected to train the negative model.</li>
+ * </ul>
+ */
+final class StreamingVariantDataCollector {
+    private final int numAnnotations;
+
+    // Welford's running mean and sum of squared deviations for the annotations at training sites
+    private final long[] trainingCounts;
+    private final double[] trainingMeans;
+    private final double[] trainingSumSquaredDeviations;
+
+    // running sums for the annotations elsewhere, which only contribute their means to the annotation order
+    private final long[] otherCounts;
+    private final double[] otherSums;
+
+    private final Reservoir trainingSample;
+    private final Reservoir candidateSample;
+
+    /**
+     * @param numAnnotations the number of annotations of each datum
+     * @param sampleSize the maximum number of variants to keep in each of the two samples
+     */
+    StreamingVariantDataCollector( final int numAnnotations, final int sampleSize ) {
+        Utils.validateArg(numAnnotations > 0, "numAnnotations must be positive");
+        Utils.validateArg(sampleSize > 0, "sampleSize must be positive");
+        this.numAnnotations = numAnnotations;
+        trainingCounts = new long[numAnnotations];
+        trainingMeans = new double[numAnnotations];
+        trainingSumSquaredDeviations = new double[numAnnotations];
+        otherCounts = new long[numAnnotations];
+        otherSums = new double[numAnnotations];
+        trainingSample = new Reservoir(sampleSize);
+        candidateSample = new Reservoir(sampleSize);
+    }
+
+    /**
+     * Adds a datum whose annotations have been decoded but not normalized, and whose training set membership is known.
+     */
+    void add( final VariantDatum datum ) {
+        Utils.validateArg(datum.annotations.length == numAnnotations, "datum has the wrong number of annotations");
+        for( int iii = 0; iii < numAnnotations; iii++ ) {
+            if( datum.isNull[iii] ) {
+                continue;
+            }
+            final double value = datum.annotations[iii];
+            if( datum.atTrainingSite ) {
+                final long count = ++trainingCounts[iii];
+                final double delta = value - trainingMeans[iii];
+                trainingMeans[iii] += delta / count;
+                trainingSumSquaredDeviations[iii] += delta * (value - trainingMeans[iii]);
+            } else {
+                otherCounts[iii]++;
+                otherSums[iii] += value;
+            }
+        }
+        if( datum.atTrainingSite ) {
+            trainingSample.add(datum);
+        }
+        candidateSample.add(datum);
+    }
+
+    /**
+     * @return the mean of each annotation over the training sites at which it is present, or NaN if it never is
+     */
+    double[] getTrainingMeans() {
+        final double[] means = new double[numAnnotations];
+        for( int iii = 0; iii < numAnnotations; iii++ ) {
+            means[iii] = trainingCounts[iii] == 0 ? Double.NaN : trainingMeans[iii];
+        }
+        return means;
+    }
+
+    /**
+     * @return the (population) standard deviation of each annotation over the training sites at which it is present
+     */
+    double[] getTrainingStandardDeviations() {
+        final double[] standardDeviations = new double[numAnnotations];
+        for( int iii = 0; iii < numAnnotations; iii++ ) {
+            standardDeviations[iii] = Math.sqrt(trainingSumSquaredDeviations[iii] / trainingCounts[iii]);
+        }
+        return standardDeviations;
+    }
+
+    /**
+     * @return the mean of each annotation over the variants that are not at training sites
+     */
+    double[] getOtherMeans() {
+        final double[] means = new double[numAnnotations];
+        for( int iii = 0; iii < numAnnotations; iii++ ) {
+            means[iii] = otherSums[iii] / otherCounts[iii];
+        }
+        return means;
+    }
+
+    List<VariantDatum> getTrainingSample() {
+        return Collections.unmodifiableList(trainingSample.sample);
+    }
+
+    List<VariantDatum> getCandidateSample() {
+        return Collections.unmodifiableList(candidateSample.sample);
+    }
+
+    long getNumTrainingVariantsSeen() {
+        return trainingSample.numSeen;
+    }
+
+    long getNumVariantsSeen() {
+        return candidateSample.numSeen;
+    }
+
+    /**
+     * A uniform sample of fixed maximum size of all the data added to it (Vitter's algorithm R). Draws from the
+     * GATK random generator so that runs are reproducible.
+     */
+    private static final class Reservoir {
+        private final int capacity;
+        private final List<VariantDatum> sample = new ArrayList<>();
+        private long numSeen = 0;
+
+        Reservoir( final int capacity ) {
+            this.capacity = capacity;
+        }
+
+        void add( final VariantDatum datum ) {
+            numSeen++;
+            if( sample.size() < capacity ) {
+                sample.add(datum);
+            } else {
+                final Random random = Utils.getRandomGenerator();
+                final long index = (long) (random.nextDouble() * numSeen);
+                if( index < capacity ) {
+                    sample.set((int) index, datum);
+                }
+            }
+        }
+    }
+}
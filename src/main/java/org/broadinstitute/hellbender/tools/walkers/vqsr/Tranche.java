@@ -103,16 +103,16 @@ public class Tranche {
 
     }
 
-    protected static Tranche trancheOfVariants(final List<VariantDatum> data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
+    protected static Tranche trancheOfVariants(final TrancheData data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
         int numKnown = 0, numNovel = 0, knownTi = 0, knownTv = 0, novelTi = 0, novelTv = 0;
 
-        final double minLod = data.get(minI).lod;
-        for (final VariantDatum datum : data) {
-            if (datum.lod >= minLod) {
-                if (datum.isKnown) {
+        final double minLod = data.getLod(minI);
+        for (int i = 0; i < data.size(); i++) {
+            if (data.getLod(i) >= minLod) {
+                if (data.isKnown(i)) {
                     numKnown++;
-                    if (datum.isSNP) {
-                        if (datum.isTransition) {
+                    if (data.isSNP(i)) {
+                        if (data.isTransition(i)) {
                             knownTi++;
                         } else {
                             knownTv++;
@@ -120,8 +120,8 @@ public class Tranche {
                     }
                 } else {
                     numNovel++;
-                    if (datum.isSNP) {
-                        if (datum.isTransition) {
+                    if (data.isSNP(i)) {
+                        if (data.isTransition(i)) {
                             novelTi++;
                         } else {
                             novelTv++;
@@ -134,16 +134,16 @@ public class Tranche {
         final double knownTiTv = knownTi / Math.max(1.0 * knownTv, 1.0);
         final double novelTiTv = novelTi / Math.max(1.0 * novelTv, 1.0);
 
-        final int accessibleTruthSites = VariantDatum.countCallsAtTruth(data, Double.NEGATIVE_INFINITY);
-        final int nCallsAtTruth = VariantDatum.countCallsAtTruth(data, minLod);
+        final int accessibleTruthSites = data.countCallsAtTruth(Double.NEGATIVE_INFINITY);
+        final int nCallsAtTruth = data.countCallsAtTruth(minLod);
 
         return new Tranche("unnamed", knownTiTv, numNovel, minLod, model, novelTiTv, accessibleTruthSites, numKnown, nCallsAtTruth);
     }
 
-    protected static Tranche emptyTranche(final List<VariantDatum> data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
-        final double minLod = data.isEmpty() ? Double.NEGATIVE_INFINITY : data.get(minI).lod;
-        final int accessibleTruthSites = VariantDatum.countCallsAtTruth(data, Double.NEGATIVE_INFINITY);
-        final int nCallsAtTruth = VariantDatum.countCallsAtTruth(data, minLod);
+    protected static Tranche emptyTranche(final TrancheData data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
+        final double minLod = data.size() == 0 ? Double.NEGATIVE_INFINITY : data.getLod(minI);
+        final int accessibleTruthSites = data.countCallsAtTruth(Double.NEGATIVE_INFINITY);
+        final int nCallsAtTruth = data.countCallsAtTruth(minLod);
 
         final double knownTiTv = 0.0;
         final double novelTiTv = 0.0;
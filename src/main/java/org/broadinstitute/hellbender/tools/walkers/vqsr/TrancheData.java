@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The values the tranche calculation reads from each scored variant, held as one LOD and one byte of flags per site,
+ * so that the two pass streaming mode does not keep a {@link VariantDatum} for every site it has written out. Tranches
+ * of a list of {@link VariantDatum}s are found from a TrancheData made from it as well, so that there is only one
+ * implementation of the tranche calculation.
+ */
+final class TrancheData {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final byte AT_TRUTH_SITE = 1;
+    private static final byte IS_KNOWN = 1 << 1;
+    private static final byte IS_SNP = 1 << 2;
+    private static final byte IS_TRANSITION = 1 << 3;
+
+    private double[] lods = new double[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @return the LODs and flags of {@code data}, in the same order
+     */
+    static TrancheData of( final List<VariantDatum> data ) {
+        final TrancheData trancheData = new TrancheData();
+        data.forEach(trancheData::add);
+        return trancheData;
+    }
+
+    /**
+     * Keeps the LOD and the truth, known, SNP and transition flags of {@code datum}.
+     */
+    void add( final VariantDatum datum ) {
+        if( size == lods.length ) {
+            final int newCapacity = lods.length * 2;
+            lods = Arrays.copyOf(lods, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+        }
+        lods[size] = datum.lod;
+        flags[size] = (byte) ((datum.atTruthSite ? AT_TRUTH_SITE : 0) | (datum.isKnown ? IS_KNOWN : 0) |
+                (datum.isSNP ? IS_SNP : 0) | (datum.isTransition ? IS_TRANSITION : 0));
+        size++;
+    }
+
+    int size() { return size; }
+
+    double getLod( final int index ) { return lods[index]; }
+
+    boolean isAtTruthSite( final int index ) { return (flags[index] & AT_TRUTH_SITE) != 0; }
+
+    boolean isKnown( final int index ) { return (flags[index] & IS_KNOWN) != 0; }
+
+    boolean isSNP( final int index ) { return (flags[index] & IS_SNP) != 0; }
+
+    boolean isTransition( final int index ) { return (flags[index] & IS_TRANSITION) != 0; }
+
+    /**
+     * Sorts the sites by increasing LOD. The sort is stable, as {@link java.util.Collections#sort} is over a list of
+     * {@link VariantDatum}s with {@link VariantDatum#VariantDatumLODComparator}, so that ties come out in the same order.
+     */
+    void sortByLod() {
+        final Integer[] order = new Integer[size];
+        for( int i = 0; i < size; i++ ) {
+            order[i] = i;
+        }
+        // sorting objects is stable
+        Arrays.sort(order, Comparator.comparingDouble(i -> lods[i]));
+
+        final double[] sortedLods = new double[size];
+        final byte[] sortedFlags = new byte[size];
+        for( int i = 0; i < size; i++ ) {
+            sortedLods[i] = lods[order[i]];
+            sortedFlags[i] = flags[order[i]];
+        }
+        lods = sortedLods;
+        flags = sortedFlags;
+    }
+
+    /**
+     * @return the number of truth sites with a LOD of at least {@code minLod}
+     */
+    int countCallsAtTruth( final double minLod ) {
+        int n = 0;
+        for( int i = 0; i < size; i++ ) {
+            if( isAtTruthSite(i) && lods[i] >= minLod ) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
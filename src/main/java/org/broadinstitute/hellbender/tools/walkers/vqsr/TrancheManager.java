@@ -33,9 +33,14 @@ public class TrancheManager {
 
         public abstract double getThreshold(double tranche);
         public abstract double getTarget();
-        public abstract void calculateRunningMetric(List<VariantDatum> data);
+
+        public void calculateRunningMetric(final List<VariantDatum> data) {
+            calculateRunningMetric(TrancheData.of(data));
+        }
+
+        abstract void calculateRunningMetric(TrancheData data);
         public abstract double getRunningMetric(int i);
-        public abstract int datumValue(VariantDatum d);
+        abstract int datumValue(TrancheData data, int i);
     }
 
     public static class TruthSensitivityMetric extends SelectionMetric {
@@ -56,13 +61,12 @@ public class TrancheManager {
         public double getTarget() { return 1.0; }
 
         @Override
-        public void calculateRunningMetric(final List<VariantDatum> data) {
+        void calculateRunningMetric(final TrancheData data) {
             int nCalledAtTruth = 0;
             runningSensitivity = new double[data.size()];
 
             for ( int i = data.size() - 1; i >= 0; i-- ) {
-                VariantDatum datum = data.get(i);
-                nCalledAtTruth += datum.atTruthSite ? 1 : 0;
+                nCalledAtTruth += data.isAtTruthSite(i) ? 1 : 0;
                 runningSensitivity[i] = 1 - nCalledAtTruth / (1.0 * nTrueSites);
             }
         }
@@ -73,8 +77,8 @@ public class TrancheManager {
         }
 
         @Override
-        public int datumValue(final VariantDatum d) {
-            return d.atTruthSite ? 1 : 0;
+        int datumValue(final TrancheData data, final int i) {
+            return data.isAtTruthSite(i) ? 1 : 0;
         }
     }
 
@@ -85,15 +89,43 @@ public class TrancheManager {
         return findTranches( data, tranches, metric, model, null );
     }
 
+    /**
+     * Finds the tranches of {@code data}, which is sorted by LOD in place.
+     */
     public static List<TruthSensitivityTranche> findTranches(
             final List<VariantDatum> data,
             final List<Double> trancheThresholds,
             final SelectionMetric metric,
             final VariantRecalibratorArgumentCollection.Mode model,
             final File debugFile ) {
-        logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.size(), data.size()));
+        Collections.sort( data, VariantDatum.VariantDatumLODComparator );
+        return findTranches(TrancheData.of(data), trancheThresholds, metric, model, debugFile);
+    }
 
+    /**
+     * Finds the VQSLOD tranches of {@code data}, which is sorted by LOD in place.
+     */
+    public static List<VQSLODTranche> findVQSLODTranches(
+            final List<VariantDatum> data,
+            final List<Double> trancheThresholds,
+            final SelectionMetric metric,
+            final VariantRecalibratorArgumentCollection.Mode model) {
         Collections.sort( data, VariantDatum.VariantDatumLODComparator );
+        return findVQSLODTranches(TrancheData.of(data), trancheThresholds, metric, model);
+    }
+
+    /**
+     * Finds the tranches of {@code data}, which is sorted by LOD in place.
+     */
+    static List<TruthSensitivityTranche> findTranches(
+            final TrancheData data,
+            final List<Double> trancheThresholds,
+            final SelectionMetric metric,
+            final VariantRecalibratorArgumentCollection.Mode model,
+            final File debugFile ) {
+        logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.size(), data.size()));
+
+        data.sortByLod();
         metric.calculateRunningMetric(data);
 
         if ( debugFile != null) {
@@ -120,46 +152,36 @@ public class TrancheManager {
         return tranches;
     }
 
-    public static List<VQSLODTranche> findVQSLODTranches(
-            final List<VariantDatum> data,
+    /**
+     * Finds the VQSLOD tranches of {@code data}, which is sorted by LOD in place.
+     */
+    static List<VQSLODTranche> findVQSLODTranches(
+            final TrancheData data,
             final List<Double> trancheThresholds,
             final SelectionMetric metric,
             final VariantRecalibratorArgumentCollection.Mode model) {
         logger.info(String.format("Finding %d tranches for %d variants", trancheThresholds.size(), data.size()));
 
-        Collections.sort( data, VariantDatum.VariantDatumLODComparator );
+        data.sortByLod();
         metric.calculateRunningMetric(data);
 
+        // there is a tranche for every threshold, possibly an empty one
         final List<VQSLODTranche> tranches = new ArrayList<>();
         for ( double trancheThreshold : trancheThresholds ) {
-            VQSLODTranche t = findVQSLODTranche(data, metric, trancheThreshold, model);
-
-            if ( t == null ) {
-                if ( tranches.size() == 0 ) {
-                    throw new UserException(String.format(
-                            "Couldn't find any tranche containing variants with a %s > %.2f. Are you sure the truth files contain unfiltered variants which overlap the input data?",
-                            metric.getName(),
-                            metric.getThreshold(trancheThreshold)));
-                }
-                break;
-            }
-
-            tranches.add(t);
+            tranches.add(findVQSLODTranche(data, metric, trancheThreshold, model));
         }
 
         return tranches;
-
     }
 
-    private static void writeTranchesDebuggingInfo(final File f, final List<VariantDatum> tranchesData, final SelectionMetric metric ) {
+    private static void writeTranchesDebuggingInfo(final File f, final TrancheData tranchesData, final SelectionMetric metric ) {
         try {
             PrintStream out = new PrintStream(f);
             out.println("Qual metricValue runningValue");
             for ( int i = 0; i < tranchesData.size(); i++ ) {
-                VariantDatum  d = tranchesData.get(i);
-                int score = metric.datumValue(d);
+                int score = metric.datumValue(tranchesData, i);
                 double runningValue = metric.getRunningMetric(i);
-                out.printf("%.4f %d %.4f%n", d.lod, score, runningValue);
+                out.printf("%.4f %d %.4f%n", tranchesData.getLod(i), score, runningValue);
             }
             out.close();
         } catch (FileNotFoundException e) {
@@ -167,8 +189,8 @@ public class TrancheManager {
         }
     }
 
-    public static TruthSensitivityTranche findTranche(
-            final List<VariantDatum> data,
+    private static TruthSensitivityTranche findTranche(
+            final TrancheData data,
             final SelectionMetric metric,
             final double trancheThreshold,
             final VariantRecalibratorArgumentCollection.Mode model ) {
@@ -190,8 +212,8 @@ public class TrancheManager {
         return null;
     }
 
-    public static VQSLODTranche findVQSLODTranche(
-            final List<VariantDatum> data,
+    private static VQSLODTranche findVQSLODTranche(
+            final TrancheData data,
             final SelectionMetric metric,
             final double trancheThreshold,
             final VariantRecalibratorArgumentCollection.Mode model ) {
@@ -200,7 +222,7 @@ public class TrancheManager {
         final double metricThreshold = metric.getThreshold(trancheThreshold);
         final int n = data.size();
         for ( int i = 0; i < n; i++ ) {
-            if ( data.get(i).lod >= trancheThreshold ) {
+            if ( data.getLod(i) >= trancheThreshold ) {
                 // we've found the largest group of variants with LOD >= our target LOD
                 final VQSLODTranche t = VQSLODTranche.trancheOfVariants(data, i, trancheThreshold, model);
                 logger.info(String.format("  Found tranche for %.3f: %.3f threshold starting with variant %d; running score is %.3f ",
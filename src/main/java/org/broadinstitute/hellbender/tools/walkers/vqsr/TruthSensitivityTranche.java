@@ -217,7 +217,11 @@ final class TruthSensitivityTranche extends Tranche {
     }
 
     protected static TruthSensitivityTranche trancheOfVariants(final List<VariantDatum> data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
-        Tranche basicTranche = Tranche.trancheOfVariants(data, minI, ts, model);
+        return trancheOfVariants(TrancheData.of(data), minI, ts, model);
+    }
+
+    protected static TruthSensitivityTranche trancheOfVariants(final TrancheData data, final int minI, final double ts, final VariantRecalibratorArgumentCollection.Mode model ) {
+        final Tranche basicTranche = Tranche.trancheOfVariants(data, minI, ts, model);
         return new TruthSensitivityTranche(ts, basicTranche.minVQSLod, basicTranche.numKnown, basicTranche.knownTiTv, basicTranche.numNovel, basicTranche.novelTiTv, basicTranche.accessibleTruthSites, basicTranche.callsAtTruthSites, model, DEFAULT_TRANCHE_NAME);
     }
 
@@ -0,0 +1,48 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.List;
+
+/**
+ * The annotations of a list of {@link VariantDatum}s held column-major in a single contiguous array, so that the
+ * passes over the data in the EM algorithm read each annotation sequentially instead of chasing one small array per datum.
+ * Missing annotation flags are not kept, since training uses the jittered values that normalization gives missing annotations.
+ */
+final class VariantDataColumns {
+    private final int numData;
+    private final int numAnnotations;
+    private final double[] values;
+
+    VariantDataColumns( final List<VariantDatum> data ) {
+        Utils.nonEmpty(data);
+        numData = data.size();
+        numAnnotations = data.get(0).annotations.length;
+        values = new double[numData * numAnnotations];
+        int datumIndex = 0;
+        for( final VariantDatum datum : data ) {
+            Utils.validateArg(datum.annotations.length == numAnnotations, "all data must have the same number of annotations");
+            for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                values[jjj * numData + datumIndex] = datum.annotations[jjj];
+            }
+            datumIndex++;
+        }
+    }
+
+    int getNumData() { return numData; }
+
+    int getNumAnnotations() { return numAnnotations; }
+
+    double get( final int datumIndex, final int annotationIndex ) {
+        return values[annotationIndex * numData + datumIndex];
+    }
+
+    /**
+     * Copies the annotations of one datum into {@code annotations}, which must have length {@link #getNumAnnotations()}.
+     */
+    void getAnnotations( final int datumIndex, final double[] annotations ) {
+        for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+            annotations[jjj] = values[jjj * numData + datumIndex];
+        }
+    }
+}
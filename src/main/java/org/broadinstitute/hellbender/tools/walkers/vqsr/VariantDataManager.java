@@ -31,6 +31,7 @@ public class VariantDataManager {
     protected final List<TrainingSet> trainingSets;
     private static final double SAFETY_OFFSET = 0.01;     //To use for example as 1/(X + SAFETY_OFFSET) to protect against dividing or taking log of X=0.
     private static final double PRECISION = 0.01;         //To use mainly with MathUtils.compareDoubles(a,b,PRECISION)
+    private static final List<Allele> DUMMY_ALLELES = Arrays.asList(Allele.create("N", true), Allele.create("<VQSR>", false));
 
     public VariantDataManager( final List<String> annotationKeys, final VariantRecalibratorArgumentCollection VRAC ) {
         this.data = Collections.emptyList();
@@ -52,6 +53,33 @@ public class VariantDataManager {
         }
     }
 
+    /**
+     * Sets the normalization from annotation statistics gathered while streaming over the variants, making the same
+     * checks as {@link #normalizeData} makes when it calculates the means itself.
+     *
+     * @param trainingMeans the mean of each annotation over the training sites, NaN if it is never present there
+     * @param trainingStandardDeviations the standard deviation of each annotation over the training sites
+     * @param otherMeans the mean of each annotation over the other variants
+     * @return the annotation order that {@link #normalizeData} would choose from the same data
+     */
+    public List<Integer> setNormalization(final double[] trainingMeans, final double[] trainingStandardDeviations, final double[] otherMeans) {
+        boolean foundZeroVarianceAnnotation = false;
+        final double[] normalizedOtherMeans = new double[meanVector.length];
+        for( int iii = 0; iii < meanVector.length; iii++ ) {
+            if (Double.isNaN(trainingMeans[iii])) {
+                throw new UserException.BadInput("Values for " + annotationKeys.get(iii) + " annotation not detected for ANY training variant in the input callset. VariantAnnotator may be used to add these annotations.");
+            }
+            foundZeroVarianceAnnotation = foundZeroVarianceAnnotation || (trainingStandardDeviations[iii] < 1E-5);
+            meanVector[iii] = trainingMeans[iii];
+            varianceVector[iii] = trainingStandardDeviations[iii];
+            normalizedOtherMeans[iii] = (otherMeans[iii] - trainingMeans[iii]) / trainingStandardDeviations[iii];
+        }
+        if( foundZeroVarianceAnnotation ) {
+            throw new UserException.BadInput( "Found annotations with zero variance. They must be excluded before proceeding." );
+        }
+        return calculateSortOrder(meanVector, normalizedOtherMeans);
+    }
+
     public List<VariantDatum> getData() {
         return data;
     }
@@ -118,6 +146,20 @@ public class VariantDataManager {
         logger.info("Annotation order is: " + annotationKeys.toString());
     }
 
+    /**
+     * Normalizes a single datum with the current normalization, as {@link #normalizeData} normalizes all the data,
+     * and marks it if it fails the standard deviation threshold. The datum's annotations must have been decoded after
+     * the annotations were put in their final order by {@link #normalizeData}.
+     */
+    public void normalizeDatum(final VariantDatum datum) {
+        boolean remove = false;
+        for( int iii = 0; iii < meanVector.length; iii++ ) {
+            datum.annotations[iii] = ( datum.isNull[iii] ? 0.1 * Utils.getRandomGenerator().nextGaussian() : ( datum.annotations[iii] - meanVector[iii] ) / varianceVector[iii] );
+            remove = remove || (Math.abs(datum.annotations[iii]) > VRAC.STD_THRESHOLD);
+        }
+        datum.failingSTDThreshold = remove;
+    }
+
     public double[] getMeanVector() {
         return meanVector;
     }
@@ -132,11 +174,19 @@ public class VariantDataManager {
      * @return a non-null list of integers with length matching the length of the input array
      */
     protected List<Integer> calculateSortOrder(final double[] inputVector) {
+        final double[] otherMeans = new double[inputVector.length];
+        for( int iii = 0; iii < inputVector.length; iii++ ) {
+            otherMeans[iii] = mean(iii, false);
+        }
+        return calculateSortOrder(inputVector, otherMeans);
+    }
+
+    private List<Integer> calculateSortOrder(final double[] inputVector, final double[] otherMeans) {
         final List<Integer> theOrder = new ArrayList<>(inputVector.length);
         final List<MyDoubleForSorting> toBeSorted = new ArrayList<>(inputVector.length);
         int count = 0;
         for( int iii = 0; iii < inputVector.length; iii++ ) {
-            toBeSorted.add(new MyDoubleForSorting(-1.0 * Math.abs(inputVector[iii] - mean(iii, false)), count++));
+            toBeSorted.add(new MyDoubleForSorting(-1.0 * Math.abs(inputVector[iii] - otherMeans[iii]), count++));
         }
         Collections.sort(toBeSorted);
         for( final MyDoubleForSorting d : toBeSorted ) {
@@ -459,21 +509,25 @@ public class VariantDataManager {
         // we need to sort in coordinate order in order to produce a valid VCF
         Collections.sort( data, VariantDatum.getComparator(seqDictionary) );
 
-        // create dummy alleles to be used
-        List<Allele> alleles = Arrays.asList(Allele.create("N", true), Allele.create("<VQSR>", false));
-
         for( final VariantDatum datum : data ) {
-            if (VRAC.useASannotations)
-                alleles = Arrays.asList(datum.referenceAllele, datum.alternateAllele); //use the alleles to distinguish between multiallelics in AS mode
-            VariantContextBuilder builder = new VariantContextBuilder("VQSR", datum.loc.getContig(), datum.loc.getStart(), datum.loc.getEnd(), alleles);
-            builder.attribute(VCFConstants.END_KEY, datum.loc.getEnd());
-            builder.attribute(GATKVCFConstants.VQS_LOD_KEY, String.format("%.4f", datum.lod));
-            builder.attribute(GATKVCFConstants.CULPRIT_KEY, (datum.worstAnnotation != -1 ? annotationKeys.get(datum.worstAnnotation) : "NULL"));
-
-            if ( datum.atTrainingSite ) builder.attribute(GATKVCFConstants.POSITIVE_LABEL_KEY, true);
-            if ( datum.atAntiTrainingSite ) builder.attribute(GATKVCFConstants.NEGATIVE_LABEL_KEY, true);
-
-            recalWriter.add(builder.make());
+            writeRecalibrationRecord(recalWriter, datum);
         }
     }
+
+    /**
+     * Writes the recalibration record for one datum. Records must be written in coordinate order.
+     */
+    public void writeRecalibrationRecord(final VariantContextWriter recalWriter, final VariantDatum datum) {
+        // use dummy alleles, or the alleles to distinguish between multiallelics in AS mode
+        final List<Allele> alleles = VRAC.useASannotations ? Arrays.asList(datum.referenceAllele, datum.alternateAllele) : DUMMY_ALLELES;
+        VariantContextBuilder builder = new VariantContextBuilder("VQSR", datum.loc.getContig(), datum.loc.getStart(), datum.loc.getEnd(), alleles);
+        builder.attribute(VCFConstants.END_KEY, datum.loc.getEnd());
+        builder.attribute(GATKVCFConstants.VQS_LOD_KEY, String.format("%.4f", datum.lod));
+        builder.attribute(GATKVCFConstants.CULPRIT_KEY, (datum.worstAnnotation != -1 ? annotationKeys.get(datum.worstAnnotation) : "NULL"));
+
+        if ( datum.atTrainingSite ) builder.attribute(GATKVCFConstants.POSITIVE_LABEL_KEY, true);
+        if ( datum.atAntiTrainingSite ) builder.attribute(GATKVCFConstants.NEGATIVE_LABEL_KEY, true);
+
+        recalWriter.add(builder.make());
+    }
 }
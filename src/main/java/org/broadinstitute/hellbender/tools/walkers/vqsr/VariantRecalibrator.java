@@ -164,6 +164,8 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     private static final String PLOT_TRANCHES_RSCRIPT = "plot_Tranches.R";
 
+    public static final String TWO_PASS_STREAMING_LONG_NAME = "two-pass-streaming";
+
     @ArgumentCollection
     final private VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
 
@@ -358,6 +360,24 @@ public class VariantRecalibrator extends MultiVariantWalker {
     @VisibleForTesting
     protected int max_attempts = 1;
 
+    /**
+     * Instead of holding every variant in memory, stream over the input twice. The first pass calculates the annotation
+     * normalization and keeps two uniform samples of at most --maximum-training-variants variants: one of the variants
+     * at training sites, on which the positive model is trained, and one of all variants, whose worst scoring members
+     * under the positive model train the negative model. The second pass scores each variant as it streams past and
+     * writes it to the recal file. Memory use is therefore set by the sample size rather than by the size of the
+     * callset; only the few fields needed to calculate the tranches are kept for every variant.
+     *
+     * Because the negative model is trained on a sample of the worst scoring variants rather than on all of them, and
+     * the normalization is calculated in a single pass, the results are close to but not the same as those of the
+     * default mode. The NEGATIVE_TRAIN_SITE label is given to every variant that was eligible for negative training.
+     */
+    @Advanced
+    @Argument(fullName=TWO_PASS_STREAMING_LONG_NAME,
+            doc="Stream over the variants twice instead of holding them all in memory",
+            optional=true)
+    private boolean twoPassStreaming = false;
+
     /////////////////////////////
     // Debug Arguments
     /////////////////////////////
@@ -391,6 +411,16 @@ public class VariantRecalibrator extends MultiVariantWalker {
     private int numAnnotations;
     private RScriptExecutor rScriptExecutor;
 
+    // state of the two pass streaming mode
+    private StreamingVariantDataCollector streamingCollector;
+    private boolean onSecondStreamingPass = false;
+    private GaussianMixtureModel streamingGoodModel;
+    private GaussianMixtureModel streamingBadModel;
+    private List<VariantDatum> streamingPlotData;
+    private Comparator<VariantDatum> streamingLocusComparator;
+    private final List<VariantDatum> streamingLocusData = new ArrayList<>();
+    private final TrancheData streamingTrancheData = new TrancheData();
+
     //---------------------------------------------------------------------------------------------------------------
     //
     // onTraversalStart
@@ -479,6 +509,27 @@ public class VariantRecalibrator extends MultiVariantWalker {
         for ( int iii = 0; iii < REPLICATE * 2; iii++ ) {
             replicate.add(Utils.getRandomGenerator().nextDouble());
         }
+
+        if (twoPassStreaming) {
+            streamingCollector = new StreamingVariantDataCollector(dataManager.annotationKeys.size(), VRAC.MAX_NUM_TRAINING_DATA);
+        }
+    }
+
+    /**
+     * In two pass streaming mode, make a second traversal over the variants once the models have been built from the
+     * first one. This tool is not meant to be a multi-pass walker base class, but it has to stay a MultiVariantWalker.
+     */
+    @Override
+    public void traverse() {
+        super.traverse();
+        if (twoPassStreaming) {
+            consumeQueuedVariants(); // finish the first pass
+            buildStreamingModels();
+            logger.info("Starting the second pass through the variants to score them");
+            onSecondStreamingPass = true;
+            counter = 0;
+            super.traverse();
+        }
     }
 
     /**
@@ -540,11 +591,14 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     private void consumeQueuedVariants() {
         variantsAtLocus.forEach(v -> addVariantDatum(v.left, true, v.right));
-        if (!aggregate.isEmpty()) {
+        if (!aggregate.isEmpty() && !onSecondStreamingPass) {
             // use the first featureContext in the queue for the aggregate resources
             addOverlappingAggregateVariants(aggregate, false, variantsAtLocus.get(0).getRight());
         }
         variantsAtLocus.clear();
+        if (onSecondStreamingPass) {
+            writeStreamingLocusData();
+        }
     }
 
     /**
@@ -614,7 +668,151 @@ public class VariantRecalibrator extends MultiVariantWalker {
         final double priorFactor = QualityUtils.qualToProb(datum.prior);
         datum.prior = Math.log10(priorFactor) - Math.log10(1.0 - priorFactor);
 
-        variants.add(datum);
+        if (!twoPassStreaming) {
+            variants.add(datum);
+        } else if (!onSecondStreamingPass) {
+            streamingCollector.add(datum);
+        } else if (!datum.isAggregate) {
+            scoreStreamingDatum(datum);
+            streamingLocusData.add(datum);
+        }
+    }
+
+    //---------------------------------------------------------------------------------------------------------------
+    //
+    // two pass streaming mode
+    //
+    //---------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Builds the positive and negative models from the samples collected during the first pass, evaluating the
+     * samples along the way so they can be used for the visualization script.
+     */
+    private void buildStreamingModels() {
+        final List<VariantDatum> trainingSample = streamingCollector.getTrainingSample();
+        final List<VariantDatum> candidateSample = streamingCollector.getCandidateSample();
+        logger.info(String.format("Sampled %d of %d variants at training sites and %d of %d variants in total.",
+                trainingSample.size(), streamingCollector.getNumTrainingVariantsSeen(),
+                candidateSample.size(), streamingCollector.getNumVariantsSeen()));
+
+        final List<Integer> order = inputModel == null ?
+                dataManager.setNormalization(streamingCollector.getTrainingMeans(),
+                        streamingCollector.getTrainingStandardDeviations(), streamingCollector.getOtherMeans()) :
+                annotationOrder;
+        // the two samples can share variants, which must only be normalized once
+        final Set<VariantDatum> sampledDataSet = new LinkedHashSet<>(trainingSample);
+        sampledDataSet.addAll(candidateSample);
+        final List<VariantDatum> sampledData = new ArrayList<>(sampledDataSet);
+        dataManager.setData(sampledData);
+        dataManager.normalizeData(false, order);
+        streamingCollector = null;
+
+        final List<VariantDatum> positiveTrainingData = new ArrayList<>();
+        for (final VariantDatum datum : trainingSample) {
+            if (!datum.failingSTDThreshold) {
+                positiveTrainingData.add(datum);
+            }
+        }
+        logger.info("Training with " + positiveTrainingData.size() + " variants after standard deviation thresholding.");
+
+        for (int i = 1; i <= max_attempts; i++) {
+            try {
+                final GaussianMixtureModel goodModel = inputModel != null ?
+                        GMMFromTables(pmmTable, pmcTable, pPMixTable, numAnnotations, positiveTrainingData.size()) :
+                        engine.generateModel(positiveTrainingData, VRAC.MAX_GAUSSIANS);
+                dataManager.setData(sampledData);
+                engine.evaluateData(sampledData, goodModel, false);
+                if (goodModel.failedToConverge) {
+                    throw new UserException.VQSRPositiveModelFailure("Positive training model failed to converge.  One or more annotations " +
+                            "(usually MQ) may have insufficient variance.  Please consider lowering the maximum number" +
+                            " of Gaussians allowed for use in the model (via --max-gaussians 4, for example).");
+                }
+
+                // the negative model is trained on the worst scoring variants of the uniform sample
+                dataManager.setData(new ArrayList<>(candidateSample));
+                final List<VariantDatum> negativeTrainingData = dataManager.selectWorstVariants();
+                final GaussianMixtureModel badModel = inputModel != null ?
+                        GMMFromTables(nmmTable, nmcTable, nPMixTable, numAnnotations, negativeTrainingData.size()) :
+                        engine.generateModel(negativeTrainingData, Math.min(VRAC.MAX_GAUSSIANS_FOR_NEGATIVE_MODEL, VRAC.MAX_GAUSSIANS));
+
+                dataManager.setData(sampledData);
+                dataManager.dropAggregateData();
+                engine.evaluateData(sampledData, badModel, true);
+                if (badModel.failedToConverge) {
+                    throw new UserException.VQSRNegativeModelFailure(
+                            "NaN LOD value assigned. Clustering with this few variants and these annotations is unsafe." +
+                                    " Please consider raising the number of variants used to train the negative model " +
+                                    "(via --minimum-bad-variants 5000, for example).");
+                }
+
+                if (outputModel != null) {
+                    final GATKReport report = writeModelReport(goodModel, badModel, USE_ANNOTATIONS);
+                    try (final PrintStream modelReportStream = new PrintStream(outputModel)) {
+                        report.print(modelReportStream);
+                    } catch (FileNotFoundException e) {
+                        throw new UserException.CouldNotCreateOutputFile("File: (" + outputModel + ")", e);
+                    }
+                }
+                if (RSCRIPT_FILE != null) {
+                    streamingPlotData = dataManager.getRandomDataForPlotting(1000, positiveTrainingData, negativeTrainingData, dataManager.getEvaluationData());
+                }
+                dataManager.setData(Collections.emptyList());
+                streamingLocusComparator = VariantDatum.getComparator(getBestAvailableSequenceDictionary());
+                streamingGoodModel = goodModel;
+                streamingBadModel = badModel;
+                return;
+            }
+            catch (final Exception e) {
+                if (i == max_attempts) {
+                    throw e;
+                } else {
+                    logger.info(String.format(
+                            "Exception occurred on attempt %d of %d. Trying again. Message was: '%s'",
+                            i,
+                            max_attempts,
+                            e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a datum from the second pass with both models, as {@link VariantRecalibratorEngine#evaluateData} does for
+     * all the data in the default mode.
+     */
+    private void scoreStreamingDatum(final VariantDatum datum) {
+        dataManager.normalizeDatum(datum);
+        final double goodLod = streamingGoodModel.evaluateDatum(datum);
+        if (Double.isNaN(goodLod)) {
+            throw new UserException.VQSRPositiveModelFailure("NaN LOD value assigned by the positive model at " + datum.loc +
+                    ". One or more annotations (usually MQ) may have insufficient variance.");
+        }
+        final double badLod = streamingBadModel.evaluateDatum(datum);
+        if (Double.isNaN(badLod)) {
+            throw new UserException.VQSRNegativeModelFailure("NaN LOD value assigned by the negative model at " + datum.loc +
+                    ". Please consider raising the number of variants used to train the negative model " +
+                    "(via --minimum-bad-variants 5000, for example).");
+        }
+        if (!datum.failingSTDThreshold && !Double.isInfinite(goodLod) && goodLod < VRAC.BAD_LOD_CUTOFF) {
+            datum.atAntiTrainingSite = true;
+        }
+        datum.lod = Double.isInfinite(goodLod) ? // positive model said negative infinity
+                VariantRecalibratorEngine.MIN_ACCEPTABLE_LOD_SCORE + Utils.getRandomGenerator().nextDouble() * VariantRecalibratorEngine.MIN_ACCEPTABLE_LOD_SCORE :
+                datum.prior + goodLod - badLod;
+        engine.calculateWorstPerformingAnnotation(Collections.singletonList(datum), streamingGoodModel, streamingBadModel);
+    }
+
+    /**
+     * Writes the scored data that start at the current locus, in the order the default mode would write them, and
+     * keeps only what the tranche calculation needs from each of them.
+     */
+    private void writeStreamingLocusData() {
+        streamingLocusData.sort(streamingLocusComparator);
+        for (final VariantDatum datum : streamingLocusData) {
+            dataManager.writeRecalibrationRecord(recalWriter, datum);
+            streamingTrancheData.add(datum);
+        }
+        streamingLocusData.clear();
     }
 
     //---------------------------------------------------------------------------------------------------------------
@@ -628,6 +826,18 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
         consumeQueuedVariants(); // finish processing any queued variants
 
+        if (twoPassStreaming) {
+            // the recal file has already been written during the second pass
+            writeTranches(streamingTrancheData);
+            if (RSCRIPT_FILE != null) {
+                logger.info("Writing out visualization Rscript file...");
+                createVisualizationScript(streamingPlotData, streamingGoodModel, streamingBadModel, 0.0,
+                        dataManager.getAnnotationKeys().toArray(new String[USE_ANNOTATIONS.size()]));
+            }
+            plotTranches();
+            return true;
+        }
+
         for (int i = 1; i <= max_attempts; i++) {
             try {
                 dataManager.setData(reduceSum);
@@ -689,19 +899,10 @@ public class VariantRecalibrator extends MultiVariantWalker {
                 engine.calculateWorstPerformingAnnotation(dataManager.getData(), goodModel, badModel);
 
 
-                // Find the VQSLOD cutoff values which correspond to the various tranches of calls requested by the user
-                final int nCallsAtTruth = TrancheManager.countCallsAtTruth(dataManager.getData(), Double.NEGATIVE_INFINITY);
-                final TrancheManager.SelectionMetric metric = new TrancheManager.TruthSensitivityMetric(nCallsAtTruth);
-                if ( !scatterTranches ) {
-                    final List<? extends Tranche> tranches = TrancheManager.findTranches(dataManager.getData(), TS_TRANCHES, metric, VRAC.MODE);
-                    tranchesStream.print(TruthSensitivityTranche.printHeader());
-                    tranchesStream.print(Tranche.tranchesString(tranches));
-                }
-                else {
-                    final List<? extends Tranche> tranches = TrancheManager.findVQSLODTranches(dataManager.getData(), VQSLOD_TRANCHES, metric, VRAC.MODE);
-                    tranchesStream.print(VQSLODTranche.printHeader());
-                    tranchesStream.print(Tranche.tranchesString(tranches));
-                }
+                // leave the data in LOD order, as finding the tranches always has: the order of ties in the
+                // recalibration table and the sites sampled for the plots depend on it
+                dataManager.getData().sort(VariantDatum.VariantDatumLODComparator);
+                writeTranches(TrancheData.of(dataManager.getData()));
 
                 logger.info("Writing out recalibration table...");
                 dataManager.writeOutRecalibrationTable(recalWriter, getBestAvailableSequenceDictionary());
@@ -718,20 +919,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
                             dataManager.getAnnotationKeys().toArray(new String[USE_ANNOTATIONS.size()]));
                 }
 
-                if (VRAC.MODE == VariantRecalibratorArgumentCollection.Mode.INDEL) {
-                    // Print out an info message to make it clear why the tranches plot is not generated
-                    logger.info("Tranches plot will not be generated since we are running in INDEL mode");
-                } else if (scatterTranches) {
-                    //skip R plots for scattered tranches because the format is different and the R code parses them
-                    logger.info("Tranches plot will not be generated since we are running in scattered mode");
-                } else if (RSCRIPT_FILE != null) { //we don't use the RSCRIPT_FILE for tranches, but here it's an indicator if we're setup to run R
-                    // Execute the RScript command to plot the table of truth values
-                    rScriptExecutor.addScript(new Resource(PLOT_TRANCHES_RSCRIPT, VariantRecalibrator.class));
-                    rScriptExecutor.addArgs(new File(TRANCHES_FILE).getAbsoluteFile(), TARGET_TITV);
-                    // Print out the command line to make it clear to the user what is being executed and how one might modify it
-                    logger.info("Executing: " + rScriptExecutor.getApproximateCommandLine());
-                    rScriptExecutor.exec();
-                }
+                plotTranches();
                 return true;
             }
             catch (final Exception e) {
@@ -756,6 +944,42 @@ public class VariantRecalibrator extends MultiVariantWalker {
         return false;
     }
 
+    /**
+     * Find the VQSLOD cutoff values which correspond to the various tranches of calls requested by the user,
+     * and write them to the tranches file.
+     */
+    private void writeTranches(final TrancheData data) {
+        final int nCallsAtTruth = data.countCallsAtTruth(Double.NEGATIVE_INFINITY);
+        final TrancheManager.SelectionMetric metric = new TrancheManager.TruthSensitivityMetric(nCallsAtTruth);
+        if ( !scatterTranches ) {
+            final List<? extends Tranche> tranches = TrancheManager.findTranches(data, TS_TRANCHES, metric, VRAC.MODE, null);
+            tranchesStream.print(TruthSensitivityTranche.printHeader());
+            tranchesStream.print(Tranche.tranchesString(tranches));
+        }
+        else {
+            final List<? extends Tranche> tranches = TrancheManager.findVQSLODTranches(data, VQSLOD_TRANCHES, metric, VRAC.MODE);
+            tranchesStream.print(VQSLODTranche.printHeader());
+            tranchesStream.print(Tranche.tranchesString(tranches));
+        }
+    }
+
+    private void plotTranches() {
+        if (VRAC.MODE == VariantRecalibratorArgumentCollection.Mode.INDEL) {
+            // Print out an info message to make it clear why the tranches plot is not generated
+            logger.info("Tranches plot will not be generated since we are running in INDEL mode");
+        } else if (scatterTranches) {
+            //skip R plots for scattered tranches because the format is different and the R code parses them
+            logger.info("Tranches plot will not be generated since we are running in scattered mode");
+        } else if (RSCRIPT_FILE != null) { //we don't use the RSCRIPT_FILE for tranches, but here it's an indicator if we're setup to run R
+            // Execute the RScript command to plot the table of truth values
+            rScriptExecutor.addScript(new Resource(PLOT_TRANCHES_RSCRIPT, VariantRecalibrator.class));
+            rScriptExecutor.addArgs(new File(TRANCHES_FILE).getAbsoluteFile(), TARGET_TITV);
+            // Print out the command line to make it clear to the user what is being executed and how one might modify it
+            logger.info("Executing: " + rScriptExecutor.getApproximateCommandLine());
+            rScriptExecutor.exec();
+        }
+    }
+
     @Override
     public void closeTool(){
         if (recalWriter != null) {
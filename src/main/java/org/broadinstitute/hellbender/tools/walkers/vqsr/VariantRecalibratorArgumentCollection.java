@@ -85,6 +85,15 @@ final class VariantRecalibratorArgumentCollection {
     @Argument(fullName = "prior-counts", doc = "The number of prior counts to use in the variational Bayes algorithm.", optional = true)
     public double PRIOR_COUNTS = 20.0;
 
+    /**
+     * The number of threads used to fit the Gaussian mixture models and to evaluate the variants under them.
+     * With more than one thread, the EM sums are accumulated over blocks of variants in parallel, so the model
+     * may differ from the single-threaded model in the last bits of precision.
+     */
+    @Advanced
+    @Argument(fullName = "model-threads", doc = "Number of threads used to fit and evaluate the Gaussian mixture models", optional = true, minValue = 1)
+    public int numModelThreads = 1;
+
     /**
      * The number of variants to use in building the Gaussian mixture model. Training sets larger than this will be randomly downsampled.
      */
@@ -46,7 +46,9 @@ public class VariantRecalibratorEngine {
                 VRAC.SHRINKAGE,
                 VRAC.DIRICHLET_PARAMETER,
                 VRAC.PRIOR_COUNTS );
-        variationalBayesExpectationMaximization( model, data );
+        try ( final DataBlockExecutor executor = new DataBlockExecutor(VRAC.numModelThreads) ) {
+            variationalBayesExpectationMaximization( model, data, executor );
+        }
         return model;
     }
 
@@ -62,8 +64,16 @@ public class VariantRecalibratorEngine {
         }
 
         logger.info("Evaluating full set of " + data.size() + " variants...");
+        final double[] lodsWithoutMissingAnnotations;
+        try ( final DataBlockExecutor executor = new DataBlockExecutor(VRAC.numModelThreads) ) {
+            lodsWithoutMissingAnnotations = model.evaluateDataWithoutMissingAnnotations( data, executor );
+        }
+        // data with missing annotations and the contrastive evaluation both use random draws, so this pass stays in order
+        int datumIndex = 0;
         for( final VariantDatum datum : data ) {
-            final double thisLod = evaluateDatum( datum, model );
+            final double thisLod = GaussianMixtureModel.hasMissingAnnotations( datum ) ?
+                    evaluateDatum( datum, model ) : lodsWithoutMissingAnnotations[datumIndex];
+            datumIndex++;
             if( Double.isNaN(thisLod) ) {
                 model.failedToConverge = true;
                 return;
@@ -100,21 +110,23 @@ public class VariantRecalibratorEngine {
     // Private Methods used for generating a GaussianMixtureModel
     /////////////////////////////
 
-    private void variationalBayesExpectationMaximization( final GaussianMixtureModel model, final List<VariantDatum> data ) {
+    private void variationalBayesExpectationMaximization( final GaussianMixtureModel model, final List<VariantDatum> data,
+                                                          final DataBlockExecutor executor ) {
 
         model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS );
+        final VariantDataColumns dataColumns = new VariantDataColumns( data );
 
         // The VBEM loop
         model.normalizePMixtureLog10();
-        model.expectationStep( data );
+        model.expectationStep( dataColumns, executor );
         double currentChangeInMixtureCoefficients;
         int iteration = 0;
         logger.info("Finished iteration " + iteration + ".");
         while( iteration < VRAC.MAX_ITERATIONS ) {
             iteration++;
-            model.maximizationStep( data );
+            model.maximizationStep( dataColumns, executor );
             currentChangeInMixtureCoefficients = model.normalizePMixtureLog10();
-            model.expectationStep( data );
+            model.expectationStep( dataColumns, executor );
             if( iteration % 5 == 0 ) { // cut down on the number of output lines so that users can read the warning messages
                 logger.info("Finished iteration " + iteration + ". \tCurrent change in mixture coefficients = " + String.format("%.5f", currentChangeInMixtureCoefficients));
             }
@@ -124,7 +136,7 @@ public class VariantRecalibratorEngine {
             }
         }
 
-        model.evaluateFinalModelParameters( data );
+        model.evaluateFinalModelParameters( dataColumns, executor );
     }
 
     /////////////////////////////
@@ -0,0 +1,184 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.ClassFinder;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A precomputed index of the classes in a set of packages that extend a set of base classes (command line programs,
+ * read filters, annotations, codecs), so that they can be discovered without scanning the classpath with a
+ * {@link ClassFinder} on every startup.
+ *
+ * The index is written at build time by {@link #main} and packaged into the GATK jars as {@link #CLASS_INDEX_RESOURCE}.
+ * Lookups of packages or base classes that it doesn't cover (for example packages added by downstream projects), and
+ * all lookups when the resource is not on the classpath (for example when running from the build directories), fall
+ * back to scanning.
+ */
+public final class ClassIndex {
+    private static final Logger logger = LogManager.getLogger(ClassIndex.class);
+
+    public static final String CLASS_INDEX_RESOURCE = "org/broadinstitute/hellbender/utils/classIndex.txt";
+
+    private static final String PACKAGES_HEADER = "#packages";
+    private static final String BASE_CLASSES_HEADER = "#baseClasses";
+    private static final String SEPARATOR = "\t";
+
+    private static ClassIndex packagedIndex = null;
+    private static boolean packagedIndexLoaded = false;
+
+    private final List<String> packages;
+    private final Set<String> baseClasses;
+    private final Map<String, List<String>> classNamesByBaseClass;
+    private final ClassLoader classLoader;
+
+    /**
+     * Read an index written by {@link #write}
+     *
+     * @param reader reader positioned at the start of the index
+     * @param classLoader class loader from which to load the indexed classes
+     */
+    ClassIndex(final BufferedReader reader, final ClassLoader classLoader) throws IOException {
+        Utils.nonNull(reader);
+        Utils.nonNull(classLoader);
+        this.classLoader = classLoader;
+        this.packages = parseHeader(reader.readLine(), PACKAGES_HEADER);
+        this.baseClasses = new LinkedHashSet<>(parseHeader(reader.readLine(), BASE_CLASSES_HEADER));
+        this.classNamesByBaseClass = new LinkedHashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String[] fields = line.split(SEPARATOR);
+            if (fields.length != 2) {
+                throw new GATKException("Malformed class index line: " + line);
+            }
+            classNamesByBaseClass.computeIfAbsent(fields[0], k -> new ArrayList<>()).add(fields[1]);
+        }
+    }
+
+    private static List<String> parseHeader(final String line, final String header) {
+        if (line == null || !line.startsWith(header + SEPARATOR)) {
+            throw new GATKException("Malformed class index: expected a " + header + " line but found " + line);
+        }
+        return Arrays.asList(line.substring(header.length() + SEPARATOR.length()).split(SEPARATOR));
+    }
+
+    /**
+     * Find the classes in a package (or its sub-packages) that are assignable to a base class, as
+     * {@link ClassFinder#find(String, Class)} would, using the packaged index when it covers the lookup.
+     *
+     * @param packageName package to search
+     * @param baseClass class or interface the results must be assignable to
+     * @return the classes found, including abstract classes and interfaces
+     */
+    public static Set<Class<?>> findClasses(final String packageName, final Class<?> baseClass) {
+        Utils.nonNull(packageName);
+        Utils.nonNull(baseClass);
+        final ClassIndex index = getPackagedIndex();
+        final Set<Class<?>> indexed = index == null ? null : index.lookup(packageName, baseClass);
+        return indexed != null ? indexed : scan(packageName, baseClass);
+    }
+
+    /**
+     * @return true if the class is neither abstract nor an interface
+     */
+    public static boolean isConcrete(final Class<?> clazz) {
+        return !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers());
+    }
+
+    static Set<Class<?>> scan(final String packageName, final Class<?> baseClass) {
+        final ClassFinder finder = new ClassFinder();
+        finder.find(packageName, baseClass);
+        return finder.getClasses();
+    }
+
+    /**
+     * @return the classes in the package assignable to the base class, or null if this index doesn't cover the lookup
+     */
+    Set<Class<?>> lookup(final String packageName, final Class<?> baseClass) {
+        if (!baseClasses.contains(baseClass.getName())
+                || packages.stream().noneMatch(p -> packageName.equals(p) || packageName.startsWith(p + '.'))) {
+            return null;
+        }
+        final String prefix = packageName + '.';
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        for (final String className : classNamesByBaseClass.getOrDefault(baseClass.getName(), Collections.emptyList())) {
+            if (className.startsWith(prefix)) {
+                try {
+                    classes.add(Class.forName(className, false, classLoader));
+                } catch (final ClassNotFoundException | LinkageError e) {
+                    logger.warn("Class index is out of date (couldn't load " + className + "), scanning for classes instead");
+                    return null;
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static synchronized ClassIndex getPackagedIndex() {
+        if (!packagedIndexLoaded) {
+            packagedIndexLoaded = true;
+            final ClassLoader classLoader = ClassIndex.class.getClassLoader();
+            try (final InputStream in = classLoader.getResourceAsStream(CLASS_INDEX_RESOURCE)) {
+                if (in != null) {
+                    packagedIndex = new ClassIndex(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), classLoader);
+                }
+            } catch (final IOException | GATKException e) {
+                logger.warn("Couldn't read the class index, scanning for classes instead", e);
+            }
+        }
+        return packagedIndex;
+    }
+
+    /**
+     * Scan the packages for subclasses of the base classes and write the results as an index.
+     *
+     * @param output file to write
+     * @param packages packages to index
+     * @param baseClasses base classes to index
+     */
+    static void write(final Path output, final List<String> packages, final List<Class<?>> baseClasses) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (final PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println(PACKAGES_HEADER + SEPARATOR + String.join(SEPARATOR, packages));
+            writer.println(BASE_CLASSES_HEADER + SEPARATOR + baseClasses.stream().map(Class::getName).collect(Collectors.joining(SEPARATOR)));
+            for (final Class<?> baseClass : baseClasses) {
+                final Set<String> classNames = new TreeSet<>();
+                for (final String packageName : packages) {
+                    scan(packageName, baseClass).forEach(c -> classNames.add(c.getName()));
+                }
+                classNames.forEach(name -> writer.println(baseClass.getName() + SEPARATOR + name));
+            }
+        }
+    }
+
+    /**
+     * Write the class index at build time.
+     *
+     * @param args the output file, a comma-separated list of packages, and a comma-separated list of base classes
+     */
+    public static void main(final String[] args) throws IOException, ClassNotFoundException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: ClassIndex <output file> <packages,...> <base classes,...>");
+        }
+        final List<Class<?>> baseClasses = new ArrayList<>();
+        for (final String className : args[2].split(",")) {
+            baseClasses.add(Class.forName(className));
+        }
+        write(Paths.get(args[0]), Arrays.asList(args[1].split(",")), baseClasses);
+    }
+}
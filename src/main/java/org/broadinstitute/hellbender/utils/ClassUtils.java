@@ -1,6 +1,5 @@
 package org.broadinstitute.hellbender.utils;
 
-import org.broadinstitute.barclay.argparser.ClassFinder;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 
 import java.lang.reflect.InvocationTargetException;
@@ -43,9 +42,7 @@ public final class ClassUtils {
     public static <T> List<T> makeInstancesOfSubclasses(final Class<? extends T> clazz, final Package pack){
         Utils.nonNull(clazz, "class");
         Utils.nonNull(pack, "package");
-        final ClassFinder finder = new ClassFinder();
-        finder.find(pack.getName(), clazz);
-        final Set<Class<?>> classes = finder.getClasses();
+        final Set<Class<?>> classes = ClassIndex.findClasses(pack.getName(), clazz);
 
         final List<T> results = new ArrayList<>(classes.size());
 
@@ -90,9 +87,7 @@ public final class ClassUtils {
      * Finds all subinterfaces of the given interface (in the same package).
      */
     public static Set<Class<?>> knownSubInterfaces(final Class<?> iface) {
-        final ClassFinder finder = new ClassFinder();
-        finder.find(iface.getPackage().getName(), iface);
-        return finder.getClasses().stream().filter(cl -> !cl.equals(iface) && cl.isInterface()).collect(Collectors.toSet());
+        return ClassIndex.findClasses(iface.getPackage().getName(), iface).stream().filter(cl -> !cl.equals(iface) && cl.isInterface()).collect(Collectors.toSet());
     }
 
     /**
@@ -1,6 +1,5 @@
 package org.broadinstitute.hellbender.utils;
 
-import htsjdk.samtools.util.Histogram;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.logging.log4j.LogManager;
@@ -8,7 +7,7 @@ import org.apache.logging.log4j.Logger;
 
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Imported with changes from Picard private.
@@ -140,43 +139,43 @@ public class MannWhitneyU {
         }
     }
 
-    /**
-     * Key for the map from Integer[] to set of all permutations of that array.
-     */
-    private static class Key {
-        final Integer[] listToPermute;
-
-        private Key(Integer[] listToPermute) {
-            this.listToPermute = listToPermute;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (o == null || getClass() != o.getClass()) return false;
-
-            Key that = (Key) o;
-            return (Arrays.deepEquals(this.listToPermute, that.listToPermute));
-        }
-
-        @Override
-        public int hashCode() {
-            int result = 17;
-            for (Integer i : listToPermute) {
-                result = 31 * result + listToPermute[i];
-            }
-            return result;
-        }
-    }
-
     // Constructs a normal distribution; this needs to be a standard normal in order to get a Z-score in the exact case
     private static final double NORMAL_MEAN = 0;
     private static final double NORMAL_SD = 1;
     private static final NormalDistribution NORMAL = new NormalDistribution(NORMAL_MEAN, NORMAL_SD);
 
     /**
-     * A map of an Integer[] of the labels to the set of all possible permutations of those labels.
+     * Exact distributions of twice the U statistic of series without ties, which depend only on the lengths of the
+     * series, indexed by {@link #noTiesDistributionIndex}. Only computed for series up to MAX_CACHED_EXACT_N long.
      */
-    private static Map<Key, Set<List<Integer>>> PERMUTATIONS = new ConcurrentHashMap<Key, Set<List<Integer>>>();
+    private static final int MAX_CACHED_EXACT_N = 32;
+    private static final AtomicReferenceArray<long[]> NO_TIES_DISTRIBUTIONS = new AtomicReferenceArray<>((MAX_CACHED_EXACT_N + 1) * (MAX_CACHED_EXACT_N + 1));
+
+    /**
+     * Buffers for ranking the two series together and computing exact distributions, reused by each thread so that
+     * a test doesn't allocate anything in proportion to the data.
+     */
+    private static final class RankBuffers {
+        double[] values = new double[0];
+        float[] ranks = new float[0];
+        boolean[] inFirstSeries = new boolean[0];
+        long[] subsetCounts = new long[0];
+        long[] distribution = new long[0];
+        // the transformed number of ties (see transformTies) and whether there are any ties at all
+        double numOfTiesForSigma;
+        boolean hasTies;
+
+        void ensureCapacity(final int n) {
+            if (ranks.length < n) {
+                final int capacity = Math.max(n, 2 * ranks.length);
+                values = new double[capacity];
+                ranks = new float[capacity];
+                inFirstSeries = new boolean[capacity];
+            }
+        }
+    }
+
+    private static final ThreadLocal<RankBuffers> RANK_BUFFERS = ThreadLocal.withInitial(RankBuffers::new);
 
     /**
      * The minimum length for both data series in order to use a normal distribution
@@ -381,24 +380,32 @@ public class MannWhitneyU {
             return new Result(Float.NaN, Float.NaN, Float.NaN, Float.NaN);
         }
 
-        double u;
-        double nties;
+        // This ranks the data exactly as calculateRank and calculateU1andU2 do (including summing the ranks as floats),
+        // but into reusable primitive buffers
+        final RankBuffers buffers = RANK_BUFFERS.get();
+        final int n = rankIntoBuffers(series1, series2, buffers);
+        final float[] ranks = buffers.ranks;
 
+        float r1 = 0, r2 = 0;
+        for (int i = 0; i < n; i++) {
+            if (buffers.inFirstSeries[i]) r1 += ranks[i];
+            else r2 += ranks[i];
+        }
+        final double u1 = r1 - ((n1 * (n1 + 1.0)) / 2);
+        final double u2 = r2 - ((n2 * (n2 + 1.0)) / 2);
+
+        final double u;
         if (whichSide == TestType.TWO_SIDED) {
-            TestStatistic result = calculateTwoSidedU(series1, series2);
-            u = result.getTrueU();
-            nties = result.getTies();
+            u = Math.min(u1, u2);
         } else {
-            TestStatistic result = calculateOneSidedU(series1, series2, whichSide);
-            u = result.getTrueU();
-            nties = result.getTies();
+            u = whichSide == TestType.FIRST_DOMINATES ? u1 : u2;
         }
 
         double z;
         double p;
 
         if (n1 >= this.minimumNormalN || n2 >= this.minimumNormalN) {
-            z = calculateZ(u, n1, n2, nties, whichSide);
+            z = calculateZ(u, n1, n2, buffers.numOfTiesForSigma, whichSide);
             p = 2 * NORMAL.cumulativeProbability(NORMAL_MEAN + z * NORMAL_SD);
             if (whichSide != TestType.TWO_SIDED) {
                 p = p / 2;
@@ -408,144 +415,164 @@ public class MannWhitneyU {
             if (whichSide != TestType.FIRST_DOMINATES) {
                 logger.warn("An exact two-sided MannWhitneyU test was called. Only the one-sided exact test is implemented, use the approximation instead by setting minimumNormalN to 0.");
             }
-            p = permutationTest(series1, series2, u);
+            p = exactP(buffers, n1, n2, u);
             z = NORMAL.inverseCumulativeProbability(p);
         }
 
         return new Result(u, z, p, Math.abs(median(series1) - median(series2)));
     }
 
-    private void swap(Integer[] arr, int i, int j) {
-        int temp = arr[i];
-        arr[i] = arr[j];
-        arr[j] = temp;
-    }
-
     /**
-     * Uses a method that generates permutations in lexicographic order. (https://en.wikipedia.org/wiki/Permutation#Generation_in_lexicographic_order)
-     * @param temp Sorted list of elements to be permuted.
-     * @param allPermutations Empty set that will hold all possible permutations.
+     * Sort both series in place and rank them together into the buffers, averaging the ranks of ties and counting
+     * them as {@link #transformTies} does.
+     *
+     * @return the total number of values
      */
-    private void calculatePermutations(Integer[] temp, Set<List<Integer>> allPermutations) {
-        allPermutations.add(new ArrayList<>(Arrays.asList(temp)));
-        while (true) {
-            int k = -1;
-            for (int i = temp.length - 2; i >= 0; i--) {
-                if (temp[i] < temp[i + 1]) {
-                    k = i;
-                    break;
-                }
-            }
+    private static int rankIntoBuffers(final double[] series1, final double[] series2, final RankBuffers buffers) {
+        Arrays.sort(series1);
+        Arrays.sort(series2);
+
+        final int n = series1.length + series2.length;
+        buffers.ensureCapacity(n);
+        final double[] values = buffers.values;
+        final float[] ranks = buffers.ranks;
+        final boolean[] inFirstSeries = buffers.inFirstSeries;
+        for (int i = 0, j = 0, r = 0; r < n; r++) {
+            final boolean first = j >= series2.length || (i < series1.length && series1[i] <= series2[j]);
+            values[r] = first ? series1[i++] : series2[j++];
+            ranks[r] = r + 1;
+            inFirstSeries[r] = first;
+        }
+
+        // Now sort out any tie bands
+        buffers.numOfTiesForSigma = 0.0;
+        buffers.hasTies = false;
+        for (int i = 0; i < n; ) {
+            float rank = ranks[i];
+            int count = 1;
 
-            if (k == -1) {
-                break;
+            for (int j = i + 1; j < n && values[j] == values[i]; ++j) {
+                rank += ranks[j];
+                ++count;
             }
 
-            int l = -1;
-            for (int i = temp.length - 1; i >= k + 1; i--) {
-                if (temp[k] < temp[i]) {
-                    l = i;
-                    break;
+            if (count > 1) {
+                rank /= count;
+                for (int j = i; j < i + count; ++j) {
+                    ranks[j] = rank;
+                }
+                buffers.hasTies = true;
+                if (count != n) {
+                    buffers.numOfTiesForSigma += (Math.pow(count, 3)) - count;
                 }
             }
 
-            swap(temp, k, l);
-
-            int end = temp.length - 1;
-            for (int begin = k + 1; begin < end; begin++) {
-                swap(temp, begin, end);
-                end--;
-            }
-            allPermutations.add(new ArrayList<>(Arrays.asList(temp)));
+            // Skip forward the right number of items
+            i += count;
         }
+        return n;
     }
 
     /**
-     * Checks to see if the permutations have already been computed before creating them from scratch.
-     * @param listToPermute List of tags in numerical order to be permuted
-     * @param numOfPermutations The number of permutations this list will have (n1+n2 choose n1)
-     * @return Set of all possible permutations for the given list.
+     * The p-value of {@link #permutationTest} for data already ranked into the buffers
      */
-    Set<List<Integer>> getPermutations(final Integer[] listToPermute, int numOfPermutations) {
-        Key key = new Key(listToPermute);
-        Set<List<Integer>> permutations = PERMUTATIONS.get(key);
-        if (permutations == null) {
-            permutations = new HashSet<>(numOfPermutations);
-            calculatePermutations(listToPermute, permutations);
-            PERMUTATIONS.put(key, permutations);
-        }
-        return permutations;
-    }
-
-    /**
-     * Creates histogram of test statistics from a permutation test.
-     *
-     * @param series1 Data from group 1
-     * @param series2 Data from group 2
-     * @param testStatU Test statistic U from observed data
-     * @return P-value based on histogram with u calculated for every possible permutation of group tag.
-     */
-    public double permutationTest(final double[] series1, final double[] series2, final double testStatU) {
-
-        // note that Mann-Whitney U stats are always integer or half-integer (this is true even in the case of ties)
-        // thus for safety we store a histogram of twice the Mann-Whitney values
-        final Histogram<Long> histo = new Histogram<>();
-        final int n1 = series1.length;
-        final int n2 = series2.length;
+    private static double exactP(final RankBuffers buffers, final int n1, final int n2, final double testStatU) {
+        final long[] distribution = buffers.hasTies || n1 > MAX_CACHED_EXACT_N || n2 > MAX_CACHED_EXACT_N ?
+                calculateExactDistribution(buffers.ranks, n1, n2, buffers) : getNoTiesDistribution(n1, n2);
 
-        RankedData rankedGroups = calculateRank(series1, series2);
-        Rank[] ranks = rankedGroups.getRank();
+        /**
+         * In order to deal with edge cases where the observed value is also the most extreme value, we are taking half
+         * of the count in the observed bin plus everything more extreme (in the FIRST_DOMINATES case the smaller bins)
+         * and dividing by the total count of everything in the histogram. Just using getCumulativeDistribution() gives
+         * a p-value of 1 in the most extreme case which doesn't result in a usable z-score.
+         */
+        final int observedBin = (int) FastMath.round(2 * testStatU);
+        double sumOfAllSmallerBins = distribution[observedBin] / 2.0;
+        double total = 0;
+        for (int bin = 0; bin <= 2 * n1 * n2; bin++) {
+            if (bin < observedBin) sumOfAllSmallerBins += distribution[bin];
+            total += distribution[bin];
+        }
+        return sumOfAllSmallerBins / total;
+    }
 
-        Integer[] firstPermutation = new Integer[n1 + n2];
+    private static int noTiesDistributionIndex(final int n1, final int n2) {
+        return n1 * (MAX_CACHED_EXACT_N + 1) + n2;
+    }
 
-        for (int i = 0; i < firstPermutation.length; i++) {
-            if (i < n1) {
-                firstPermutation[i] = 0;
-            } else {
-                firstPermutation[i] = 1;
+    private static long[] getNoTiesDistribution(final int n1, final int n2) {
+        final int index = noTiesDistributionIndex(n1, n2);
+        long[] distribution = NO_TIES_DISTRIBUTIONS.get(index);
+        if (distribution == null) {
+            final float[] ranks = new float[n1 + n2];
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] = i + 1;
             }
+            distribution = calculateExactDistribution(ranks, n1, n2, new RankBuffers()).clone();
+            NO_TIES_DISTRIBUTIONS.compareAndSet(index, null, distribution);
         }
+        return distribution;
+    }
 
-        final int numOfPerms = (int) MathUtils.binomialCoefficient(n1 + n2, n2);
-        Set<List<Integer>> allPermutations = getPermutations(firstPermutation, numOfPerms);
-
-        double[] newSeries1 = new double[n1];
-        double[] newSeries2 = new double[n2];
-
-        //iterate over all permutations
-        for (List<Integer> currPerm : allPermutations) {
-            int series1End = 0;
-            int series2End = 0;
-            for (int i = 0; i < currPerm.size(); i++) {
-                int grouping = currPerm.get(i);
-                if (grouping == 0) {
-                    newSeries1[series1End] = ranks[i].rank;
-                    series1End++;
-                } else {
-                    newSeries2[series2End] = ranks[i].rank;
-                    series2End++;
+    /**
+     * Count, for each value of twice the U statistic of the first series, the assignments of the ranked values to the
+     * two series (that is, the subsets of n1 of the ranks) giving that value. This is the histogram of
+     * {@link #permutationTest}, computed by dynamic programming over the ranks rather than by enumerating permutations.
+     * Twice the ranks are always integers, even with ties.
+     *
+     * @return the counts indexed by twice U, in a buffer that is reused by the next call with the same buffers
+     */
+    private static long[] calculateExactDistribution(final float[] ranks, final int n1, final int n2, final RankBuffers buffers) {
+        final int n = n1 + n2;
+        final int maxDoubledSum = n * (n + 1);
+        final int width = maxDoubledSum + 1;
+        if (buffers.subsetCounts.length < (n1 + 1) * width) {
+            buffers.subsetCounts = new long[(n1 + 1) * width];
+        }
+        // subsetCounts[k * width + s] is the number of subsets of k of the ranks seen so far whose doubled sum is s
+        final long[] subsetCounts = buffers.subsetCounts;
+        Arrays.fill(subsetCounts, 0, (n1 + 1) * width, 0L);
+        subsetCounts[0] = 1;
+        for (int i = 0; i < n; i++) {
+            final int doubledRank = (int) (2 * ranks[i]);
+            for (int k = Math.min(i + 1, n1); k >= 1; k--) {
+                final int row = k * width;
+                final int previousRow = (k - 1) * width;
+                for (int s = maxDoubledSum; s >= doubledRank; s--) {
+                    subsetCounts[row + s] += subsetCounts[previousRow + s - doubledRank];
                 }
             }
-            assert (series1End == n1);
-            assert (series2End == n2);
-
-            double newU = MathUtils.sum(newSeries1) - ((n1 * (n1 + 1)) / 2.0);
-            histo.increment(FastMath.round(2 * newU));
         }
 
-        /**
-         * In order to deal with edge cases where the observed value is also the most extreme value, we are taking half
-         * of the count in the observed bin plus everything more extreme (in the FIRST_DOMINATES case the smaller bins)
-         * and dividing by the total count of everything in the histogram. Just using getCumulativeDistribution() gives
-         * a p-value of 1 in the most extreme case which doesn't result in a usable z-score.
-         */
-        double sumOfAllSmallerBins = histo.get(FastMath.round(2 * testStatU)).getValue() / 2.0;
-
-        for (final Histogram.Bin<Long> bin : histo.values()) {
-            if (bin.getId() < FastMath.round(2 * testStatU)) sumOfAllSmallerBins += bin.getValue();
+        final int numBins = 2 * n1 * n2 + 1;
+        if (buffers.distribution.length < numBins) {
+            buffers.distribution = new long[numBins];
+        }
+        final long[] distribution = buffers.distribution;
+        Arrays.fill(distribution, 0, numBins, 0L);
+        // twice U is twice the rank sum minus n1 * (n1 + 1)
+        final int offset = n1 * (n1 + 1);
+        for (int bin = 0; bin < numBins; bin++) {
+            if (bin + offset <= maxDoubledSum) {
+                distribution[bin] = subsetCounts[n1 * width + bin + offset];
+            }
         }
+        return distribution;
+    }
 
-        return sumOfAllSmallerBins / histo.getCount();
+    /**
+     * Calculates the p-value of the test statistic from its exact distribution over all possible assignments of the
+     * ranked values to the two groups.
+     *
+     * @param series1 Data from group 1
+     * @param series2 Data from group 2
+     * @param testStatU Test statistic U from observed data
+     * @return P-value based on the distribution of u over every possible permutation of group tag.
+     */
+    public double permutationTest(final double[] series1, final double[] series2, final double testStatU) {
+        final RankBuffers buffers = RANK_BUFFERS.get();
+        rankIntoBuffers(series1, series2, buffers);
+        return exactP(buffers, series1.length, series2.length, testStatU);
     }
 
 }
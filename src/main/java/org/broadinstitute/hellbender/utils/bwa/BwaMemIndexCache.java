@@ -1,5 +1,7 @@
 package org.broadinstitute.hellbender.utils.bwa;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -10,6 +12,7 @@ import java.util.*;
  * Manage a global collection of {@link BwaMemIndex} instances.
  */
 public class BwaMemIndexCache {
+    private static final Logger logger = LogManager.getLogger(BwaMemIndexCache.class);
 
     private final static Map<String, BwaMemIndex> instances = new HashMap<>();
 
@@ -19,11 +22,53 @@ public class BwaMemIndexCache {
      * @return never {@code null}.
      */
     public static synchronized BwaMemIndex getInstance( final String indexImageFile ) {
+        return getInstance(indexImageFile, false);
+    }
+
+    /**
+     * Returns a {@link BwaMemIndex} instance that corresponds to  given index image file.
+     * <p>
+     *     The page cache state of the image and the load time are logged whenever a new instance is loaded.
+     * </p>
+     * @param indexImageFile the target image file.
+     * @param preloadSharedMapping whether to bring the image into the page cache by reading it sequentially
+     *                             (see {@link BwaMemIndexImageMapping#loadIntoPageCache}) before it is loaded, so that
+     *                             co-located processes and successive runs reuse the cached pages.
+     * @return never {@code null}.
+     */
+    public static synchronized BwaMemIndex getInstance( final String indexImageFile, final boolean preloadSharedMapping ) {
         Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
-        if (!instances.containsKey(indexImageFile)) {
-            instances.put(indexImageFile, new BwaMemIndex(indexImageFile));
+        BwaMemIndex instance = instances.get(indexImageFile);
+        if (instance == null) {
+            instance = loadInstance(indexImageFile, preloadSharedMapping);
+            instances.put(indexImageFile, instance);
+        } else {
+            logger.debug("Reusing cached BWA-MEM index instance for " + indexImageFile);
+        }
+        return instance;
+    }
+
+    private static BwaMemIndex loadInstance( final String indexImageFile, final boolean preloadSharedMapping ) {
+        logPageCacheResidency(indexImageFile);
+        final long startTime = System.nanoTime();
+        if (preloadSharedMapping) {
+            final long imageSize = BwaMemIndexImageMapping.loadIntoPageCache(indexImageFile);
+            logger.info(String.format("Read %d bytes of BWA-MEM index image %s into the page cache in %.2f seconds",
+                    imageSize, indexImageFile, (System.nanoTime() - startTime) / 1e9));
+        }
+        final BwaMemIndex instance = new BwaMemIndex(indexImageFile);
+        logger.info(String.format("Loaded BWA-MEM index image %s in %.2f seconds", indexImageFile, (System.nanoTime() - startTime) / 1e9));
+        return instance;
+    }
+
+    // this is only a diagnostic, so it must never fail the load
+    private static void logPageCacheResidency( final String indexImageFile ) {
+        try {
+            logger.info(String.format("BWA-MEM index image %s is about %.1f%% resident in the page cache",
+                    indexImageFile, 100 * BwaMemIndexImageMapping.getPageCacheResidentFraction(indexImageFile)));
+        } catch (final RuntimeException e) {
+            logger.debug("Could not determine the page cache residency of BWA-MEM index image " + indexImageFile, e);
         }
-        return instances.get(indexImageFile);
     }
 
     /**
@@ -0,0 +1,90 @@
+package org.broadinstitute.hellbender.utils.bwa;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Utilities for accessing a BWA-MEM index image (as created by
+ * {@link org.broadinstitute.hellbender.tools.BwaMemIndexImageCreator}) through a read-only shared memory mapping.
+ * <p>
+ *     Pages of a shared file mapping live in the OS page cache rather than in the heap of any one process, so an image
+ *     loaded through the mapping is shared by every executor on the same node that opens the same local file, and stays
+ *     cached for subsequent runs until the OS evicts it. Note that this only helps if co-located processes open the
+ *     same file, i.e. if the image sits on node-local disk at a common path, rather than being copied into the working
+ *     directory of each executor.
+ * </p>
+ */
+public final class BwaMemIndexImageMapping {
+
+    // The image is read into the page cache through a single buffer of this size, reused for every read.
+    private static final int READ_BUFFER_SIZE = 8 << 20;
+
+    // Page cache residency is estimated from this many small regions, spread evenly over the image. Only these are
+    // mapped, so the estimate is cheap even for very large images.
+    private static final int NUM_RESIDENCY_SAMPLES = 64;
+    private static final long RESIDENCY_SAMPLE_SIZE = 4096;
+
+    private BwaMemIndexImageMapping() { }
+
+    /**
+     * Estimates the fraction of the image that is currently resident in the page cache, as the fraction of
+     * {@link #NUM_RESIDENCY_SAMPLES} small regions spread evenly over the image that are resident.
+     * The result is an estimate, see {@link MappedByteBuffer#isLoaded()}.
+     *
+     * @param indexImageFile the local index image file
+     * @return a value between 0 and 1
+     */
+    public static double getPageCacheResidentFraction(final String indexImageFile) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        final Path imagePath = IOUtils.getPath(indexImageFile);
+        try (final FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size == 0) {
+                return 1.0;
+            }
+            final int numSamples = (int) Math.min(NUM_RESIDENCY_SAMPLES, (size + RESIDENCY_SAMPLE_SIZE - 1) / RESIDENCY_SAMPLE_SIZE);
+            int numResidentSamples = 0;
+            for (int sample = 0; sample < numSamples; sample++) {
+                final long position = size / numSamples * sample;
+                if (channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(RESIDENCY_SAMPLE_SIZE, size - position)).isLoaded()) {
+                    numResidentSamples++;
+                }
+            }
+            return (double) numResidentSamples / numSamples;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(imagePath, "could not map the BWA-MEM index image", e);
+        }
+    }
+
+    /**
+     * Reads the whole image sequentially, in large reads, so that it is brought into the page cache before it is
+     * mapped. Pages that are already cached (for example, loaded by another executor on the same node or by a previous
+     * run) are not read from disk again. Nothing is mapped here, so no mapping outlives the call.
+     *
+     * @param indexImageFile the local index image file
+     * @return the size of the image in bytes
+     */
+    public static long loadIntoPageCache(final String indexImageFile) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        final Path imagePath = IOUtils.getPath(indexImageFile);
+        try (final FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            long bytesRead = 0;
+            for (int n = channel.read(buffer); n != -1; n = channel.read(buffer)) {
+                bytesRead += n;
+                buffer.clear();
+            }
+            return bytesRead;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(imagePath, "could not read the BWA-MEM index image", e);
+        }
+    }
+}
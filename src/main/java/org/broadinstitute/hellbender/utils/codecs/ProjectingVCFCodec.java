@@ -0,0 +1,261 @@
+package org.broadinstitute.hellbender.utils.codecs;
+
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.variant.VariantProjection;
+
+import java.util.Arrays;
+
+/**
+ * A VCF codec that decodes only the INFO keys, FORMAT keys and samples of a {@link VariantProjection}.
+ *
+ * Each record line is cut down to the projected parts before it is handed to {@link VCFCodec}, so the text of
+ * everything else is only scanned for separators, and is never split into Strings or parsed into attributes and
+ * genotypes: keys are matched against the projection in place. Sample columns after the last projected one are not
+ * even scanned. The header is cut down to the projected samples in the same way; the INFO and FORMAT header lines are
+ * all kept.
+ *
+ * This codec is never chosen by codec discovery: it is only used when a projection is requested from a
+ * {@link org.broadinstitute.hellbender.engine.FeatureDataSource}.
+ */
+public final class ProjectingVCFCodec extends VCFCodec {
+    // CHROM, POS, ID, REF, ALT, QUAL, FILTER and INFO
+    private static final int NUM_FIXED_COLUMNS = 8;
+    private static final int INFO_COLUMN = 7;
+    private static final int FORMAT_COLUMN = 8;
+    private static final String CHROM_LINE_PREFIX = "#CHROM";
+
+    private final VariantProjection projection;
+
+    // which of the sample columns of the input are kept, and the last one that is (-1 if none); set by the header
+    private boolean[] keptSamples = null;
+    private int lastKeptSample = -1;
+
+    // reused between records
+    private final StringBuilder projected = new StringBuilder();
+    private boolean[] keptFormatFields = new boolean[16];
+
+    //Note: this default constructor is needed for the FeatureManager when it loads codecs.
+    @SuppressWarnings("unused")
+    public ProjectingVCFCodec() {
+        this.projection = null;
+    }
+
+    public ProjectingVCFCodec(final VariantProjection projection) {
+        this.projection = Utils.nonNull(projection);
+    }
+
+    @Override
+    public boolean canDecode(final String potentialInput) {
+        //If there's no projection then we're going to say no, so that discovery picks the plain VCFCodec
+        return projection != null && super.canDecode(potentialInput);
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator lineIterator) {
+        if (projection == null) {
+            throw new IllegalStateException("this codec cannot be used without a projection.");
+        }
+        return super.readActualHeader(new LineIterator() {
+            @Override
+            public String peek() {
+                return projectHeaderLine(lineIterator.peek());
+            }
+
+            @Override
+            public boolean hasNext() {
+                return lineIterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return projectHeaderLine(lineIterator.next());
+            }
+        });
+    }
+
+    @Override
+    public VariantContext decode(final String line) {
+        return super.decode(projectRecord(line));
+    }
+
+    /**
+     * Remove the columns of samples that aren't projected from the #CHROM line, and the FORMAT column too if none are.
+     * Other lines are returned unchanged.
+     */
+    private String projectHeaderLine(final String line) {
+        if (line == null || !line.startsWith(CHROM_LINE_PREFIX)) {
+            return line;
+        }
+        final String[] columns = line.split(VCFConstants.FIELD_SEPARATOR);
+        final int numSamples = Math.max(0, columns.length - NUM_FIXED_COLUMNS - 1);
+        keptSamples = new boolean[numSamples];
+        lastKeptSample = -1;
+        for (int sample = 0; sample < numSamples; sample++) {
+            if (projection.keepsSample(columns[FORMAT_COLUMN + 1 + sample])) {
+                keptSamples[sample] = true;
+                lastKeptSample = sample;
+            }
+        }
+
+        final StringBuilder header = new StringBuilder(columns[0]);
+        for (int column = 1; column < Math.min(columns.length, NUM_FIXED_COLUMNS); column++) {
+            header.append(VCFConstants.FIELD_SEPARATOR).append(columns[column]);
+        }
+        if (lastKeptSample >= 0) {
+            header.append(VCFConstants.FIELD_SEPARATOR).append(columns[FORMAT_COLUMN]);
+            for (int sample = 0; sample <= lastKeptSample; sample++) {
+                if (keptSamples[sample]) {
+                    header.append(VCFConstants.FIELD_SEPARATOR).append(columns[FORMAT_COLUMN + 1 + sample]);
+                }
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * @return the record with only the projected INFO keys, FORMAT keys and samples
+     */
+    private String projectRecord(final String line) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return line;
+        }
+        if (keptSamples == null) {
+            throw new IllegalStateException("the header must be read before records can be decoded.");
+        }
+        projected.setLength(0);
+        int lastKeptFormatField = -1;
+        int start = 0;
+        for (int column = 0; start <= line.length(); column++) {
+            final int sample = column - FORMAT_COLUMN - 1;
+            if (column == FORMAT_COLUMN && lastKeptSample < 0 || sample > lastKeptSample) {
+                break;
+            }
+            int end = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, start);
+            if (end < 0) {
+                end = line.length();
+            }
+
+            if (column < INFO_COLUMN) {
+                appendColumn(line, start, end, column);
+            } else if (column == INFO_COLUMN) {
+                appendInfo(line, start, end);
+            } else if (column == FORMAT_COLUMN) {
+                lastKeptFormatField = appendFormat(line, start, end);
+            } else if (keptSamples[sample]) {
+                appendSample(line, start, end, lastKeptFormatField);
+            }
+            start = end + 1;
+        }
+        return projected.toString();
+    }
+
+    private void appendColumn(final String line, final int start, final int end, final int column) {
+        if (column > 0) {
+            projected.append(VCFConstants.FIELD_SEPARATOR_CHAR);
+        }
+        projected.append(line, start, end);
+    }
+
+    private void appendInfo(final String line, final int start, final int end) {
+        projected.append(VCFConstants.FIELD_SEPARATOR_CHAR);
+        if (projection.keepsAllInfoKeys()) {
+            projected.append(line, start, end);
+            return;
+        }
+        final int infoStart = projected.length();
+        for (int entryStart = start; entryStart < end; ) {
+            int entryEnd = line.indexOf(VCFConstants.INFO_FIELD_SEPARATOR_CHAR, entryStart);
+            if (entryEnd < 0 || entryEnd > end) {
+                entryEnd = end;
+            }
+            int keyEnd = line.indexOf('=', entryStart);
+            if (keyEnd < 0 || keyEnd > entryEnd) {
+                keyEnd = entryEnd;
+            }
+            if (projection.keepsInfoKey(line, entryStart, keyEnd)) {
+                if (projected.length() > infoStart) {
+                    projected.append(VCFConstants.INFO_FIELD_SEPARATOR_CHAR);
+                }
+                projected.append(line, entryStart, entryEnd);
+            }
+            entryStart = entryEnd + 1;
+        }
+        if (projected.length() == infoStart) {
+            projected.append(VCFConstants.EMPTY_INFO_FIELD);
+        }
+    }
+
+    /**
+     * Append the projected FORMAT keys and record which fields of the samples to keep
+     *
+     * @return the index of the last field to keep
+     */
+    private int appendFormat(final String line, final int start, final int end) {
+        projected.append(VCFConstants.FIELD_SEPARATOR_CHAR);
+        if (projection.keepsAllFormatKeys()) {
+            projected.append(line, start, end);
+            return Integer.MAX_VALUE;
+        }
+        int numFields = 0;
+        int lastKept = -1;
+        final int formatStart = projected.length();
+        for (int fieldStart = start; fieldStart <= end; numFields++) {
+            int fieldEnd = line.indexOf(VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > end) {
+                fieldEnd = end;
+            }
+            if (numFields == keptFormatFields.length) {
+                keptFormatFields = Arrays.copyOf(keptFormatFields, 2 * numFields);
+            }
+            final boolean keep = projection.keepsFormatKey(line, fieldStart, fieldEnd);
+            keptFormatFields[numFields] = keep;
+            if (keep) {
+                if (projected.length() > formatStart) {
+                    projected.append(VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR);
+                }
+                projected.append(line, fieldStart, fieldEnd);
+                lastKept = numFields;
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        // the genotypes must have at least one field, so keep the first one if none of the projected keys are present
+        if (lastKept < 0) {
+            final int firstFieldEnd = line.indexOf(VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR, start);
+            projected.append(line, start, firstFieldEnd < 0 || firstFieldEnd > end ? end : firstFieldEnd);
+            keptFormatFields[0] = true;
+            lastKept = 0;
+        }
+        return lastKept;
+    }
+
+    private void appendSample(final String line, final int start, final int end, final int lastKeptFormatField) {
+        projected.append(VCFConstants.FIELD_SEPARATOR_CHAR);
+        if (projection.keepsAllFormatKeys()) {
+            projected.append(line, start, end);
+            return;
+        }
+        final int sampleStart = projected.length();
+        // samples may omit trailing fields
+        int field = 0;
+        for (int fieldStart = start; fieldStart <= end && field <= lastKeptFormatField; field++) {
+            int fieldEnd = line.indexOf(VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > end) {
+                fieldEnd = end;
+            }
+            if (keptFormatFields[field]) {
+                if (projected.length() > sampleStart) {
+                    projected.append(VCFConstants.GENOTYPE_FIELD_SEPARATOR_CHAR);
+                }
+                projected.append(line, fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        if (projected.length() == sampleStart) {
+            projected.append(VCFConstants.MISSING_VALUE_v4);
+        }
+    }
+}
@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
  */
 public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> {
     private static final int RANDOM_SEED = 42;
-    private static final RandomGenerator rng =
+    private static final RandomGenerator sharedRng =
             RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
 
     private static final Logger logger = LogManager.getLogger(GibbsSampler.class);
@@ -32,6 +32,8 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
 
     private final ParameterizedModel<V, S, T> model;
 
+    private final RandomGenerator rng;
+
     private final List<S> samples;
 
     private boolean isMCMCRunComplete = false;
@@ -44,10 +46,23 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * @param model         {@link ParameterizedModel} to be sampled
      */
     public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model) {
+        this(numSamples, model, sharedRng);
+    }
+
+    /**
+     * As above, but drawing from {@code rng} instead of the generator shared by all instances.  Chains that are run
+     * concurrently must each be given their own generator.  The generator is reseeded at the start of
+     * {@link #runMCMC()}, so the chain produces the same samples as it would using the shared generator.
+     * @param numSamples    total number of samples; must be positive
+     * @param model         {@link ParameterizedModel} to be sampled
+     * @param rng           generator used only by this chain
+     */
+    public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model, final RandomGenerator rng) {
         ParamUtils.isPositive(numSamples, "Number of samples must be positive.");
         Utils.validateArg(model.getUpdateMethod() == ParameterizedModel.UpdateMethod.GIBBS, "ParameterizedModel must be constructed to update using Gibbs sampling.");
         this.numSamples = numSamples;
         this.model = model;
+        this.rng = Utils.nonNull(rng);
         numSamplesPerLogEntry = NUMBER_OF_SAMPLES_PER_LOG_ENTRY;
         samples = new ArrayList<>(numSamples);
         samples.add(model.state());
@@ -0,0 +1,111 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFlag;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordCompactCodec;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Comparator for reads encoded by {@link SAMRecordCompactCodec} that gives the same ordering as
+ * {@link ReadCoordinateComparator} does for the decoded reads, but reads every field it needs directly from the
+ * encoded bytes without decoding them.
+ */
+public final class CompactReadCoordinateComparator implements Comparator<byte[]>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int compare(final byte[] first, final byte[] second) {
+        int result = compareCoordinates(first, second);
+        if ( result != 0 ) {
+            return result;
+        }
+
+        final int firstFlags = SAMRecordCompactCodec.getFlags(first);
+        final int secondFlags = SAMRecordCompactCodec.getFlags(second);
+        final boolean firstIsReverseStrand = isSet(firstFlags, SAMFlag.READ_REVERSE_STRAND);
+        if (firstIsReverseStrand != isSet(secondFlags, SAMFlag.READ_REVERSE_STRAND)) {
+            return firstIsReverseStrand ? 1 : -1;
+        }
+
+        result = SAMRecordCompactCodec.compareReadNames(first, second);
+        if ( result != 0 ) { return result; }
+        result = Integer.compare(getSAMFlagsForRead(first, firstFlags), getSAMFlagsForRead(second, secondFlags));
+        if ( result != 0 ) { return result; }
+        result = Integer.compare(SAMRecordCompactCodec.getMappingQuality(first), SAMRecordCompactCodec.getMappingQuality(second));
+        if ( result != 0 ) { return result; }
+        if (isSet(firstFlags, SAMFlag.READ_PAIRED) && isSet(secondFlags, SAMFlag.READ_PAIRED)) {
+            final boolean firstMateIsUnmapped = mateIsUnmapped(first, firstFlags);
+            final boolean secondMateIsUnmapped = mateIsUnmapped(second, secondFlags);
+            result = Integer.compare(firstMateIsUnmapped ? SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX : SAMRecordCompactCodec.getMateReferenceIndex(first),
+                    secondMateIsUnmapped ? SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX : SAMRecordCompactCodec.getMateReferenceIndex(second));
+            if ( result != 0 ) { return result; }
+            result = Integer.compare(firstMateIsUnmapped ? ReadConstants.UNSET_POSITION : SAMRecordCompactCodec.getMateAlignmentStart(first),
+                    secondMateIsUnmapped ? ReadConstants.UNSET_POSITION : SAMRecordCompactCodec.getMateAlignmentStart(second));
+            if ( result != 0 ) { return result; }
+        }
+        return Integer.compare(SAMRecordCompactCodec.getInferredInsertSize(first), SAMRecordCompactCodec.getInferredInsertSize(second));
+    }
+
+    private static int compareCoordinates(final byte[] first, final byte[] second) {
+        final int firstRefIndex = SAMRecordCompactCodec.getReferenceIndex(first);
+        final int secondRefIndex = SAMRecordCompactCodec.getReferenceIndex(second);
+
+        if ( firstRefIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ) {
+            return (secondRefIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ? 0 : 1);
+        }
+        else if ( secondRefIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ) {
+            return -1;
+        }
+
+        final int refIndexDifference = firstRefIndex - secondRefIndex;
+        if ( refIndexDifference != 0 ) {
+            return refIndexDifference;
+        }
+
+        return Integer.compare(SAMRecordCompactCodec.getAlignmentStart(first), SAMRecordCompactCodec.getAlignmentStart(second));
+    }
+
+    private static boolean isSet(final int flags, final SAMFlag flag) {
+        return (flags & flag.intValue()) != 0;
+    }
+
+    // mirrors SAMRecordToGATKReadAdapter.isUnmapped()
+    private static boolean isUnmapped(final byte[] encoded, final int flags) {
+        return isSet(flags, SAMFlag.READ_UNMAPPED) ||
+                SAMRecordCompactCodec.getReferenceIndex(encoded) == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ||
+                SAMRecordCompactCodec.getAlignmentStart(encoded) == SAMRecord.NO_ALIGNMENT_START;
+    }
+
+    // mirrors SAMRecordToGATKReadAdapter.mateIsUnmapped(), for paired reads
+    private static boolean mateIsUnmapped(final byte[] encoded, final int flags) {
+        return isSet(flags, SAMFlag.MATE_UNMAPPED) ||
+                SAMRecordCompactCodec.getMateReferenceIndex(encoded) == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ||
+                SAMRecordCompactCodec.getMateAlignmentStart(encoded) == SAMRecord.NO_ALIGNMENT_START;
+    }
+
+    // mirrors ReadUtils.getSAMFlagsForRead(), which normalizes the flags that depend on the mapping state
+    private static int getSAMFlagsForRead(final byte[] encoded, final int flags) {
+        final boolean isPaired = isSet(flags, SAMFlag.READ_PAIRED);
+        final boolean isUnmapped = isUnmapped(encoded, flags);
+        final boolean mateIsUnmapped = isPaired && mateIsUnmapped(encoded, flags);
+        int samFlags = flags & (SAMFlag.SECONDARY_ALIGNMENT.intValue() | SAMFlag.READ_FAILS_VENDOR_QUALITY_CHECK.intValue() |
+                SAMFlag.DUPLICATE_READ.intValue() | SAMFlag.SUPPLEMENTARY_ALIGNMENT.intValue());
+        if ( isPaired ) {
+            samFlags |= flags & (SAMFlag.READ_PAIRED.intValue() | SAMFlag.PROPER_PAIR.intValue() |
+                    SAMFlag.FIRST_OF_PAIR.intValue() | SAMFlag.SECOND_OF_PAIR.intValue());
+        }
+        if ( isUnmapped ) {
+            samFlags |= SAMFlag.READ_UNMAPPED.intValue();
+        } else {
+            samFlags |= flags & SAMFlag.READ_REVERSE_STRAND.intValue();
+        }
+        if ( mateIsUnmapped ) {
+            samFlags |= SAMFlag.MATE_UNMAPPED.intValue();
+        } else if ( isPaired ) {
+            samFlags |= flags & SAMFlag.MATE_REVERSE_STRAND.intValue();
+        }
+        return samFlags;
+    }
+}
@@ -35,6 +35,13 @@ public class Fragment extends TransientFieldPhysicalLocation {
                 headerLibraryMap.get(MarkDuplicatesSparkUtils.getLibraryForRead(first, header, LibraryIdGenerator.UNKNOWN_LIBRARY)));
     }
 
+    // Constructor for decoding a record produced by MarkDuplicatesSparkRecordCodec, the key is not restored
+    Fragment(final int partitionIndex, final String name, final short score, final boolean R1R) {
+        super(partitionIndex, name);
+        this.score = score;
+        this.R1R = R1R;
+    }
+
     @Override
     public Type getType() {
       return Type.FRAGMENT;
@@ -0,0 +1,170 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link MarkDuplicatesSparkRecord} objects for the MarkDuplicatesSpark shuffle.
+ *
+ * Each record is packed into a single byte[] so that the grouping shuffle moves primitive arrays rather than
+ * objects which have to be walked and reconstructed by Kryo field by field. Only the fields needed for duplicate
+ * marking after the shuffle are kept:
+ *
+ * <pre>
+ *   type          1 byte ({@link MarkDuplicatesSparkRecord.Type} ordinal)
+ *   flags         1 byte (read1 reverse strand, read2 reverse strand, was flipped)
+ *   partition     unsigned varint
+ *   name length   unsigned varint (length + 1, 0 encodes a null name)
+ *   name          ASCII bytes
+ *   score         2 bytes (FRAGMENT and PAIR only)
+ *   read group    2 bytes (PAIR only)
+ * </pre>
+ *
+ * NOTE: the transient {@link org.broadinstitute.hellbender.utils.read.markduplicates.ReadsKey} and optical location
+ *       fields are not encoded, exactly as they are not serialized by the Kryo path. Decoded records must not be
+ *       re-keyed and their optical information is recomputed from the read name by the OpticalDuplicateFinder.
+ */
+public final class MarkDuplicatesSparkRecordCodec {
+    private static final MarkDuplicatesSparkRecord.Type[] TYPES = MarkDuplicatesSparkRecord.Type.values();
+
+    private static final int READ1_REVERSE_FLAG = 0x1;
+    private static final int READ2_REVERSE_FLAG = 0x2;
+    private static final int WAS_FLIPPED_FLAG = 0x4;
+
+    private MarkDuplicatesSparkRecordCodec() { }
+
+    /**
+     * Encodes the provided record into a freshly allocated array of exactly the required size.
+     */
+    public static byte[] encode(final MarkDuplicatesSparkRecord record) {
+        Utils.nonNull(record);
+        final MarkDuplicatesSparkRecord.Type type = record.getType();
+        final byte[] nameBytes = record.getName() == null ? null : record.getName().getBytes(StandardCharsets.US_ASCII);
+        final int nameLengthField = nameBytes == null ? 0 : nameBytes.length + 1;
+
+        int size = 2 + varIntSize(record.getPartitionIndex()) + varIntSize(nameLengthField) + (nameBytes == null ? 0 : nameBytes.length);
+        if (type == MarkDuplicatesSparkRecord.Type.FRAGMENT || type == MarkDuplicatesSparkRecord.Type.PAIR) {
+            size += 2;
+        }
+        if (type == MarkDuplicatesSparkRecord.Type.PAIR) {
+            size += 2;
+        }
+
+        final byte[] out = new byte[size];
+        int offset = 0;
+        out[offset++] = (byte) type.ordinal();
+        out[offset++] = (byte) flagsFor(record);
+        offset = writeVarInt(out, offset, record.getPartitionIndex());
+        offset = writeVarInt(out, offset, nameLengthField);
+        if (nameBytes != null) {
+            System.arraycopy(nameBytes, 0, out, offset, nameBytes.length);
+            offset += nameBytes.length;
+        }
+        if (type == MarkDuplicatesSparkRecord.Type.FRAGMENT || type == MarkDuplicatesSparkRecord.Type.PAIR) {
+            offset = writeShort(out, offset, ((PairedEnds) record).getScore());
+        }
+        if (type == MarkDuplicatesSparkRecord.Type.PAIR) {
+            offset = writeShort(out, offset, ((Pair) record).getReadGroup());
+        }
+        return out;
+    }
+
+    /**
+     * Decodes a record produced by {@link #encode}. The returned record has no key.
+     */
+    public static MarkDuplicatesSparkRecord decode(final byte[] bytes) {
+        Utils.nonNull(bytes);
+        final int[] cursor = {0};
+        final int typeOrdinal = bytes[cursor[0]++];
+        if (typeOrdinal < 0 || typeOrdinal >= TYPES.length) {
+            throw new GATKException("Invalid MarkDuplicatesSparkRecord type found while decoding: " + typeOrdinal);
+        }
+        final MarkDuplicatesSparkRecord.Type type = TYPES[typeOrdinal];
+        final int flags = bytes[cursor[0]++];
+        final int partitionIndex = readVarInt(bytes, cursor);
+        final int nameLengthField = readVarInt(bytes, cursor);
+        final String name;
+        if (nameLengthField == 0) {
+            name = null;
+        } else {
+            name = new String(bytes, cursor[0], nameLengthField - 1, StandardCharsets.US_ASCII);
+            cursor[0] += nameLengthField - 1;
+        }
+
+        final boolean read1Reverse = (flags & READ1_REVERSE_FLAG) != 0;
+        switch (type) {
+            case FRAGMENT:
+                return new Fragment(partitionIndex, name, readShort(bytes, cursor), read1Reverse);
+            case EMPTY_FRAGMENT:
+                return new EmptyFragment(read1Reverse);
+            case PASSTHROUGH:
+                return new Passthrough(partitionIndex, name);
+            case PAIR:
+                final short score = readShort(bytes, cursor);
+                final short readGroupIndex = readShort(bytes, cursor);
+                return new Pair(partitionIndex, name, score, read1Reverse,
+                        (flags & READ2_REVERSE_FLAG) != 0, readGroupIndex, (flags & WAS_FLIPPED_FLAG) != 0);
+            default:
+                throw new GATKException.ShouldNeverReachHereException("Unhandled MarkDuplicatesSparkRecord type " + type);
+        }
+    }
+
+    private static int flagsFor(final MarkDuplicatesSparkRecord record) {
+        if (!(record instanceof PairedEnds)) {
+            return 0;
+        }
+        int flags = ((PairedEnds) record).isRead1ReverseStrand() ? READ1_REVERSE_FLAG : 0;
+        if (record instanceof Pair) {
+            final Pair pair = (Pair) record;
+            flags |= pair.isRead2ReverseStrand() ? READ2_REVERSE_FLAG : 0;
+            flags |= pair.wasFlipped() ? WAS_FLIPPED_FLAG : 0;
+        }
+        return flags;
+    }
+
+    private static int varIntSize(final int value) {
+        int size = 1;
+        int remaining = value >>> 7;
+        while (remaining != 0) {
+            size++;
+            remaining >>>= 7;
+        }
+        return size;
+    }
+
+    private static int writeVarInt(final byte[] out, int offset, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out[offset++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out[offset++] = (byte) remaining;
+        return offset;
+    }
+
+    private static int readVarInt(final byte[] bytes, final int[] cursor) {
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[cursor[0]++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    private static int writeShort(final byte[] out, final int offset, final short value) {
+        out[offset] = (byte) (value >> 8);
+        out[offset + 1] = (byte) value;
+        return offset + 2;
+    }
+
+    private static short readShort(final byte[] bytes, final int[] cursor) {
+        final short value = (short) (((bytes[cursor[0]] & 0xFF) << 8) | (bytes[cursor[0] + 1] & 0xFF));
+        cursor[0] += 2;
+        return value;
+    }
+}
@@ -100,6 +100,17 @@ public final class Pair extends TransientFieldPhysicalLocation {
         wasFlipped = input.readBoolean();
     }
 
+    // Constructor for decoding a record produced by MarkDuplicatesSparkRecordCodec, the key is not restored
+    Pair(final int partitionIndex, final String name, final short score, final boolean isRead1ReverseStrand,
+         final boolean isRead2ReverseStrand, final short readGroupIndex, final boolean wasFlipped) {
+        super(partitionIndex, name);
+        this.score = score;
+        this.isRead1ReverseStrand = isRead1ReverseStrand;
+        this.isRead2ReverseStrand = isRead2ReverseStrand;
+        this.readGroupIndex = readGroupIndex;
+        this.wasFlipped = wasFlipped;
+    }
+
     protected void serialize(Kryo kryo, Output output) {
         output.writeInt(partitionIndex, true);
         output.writeAscii(name);
@@ -132,6 +143,14 @@ public final class Pair extends TransientFieldPhysicalLocation {
     public boolean isRead1ReverseStrand() {
         return isRead1ReverseStrand;
     }
+
+    public boolean isRead2ReverseStrand() {
+        return isRead2ReverseStrand;
+    }
+
+    public boolean wasFlipped() {
+        return wasFlipped;
+    }
     @Override
     public String toString() {
         return name + " score:" + score;
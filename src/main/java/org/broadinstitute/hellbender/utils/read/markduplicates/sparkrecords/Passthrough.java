@@ -17,6 +17,12 @@ public final class Passthrough extends MarkDuplicatesSparkRecord {
         this.key = ReadsKey.hashKeyForPassthroughRead(read);
     }
 
+    // Constructor for decoding a record produced by MarkDuplicatesSparkRecordCodec, the key is not restored
+    Passthrough(final int partitionIndex, final String name) {
+        super(partitionIndex, name);
+        this.key = null;
+    }
+
     @Override
     public Type getType() {
         return Type.PASSTHROUGH;
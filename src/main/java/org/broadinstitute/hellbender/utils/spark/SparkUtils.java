@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils.spark;
 
 import com.google.common.collect.*;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecordCompactCodec;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SAMTextHeaderCodec;
 import htsjdk.samtools.util.BinaryCodec;
@@ -134,9 +135,28 @@ public final class SparkUtils {
      * @return a new JavaRDD or reads which is globally sorted in a way that is consistent with the sort order given in the header
      */
     public static JavaRDD<GATKRead> sortReadsAccordingToHeader(final JavaRDD<GATKRead> reads, final SAMFileHeader header, final int numReducers){
+        return sortReadsAccordingToHeader(reads, header, numReducers, false);
+    }
+
+    /**
+     * Do a total sort of an RDD of {@link GATKRead} according to the sort order in the header.
+     * @param reads a JavaRDD of reads which may or may not be sorted
+     * @param header a header which specifies the desired new sort order.
+     *               Only {@link SAMFileHeader.SortOrder#coordinate} and {@link SAMFileHeader.SortOrder#queryname} are supported.
+     *               All others will result in {@link GATKException}
+     * @param numReducers number of reducers to use when sorting
+     * @param compactShuffle if true, and the sort order is coordinate, move the reads through the shuffle encoded by
+     *                       {@link SAMRecordCompactCodec} and compare them without decoding them. All the reads must be on
+     *                       contigs in the header. The order is the same either way.
+     * @return a new JavaRDD or reads which is globally sorted in a way that is consistent with the sort order given in the header
+     */
+    public static JavaRDD<GATKRead> sortReadsAccordingToHeader(final JavaRDD<GATKRead> reads, final SAMFileHeader header, final int numReducers, final boolean compactShuffle){
         final SAMFileHeader.SortOrder order = header.getSortOrder();
         switch (order){
             case coordinate:
+                if (compactShuffle) {
+                    return coordinateSortReadsUsingCompactEncoding(reads, header, numReducers);
+                }
                 return sortUsingElementsAsKeys(reads, new ReadCoordinateComparator(header), numReducers);
             case queryname:
                 final JavaRDD<GATKRead> sortedReads = sortUsingElementsAsKeys(reads, new ReadQueryNameComparator(), numReducers);
@@ -146,6 +166,19 @@ public final class SparkUtils {
         }
     }
 
+    private static JavaRDD<GATKRead> coordinateSortReadsUsingCompactEncoding(final JavaRDD<GATKRead> reads, final SAMFileHeader header, final int numReducers) {
+        final Broadcast<SAMFileHeader> headerBroadcast = JavaSparkContext.fromSparkContext(reads.context()).broadcast(header);
+        final JavaRDD<byte[]> encodedReads = reads.mapPartitions(readIterator -> {
+            final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(headerBroadcast.getValue());
+            return Iterators.transform(readIterator, read -> codec.encode(read.convertToSAMRecord(null)));
+        });
+        final JavaRDD<byte[]> sortedEncodedReads = sortUsingElementsAsKeys(encodedReads, new CompactReadCoordinateComparator(), numReducers);
+        return sortedEncodedReads.mapPartitions(encodedReadIterator -> {
+            final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(headerBroadcast.getValue());
+            return Iterators.transform(encodedReadIterator, encodedRead -> SAMRecordToGATKReadAdapter.headerlessReadAdapter(codec.decode(encodedRead)));
+        });
+    }
+
     /**
      *   Do a global sort of an RDD using the given comparator.
      *   This method uses the RDD elements themselves as the keys in the spark key/value sort.  This may be inefficient
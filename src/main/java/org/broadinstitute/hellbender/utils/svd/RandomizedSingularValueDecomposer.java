@@ -0,0 +1,479 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import htsjdk.samtools.util.Lazy;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Truncated SVD using a randomized range finder with power iterations
+ * (Halko, Martinsson and Tropp, SIAM Review 53, 217 (2011)).  Only the top {@code numComponents} singular values and
+ * vectors are computed, which is much cheaper than a full decomposition when the number of components is small
+ * compared to the rank of the matrix.
+ *
+ * <p>
+ *     The matrix is streamed in blocks along its larger dimension and all products with it are computed block by
+ *     block, in parallel when more than one thread is requested.  Partial sums are always combined in block order,
+ *     so the result depends on the seed but not on the number of threads.  Only matrices with one dimension of the
+ *     order of the number of components (plus oversamples) are held in memory, in addition to the input.
+ * </p>
+ *
+ * <p>
+ *     Fewer than {@code numComponents} components are returned if the smaller dimension of the matrix or its
+ *     numerical rank is smaller.  The pseudoinverse is only computed if requested.
+ * </p>
+ */
+public final class RandomizedSingularValueDecomposer implements SingularValueDecomposer {
+
+    private static final Logger logger = LogManager.getLogger(RandomizedSingularValueDecomposer.class);
+
+    public static final int DEFAULT_NUMBER_OF_OVERSAMPLES = 10;
+    public static final int DEFAULT_NUMBER_OF_POWER_ITERATIONS = 2;
+    public static final long DEFAULT_SEED = 1234L;
+
+    //blocks are sized to hold roughly this many matrix elements (8MB of doubles)
+    private static final int TARGET_NUMBER_OF_ELEMENTS_PER_BLOCK = 1 << 20;
+    //number of blocks processed per parallel batch (per thread)
+    private static final int NUMBER_OF_BLOCKS_PER_BATCH_PER_THREAD = 4;
+    //sketch directions whose squared norm is below this fraction of the largest are treated as numerically zero
+    private static final double RELATIVE_EIGENVALUE_THRESHOLD = 1E-12;
+
+    private final int numComponents;
+    private final int numOversamples;
+    private final int numPowerIterations;
+    private final int numThreads;
+    private final long seed;
+
+    /**
+     * @param numComponents number of singular values and vectors to compute
+     * @param numThreads    number of threads used for products with the input matrix
+     */
+    public RandomizedSingularValueDecomposer(final int numComponents,
+                                             final int numThreads) {
+        this(numComponents, DEFAULT_NUMBER_OF_OVERSAMPLES, DEFAULT_NUMBER_OF_POWER_ITERATIONS, numThreads, DEFAULT_SEED);
+    }
+
+    /**
+     * @param numComponents         number of singular values and vectors to compute
+     * @param numOversamples        number of extra random directions used to sketch the range of the matrix
+     * @param numPowerIterations    number of power iterations used to sharpen the sketch
+     * @param numThreads            number of threads used for products with the input matrix
+     * @param seed                  seed for the random sketch
+     */
+    public RandomizedSingularValueDecomposer(final int numComponents,
+                                             final int numOversamples,
+                                             final int numPowerIterations,
+                                             final int numThreads,
+                                             final long seed) {
+        ParamUtils.isPositive(numComponents, "Number of components must be positive.");
+        ParamUtils.isPositiveOrZero(numOversamples, "Number of oversamples must be non-negative.");
+        ParamUtils.isPositiveOrZero(numPowerIterations, "Number of power iterations must be non-negative.");
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        this.numComponents = numComponents;
+        this.numOversamples = numOversamples;
+        this.numPowerIterations = numPowerIterations;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    /**
+     * Create a truncated SVD instance using a randomized range finder.
+     *
+     * @param m matrix that is not {@code null}
+     * @return SVD instance that is never {@code null}
+     */
+    @Override
+    public SVD createSVD(final RealMatrix m) {
+        Utils.nonNull(m, "Cannot create SVD on a null matrix.");
+
+        //we work with the tall orientation X of the matrix (i.e., X = m if m has at least as many rows as columns and
+        //X = m^T otherwise) and swap the singular vectors at the end if necessary
+        final boolean isTransposed = m.getColumnDimension() > m.getRowDimension();
+        final int numColumns = isTransposed ? m.getRowDimension() : m.getColumnDimension();
+        final BlockedOperations operations = new BlockedOperations(numThreads);
+        try {
+            final RowBlockSource x = new RowBlockSource(m, isTransposed);
+            final int sketchSize = Math.min(numComponents + numOversamples, numColumns);
+
+            logger.info(String.format("Calculating randomized SVD (%d components, sketch size %d) of %d x %d matrix using %d thread(s)...",
+                    numComponents, sketchSize, m.getRowDimension(), m.getColumnDimension(), numThreads));
+            final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(seed));
+            final double[][] omega = new double[numColumns][sketchSize];
+            for (final double[] row : omega) {
+                for (int j = 0; j < sketchSize; j++) {
+                    row[j] = rng.nextGaussian();
+                }
+            }
+
+            //find an orthonormal basis Q for the approximate range of X
+            double[][] q = orthonormalizeWithFallback(operations, operations.multiply(x, omega), sketchSize);
+            for (int iteration = 0; iteration < numPowerIterations; iteration++) {
+                logger.info(String.format("Performing power iteration %d of %d...", iteration + 1, numPowerIterations));
+                final double[][] z = orthonormalizeWithFallback(operations, operations.transposeMultiply(x, q), sketchSize);
+                q = orthonormalizeWithFallback(operations, operations.multiply(x, z), sketchSize);
+            }
+
+            //decompose the small matrix B^T = X^T Q = U_B' S V_B'^T, so that B = Q^T X = V_B' S U_B'^T
+            //and X ~ Q B = (Q V_B') S U_B'^T
+            final RealMatrix bTranspose = new Array2DRowRealMatrix(operations.transposeMultiply(x, q), false);
+            final SingularValueDecomposition svdB = new SingularValueDecomposition(bTranspose);
+            final int numComponentsFound = Math.min(numComponents, svdB.getSingularValues().length);
+            final double[] singularValues = Arrays.copyOf(svdB.getSingularValues(), numComponentsFound);
+            final double[][] leftVectorsB = svdB.getV().getSubMatrix(0, q[0].length - 1, 0, numComponentsFound - 1).getData();
+            final RealMatrix u = new Array2DRowRealMatrix(operations.multiply(q, leftVectorsB), false);
+            final RealMatrix v = svdB.getU().getSubMatrix(0, numColumns - 1, 0, numComponentsFound - 1);
+
+            return isTransposed
+                    ? new TruncatedSVD(v, singularValues, u)
+                    : new TruncatedSVD(u, singularValues, v);
+        } finally {
+            operations.shutdown();
+        }
+    }
+
+    /**
+     * Orthonormalizes the columns of {@code y}; if {@code y} is numerically zero, returns the first
+     * {@code min(sketchSize, number of rows)} canonical basis vectors instead.
+     */
+    private static double[][] orthonormalizeWithFallback(final BlockedOperations operations,
+                                                         final double[][] y,
+                                                         final int sketchSize) {
+        final double[][] q = operations.orthonormalize(y);
+        if (q[0].length > 0) {
+            return operations.orthonormalize(q);
+        }
+        final double[][] basis = new double[y.length][Math.min(sketchSize, y.length)];
+        for (int j = 0; j < basis[0].length; j++) {
+            basis[j][j] = 1.;
+        }
+        return basis;
+    }
+
+    /**
+     * Streams blocks of rows of the tall orientation of a matrix.
+     */
+    private static final class RowBlockSource {
+        private final RealMatrix m;
+        private final boolean isTransposed;
+        private final int numRows;
+        private final int numColumns;
+
+        private RowBlockSource(final RealMatrix m,
+                               final boolean isTransposed) {
+            this.m = m;
+            this.isTransposed = isTransposed;
+            numRows = isTransposed ? m.getColumnDimension() : m.getRowDimension();
+            numColumns = isTransposed ? m.getRowDimension() : m.getColumnDimension();
+        }
+
+        /**
+         * @return  rows [start, end) of the tall orientation, as a new array
+         */
+        private double[][] getRows(final int start,
+                                   final int end) {
+            return isTransposed
+                    ? m.getSubMatrix(0, numColumns - 1, start, end - 1).transpose().getData()
+                    : m.getSubMatrix(start, end - 1, 0, numColumns - 1).getData();
+        }
+    }
+
+    /**
+     * Dense products and orthonormalization over blocks of rows.
+     */
+    private static final class BlockedOperations {
+        private final int numThreads;
+        private final ForkJoinPool pool;
+
+        private BlockedOperations(final int numThreads) {
+            this.numThreads = numThreads;
+            pool = numThreads == 1 ? null : new ForkJoinPool(numThreads);
+        }
+
+        private void shutdown() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        @FunctionalInterface
+        private interface BlockFunction {
+            double[][] apply(final int start, final int end);
+        }
+
+        /**
+         * @return  X Y, where X is streamed from {@code x}
+         */
+        private double[][] multiply(final RowBlockSource x,
+                                    final double[][] y) {
+            return mapBlocks(x.numRows, x.numColumns, (start, end) -> multiplyArrays(x.getRows(start, end), y));
+        }
+
+        /**
+         * @return  X^T Y, where X is streamed from {@code x}
+         */
+        private double[][] transposeMultiply(final RowBlockSource x,
+                                             final double[][] y) {
+            return sumBlocks(x.numRows, x.numColumns, y[0].length,
+                    (start, end) -> transposeMultiplyArrays(x.getRows(start, end), y, start));
+        }
+
+        /**
+         * @return  X Y
+         */
+        private double[][] multiply(final double[][] x,
+                                    final double[][] y) {
+            return mapBlocks(x.length, x[0].length, (start, end) -> multiplyArrays(Arrays.copyOfRange(x, start, end), y));
+        }
+
+        /**
+         * Orthonormalizes the columns of Y via the eigendecomposition of the Gram matrix Y^T Y = W L W^T, returning
+         * Y W L^(-1/2) restricted to the numerically non-zero eigenvalues.  Loss of orthogonality scales with the square
+         * of the condition number of Y, so this should be applied twice (as in CholeskyQR2).
+         */
+        private double[][] orthonormalize(final double[][] y) {
+            final int numColumns = y[0].length;
+            final double[][] gram = sumBlocks(y.length, numColumns, numColumns,
+                    (start, end) -> transposeMultiplyArrays(y, y, start, end));
+            final EigenDecomposition eigenDecomposition = new EigenDecomposition(new Array2DRowRealMatrix(gram, false));
+            final double[] eigenvalues = eigenDecomposition.getRealEigenvalues();
+            final double maxEigenvalue = Arrays.stream(eigenvalues).max().orElse(0.);
+            final int[] retainedIndices = IntStream.range(0, numColumns)
+                    .filter(i -> maxEigenvalue > 0. && eigenvalues[i] > RELATIVE_EIGENVALUE_THRESHOLD * maxEigenvalue)
+                    .toArray();
+            if (retainedIndices.length == 0) {
+                return new double[y.length][0];
+            }
+            final double[][] transform = new double[numColumns][retainedIndices.length];
+            for (int j = 0; j < retainedIndices.length; j++) {
+                final int eigenIndex = retainedIndices[j];
+                final double scale = 1. / Math.sqrt(eigenvalues[eigenIndex]);
+                final double[] eigenvector = eigenDecomposition.getEigenvector(eigenIndex).toArray();
+                for (int i = 0; i < numColumns; i++) {
+                    transform[i][j] = eigenvector[i] * scale;
+                }
+            }
+            return multiply(y, transform);
+        }
+
+        private int getBlockSize(final int numColumns) {
+            return Math.max(1, TARGET_NUMBER_OF_ELEMENTS_PER_BLOCK / Math.max(1, numColumns));
+        }
+
+        /**
+         * Concatenates the rows returned for each block of rows [start, end) of a matrix with {@code numRows} rows.
+         */
+        private double[][] mapBlocks(final int numRows,
+                                     final int numColumns,
+                                     final BlockFunction blockFunction) {
+            final int blockSize = getBlockSize(numColumns);
+            final double[][] result = new double[numRows][];
+            forEachBatch(numRows, blockSize, (blockIndex, blockResult) -> {
+                final int start = blockIndex * blockSize;
+                System.arraycopy(blockResult, 0, result, start, blockResult.length);
+            }, blockFunction);
+            return result;
+        }
+
+        /**
+         * Sums, in block order, the {@code numResultRows} x {@code numResultColumns} partial results returned for
+         * each block of rows [start, end) of a matrix with {@code numRows} rows and {@code numColumns} columns.
+         */
+        private double[][] sumBlocks(final int numRows,
+                                     final int numColumns,
+                                     final int numResultColumns,
+                                     final BlockFunction blockFunction) {
+            final int blockSize = getBlockSize(numColumns);
+            final double[][][] sum = new double[1][][];
+            forEachBatch(numRows, blockSize, (blockIndex, blockResult) -> {
+                if (sum[0] == null) {
+                    sum[0] = blockResult;
+                    return;
+                }
+                for (int i = 0; i < blockResult.length; i++) {
+                    for (int j = 0; j < numResultColumns; j++) {
+                        sum[0][i][j] += blockResult[i][j];
+                    }
+                }
+            }, blockFunction);
+            return sum[0];
+        }
+
+        @FunctionalInterface
+        private interface BlockConsumer {
+            void accept(final int blockIndex, final double[][] blockResult);
+        }
+
+        /**
+         * Computes the block results in batches (in parallel within each batch when more than one thread is
+         * available) and passes them to {@code consumer} sequentially in block order.
+         */
+        private void forEachBatch(final int numRows,
+                                  final int blockSize,
+                                  final BlockConsumer consumer,
+                                  final BlockFunction blockFunction) {
+            final int numBlocks = (numRows + blockSize - 1) / blockSize;
+            final int batchSize = pool == null ? 1 : numThreads * NUMBER_OF_BLOCKS_PER_BATCH_PER_THREAD;
+            for (int batchStart = 0; batchStart < numBlocks; batchStart += batchSize) {
+                final int batchEnd = Math.min(batchStart + batchSize, numBlocks);
+                final List<double[][]> blockResults = computeBatch(batchStart, batchEnd, blockIndex ->
+                        blockFunction.apply(blockIndex * blockSize, Math.min((blockIndex + 1) * blockSize, numRows)));
+                for (int blockIndex = batchStart; blockIndex < batchEnd; blockIndex++) {
+                    consumer.accept(blockIndex, blockResults.get(blockIndex - batchStart));
+                }
+            }
+        }
+
+        private List<double[][]> computeBatch(final int batchStart,
+                                              final int batchEnd,
+                                              final IntFunction<double[][]> blockComputation) {
+            if (pool == null) {
+                return IntStream.range(batchStart, batchEnd).mapToObj(blockComputation).collect(Collectors.toList());
+            }
+            try {
+                return pool.submit(() -> IntStream.range(batchStart, batchEnd).parallel()
+                        .mapToObj(blockComputation)
+                        .collect(Collectors.toList())).get();
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Problem computing randomized SVD", e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while computing randomized SVD", e);
+            }
+        }
+    }
+
+    /**
+     * @return  A B, where A is r x s and B is s x t
+     */
+    private static double[][] multiplyArrays(final double[][] a,
+                                             final double[][] b) {
+        final int numColumns = b[0].length;
+        final double[][] result = new double[a.length][numColumns];
+        for (int i = 0; i < a.length; i++) {
+            final double[] aRow = a[i];
+            final double[] resultRow = result[i];
+            for (int k = 0; k < aRow.length; k++) {
+                final double aik = aRow[k];
+                if (aik == 0.) {
+                    continue;
+                }
+                final double[] bRow = b[k];
+                for (int j = 0; j < numColumns; j++) {
+                    resultRow[j] += aik * bRow[j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return  A_block^T B_block, where A_block is the entire (block) array {@code a} and B_block is rows
+     *          [offset, offset + a.length) of {@code b}
+     */
+    private static double[][] transposeMultiplyArrays(final double[][] a,
+                                                      final double[][] b,
+                                                      final int offset) {
+        return transposeMultiplyArrays(a, 0, b, offset, a.length);
+    }
+
+    /**
+     * @return  A_block^T B_block, where A_block and B_block are rows [start, end) of {@code a} and {@code b}
+     */
+    private static double[][] transposeMultiplyArrays(final double[][] a,
+                                                      final double[][] b,
+                                                      final int start,
+                                                      final int end) {
+        return transposeMultiplyArrays(a, start, b, start, end - start);
+    }
+
+    private static double[][] transposeMultiplyArrays(final double[][] a,
+                                                      final int aOffset,
+                                                      final double[][] b,
+                                                      final int bOffset,
+                                                      final int numRows) {
+        final int numResultRows = a[aOffset].length;
+        final int numResultColumns = b[bOffset].length;
+        final double[][] result = new double[numResultRows][numResultColumns];
+        for (int r = 0; r < numRows; r++) {
+            final double[] aRow = a[aOffset + r];
+            final double[] bRow = b[bOffset + r];
+            for (int i = 0; i < numResultRows; i++) {
+                final double ari = aRow[i];
+                if (ari == 0.) {
+                    continue;
+                }
+                final double[] resultRow = result[i];
+                for (int j = 0; j < numResultColumns; j++) {
+                    resultRow[j] += ari * bRow[j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * SVD with a pseudoinverse V S^+ U^T that is only computed on request, since it is as large as the input matrix.
+     */
+    private static final class TruncatedSVD implements SVD {
+        private final RealMatrix u;
+        private final double[] singularValues;
+        private final RealMatrix v;
+        private final Lazy<RealMatrix> pinv;
+
+        private TruncatedSVD(final RealMatrix u,
+                             final double[] singularValues,
+                             final RealMatrix v) {
+            this.u = u;
+            this.singularValues = singularValues;
+            this.v = v;
+            pinv = new Lazy<>(() -> {
+                final RealMatrix vScaled = v.copy();
+                for (int j = 0; j < singularValues.length; j++) {
+                    final double inverse = singularValues[j] > 0. ? 1. / singularValues[j] : 0.;
+                    vScaled.setColumnVector(j, vScaled.getColumnVector(j).mapMultiply(inverse));
+                }
+                return vScaled.multiply(u.transpose());
+            });
+        }
+
+        @Override
+        public RealMatrix getV() {
+            return v;
+        }
+
+        @Override
+        public RealMatrix getU() {
+            return u;
+        }
+
+        @Override
+        public double[] getSingularValues() {
+            return singularValues;
+        }
+
+        @Override
+        public RealMatrix getPinv() {
+            return pinv.get();
+        }
+    }
+}
@@ -9,6 +9,12 @@ import org.broadinstitute.hellbender.utils.Utils;
  */
 public final class SVDFactory {
 
+    /**
+     * A randomized truncated SVD is used when the number of requested components is at most this fraction of the
+     * smaller dimension of the matrix.
+     */
+    public static final double MAXIMUM_COMPONENT_FRACTION_FOR_RANDOMIZED_SVD = 0.1;
+
     /**
      * Create a SVD instance using Apache Commons Math.
      *
@@ -34,4 +40,14 @@ public final class SVDFactory {
         }
         return new SparkSingularValueDecomposer(ctx).createSVD(m);
     }
+
+    /**
+     * @return  whether a {@link RandomizedSingularValueDecomposer} should be used for a matrix of the given dimensions,
+     *          i.e., whether the number of components is much smaller than the maximum possible rank
+     */
+    public static boolean isRandomizedSVDPreferred(final int numRows,
+                                                   final int numColumns,
+                                                   final int numComponents) {
+        return numComponents <= MAXIMUM_COMPONENT_FRACTION_FOR_RANDOMIZED_SVD * Math.min(numRows, numColumns);
+    }
 }
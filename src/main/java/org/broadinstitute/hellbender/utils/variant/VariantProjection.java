@@ -0,0 +1,154 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The parts of each variant record that a tool needs: which INFO keys, which FORMAT keys and which samples.
+ * A source of variants that supports projection (see {@link org.broadinstitute.hellbender.utils.codecs.ProjectingVCFCodec})
+ * may skip decoding everything else, so the VariantContexts it produces have only the projected INFO attributes,
+ * FORMAT fields and genotypes, and its header has only the projected samples.
+ *
+ * Each of the three parts may be left unrestricted, in which case all of them are kept. Standard VCF columns
+ * (CHROM, POS, ID, REF, ALT, QUAL and FILTER) are always kept, and so is the END INFO key, since without it the
+ * end of a symbolic or reference block record would be wrong.
+ */
+public final class VariantProjection implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A projection that keeps everything
+     */
+    public static final VariantProjection ALL = new VariantProjection(null, null, null);
+
+    // null means unrestricted
+    private final Set<String> infoKeys;
+    private final Set<String> formatKeys;
+    private final Set<String> samples;
+
+    // the same keys indexed by length, so that keys can be matched in place in the text of a record
+    private final String[][] infoKeysByLength;
+    private final String[][] formatKeysByLength;
+
+    private VariantProjection(final Set<String> infoKeys, final Set<String> formatKeys, final Set<String> samples) {
+        this.infoKeys = infoKeys;
+        this.formatKeys = formatKeys;
+        this.samples = samples;
+        this.infoKeysByLength = indexByLength(infoKeys);
+        this.formatKeysByLength = indexByLength(formatKeys);
+    }
+
+    /**
+     * @return a projection like this one that keeps only the given INFO keys
+     */
+    public VariantProjection withInfoKeys(final Collection<String> keys) {
+        return new VariantProjection(immutableCopy(keys), formatKeys, samples);
+    }
+
+    /**
+     * @return a projection like this one that keeps only the given FORMAT keys
+     */
+    public VariantProjection withFormatKeys(final Collection<String> keys) {
+        return new VariantProjection(infoKeys, immutableCopy(keys), samples);
+    }
+
+    /**
+     * @return a projection like this one that keeps only the genotypes of the given samples
+     */
+    public VariantProjection withSamples(final Collection<String> sampleNames) {
+        return new VariantProjection(infoKeys, formatKeys, immutableCopy(sampleNames));
+    }
+
+    private static Set<String> immutableCopy(final Collection<String> values) {
+        Utils.nonNull(values);
+        return Collections.unmodifiableSet(new LinkedHashSet<>(values));
+    }
+
+    private static String[][] indexByLength(final Set<String> keys) {
+        if (keys == null) {
+            return null;
+        }
+        final int maxLength = keys.stream().mapToInt(String::length).max().orElse(0);
+        final String[][] byLength = new String[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            final int keyLength = length;
+            byLength[length] = keys.stream().filter(key -> key.length() == keyLength).toArray(String[]::new);
+        }
+        return byLength;
+    }
+
+    // whether text[start, end) is one of the keys, without making a String of it
+    private static boolean containsKey(final String[][] keysByLength, final String text, final int start, final int end) {
+        final int length = end - start;
+        if (length >= keysByLength.length) {
+            return false;
+        }
+        for (final String key : keysByLength[length]) {
+            if (text.regionMatches(start, key, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean keepsInfoKey(final String key) {
+        return infoKeys == null || infoKeys.contains(key) || key.equals(VCFConstants.END_KEY);
+    }
+
+    /**
+     * @return whether the INFO key that is {@code text[start, end)} is kept
+     */
+    public boolean keepsInfoKey(final String text, final int start, final int end) {
+        return infoKeys == null || containsKey(infoKeysByLength, text, start, end) ||
+                end - start == VCFConstants.END_KEY.length() && text.startsWith(VCFConstants.END_KEY, start);
+    }
+
+    public boolean keepsFormatKey(final String key) {
+        return formatKeys == null || formatKeys.contains(key);
+    }
+
+    /**
+     * @return whether the FORMAT key that is {@code text[start, end)} is kept
+     */
+    public boolean keepsFormatKey(final String text, final int start, final int end) {
+        return formatKeys == null || containsKey(formatKeysByLength, text, start, end);
+    }
+
+    public boolean keepsSample(final String sample) {
+        return samples == null || samples.contains(sample);
+    }
+
+    public boolean keepsAllInfoKeys() {
+        return infoKeys == null;
+    }
+
+    public boolean keepsAllFormatKeys() {
+        return formatKeys == null;
+    }
+
+    public boolean keepsAllSamples() {
+        return samples == null;
+    }
+
+    /**
+     * @return true if this projection keeps everything
+     */
+    public boolean isUnrestricted() {
+        return infoKeys == null && formatKeys == null && samples == null;
+    }
+
+    @Override
+    public String toString() {
+        return "VariantProjection{" +
+                "infoKeys=" + (infoKeys == null ? "all" : infoKeys) +
+                ", formatKeys=" + (formatKeys == null ? "all" : formatKeys) +
+                ", samples=" + (samples == null ? "all" : samples.size()) +
+                '}';
+    }
+}
@@ -84,7 +84,11 @@ public abstract class GVCFBlock implements Locatable {
     }
 
     public boolean isContiguous(final VariantContext vc) {
-        return (vc.getStart() == getEnd() + 1) && startingVC.getContig().equals(vc.getContig());
+        return isContiguous(vc.getContig(), vc.getStart());
+    }
+
+    public boolean isContiguous(final String contig, final int start) {
+        return (start == getEnd() + 1) && startingVC.getContig().equals(contig);
     }
 
     public VariantContext getStartingVC() {
@@ -39,7 +39,7 @@ public class GVCFBlockCombiner implements PushPullTransformer<VariantContext> {
      */
     private int nextAvailableStart = -1;
     private String contigOfNextAvailableStart = null;
-    private String sampleName = null;
+    String sampleName = null;
 
     GVCFBlock currentBlock = null;
 
@@ -116,16 +116,8 @@ public class GVCFBlockCombiner implements PushPullTransformer<VariantContext> {
      */
     protected VariantContext addHomRefSite(final VariantContext vc, final Genotype g) {
 
-        if (nextAvailableStart != -1) {
-            //there's a use case here related to ReblockGVCFs for overlapping deletions on different haplotypes
-            if ( vc.getStart() <= nextAvailableStart && vc.getContig().equals(contigOfNextAvailableStart) ) {
-                if (vc.getEnd() <= nextAvailableStart) {
-                    return null;
-                }
-            }
-            // otherwise, reset to non-relevant
-            nextAvailableStart = -1;
-            contigOfNextAvailableStart = null;
+        if (isCoveredByPreviousVariant(vc.getContig(), vc.getStart(), vc.getEnd())) {
+            return null;
         }
 
         final VariantContext result;
@@ -139,12 +131,37 @@ public class GVCFBlockCombiner implements PushPullTransformer<VariantContext> {
         return result;
     }
 
+    /**
+     * Is the site spanned by the previous variant? (There's a use case here related to ReblockGVCFs for overlapping
+     * deletions on different haplotypes.) Once a site past the previous variant is seen, it is forgotten.
+     */
+    boolean isCoveredByPreviousVariant(final String contig, final int start, final int end) {
+        if (nextAvailableStart != -1) {
+            if ( start <= nextAvailableStart && contig.equals(contigOfNextAvailableStart) ) {
+                if (end <= nextAvailableStart) {
+                    return true;
+                }
+            }
+            // otherwise, reset to non-relevant
+            nextAvailableStart = -1;
+            contigOfNextAvailableStart = null;
+        }
+        return false;
+    }
+
     boolean genotypeCanBeMergedInCurrentBlock(final Genotype g) {
+        return canBeMergedInCurrentBlock(g.getGQ(), g.getPloidy(), g.hasPL() ? g.getPL().length : -1);
+    }
+
+    /**
+     * @param plLength the number of PLs of the genotype, or -1 if it has none
+     */
+    boolean canBeMergedInCurrentBlock(final int gq, final int ploidy, final int plLength) {
         final HomRefBlock currentHomRefBlock = (HomRefBlock)currentBlock;
         return currentHomRefBlock != null
-                && currentHomRefBlock.withinBounds(Math.min(g.getGQ(), MAX_GENOTYPE_QUAL))
-                && currentHomRefBlock.getPloidy() == g.getPloidy()
-                && (currentHomRefBlock.getMinPLs() == null || !g.hasPL() || (currentHomRefBlock.getMinPLs().length == g.getPL().length));
+                && currentHomRefBlock.withinBounds(Math.min(gq, MAX_GENOTYPE_QUAL))
+                && currentHomRefBlock.getPloidy() == ploidy
+                && (currentHomRefBlock.getMinPLs() == null || plLength < 0 || (currentHomRefBlock.getMinPLs().length == plLength));
     }
 
     /**
@@ -172,7 +189,7 @@ public class GVCFBlockCombiner implements PushPullTransformer<VariantContext> {
     /**
      * Flush the current hom-ref block, if necessary, to the underlying writer, and reset the currentBlock to null
      */
-    private void emitCurrentBlock() {
+    void emitCurrentBlock() {
         if (currentBlock != null) {
             toOutput.add(currentBlock.toVariantContext(sampleName, floorBlocks));
             this.currentBlock = null;
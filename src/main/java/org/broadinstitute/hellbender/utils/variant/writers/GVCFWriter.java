@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.variant.writers;
 
+import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
@@ -39,7 +40,7 @@ public class GVCFWriter implements VariantContextWriter {
      */
     public GVCFWriter(final VariantContextWriter underlyingWriter, final List<Number> gqPartitions, final int defaultPloidy, final boolean floorBlocks) {
         this.underlyingWriter = Utils.nonNull(underlyingWriter);
-        this.gvcfBlockCombiner = new GVCFBlockCombiner(gqPartitions, defaultPloidy, floorBlocks);
+        this.gvcfBlockCombiner = new GermlineGVCFBlockCombiner(gqPartitions, defaultPloidy, floorBlocks);
     }
 
     public GVCFWriter(final VariantContextWriter underlyingWriter, final List<Number> gqPartitions, final int defaultPloidy) {
@@ -92,6 +93,26 @@ public class GVCFWriter implements VariantContextWriter {
         output();
     }
 
+    /**
+     * @return whether this writer's blocks can be built from primitive hom-ref sites, see {@link #addHomRefSite}
+     */
+    public boolean acceptsHomRefSites() {
+        return gvcfBlockCombiner instanceof GermlineGVCFBlockCombiner;
+    }
+
+    /**
+     * Add a single hom-ref reference confidence site for emission without creating a VariantContext for it.
+     * Only valid if {@link #acceptsHomRefSites()}.
+     *
+     * @see GermlineGVCFBlockCombiner#submitHomRefSite
+     */
+    public void addHomRefSite(final String contig, final int position, final Allele refAllele, final String sampleName,
+                              final int ploidy, final int gq, final int dp, final int[] pls) {
+        Utils.validate(acceptsHomRefSites(), "this GVCF writer only accepts VariantContexts");
+        ((GermlineGVCFBlockCombiner) gvcfBlockCombiner).submitHomRefSite(contig, position, refAllele, sampleName, ploidy, gq, dp, pls);
+        output();
+    }
+
     private void output() {
         if (gvcfBlockCombiner.hasFinalizedItems()) {
             gvcfBlockCombiner.consumeFinalizedItems().forEach(underlyingWriter::add);
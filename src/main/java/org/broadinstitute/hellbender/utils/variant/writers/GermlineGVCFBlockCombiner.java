@@ -0,0 +1,68 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import com.google.common.collect.Range;
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.List;
+
+import static htsjdk.variant.vcf.VCFConstants.MAX_GENOTYPE_QUAL;
+
+/**
+ * Combines germline variants into GQ-banded hom-ref blocks, and also accepts hom-ref sites as primitives.
+ */
+public final class GermlineGVCFBlockCombiner extends GVCFBlockCombiner {
+
+    public GermlineGVCFBlockCombiner(List<Number> gqPartitions, int defaultPloidy, boolean floorBlocks) {
+        super(gqPartitions, defaultPloidy, floorBlocks);
+    }
+
+    /**
+     * Add a single hom-ref reference confidence site to the blocks without creating a VariantContext or Genotype for it.
+     * This is equivalent to submitting a VariantContext at the site with the reference and {@link Allele#NON_REF_ALLELE}
+     * alleles and a single hom-ref genotype with the given GQ, DP, and PLs (and no posteriors), but only the
+     * completed blocks are ever materialized as VariantContexts.
+     *
+     * @param contig contig of the site
+     * @param position position of the site
+     * @param refAllele the reference allele at the site
+     * @param sampleName the name of the sample
+     * @param ploidy ploidy of the hom-ref genotype
+     * @param gq GQ of the hom-ref genotype
+     * @param dp DP of the hom-ref genotype
+     * @param pls PLs of the hom-ref genotype. The array may be kept and modified by this combiner.
+     */
+    public void submitHomRefSite(final String contig, final int position, final Allele refAllele, final String sampleName,
+                                 final int ploidy, final int gq, final int dp, final int[] pls) {
+        Utils.nonNull(contig);
+        Utils.nonNull(refAllele);
+        Utils.nonNull(pls);
+
+        if (this.sampleName == null) {
+            this.sampleName = sampleName;
+        }
+
+        if (currentBlock != null && !currentBlock.isContiguous(contig, position)) {
+            // we've made a non-contiguous step (across interval, onto another chr), so finalize
+            emitCurrentBlock();
+        }
+
+        if (isCoveredByPreviousVariant(contig, position, position)) {
+            return;
+        }
+
+        if (canBeMergedInCurrentBlock(gq, ploidy, pls.length)) {
+            ((HomRefBlock)currentBlock).add(position, position, ploidy, gq, dp, pls, null);
+        } else {
+            emitCurrentBlock();
+            final Range<Integer> partition = gqPartitions.get(Math.min(gq, MAX_GENOTYPE_QUAL));
+            if( partition == null) {
+                throw new GATKException("GQ " + gq + " at " + contig + ":" + position + " didn't fit into any partition");
+            }
+            final HomRefBlock block = new HomRefBlock(contig, position, refAllele, partition.lowerEndpoint(), partition.upperEndpoint(), ploidy);
+            block.add(position, position, ploidy, gq, dp, pls, null);
+            currentBlock = block;
+        }
+    }
+}
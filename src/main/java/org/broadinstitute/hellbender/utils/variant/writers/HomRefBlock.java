@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -30,6 +31,7 @@ import java.util.List;
 final class HomRefBlock extends GVCFBlock {
 
     private static final int HOM_REF_PL_POSITION = 0;  //the first value in the minPL[] is always the HomRef
+    private static final String HOM_REF_SITE_SOURCE = "GVCF";
 
     private final int ploidy;
 
@@ -52,6 +54,21 @@ final class HomRefBlock extends GVCFBlock {
         this.ploidy = startingVC.getMaxPloidy(defaultPloidy);
     }
 
+    /**
+     * Create a new HomRefBlock starting at a single hom-ref site that was not given as a VariantContext
+     *
+     * @param contig the contig of the starting site
+     * @param start the position of the starting site
+     * @param ref the reference allele at the starting site
+     * @param lowerGQBound the lowerGQBound (inclusive) to use in this band
+     * @param upperGQBound the upperGQBound (exclusive) to use in this band
+     * @param ploidy the ploidy of the genotypes in this band
+     */
+    HomRefBlock(final String contig, final int start, final Allele ref, final int lowerGQBound, final int upperGQBound, final int ploidy) {
+        this(new VariantContextBuilder(HOM_REF_SITE_SOURCE, contig, start, start, Arrays.asList(ref, Allele.NON_REF_ALLELE)).make(),
+                lowerGQBound, upperGQBound, ploidy);
+    }
+
 
 
     // create a single Genotype with GQ and DP annotations
@@ -89,19 +106,36 @@ final class HomRefBlock extends GVCFBlock {
     public void add(final int pos, final int newEnd, final Genotype genotype) {
         Utils.nonNull(genotype, "genotype cannot be null");
         if ( ! genotype.hasPL() ) { throw new IllegalArgumentException("genotype must have PL field");}
+        final int[] pps = genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY) ?
+                PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype) : null;
+        add(pos, newEnd, genotype.getPloidy(), genotype.getGQ(), genotype.getDP(), genotype.getPL(), pps);
+    }
+
+    /**
+     * Add a hom-ref site or block given by its genotype's fields to the current block
+     *
+     * @param pos current genomic position
+     * @param newEnd new calculated block end position
+     * @param genotypePloidy ploidy of the genotype
+     * @param gq GQ of the genotype
+     * @param dp DP of the genotype
+     * @param pls non-null PLs of the genotype. The array may be kept and modified by this block.
+     * @param pps phred-scaled posteriors of the genotype, or null if it has none. The array may be kept and modified by this block.
+     */
+    void add(final int pos, final int newEnd, final int genotypePloidy, final int gq, final int dp, final int[] pls, final int[] pps) {
+        Utils.nonNull(pls, "PLs cannot be null");
         if ( pos != end + 1 ) { throw new IllegalArgumentException("adding genotype at pos " + pos + " isn't contiguous with previous end " + end); }
-        if ( genotype.getPloidy() != ploidy) { throw new IllegalArgumentException("cannot add a genotype with a different ploidy: " + genotype.getPloidy() + " != " + ploidy); }
+        if ( genotypePloidy != ploidy) { throw new IllegalArgumentException("cannot add a genotype with a different ploidy: " + genotypePloidy + " != " + ploidy); }
         // Make sure the GQ is within the bounds of this band. Treat GQs > 99 as 99.
-        if ( !withinBounds(Math.min(genotype.getGQ(), VCFConstants.MAX_GENOTYPE_QUAL))) {
-            throw new IllegalArgumentException("cannot add a genotype with GQ=" + genotype.getGQ() + " because it's not within bounds ["
+        if ( !withinBounds(Math.min(gq, VCFConstants.MAX_GENOTYPE_QUAL))) {
+            throw new IllegalArgumentException("cannot add a genotype with GQ=" + gq + " because it's not within bounds ["
                     + this.getGQLowerBound() + ',' + this.getGQUpperBound() + ')');
         }
 
         if( minPLs == null ) {
-            minPLs = genotype.getPL();
+            minPLs = pls;
         }
         else { // otherwise take the min with the provided genotype's PLs
-            final int[] pls = genotype.getPL();
             if (pls.length != minPLs.length) {
                 throw new GATKException("trying to merge different PL array sizes: " + pls.length + " != " + minPLs.length);
             }
@@ -110,12 +144,11 @@ final class HomRefBlock extends GVCFBlock {
             }
         }
 
-        if( genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY)) {
+        if( pps != null ) {
             if (minPPs == null ) {
-                minPPs = PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype);
+                minPPs = pps;
             }
             else { // otherwise take the min with the provided genotype's PLs
-                final int[] pps = PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype);
                 if (pps.length != minPPs.length) {
                     throw new GATKException("trying to merge different PP array sizes: " + pps.length + " != " + minPPs.length);
                 }
@@ -126,7 +159,7 @@ final class HomRefBlock extends GVCFBlock {
         }
 
         end = newEnd;
-        DPs.add(Math.max(genotype.getDP(), 0)); // DP must be >= 0
+        DPs.add(Math.max(dp, 0)); // DP must be >= 0
     }
 
     /** Get the min PLs observed within this band, can be null if no PLs have yet been observed */
@@ -0,0 +1,227 @@
+package org.broadinstitute.hellbender;
+
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+public final class MainServerUnitTest extends GATKBaseTest {
+
+    @CommandLineProgramProperties(
+            programGroup = TestProgramGroup.class,
+            summary = "MainServer test",
+            oneLineSummary = "MainServer test",
+            omitFromCommandLine = true)
+    public static final class ServerTestCLP extends CommandLineProgram {
+        public static final String MESSAGE = "hello from the server";
+
+        @Override
+        protected Object doWork() {
+            System.out.println(MESSAGE);
+            return null;
+        }
+    }
+
+    @CommandLineProgramProperties(
+            programGroup = TestProgramGroup.class,
+            summary = "MainServer test that fails with an Error and leaves a System property behind",
+            oneLineSummary = "MainServer test that fails with an Error",
+            omitFromCommandLine = true)
+    public static final class ServerTestErrorCLP extends CommandLineProgram {
+        public static final String MESSAGE = "error from the server";
+        public static final String PROPERTY = "gatk.mainServerTest.property";
+
+        @Override
+        protected Object doWork() {
+            System.setProperty(PROPERTY, "set by a command");
+            throw new AssertionError(MESSAGE);
+        }
+    }
+
+    private static final class ServerTestMain extends Main {
+        @Override
+        protected List<Class<? extends CommandLineProgram>> getClassList() {
+            return Arrays.asList(ServerTestCLP.class, ServerTestErrorCLP.class);
+        }
+    }
+
+    /** The response to a request, as a client would see it */
+    private static final class Response {
+        final StringBuilder stdout = new StringBuilder();
+        final StringBuilder stderr = new StringBuilder();
+        Integer exitValue = null;
+        String rejection = null;
+    }
+
+    private int port;
+    private String token;
+    private Thread serverThread;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        port = serverSocket.getLocalPort();
+        token = MainServer.createToken();
+        final MainServer server = new MainServer(serverSocket, new ServerTestMain(), token);
+        serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() throws IOException, InterruptedException {
+        final Response response = send(System.getProperty("user.dir"), MainServer.SHUTDOWN_COMMAND);
+        Assert.assertEquals(response.exitValue, Integer.valueOf(0));
+        serverThread.join(10000);
+        Assert.assertFalse(serverThread.isAlive());
+    }
+
+    private Response send(final String workingDirectory, final String... args) throws IOException {
+        return sendWithToken(token, workingDirectory, args);
+    }
+
+    private Response sendWithToken(final String token, final String workingDirectory, final String... args) throws IOException {
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MainServer.PROTOCOL_VERSION);
+            writeString(out, token);
+            writeString(out, workingDirectory);
+            out.writeInt(args.length);
+            for (final String arg : args) {
+                writeString(out, arg);
+            }
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final Response response = new Response();
+            while (response.exitValue == null && response.rejection == null) {
+                final byte frameType = in.readByte();
+                switch (frameType) {
+                    case MainServer.STDOUT: response.stdout.append(readString(in)); break;
+                    case MainServer.STDERR: response.stderr.append(readString(in)); break;
+                    case MainServer.EXIT: response.exitValue = in.readInt(); break;
+                    case MainServer.REJECTED: response.rejection = readString(in); break;
+                    default: Assert.fail("unexpected frame type " + frameType);
+                }
+            }
+            return response;
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRunsCommandsAndCapturesOutput() throws IOException {
+        final PrintStream stdout = System.out;
+        for (int i = 0; i < 2; i++) {
+            final Response response = send(System.getProperty("user.dir"), ServerTestCLP.class.getSimpleName());
+            Assert.assertNull(response.rejection);
+            Assert.assertEquals(response.exitValue, Integer.valueOf(0));
+            Assert.assertTrue(response.stdout.toString().contains(ServerTestCLP.MESSAGE), response.stdout.toString());
+        }
+        Assert.assertSame(System.out, stdout);
+    }
+
+    @Test
+    public void testReportsUserErrors() throws IOException {
+        final Response response = send(System.getProperty("user.dir"), "NoSuchTool");
+        Assert.assertEquals(response.exitValue, Integer.valueOf(Main.USER_EXCEPTION_EXIT_VALUE));
+        Assert.assertTrue(response.stderr.toString().contains("A USER ERROR has occurred"), response.stderr.toString());
+    }
+
+    @Test
+    public void testReportsErrorsAndKeepsServing() throws IOException {
+        final Response response = send(System.getProperty("user.dir"), ServerTestErrorCLP.class.getSimpleName());
+        Assert.assertNull(response.rejection);
+        Assert.assertNotNull(response.exitValue);
+        Assert.assertNotEquals(response.exitValue, Integer.valueOf(0));
+        Assert.assertTrue(response.stderr.toString().contains(ServerTestErrorCLP.MESSAGE), response.stderr.toString());
+        Assert.assertNull(System.getProperty(ServerTestErrorCLP.PROPERTY));
+
+        Assert.assertTrue(serverThread.isAlive());
+        Assert.assertEquals(send(System.getProperty("user.dir"), ServerTestCLP.class.getSimpleName()).exitValue, Integer.valueOf(0));
+    }
+
+    @Test
+    public void testRejectsOtherWorkingDirectories() throws IOException {
+        final File otherDirectory = createTempDir("mainServer");
+        final Response response = send(otherDirectory.getAbsolutePath(), ServerTestCLP.class.getSimpleName());
+        Assert.assertNull(response.exitValue);
+        Assert.assertNotNull(response.rejection);
+        Assert.assertEquals(response.stdout.toString(), "");
+    }
+
+    @Test
+    public void testRejectsOtherProtocolVersions() throws IOException {
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(MainServer.PROTOCOL_VERSION + 1);
+            out.flush();
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            Assert.assertEquals(in.readByte(), MainServer.REJECTED);
+        }
+    }
+
+    @Test
+    public void testRejectsConnectionsWithoutToken() throws IOException {
+        final String otherToken = MainServer.createToken();
+        Assert.assertNotEquals(otherToken, token);
+        for (final String badToken : new String[]{"", otherToken, token.substring(1), token + "0"}) {
+            final Response response = sendWithToken(badToken, System.getProperty("user.dir"), ServerTestCLP.class.getSimpleName());
+            Assert.assertNull(response.exitValue);
+            Assert.assertNotNull(response.rejection);
+            Assert.assertEquals(response.stdout.toString(), "");
+        }
+
+        // nor can a client without the token shut the server down
+        Assert.assertNotNull(sendWithToken(otherToken, System.getProperty("user.dir"), MainServer.SHUTDOWN_COMMAND).rejection);
+        Assert.assertTrue(serverThread.isAlive());
+        Assert.assertEquals(send(System.getProperty("user.dir"), ServerTestCLP.class.getSimpleName()).exitValue, Integer.valueOf(0));
+    }
+
+    @Test
+    public void testTokenFileIsOwnerOnly() throws IOException {
+        final Path tokenFile = createTempDir("mainServerToken").toPath().resolve("gatk").resolve("server.token");
+        final String token = MainServer.createToken();
+        MainServer.writeTokenFile(tokenFile, token);
+        // a token file left behind by an earlier server is replaced
+        MainServer.writeTokenFile(tokenFile, token);
+        Assert.assertEquals(new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8), token);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals(Files.getPosixFilePermissions(tokenFile),
+                    EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+        }
+    }
+}
@@ -4,10 +4,26 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
+import org.broadinstitute.hellbender.engine.filters.VariantFilter;
+import org.broadinstitute.hellbender.engine.filters.VariantFilterLibrary;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
 public class MultiplePassVariantWalkerUnitTest extends GATKBaseTest {
+    private static final String TEST_VCF = "src/test/resources/org/broadinstitute/hellbender/tools/walkers/variantutils/VariantsToTable/multiallelic.vcf";
+
+    private static String summarize(final VariantContext variant) {
+        return String.join(" ", variant.getContig(), Integer.toString(variant.getStart()), variant.getID(),
+                variant.getAlleles().toString(), Double.toString(variant.getPhredScaledQual()),
+                new TreeMap<>(variant.getAttributes()).toString());
+    }
+
     @CommandLineProgramProperties(
             summary = "An example subclass of MultiplePassVariantWalker",
             oneLineSummary = "An example subclass of MultiplePassVariantWalker",
@@ -18,10 +34,21 @@ public class MultiplePassVariantWalkerUnitTest extends GATKBaseTest {
         public int firstPass = 0;
         public int secondPass = 0;
         public boolean visitedAfterFirstPass = false;
+        public final List<String> firstPassVariants = new ArrayList<>();
+        public final List<String> secondPassVariants = new ArrayList<>();
+        public VariantFilter variantFilter = VariantFilterLibrary.ALLOW_ALL_VARIANTS;
+        public CountingVariantFilter countingVariantFilter = null;
+
+        @Override
+        protected CountingVariantFilter makeVariantFilter() {
+            countingVariantFilter = new CountingVariantFilter(variantFilter);
+            return countingVariantFilter;
+        }
 
         @Override
         protected void firstPassApply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext) {
             firstPass++;
+            firstPassVariants.add(summarize(variant));
         }
 
         @Override
@@ -32,6 +59,7 @@ public class MultiplePassVariantWalkerUnitTest extends GATKBaseTest {
         @Override
         protected void secondPassApply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext) {
             secondPass++;
+            secondPassVariants.add(summarize(variant));
         }
     }
 
@@ -50,4 +78,52 @@ public class MultiplePassVariantWalkerUnitTest extends GATKBaseTest {
         Assert.assertTrue(walker.visitedAfterFirstPass);
     }
 
-}
\ No newline at end of file
+    @DataProvider(name = "maxCachedVariantsInRam")
+    public Object[][] getMaxCachedVariantsInRam() {
+        // all in memory, partly spilled to disk, and all spilled to disk
+        return new Object[][] { {1000}, {10}, {0} };
+    }
+
+    @Test(dataProvider = "maxCachedVariantsInRam")
+    public void testTwoPassTraversalWithCachedVariants(final int maxCachedVariantsInRam) {
+        final DummyMultiplePassVariantWalker walker = new DummyMultiplePassVariantWalker();
+        final String testVcf = "src/test/resources/org/broadinstitute/hellbender/tools/walkers/variantutils/VariantsToTable/multiallelic.vcf";
+
+        final String[] args = { "-V", testVcf,
+                "--" + MultiplePassVariantWalker.CACHE_VARIANTS_BETWEEN_PASSES_LONG_NAME,
+                "--" + MultiplePassVariantWalker.MAX_CACHED_VARIANTS_IN_RAM_LONG_NAME, Integer.toString(maxCachedVariantsInRam) };
+
+        walker.instanceMain(args);
+
+        final int expectedNumberOfVariantContexts = 52;
+        Assert.assertEquals(walker.firstPass, expectedNumberOfVariantContexts);
+        Assert.assertEquals(walker.secondPass, expectedNumberOfVariantContexts);
+        Assert.assertEquals(walker.secondPassVariants, walker.firstPassVariants);
+        Assert.assertTrue(walker.visitedAfterFirstPass);
+    }
+
+    @Test(dataProvider = "maxCachedVariantsInRam")
+    public void testFilterCountsDoNotDependOnCaching(final int maxCachedVariantsInRam) {
+        final DummyMultiplePassVariantWalker uncachedWalker = new DummyMultiplePassVariantWalker();
+        uncachedWalker.variantFilter = variant -> variant.getStart() % 2 == 0;
+        uncachedWalker.instanceMain(new String[]{ "-V", TEST_VCF });
+
+        final DummyMultiplePassVariantWalker cachedWalker = new DummyMultiplePassVariantWalker();
+        cachedWalker.variantFilter = variant -> variant.getStart() % 2 == 0;
+        cachedWalker.instanceMain(new String[]{ "-V", TEST_VCF,
+                "--" + MultiplePassVariantWalker.CACHE_VARIANTS_BETWEEN_PASSES_LONG_NAME,
+                "--" + MultiplePassVariantWalker.MAX_CACHED_VARIANTS_IN_RAM_LONG_NAME, Integer.toString(maxCachedVariantsInRam) });
+
+        final int numberOfVariantContexts = 52;
+        final int numberFilteredPerPass = numberOfVariantContexts - uncachedWalker.firstPass;
+        Assert.assertTrue(numberFilteredPerPass > 0 && uncachedWalker.firstPass > 0);
+        Assert.assertEquals(uncachedWalker.secondPass, uncachedWalker.firstPass);
+        Assert.assertEquals(cachedWalker.firstPass, uncachedWalker.firstPass);
+        Assert.assertEquals(cachedWalker.secondPass, uncachedWalker.secondPass);
+        Assert.assertEquals(cachedWalker.secondPassVariants, uncachedWalker.secondPassVariants);
+
+        // the filters see the variants on both passes, with or without the cache
+        Assert.assertEquals(uncachedWalker.countingVariantFilter.getFilteredCount(), 2 * numberFilteredPerPass);
+        Assert.assertEquals(cachedWalker.countingVariantFilter.getFilteredCount(), uncachedWalker.countingVariantFilter.getFilteredCount());
+    }
+}
@@ -0,0 +1,165 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import com.google.common.collect.ImmutableList;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ShardCostModelUnitTest extends GATKBaseTest {
+
+    private static final SAMSequenceDictionary DICTIONARY = new SAMSequenceDictionary(
+            ImmutableList.of(new SAMSequenceRecord("1", 10000), new SAMSequenceRecord("2", 3000)));
+
+    // contig 1 is split into ten 1kb bins, the first of which holds most of the cost
+    private static List<SimpleInterval> getBins() {
+        final List<SimpleInterval> bins = new ArrayList<>();
+        for (int start = 1; start <= 10000; start += 1000) {
+            bins.add(new SimpleInterval("1", start, start + 999));
+        }
+        return bins;
+    }
+
+    private static double[] getBinCosts() {
+        return new double[]{9000, 100, 100, 100, 100, 100, 100, 100, 100, 100};
+    }
+
+    @Test
+    public void testEstimateCost() {
+        final ShardCostModel model = new ShardCostModel(getBins(), getBinCosts());
+        Assert.assertEquals(model.estimateCost(new SimpleInterval("1", 1, 10000)), 9900.0, 1e-9);
+        Assert.assertEquals(model.estimateCost(new SimpleInterval("1", 251, 750)), 4500.0, 1e-9);
+        Assert.assertEquals(model.estimateCost(new SimpleInterval("1", 901, 1100)), 900.0 + 10.0, 1e-9);
+        Assert.assertEquals(model.estimateCost(new SimpleInterval("2", 1, 3000)), 0.0);
+    }
+
+    @Test
+    public void testSplitHotAndMergeCold() {
+        final ShardCostModel model = new ShardCostModel(getBins(), getBinCosts());
+        // the target cost is 9900 * 2000 / 10000 = 1980 per shard
+        final List<ShardBoundary> shards = model.divideIntervalsIntoShards(
+                Collections.singletonList(new SimpleInterval("1", 1, 10000)), 2000, 500, 5000, 100, DICTIONARY);
+        Assert.assertEquals(shards.stream().map(ShardBoundary::getInterval).collect(Collectors.toList()), ImmutableList.of(
+                new SimpleInterval("1", 1, 500),
+                new SimpleInterval("1", 501, 1000),
+                new SimpleInterval("1", 1001, 6000),
+                new SimpleInterval("1", 6001, 10000)));
+        Assert.assertEquals(shards.get(0).getPaddedSpan(), new SimpleInterval("1", 1, 600));
+        Assert.assertEquals(shards.get(2).getPaddedSpan(), new SimpleInterval("1", 901, 6100));
+    }
+
+    @Test
+    public void testShardsDoNotSpanIntervals() {
+        final ShardCostModel model = new ShardCostModel(getBins(), getBinCosts());
+        final List<SimpleInterval> intervals = ImmutableList.of(
+                new SimpleInterval("1", 2001, 2500), new SimpleInterval("1", 2601, 2700), new SimpleInterval("2", 1, 3000));
+        final List<ShardBoundary> shards = model.divideIntervalsIntoShards(intervals, 1000, 100, 2000, 0, DICTIONARY);
+        // the target cost is 60 * 1000 / 3600 per shard, so contig 1 is split into shards of the minimum size,
+        // while contig 2 has no cost at all and is covered by shards of the maximum size
+        Assert.assertEquals(shards.stream().map(ShardBoundary::getInterval).collect(Collectors.toList()), ImmutableList.of(
+                new SimpleInterval("1", 2001, 2100),
+                new SimpleInterval("1", 2101, 2200),
+                new SimpleInterval("1", 2201, 2300),
+                new SimpleInterval("1", 2301, 2400),
+                new SimpleInterval("1", 2401, 2500),
+                new SimpleInterval("1", 2601, 2700),
+                new SimpleInterval("2", 1, 2000),
+                new SimpleInterval("2", 2001, 3000)));
+    }
+
+    @Test
+    public void testFromCoverageTrack() {
+        final List<SimpleInterval> bins = getBins();
+        final double[] costs = getBinCosts();
+        final List<SimpleCount> counts = new ArrayList<>();
+        for (int i = 0; i < bins.size(); i++) {
+            counts.add(new SimpleCount(bins.get(i), (int) costs[i]));
+        }
+        final SimpleCountCollection coverage = new SimpleCountCollection(new SimpleSampleLocatableMetadata("sample", DICTIONARY), counts);
+        final ShardCostModel model = ShardCostModel.fromCoverageTrack(coverage);
+        final ShardCostModel expected = new ShardCostModel(bins, costs);
+        for (final SimpleInterval interval : ImmutableList.of(new SimpleInterval("1", 1, 10000), new SimpleInterval("1", 333, 4444))) {
+            Assert.assertEquals(model.estimateCost(interval), expected.estimateCost(interval), 1e-9);
+        }
+    }
+
+    @Test
+    public void testFromBamIndex() throws IOException {
+        // this BAM spans several BGZF blocks, so that its reads have a compressed size
+        final File bam = new File(publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.20.21.10000000-10000020.with.unmapped.bam");
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(bam)) {
+            final SAMSequenceDictionary dictionary = reader.getFileHeader().getSequenceDictionary();
+            final ShardCostModel model = ShardCostModel.fromBamIndices(Collections.singletonList(reader.indexing().getIndex()), dictionary);
+            final List<SimpleInterval> contigs = IntervalUtils.getAllIntervalsForReference(dictionary);
+            Assert.assertTrue(contigs.stream().mapToDouble(model::estimateCost).sum() > 0);
+
+            // the shards must tile each contig
+            final List<ShardBoundary> shards = model.divideIntervalsIntoShards(contigs, 5000, 1000, 50000, 0, dictionary);
+            for (final SimpleInterval contig : contigs) {
+                int nextStart = 1;
+                for (final ShardBoundary shard : shards) {
+                    if (shard.getContig().equals(contig.getContig())) {
+                        Assert.assertEquals(shard.getStart(), nextStart);
+                        nextStart = shard.getEnd() + 1;
+                    }
+                }
+                Assert.assertEquals(nextStart, contig.getEnd() + 1);
+            }
+        }
+    }
+
+    private static Chunk makeChunk(final long startBlock, final int startOffset, final long endBlock, final int endOffset) {
+        return new Chunk(BlockCompressedFilePointerUtil.makeFilePointer(startBlock, startOffset),
+                BlockCompressedFilePointerUtil.makeFilePointer(endBlock, endOffset));
+    }
+
+    @Test
+    public void testWindowCostsUseCompressedAddresses() {
+        final double[] costs = ShardCostModel.getWindowCosts(ImmutableList.of(
+                ImmutableList.of(makeChunk(1000, 60000, 1500, 10)),
+                // a chunk that starts and ends in the same block has no compressed size
+                ImmutableList.of(makeChunk(2000, 100, 2000, 50000))));
+        Assert.assertEquals(costs, new double[]{500, 0});
+    }
+
+    @Test
+    public void testWindowCostsCountSharedChunksOnce() {
+        final Chunk shared = makeChunk(1000, 0, 2000, 0);
+        final double[] costs = ShardCostModel.getWindowCosts(ImmutableList.of(
+                ImmutableList.of(makeChunk(0, 0, 1000, 0), shared),
+                ImmutableList.of(shared, makeChunk(2000, 0, 2500, 0)),
+                // only the part of this chunk past the shared one is new
+                ImmutableList.of(makeChunk(1800, 0, 3000, 0)),
+                ImmutableList.of(shared)));
+        Assert.assertEquals(costs, new double[]{2000, 500, 500, 0});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingIntervalsAreRejected() {
+        new ShardCostModel(ImmutableList.of(new SimpleInterval("1", 1, 100), new SimpleInterval("1", 100, 200)), new double[]{1, 1});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInconsistentShardSizesAreRejected() {
+        new ShardCostModel(getBins(), getBinCosts()).divideIntervalsIntoShards(
+                Collections.singletonList(new SimpleInterval("1", 1, 10000)), 1000, 2000, 5000, 0, DICTIONARY);
+    }
+}
@@ -0,0 +1,52 @@
+package org.broadinstitute.hellbender.tools.copynumber;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CollectReadCounts.IntervalBinCounter}.
+ */
+public final class CollectReadCountsUnitTest extends GATKBaseTest {
+    private static final List<SimpleInterval> INTERVALS = Arrays.asList(
+            new SimpleInterval("1", 100, 199),
+            new SimpleInterval("1", 300, 399),
+            new SimpleInterval("1", 400, 400),
+            new SimpleInterval("3", 1, 10),
+            new SimpleInterval("2", 50, 60));
+
+    @Test
+    public void testSortedQueries() {
+        final CollectReadCounts.IntervalBinCounter counter = new CollectReadCounts.IntervalBinCounter(INTERVALS);
+        for (final int position : new int[]{1, 100, 150, 199, 200, 299, 300, 399, 400, 400, 401, 1000}) {
+            counter.add("1", position);
+        }
+        counter.add("2", 55);
+        counter.add("3", 10);
+        counter.add("3", 11);
+        counter.add("4", 5);    //no intervals on this contig
+        Assert.assertEquals(counter.getCounts(), new int[]{3, 2, 2, 1, 1});
+    }
+
+    @Test
+    public void testUnsortedQueries() {
+        final CollectReadCounts.IntervalBinCounter counter = new CollectReadCounts.IntervalBinCounter(INTERVALS);
+        for (final int position : new int[]{400, 350, 99, 100, 400, 250, 199, 300}) {
+            counter.add("1", position);
+        }
+        counter.add("3", 5);
+        counter.add("1", 150);  //returning to a contig
+        Assert.assertEquals(counter.getCounts(), new int[]{3, 2, 2, 1, 0});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingIntervals() {
+        new CollectReadCounts.IntervalBinCounter(Arrays.asList(
+                new SimpleInterval("1", 100, 200),
+                new SimpleInterval("1", 200, 300)));
+    }
+}
@@ -4,6 +4,7 @@ import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinaryColumnarCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CopyRatioCollection;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -82,4 +83,43 @@ public final class DenoiseReadCountsIntegrationTest extends CommandLineProgramTe
         //standardized and denoised copy ratios should be the same if PoN is not provided
         Assert.assertEquals(standardizedCopyRatios.getLog2CopyRatioValues().equals(denoisedCopyRatios.getLog2CopyRatioValues()), isStandardizedEqualsDenoised);
     }
+
+    @Test
+    public void testDenoiseReadCountsBinaryFormat() {
+        final File standardizedCRFile = createTempFile("test", ".standardizedCR.tsv");
+        final File denoisedCRFile = createTempFile("test", ".denoisedCR.tsv");
+        runCommandLine(new ArgumentsBuilder()
+                .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, WGS_READ_COUNTS_HDF5_FILE)
+                .addFileArgument(CopyNumberStandardArgument.COUNT_PANEL_OF_NORMALS_FILE_LONG_NAME, WGS_NO_GC_PON_FILE)
+                .addFileArgument(CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME, standardizedCRFile)
+                .addFileArgument(CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME, denoisedCRFile)
+                .getArgsArray());
+
+        final File binaryStandardizedCRFile = createTempFile("test", ".standardizedCR.bin");
+        final File binaryDenoisedCRFile = createTempFile("test", ".denoisedCR.bin");
+        runCommandLine(new ArgumentsBuilder()
+                .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, WGS_READ_COUNTS_HDF5_FILE)
+                .addFileArgument(CopyNumberStandardArgument.COUNT_PANEL_OF_NORMALS_FILE_LONG_NAME, WGS_NO_GC_PON_FILE)
+                .addFileArgument(CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME, binaryStandardizedCRFile)
+                .addFileArgument(CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME, binaryDenoisedCRFile)
+                .addArgument(DenoiseReadCounts.FORMAT_LONG_NAME, DenoiseReadCounts.Format.BINARY.name())
+                .getArgsArray());
+
+        Assert.assertTrue(BinaryColumnarCollection.isBinaryColumnarFile(binaryStandardizedCRFile.toPath()));
+        Assert.assertTrue(BinaryColumnarCollection.isBinaryColumnarFile(binaryDenoisedCRFile.toPath()));
+        assertSameCopyRatios(CopyRatioCollection.read(binaryStandardizedCRFile), new CopyRatioCollection(standardizedCRFile));
+        assertSameCopyRatios(CopyRatioCollection.read(binaryDenoisedCRFile), new CopyRatioCollection(denoisedCRFile));
+    }
+
+    private static void assertSameCopyRatios(final CopyRatioCollection actual,
+                                             final CopyRatioCollection expected) {
+        Assert.assertEquals(actual.getMetadata(), expected.getMetadata());
+        Assert.assertEquals(actual.getIntervals(), expected.getIntervals());
+        //the TSV format rounds the values, while the binary format keeps them exactly
+        final List<Double> actualValues = actual.getLog2CopyRatioValues();
+        final List<Double> expectedValues = expected.getLog2CopyRatioValues();
+        for (int i = 0; i < expectedValues.size(); i++) {
+            Assert.assertEquals(actualValues.get(i), expectedValues.get(i), 1E-5);
+        }
+    }
 }
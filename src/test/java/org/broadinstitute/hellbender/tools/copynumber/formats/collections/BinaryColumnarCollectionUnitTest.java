@@ -0,0 +1,91 @@
+package org.broadinstitute.hellbender.tools.copynumber.formats.collections;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class BinaryColumnarCollectionUnitTest extends GATKBaseTest {
+    private static final SampleLocatableMetadata METADATA = new SimpleSampleLocatableMetadata(
+            "test-sample",
+            new SAMSequenceDictionary(Arrays.asList(
+                    new SAMSequenceRecord("1", 10000),
+                    new SAMSequenceRecord("2", 10000))));
+    private static final List<SimpleInterval> INTERVALS = Arrays.asList(
+            new SimpleInterval("1", 1000, 2000),
+            new SimpleInterval("1", 5000, 6000),
+            new SimpleInterval("2", 1, 100));
+
+    @Test
+    public void testIntegerValues() {
+        final File outputFile = createTempFile("binary-count-collection", ".bin");
+        final int[] counts = {2, 10, 0};
+        BinaryColumnarCollection.writeIntegerValues(outputFile, METADATA, INTERVALS, counts);
+
+        Assert.assertTrue(BinaryColumnarCollection.isBinaryColumnarFile(outputFile.toPath()));
+        final BinaryColumnarCollection collection = new BinaryColumnarCollection(outputFile);
+        Assert.assertEquals(collection.getMetadata(), METADATA);
+        Assert.assertEquals(collection.getValueType(), BinaryColumnarCollection.ValueType.INTEGER);
+        Assert.assertEquals(collection.size(), INTERVALS.size());
+        Assert.assertEquals(collection.getIntervals(), INTERVALS);
+        Assert.assertTrue(collection.hasIntervals(INTERVALS));
+        Assert.assertFalse(collection.hasIntervals(INTERVALS.subList(0, 2)));
+        Assert.assertFalse(collection.hasIntervals(Arrays.asList(INTERVALS.get(0), INTERVALS.get(1), new SimpleInterval("1", 1, 100))));
+        Assert.assertEquals(collection.getIntegerValues(), counts);
+        Assert.assertEquals(collection.getDoubleValues(), new double[]{2, 10, 0});
+    }
+
+    @Test
+    public void testDoubleValues() {
+        final File outputFile = createTempFile("binary-copy-ratio-collection", ".bin");
+        final double[] values = {-0.5, Double.NaN, 1.25};
+        BinaryColumnarCollection.writeDoubleValues(outputFile, METADATA, INTERVALS, values);
+
+        final BinaryColumnarCollection collection = new BinaryColumnarCollection(outputFile);
+        Assert.assertEquals(collection.getValueType(), BinaryColumnarCollection.ValueType.DOUBLE);
+        Assert.assertEquals(collection.getIntervals(), INTERVALS);
+        Assert.assertEquals(collection.getDoubleValues(), values);
+    }
+
+    @Test
+    public void testSimpleCountCollectionRoundTrip() {
+        final File outputFile = createTempFile("binary-count-collection", ".bin");
+        final SimpleCountCollection counts = new SimpleCountCollection(METADATA,
+                IntStream.range(0, INTERVALS.size()).mapToObj(i -> new SimpleCount(INTERVALS.get(i), 3 * i)).collect(Collectors.toList()));
+        counts.writeBinary(outputFile);
+        Assert.assertEquals(SimpleCountCollection.read(outputFile), counts);
+    }
+
+    @Test
+    public void testCopyRatioCollectionRoundTrip() {
+        final File outputFile = createTempFile("binary-copy-ratio-collection", ".bin");
+        final CopyRatioCollection copyRatios = new CopyRatioCollection(METADATA,
+                IntStream.range(0, INTERVALS.size()).mapToObj(i -> new CopyRatio(INTERVALS.get(i), 0.1 * i - 0.1)).collect(Collectors.toList()));
+        copyRatios.writeBinary(outputFile);
+        Assert.assertEquals(CopyRatioCollection.read(outputFile), copyRatios);
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testTruncatedFile() throws IOException {
+        final File outputFile = createTempFile("binary-count-collection", ".bin");
+        BinaryColumnarCollection.writeIntegerValues(outputFile, METADATA, INTERVALS, new int[]{2, 10, 0});
+        final byte[] bytes = Files.readAllBytes(outputFile.toPath());
+        Files.write(outputFile.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        new BinaryColumnarCollection(outputFile);
+    }
+}
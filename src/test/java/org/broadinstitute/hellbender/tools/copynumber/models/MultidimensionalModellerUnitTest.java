@@ -6,12 +6,16 @@ import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.random.RandomGeneratorFactory;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.MultidimensionalSegmentCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleIntervalCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCount;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.MultidimensionalSegment;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
@@ -30,27 +34,15 @@ import java.util.stream.IntStream;
 public final class MultidimensionalModellerUnitTest extends GATKBaseTest {
     private static final int RANDOM_SEED = 13;
 
-    @Test
-    public void testMCMC() {
-        final int numSegments = 25;
+    @DataProvider(name = "numThreads")
+    public Object[][] dataNumThreads() {
+        return new Object[][]{{1}, {4}};
+    }
+
+    @Test(dataProvider = "numThreads")
+    public void testMCMC(final int numThreads) {
         final int numSamples = 150;
         final int numBurnIn = 50;
-        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
-
-        //copy-ratio model parameters
-        final double varianceCR = 0.01;
-        final double outlierProbabilityCR = 0.05;
-        final double averageIntervalsPerSegment = 100.;
-
-        //allele-fraction model parameters
-        final double meanBiasAF = 1.2;
-        final double biasVarianceAF = 0.04;
-        final double outlierProbabilityAF = 0.02;
-        final AlleleFractionGlobalParameters globalParametersAF = new AlleleFractionGlobalParameters(meanBiasAF, biasVarianceAF, outlierProbabilityAF);
-        final double minorAlleleFractionPriorAlpha = 1.;
-        final AlleleFractionPrior priorAF = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
-        final double averageHetsPerSegment = 50.;
-        final double averageDepthAF = 50.;
 
         //similar-segment merging parameters
         final int maxNumSmoothingIterations = 10;
@@ -58,31 +50,104 @@ public final class MultidimensionalModellerUnitTest extends GATKBaseTest {
         final double smoothingCredibleIntervalThresholdCopyRatio = 2.;
         final double smoothingCredibleIntervalThresholdAlleleFraction = 2.;
 
-        //recall that both CR and AF data points are at loci 1, 2, 3, etc. and that each segment is on a different contig
-        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
-                "test-sample",
-                new SAMSequenceDictionary(IntStream.range(0, numSegments)
-                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
-                        .collect(Collectors.toList())));
-        final CopyRatioSimulatedData simulatedDataCR = new CopyRatioSimulatedData(
-                metadata, varianceCR, outlierProbabilityCR, numSegments, averageIntervalsPerSegment, rng);
-        final AlleleFractionSimulatedData simulatedDataAF = new AlleleFractionSimulatedData(
-                metadata, globalParametersAF, numSegments, averageHetsPerSegment, averageDepthAF, rng);
-
-        //we introduce extra segments, which we will later merge to test similar-segment merging
-        final MultidimensionalSegmentCollection oversegmentedSegments = new MultidimensionalSegmentCollection(
-                metadata,
-                constructOversegmentedSegments(simulatedDataCR, simulatedDataAF));
-
-        final MultidimensionalModeller modeller = new MultidimensionalModeller(
-                oversegmentedSegments,
-                simulatedDataCR.getCopyRatios(),
-                simulatedDataAF.getAllelicCounts(), priorAF,
-                numSamples, numBurnIn, numSamples, numBurnIn);
+        final SimulatedModellerData data = new SimulatedModellerData();
+        final MultidimensionalModeller modeller = data.fit(numSamples, numBurnIn, numThreads);
         modeller.smoothSegments(maxNumSmoothingIterations, numSmoothingIterationsPerFit, smoothingCredibleIntervalThresholdCopyRatio, smoothingCredibleIntervalThresholdAlleleFraction);
 
-        CopyRatioModellerUnitTest.assertCopyRatioPosteriorCenters(modeller.getCopyRatioModeller(), simulatedDataCR);
-        AlleleFractionModellerUnitTest.assertAlleleFractionPosteriorCenters(modeller.getAlleleFractionModeller(), simulatedDataAF);
+        CopyRatioModellerUnitTest.assertCopyRatioPosteriorCenters(modeller.getCopyRatioModeller(), data.simulatedDataCR);
+        AlleleFractionModellerUnitTest.assertAlleleFractionPosteriorCenters(modeller.getAlleleFractionModeller(), data.simulatedDataAF);
+    }
+
+    @Test
+    public void testMCMCDoesNotDependOnNumberOfThreads() {
+        final int numSamples = 20;
+        final int numBurnIn = 10;
+        final SimulatedModellerData data = new SimulatedModellerData();
+        final MultidimensionalModeller modeller2 = data.fit(numSamples, numBurnIn, 2);
+        final MultidimensionalModeller modeller3 = data.fit(numSamples, numBurnIn, 3);
+
+        Assert.assertEquals(modeller3.getCopyRatioModeller().getVarianceSamples(), modeller2.getCopyRatioModeller().getVarianceSamples());
+        Assert.assertEquals(modeller3.getCopyRatioModeller().getSegmentMeansSamples(), modeller2.getCopyRatioModeller().getSegmentMeansSamples());
+        Assert.assertEquals(modeller3.getAlleleFractionModeller().getMeanBiasSamples(), modeller2.getAlleleFractionModeller().getMeanBiasSamples());
+        Assert.assertEquals(modeller3.getAlleleFractionModeller().getMinorFractionsSamples(), modeller2.getAlleleFractionModeller().getMinorFractionsSamples());
+    }
+
+    @Test
+    public void testMCMCWithOneThreadMatchesSequentialFit() {
+        final int numSamples = 20;
+        final int numBurnIn = 10;
+        final SimulatedModellerData data = new SimulatedModellerData();
+        final MultidimensionalModeller modeller = data.fit(numSamples, numBurnIn, 1);
+
+        //fit the copy-ratio model and then the allele-fraction model, as was done before multithreading was introduced
+        final SimpleIntervalCollection segments = new SimpleIntervalCollection(
+                new SimpleLocatableMetadata(data.oversegmentedSegments.getMetadata().getSequenceDictionary()),
+                data.oversegmentedSegments.getIntervals());
+        final CopyRatioModeller copyRatioModeller = new CopyRatioModeller(data.simulatedDataCR.getCopyRatios(), segments);
+        copyRatioModeller.fitMCMC(numSamples, numBurnIn);
+        final AlleleFractionModeller alleleFractionModeller = new AlleleFractionModeller(data.simulatedDataAF.getAllelicCounts(), segments, data.priorAF);
+        alleleFractionModeller.fitMCMC(numSamples, numBurnIn);
+
+        Assert.assertEquals(modeller.getCopyRatioModeller().getVarianceSamples(), copyRatioModeller.getVarianceSamples());
+        Assert.assertEquals(modeller.getCopyRatioModeller().getOutlierProbabilitySamples(), copyRatioModeller.getOutlierProbabilitySamples());
+        Assert.assertEquals(modeller.getCopyRatioModeller().getSegmentMeansSamples(), copyRatioModeller.getSegmentMeansSamples());
+        Assert.assertEquals(modeller.getAlleleFractionModeller().getMeanBiasSamples(), alleleFractionModeller.getMeanBiasSamples());
+        Assert.assertEquals(modeller.getAlleleFractionModeller().getBiasVarianceSamples(), alleleFractionModeller.getBiasVarianceSamples());
+        Assert.assertEquals(modeller.getAlleleFractionModeller().getOutlierProbabilitySamples(), alleleFractionModeller.getOutlierProbabilitySamples());
+        Assert.assertEquals(modeller.getAlleleFractionModeller().getMinorFractionsSamples(), alleleFractionModeller.getMinorFractionsSamples());
+    }
+
+    private final class SimulatedModellerData {
+        private final int numSegments = 25;
+        private final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        //copy-ratio model parameters
+        private final double varianceCR = 0.01;
+        private final double outlierProbabilityCR = 0.05;
+        private final double averageIntervalsPerSegment = 100.;
+
+        //allele-fraction model parameters
+        private final double meanBiasAF = 1.2;
+        private final double biasVarianceAF = 0.04;
+        private final double outlierProbabilityAF = 0.02;
+        private final AlleleFractionGlobalParameters globalParametersAF = new AlleleFractionGlobalParameters(meanBiasAF, biasVarianceAF, outlierProbabilityAF);
+        private final double minorAlleleFractionPriorAlpha = 1.;
+        private final AlleleFractionPrior priorAF = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
+        private final double averageHetsPerSegment = 50.;
+        private final double averageDepthAF = 50.;
+
+        private final CopyRatioSimulatedData simulatedDataCR;
+        private final AlleleFractionSimulatedData simulatedDataAF;
+        private final MultidimensionalSegmentCollection oversegmentedSegments;
+
+        private SimulatedModellerData() {
+            //recall that both CR and AF data points are at loci 1, 2, 3, etc. and that each segment is on a different contig
+            final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                    "test-sample",
+                    new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                            .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
+                            .collect(Collectors.toList())));
+            simulatedDataCR = new CopyRatioSimulatedData(
+                    metadata, varianceCR, outlierProbabilityCR, numSegments, averageIntervalsPerSegment, rng);
+            simulatedDataAF = new AlleleFractionSimulatedData(
+                    metadata, globalParametersAF, numSegments, averageHetsPerSegment, averageDepthAF, rng);
+
+            //we introduce extra segments, which we will later merge to test similar-segment merging
+            oversegmentedSegments = new MultidimensionalSegmentCollection(
+                    metadata,
+                    constructOversegmentedSegments(simulatedDataCR, simulatedDataAF));
+        }
+
+        private MultidimensionalModeller fit(final int numSamples,
+                                             final int numBurnIn,
+                                             final int numThreads) {
+            return new MultidimensionalModeller(
+                    oversegmentedSegments,
+                    simulatedDataCR.getCopyRatios(),
+                    simulatedDataAF.getAllelicCounts(), priorAF,
+                    numSamples, numBurnIn, numSamples, numBurnIn,
+                    numThreads);
+        }
     }
 
     private List<MultidimensionalSegment> constructOversegmentedSegments(final CopyRatioSimulatedData simulatedDataCR,
@@ -5,8 +5,11 @@ import com.esotericsoftware.kryo.io.Input;
 import org.apache.commons.io.FileUtils;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceFileSparkSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 import org.broadinstitute.hellbender.tools.spark.utils.LongIterator;
 import org.testng.Assert;
@@ -14,6 +17,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -167,6 +171,97 @@ public class PSKmerUtilsTest extends CommandLineProgramTest {
             final long val = rand.nextLong() >>> 2;
             Assert.assertEquals(bloomIn.contains(new SVKmerShort(val)), bfOut.contains(PSKmerCollection.canonicalizeAndMask(new SVKmerShort(val), kSize, mask)), "Bloom filter changed after writing/reading");
         }
+
+        final LongBlockedBloomFilter bbfOut = new LongBlockedBloomFilter(numElements, bloomFPP);
+        hssIter = hssMasked.iterator();
+        while (hssIter.hasNext()) {
+            bbfOut.add(hssIter.next());
+        }
+
+        final File bbfFile = createTempFile("set", ".bin");
+        final PSKmerBlockedBloomFilter bbfTruth = new PSKmerBlockedBloomFilter(bbfOut, kSize, mask, 1000);
+        PSKmerUtils.writeKmerBlockedBloomFilter(bbfFile.getPath(), bbfTruth);
+
+        final PSKmerCollection blockedBloomIn = PSKmerUtils.readKmerFilter(bbfFile.getPath() + PSKmerUtils.BLOCKED_BLOOM_FILTER_EXTENSION);
+        Assert.assertEquals(blockedBloomIn, bbfTruth, "Blocked Bloom filter changed after writing/reading");
+    }
+
+    @Test
+    public void testReadWriteMappedCollections() {
+        final int numElements = 10000;
+        final int kSize = 31;
+        final SVKmerShort mask = SVKmerShort.getMask(new byte[]{15}, kSize);
+        final Random rand = new Random(SEED);
+        final long[] maskedKmers = new long[numElements];
+        for (int i = 0; i < numElements; i++) {
+            maskedKmers[i] = PSKmerCollection.canonicalizeAndMask(new SVKmerShort(rand.nextLong() >>> 2), kSize, mask);
+        }
+
+        final LargeLongHopscotchSet hopscotchSet = new LargeLongHopscotchSet(numElements);
+        final LongBloomFilter bloomFilter = new LongBloomFilter(numElements, 0.01);
+        final LongBlockedBloomFilter blockedBloomFilter = new LongBlockedBloomFilter(numElements, 0.01);
+        for (final long kmer : maskedKmers) {
+            hopscotchSet.add(kmer);
+            bloomFilter.add(kmer);
+            blockedBloomFilter.add(kmer);
+        }
+        final List<PSKmerCollection> truthCollections = Arrays.asList(
+                new PSKmerSet(hopscotchSet, kSize, mask),
+                new PSKmerBloomFilter(bloomFilter, kSize, mask, numElements),
+                new PSKmerBlockedBloomFilter(blockedBloomFilter, kSize, mask, numElements));
+
+        final byte[] bases = new byte[1000];
+        final byte[] alphabet = "ACGTN".getBytes();
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = alphabet[rand.nextInt(alphabet.length)];
+        }
+
+        for (final PSKmerCollection truth : truthCollections) {
+            final File file = createTempFile("set", PSKmerUtils.MAPPED_KMER_COLLECTION_EXTENSION);
+            PSKmerUtils.writeMappedKmerCollection(file.getPath(), truth);
+            final PSKmerCollection mapped = PSKmerUtils.readKmerFilter(file.getPath());
+            Assert.assertTrue(mapped instanceof PSKmerMappedCollection);
+            Assert.assertEquals(mapped.kmerSize(), kSize);
+            Assert.assertEquals(mapped.getMask(), mask);
+            Assert.assertEquals(mapped.getFalsePositiveProbability(), truth.getFalsePositiveProbability());
+            for (final long kmer : maskedKmers) {
+                Assert.assertTrue(mapped.contains(new SVKmerShort(kmer)));
+            }
+            for (int i = 0; i < 10000; i++) {
+                final SVKmerShort kmer = new SVKmerShort(rand.nextLong() >>> 2);
+                Assert.assertEquals(mapped.contains(kmer), truth.contains(kmer));
+            }
+            Assert.assertEquals(mapped.countKmers(bases, Integer.MAX_VALUE), truth.countKmers(bases, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testReadTruncatedMappedCollection() throws IOException {
+        final LongBloomFilter bloomFilter = new LongBloomFilter(1000, 0.01);
+        final File file = createTempFile("set", PSKmerUtils.MAPPED_KMER_COLLECTION_EXTENSION);
+        PSKmerUtils.writeMappedKmerCollection(file.getPath(), new PSKmerBloomFilter(bloomFilter, 31, SVKmerShort.getMask(new byte[]{}, 31), 1000));
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 8));
+        PSKmerUtils.readKmerFilter(file.getPath());
+    }
+
+    @Test
+    public void testCanonicalizeAndMaskKmers() {
+        final int kSize = 11;
+        final SVKmerShort mask = SVKmerShort.getMask(new byte[]{5}, kSize);
+        final Random rand = new Random(SEED);
+        final byte[] bases = new byte[500];
+        final byte[] alphabet = "ACGTacgtN".getBytes();
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = alphabet[rand.nextInt(alphabet.length)];
+        }
+        final long[] expected = SVKmerizer.stream(bases, kSize, 1, new SVKmerShort(kSize))
+                .mapToLong(kmer -> PSKmerCollection.canonicalizeAndMask((SVKmerShort) kmer, kSize, mask))
+                .toArray();
+        final long[] actual = new long[bases.length - kSize + 1];
+        final int numKmers = PSKmerCollection.canonicalizeAndMaskKmers(bases, kSize, mask, actual);
+        Assert.assertTrue(expected.length > 0);
+        Assert.assertEquals(Arrays.copyOf(actual, numKmers), expected);
     }
 
 }
\ No newline at end of file
@@ -353,10 +353,11 @@ public class PSScorerTest extends CommandLineProgramTest {
         Assert.assertEquals(infoSA.numMates, 1);
     }
 
-    private static Map<Integer,PSPathogenTaxonScore> scoreIteratorToMap(final Iterator<Tuple2<Integer, PSPathogenTaxonScore>> iter) {
-        final Map<Integer,PSPathogenTaxonScore> map = new HashMap<>();
-        iter.forEachRemaining(pair -> map.put(pair._1, pair._2));
-        return map;
+    private static Map<Integer,PSPathogenTaxonScore> computeTaxScores(final List<PSPathogenAlignmentHit> readTaxHits,
+                                                                      final PSTree tree,
+                                                                      final boolean divideByGenomeLength) {
+        final PSTaxonomyAncestorTable ancestorTable = new PSTaxonomyAncestorTable(tree);
+        return PSScorer.computeTaxScoreArrays(readTaxHits.iterator(), ancestorTable, divideByGenomeLength).toScoreMap(ancestorTable);
     }
 
     @Test
@@ -369,8 +370,7 @@ public class PSScorerTest extends CommandLineProgramTest {
         boolean notNormalizedByKingdom = true;
         final PSTaxonomyDatabase testDatabase = new PSTaxonomyDatabase(tree, null);
         try {
-            final Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-            Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), testDatabase.tree, notNormalizedByKingdom);
+            Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(computeTaxScores(readTaxHits, testDatabase.tree, divideByGenomeLength), testDatabase.tree, notNormalizedByKingdom);
             Assert.assertTrue(resultMap.isEmpty(), "Result should be empty since the hit does not exist in the tree");
         } catch (Exception e) {
             Assert.fail("Threw an exception when a HitInfo references a tax ID not in the tree, or vice versa", e);
@@ -380,8 +380,7 @@ public class PSScorerTest extends CommandLineProgramTest {
         tree.addNode(3, "n3", 2, 100, "species");
         readTaxHits.clear();
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(3), 2));
-        Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), testDatabase.tree, notNormalizedByKingdom);
+        Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(computeTaxScores(readTaxHits, testDatabase.tree, divideByGenomeLength), testDatabase.tree, notNormalizedByKingdom);
         Assert.assertEquals(resultMap.size(), 3);
         Assert.assertEquals(resultMap.get(1).getSelfScore(), resultMap.get(2).getSelfScore());
         Assert.assertEquals(resultMap.get(1).getDescendentScore(), resultMap.get(2).getDescendentScore());
@@ -406,18 +405,53 @@ public class PSScorerTest extends CommandLineProgramTest {
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(5), 2));
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(6), 1));
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(8), 2)); //Invalid hit, not in tree
-        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), tree, notNormalizedByKingdom);
+        resultMap = PSScorer.computeNormalizedScores(computeTaxScores(readTaxHits, tree, divideByGenomeLength), tree, notNormalizedByKingdom);
         checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
 
         //Test after switching genome length and kingdom normalization
         divideByGenomeLength = false;
         notNormalizedByKingdom = false;
-        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), tree, notNormalizedByKingdom);
+        resultMap = PSScorer.computeNormalizedScores(computeTaxScores(readTaxHits, tree, divideByGenomeLength), tree, notNormalizedByKingdom);
         checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
     }
 
+    @Test
+    public void testComputeTaxScoreArrays() {
+        final PSTree tree = new PSTree(1);
+        tree.addNode(2, "n2", 1, 0, PSTaxonomyConstants.KINGDOM_RANK_NAME);
+        tree.addNode(3, "n3", 2, 100, "species");
+        tree.addNode(4, "n4", 1, 0, PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME);
+        tree.addNode(5, "n5", 2, 100, "species");
+        tree.addNode(6, "n6", 4, 100, "species");
+        tree.addNode(7, "n7", 4, 100, "species");
+        final PSTaxonomyAncestorTable ancestorTable = new PSTaxonomyAncestorTable(tree);
+        Assert.assertEquals(ancestorTable.size(), 7);
+        Assert.assertEquals(ancestorTable.indexOf(8), PSTaxonomyAncestorTable.NO_NODE);
+        Assert.assertEquals(ancestorTable.getDepth(ancestorTable.indexOf(1)), 0);
+        Assert.assertEquals(ancestorTable.getDepth(ancestorTable.indexOf(6)), 2);
+        Assert.assertEquals(ancestorTable.getTaxId(ancestorTable.getLCA(ancestorTable.indexOf(3), ancestorTable.indexOf(5))), 2);
+        Assert.assertEquals(ancestorTable.getTaxId(ancestorTable.getLCA(ancestorTable.indexOf(3), ancestorTable.indexOf(4))), 1);
+        Assert.assertEquals(ancestorTable.getTaxId(ancestorTable.getLCA(ancestorTable.indexOf(6), ancestorTable.indexOf(6))), 6);
+
+        //Split the hits across two partitions
+        final List<PSPathogenAlignmentHit> partition1 = Arrays.asList(
+                new PSPathogenAlignmentHit(Arrays.asList(4), 2), //Invalid hit, ref length 0
+                new PSPathogenAlignmentHit(Arrays.asList(3), 2),
+                new PSPathogenAlignmentHit(Arrays.asList(3, 6, 3), 2));
+        final List<PSPathogenAlignmentHit> partition2 = Arrays.asList(
+                new PSPathogenAlignmentHit(Arrays.asList(5), 2),
+                new PSPathogenAlignmentHit(Arrays.asList(6), 1),
+                new PSPathogenAlignmentHit(Arrays.asList(8), 2)); //Invalid hit, not in tree
+        for (final boolean divideByGenomeLength : new boolean[]{true, false}) {
+            for (final boolean notNormalizedByKingdom : new boolean[]{true, false}) {
+                final PSTaxonScoreArrays scoreArrays = PSScorer.computeTaxScoreArrays(partition1.iterator(), ancestorTable, divideByGenomeLength)
+                        .inPlaceCombine(PSScorer.computeTaxScoreArrays(partition2.iterator(), ancestorTable, divideByGenomeLength));
+                final Map<Integer, PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreArrays.toScoreMap(ancestorTable), tree, notNormalizedByKingdom);
+                checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
+            }
+        }
+    }
+
     private static void checkComputedScores(final Map<Integer,PSPathogenTaxonScore> resultMap, final boolean divideByGenomeLength,
                                            final boolean notNormalizeByKingdom) {
         double score3 = 0.5 * 2.0 + 2.0;
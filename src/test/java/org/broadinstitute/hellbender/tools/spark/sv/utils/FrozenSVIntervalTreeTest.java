@@ -0,0 +1,123 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class FrozenSVIntervalTreeTest extends GATKBaseTest {
+    private static final int N_QUERIES = 500;
+
+    private static SVIntervalTree<Integer> randomTree( final int size, final Random random ) {
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        while ( tree.size() < size ) {
+            tree.put(randomInterval(random), tree.size());
+        }
+        return tree;
+    }
+
+    private static SVInterval randomInterval( final Random random ) {
+        final int start = random.nextInt(10000);
+        //mostly short intervals, with the occasional long one to exercise the max-end augmentation
+        final int length = random.nextInt(10) == 0 ? random.nextInt(5000) + 1 : random.nextInt(100) + 1;
+        return new SVInterval(random.nextInt(3), start, start + length);
+    }
+
+    @DataProvider(name = "sizes")
+    public Object[][] getSizes() {
+        return new Object[][] { {0}, {1}, {2}, {7}, {16}, {17}, {100}, {1000}, {3333} };
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testOverlappersMatchSVIntervalTree( final int size ) {
+        final Random random = new Random(size + 31L);
+        final SVIntervalTree<Integer> tree = randomTree(size, random);
+        final FrozenSVIntervalTree<Integer> frozenTree = new FrozenSVIntervalTree<>(tree);
+        Assert.assertEquals(frozenTree.size(), size);
+
+        final FrozenSVIntervalTree<Integer>.OverlapIterator frozenItr = frozenTree.overlappers(new SVInterval(0, 0, 1));
+        for ( int query = 0; query != N_QUERIES; ++query ) {
+            final SVInterval interval = randomInterval(random);
+            final List<SVInterval> expected = new ArrayList<>();
+            final List<Integer> expectedValues = new ArrayList<>();
+            final Iterator<SVIntervalTree.Entry<Integer>> itr = tree.overlappers(interval);
+            boolean expectedContainer = false;
+            while ( itr.hasNext() ) {
+                final SVIntervalTree.Entry<Integer> entry = itr.next();
+                expected.add(entry.getInterval());
+                expectedValues.add(entry.getValue());
+                expectedContainer |= entry.getInterval().contains(interval);
+            }
+
+            final List<SVInterval> actual = new ArrayList<>();
+            final List<Integer> actualValues = new ArrayList<>();
+            frozenItr.reset(interval);
+            while ( frozenItr.hasNext() ) {
+                final int idx = frozenItr.nextIndex();
+                actual.add(frozenTree.getInterval(idx));
+                actualValues.add(frozenTree.getValue(idx));
+            }
+            Assert.assertEquals(actual, expected);
+            Assert.assertEquals(actualValues, expectedValues);
+            Assert.assertEquals(frozenTree.hasOverlapper(interval), tree.hasOverlapper(interval));
+            Assert.assertEquals(frozenTree.hasContainer(interval), expectedContainer);
+        }
+    }
+
+    @Test
+    public void testNegativeCoordinates() {
+        final SVInterval.SVIntervalConstructorArgsValidator acceptsAll = SVInterval.SVIntervalConstructorArgsValidator.ACCEPTS_ALL;
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        tree.put(new SVInterval(0, -100, -50, acceptsAll), 0);
+        tree.put(new SVInterval(0, -60, 10, acceptsAll), 1);
+        tree.put(new SVInterval(1, -10, 10, acceptsAll), 2);
+        final FrozenSVIntervalTree<Integer> frozenTree = new FrozenSVIntervalTree<>(tree);
+        Assert.assertEquals(frozenTree.getInterval(0), new SVInterval(0, -100, -50, acceptsAll));
+        Assert.assertEquals(frozenTree.getContig(2), 1);
+        Assert.assertEquals(frozenTree.getStart(2), -10);
+        Assert.assertEquals(frozenTree.getEnd(1), 10);
+        final FrozenSVIntervalTree<Integer>.OverlapIterator itr = frozenTree.overlappers(new SVInterval(0, -55, -54, acceptsAll));
+        Assert.assertEquals(itr.nextIndex(), 0);
+        Assert.assertEquals(itr.nextIndex(), 1);
+        Assert.assertFalse(itr.hasNext());
+        Assert.assertFalse(frozenTree.hasOverlapper(new SVInterval(0, 10, 20)));
+        Assert.assertTrue(frozenTree.hasOverlapper(new SVInterval(1, 0, 20)));
+    }
+
+    @Test
+    public void testSerialization() {
+        final FrozenSVIntervalTree<Integer> frozenTree = new FrozenSVIntervalTree<>(randomTree(500, new Random(17L)));
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        final Kryo kryo = new Kryo();
+        kryo.writeClassAndObject(out, frozenTree);
+        out.flush();
+
+        final Input in = new Input(new ByteArrayInputStream(bos.toByteArray()));
+        @SuppressWarnings("unchecked")
+        final FrozenSVIntervalTree<Integer> roundTrip = (FrozenSVIntervalTree<Integer>)kryo.readClassAndObject(in);
+        Assert.assertEquals(roundTrip.size(), frozenTree.size());
+        for ( int idx = 0; idx != frozenTree.size(); ++idx ) {
+            Assert.assertEquals(roundTrip.getInterval(idx), frozenTree.getInterval(idx));
+            Assert.assertEquals(roundTrip.getValue(idx), frozenTree.getValue(idx));
+        }
+        final SVInterval query = new SVInterval(1, 5000, 5100);
+        final FrozenSVIntervalTree<Integer>.OverlapIterator itr1 = frozenTree.overlappers(query);
+        final FrozenSVIntervalTree<Integer>.OverlapIterator itr2 = roundTrip.overlappers(query);
+        while ( itr1.hasNext() ) {
+            Assert.assertEquals(itr2.nextIndex(), itr1.nextIndex());
+        }
+        Assert.assertFalse(itr2.hasNext());
+    }
+}
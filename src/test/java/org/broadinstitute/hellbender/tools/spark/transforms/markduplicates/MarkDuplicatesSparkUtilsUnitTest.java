@@ -140,6 +140,31 @@ public class MarkDuplicatesSparkUtilsUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    // Test that shuffling the duplicate marking records as compact byte arrays produces the same marking as the Kryo path
+    public void testCompactShuffleMatchesObjectShuffle() {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        JavaRDD<GATKRead> reads = generateReadsWithDuplicates(1000,3, ctx,1, false);
+
+        SAMReadGroupRecord readGroup1 = new SAMReadGroupRecord("1");
+        readGroup1.setAttribute(SAMReadGroupRecord.READ_GROUP_SAMPLE_TAG, "test");
+        SAMFileHeader header = hg19Header.clone();
+        header.addReadGroup(readGroup1);
+        header.setSortOrder(SAMFileHeader.SortOrder.queryname);
+
+        List<GATKRead> objectShuffled = MarkDuplicatesSpark.mark(reads, header, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, new OpticalDuplicateFinder(), 1, false, MarkDuplicates.DuplicateTaggingPolicy.All, false)
+                .sortBy(GATKRead::commonToString, false, 1).collect();
+        List<GATKRead> compactShuffled = MarkDuplicatesSpark.mark(reads, header, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, new OpticalDuplicateFinder(), 1, false, MarkDuplicates.DuplicateTaggingPolicy.All, true)
+                .sortBy(GATKRead::commonToString, false, 1).collect();
+
+        Assert.assertEquals(compactShuffled.size(), objectShuffled.size());
+        for (int i = 0; i < objectShuffled.size(); i++) {
+            Assert.assertEquals(compactShuffled.get(i).getName(), objectShuffled.get(i).getName());
+            Assert.assertEquals(compactShuffled.get(i).isDuplicate(), objectShuffled.get(i).isDuplicate());
+            Assert.assertEquals(compactShuffled.get(i).getAttributeAsString(MarkDuplicates.DUPLICATE_TYPE_TAG), objectShuffled.get(i).getAttributeAsString(MarkDuplicates.DUPLICATE_TYPE_TAG));
+        }
+    }
+
     // This helper method is used to generate groups reads that will be duplicate marked. It does this by generating numDuplicatesPerGroup
     // pairs of reads starting at randomly selected starting locations. The start locations are random so that if the resulting RDD is
     // coordinate sorted that it is more or less guaranteed that a large portion of the reads will reside on separate partitions from
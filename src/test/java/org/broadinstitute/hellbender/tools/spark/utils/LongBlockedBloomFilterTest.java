@@ -0,0 +1,125 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Random;
+
+public final class LongBlockedBloomFilterTest {
+
+    private static final long[] testVals = {0, 1, 2, 8, 16, 42, 97, 100, 2894765};
+    private static final long[] notTestVals = {3, 6, 7, 22, 61};
+    private static final int RAND_SEED = 0xdeadf00;
+    private static final int HHASH_NVALS = 1000000;
+    private static final int FPR_NVALS = 100000;
+    private static final float FPP = 0.01F;
+
+    private static long randomLong(Random rng) {
+        return (((long) rng.nextInt()) | (((long) rng.nextInt()) << 31)) & ~Long.MIN_VALUE;
+    }
+
+    @Test
+    void containsTest() {
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(testVals.length, FPP);
+        Assert.assertTrue(bloomFilter.isEmpty());
+        bloomFilter.addAll(testVals);
+        Assert.assertFalse(bloomFilter.isEmpty());
+        for (final long val : testVals) {
+            Assert.assertTrue(bloomFilter.contains(val));
+        }
+        for (final long val : notTestVals) {
+            Assert.assertFalse(bloomFilter.contains(val));
+        }
+    }
+
+    @Test
+    void countContainedTest() {
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(testVals.length, FPP);
+        bloomFilter.addAll(testVals);
+        final long[] queries = new long[100];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = i % 2 == 0 ? testVals[i % testVals.length] : notTestVals[i % notTestVals.length];
+        }
+        Assert.assertEquals(bloomFilter.countContained(queries, queries.length, Integer.MAX_VALUE), 50);
+        Assert.assertEquals(bloomFilter.countContained(queries, 10, Integer.MAX_VALUE), 5);
+        Assert.assertEquals(bloomFilter.countContained(queries, queries.length, 3), 3);
+        Assert.assertEquals(bloomFilter.countContained(queries, 0, 3), 0);
+    }
+
+    @Test
+    void equalsAndHashcodeTest() {
+        final LongBlockedBloomFilter bloomFilter1 = new LongBlockedBloomFilter(testVals.length, FPP);
+        final LongBlockedBloomFilter bloomFilter2 = new LongBlockedBloomFilter(testVals.length, FPP);
+        final LongBlockedBloomFilter bloomFilter3 = new LongBlockedBloomFilter(testVals.length, FPP);
+        bloomFilter1.addAll(testVals);
+        bloomFilter2.addAll(testVals);
+        bloomFilter3.addAll(notTestVals);
+        Assert.assertEquals(bloomFilter1.hashCode(), bloomFilter2.hashCode());
+        Assert.assertEquals(bloomFilter1, bloomFilter2);
+        Assert.assertNotEquals(bloomFilter1.hashCode(), bloomFilter3.hashCode());
+        Assert.assertNotEquals(bloomFilter1, bloomFilter3);
+    }
+
+    @Test
+    void testRandomLongs() {
+        final Random rng = new Random(RAND_SEED);
+        final HashSet<Long> hashSet = new HashSet<>();
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(HHASH_NVALS, FPP);
+        for (int valNo = 0; valNo != HHASH_NVALS; ++valNo) {
+            final long randLong = randomLong(rng);
+            hashSet.add(randLong);
+            bloomFilter.add(randLong);
+        }
+        for (final Long val : hashSet) {
+            Assert.assertTrue(bloomFilter.contains(val), "testVal=" + val);
+        }
+        int num_false_pos = 0;
+        int num_total = 0;
+        for (int valNo = 0; valNo != FPR_NVALS; ++valNo) {
+            final long randLong = randomLong(rng);
+            if (!hashSet.contains(randLong)) {
+                num_total++;
+                if (bloomFilter.contains(randLong)) {
+                    num_false_pos++;
+                }
+            }
+        }
+        final double theoreticalFpp = bloomFilter.getTheoreticalFPP(HHASH_NVALS);
+        Assert.assertTrue(theoreticalFpp <= FPP);
+        Assert.assertTrue(num_false_pos >= num_total * theoreticalFpp * 0.8);
+        Assert.assertTrue(num_false_pos <= num_total * theoreticalFpp * 1.2);
+    }
+
+    @Test
+    void serializationTest() {
+        final Random rng = new Random(RAND_SEED);
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(HHASH_NVALS, FPP);
+        final HashSet<Long> hashSet = new HashSet<>(HHASH_NVALS);
+        for (int valNo = 0; valNo != HHASH_NVALS; ++valNo) {
+            final long randLong = randomLong(rng);
+            bloomFilter.add(randLong);
+            hashSet.add(randLong);
+        }
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        final Kryo kryo = new Kryo();
+        kryo.writeObject(out, bloomFilter);
+        out.flush();
+
+        final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        final Input in = new Input(bis);
+        final LongBlockedBloomFilter bloomFilter2 = kryo.readObject(in, LongBlockedBloomFilter.class);
+
+        Assert.assertEquals(bloomFilter, bloomFilter2);
+        for (Long val : hashSet) {
+            Assert.assertTrue(bloomFilter2.contains(val));
+        }
+    }
+}
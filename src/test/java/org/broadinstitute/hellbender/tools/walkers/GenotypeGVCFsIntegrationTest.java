@@ -648,4 +648,44 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
             Assert.assertTrue(actualVC.get(n).getAlternateAlleles().stream().anyMatch(a -> a == Allele.SPAN_DEL));
         }
     }
+
+    @DataProvider
+    public Object[][] getArgsForGenotypingThreads() {
+        return new Object[][] {
+                { NO_EXTRA_ARGS },
+                { Collections.singletonList("--" + GenotypeGVCFs.ALL_SITES_LONG_NAME) }
+        };
+    }
+
+    @Test(dataProvider = "getArgsForGenotypingThreads")
+    public void testGenotypingThreadsMatchOneThread(final List<String> extraArgs) {
+        final SimpleInterval interval = new SimpleInterval("20", 10_000_000, 10_050_000);
+        final File tempGenomicsDB = GenomicsDBTestUtils.createTempGenomicsDB(CEUTRIO_20_21_GATK3_4_G_VCF, interval);
+        final String genomicsDBUri = GenomicsDBTestUtils.makeGenomicsDBUri(tempGenomicsDB);
+
+        final List<List<VariantContext>> outputs = new ArrayList<>();
+        for (final int numThreads : new int[] {1, 2, 4}) {
+            final File output = createTempFile("genotypegvcf", ".vcf");
+            final ArgumentsBuilder args = new ArgumentsBuilder();
+            args.addReference(new File(b37_reference_20_21))
+                    .addArgument("V", genomicsDBUri)
+                    .addInterval(interval)
+                    .addOutput(output)
+                    .addArgument(GenotypeGVCFs.GENOTYPING_THREADS_LONG_NAME, String.valueOf(numThreads))
+                    .addArgument(GenotypeGVCFs.GENOTYPING_PARTITION_SIZE_LONG_NAME, "2000");
+            extraArgs.forEach(args::add);
+
+            Utils.resetRandomGenerator();
+            runCommandLine(args);
+            outputs.add(VariantContextTestUtils.getVariantContexts(output));
+        }
+        Assert.assertFalse(outputs.get(0).isEmpty());
+
+        // with several threads the jitter of too high QDs is seeded by partition, so it doesn't depend on the threads
+        assertForEachElementInLists(outputs.get(2), outputs.get(1),
+                (a, e) -> VariantContextTestUtils.assertVariantContextsAreEqual(a, e, Collections.emptyList(), Collections.emptyList()));
+        // while one thread draws it from the generator shared by the whole run
+        assertForEachElementInLists(outputs.get(2), outputs.get(0),
+                (a, e) -> VariantContextTestUtils.assertVariantContextsAreEqual(a, e, Collections.emptyList(), Arrays.asList("QD", "AS_QD")));
+    }
 }
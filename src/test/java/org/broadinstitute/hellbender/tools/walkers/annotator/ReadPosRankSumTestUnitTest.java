@@ -49,6 +49,23 @@ public final class ReadPosRankSumTestUnitTest extends GATKBaseTest {
         return read;
     }
 
+    @Test
+    public void testCombinedRankSumTestsMatchIndividualTests() {
+        final List<RankSumTest> tests = Arrays.asList(new ReadPosRankSumTest(), new MappingQualityRankSumTest(),
+                new BaseQualityRankSumTest(), new ClippingRankSumTest(), new LikelihoodRankSumTest());
+        final List<GATKRead> refReads = Arrays.asList(makeRead(1, 30), makeRead(2, 50), makeRead(4, 0), makeRead(3, 60));
+        final List<GATKRead> altReads = Arrays.asList(makeRead(3, 20), makeRead(4, 40), makeRead(5, 10));
+        final AlleleLikelihoods<GATKRead, Allele> likelihoods =
+                ArtificialAnnotationUtils.makeLikelihoods(sample1, refReads, altReads, -100.0, -10.0, REF, ALT);
+        final VariantContext vc = makeVC(6L);
+
+        final Map<String, Object> individually = new LinkedHashMap<>();
+        tests.forEach(test -> individually.putAll(test.annotate(null, vc, likelihoods)));
+        Assert.assertFalse(individually.isEmpty());
+        Assert.assertEquals(RankSumTest.annotate(tests, vc, likelihoods), individually);
+        Assert.assertEquals(RankSumTest.annotate(tests, vc, null), Collections.emptyMap());
+    }
+
     @Test
     public void testReadPos(){
         final InfoFieldAnnotation ann = new ReadPosRankSumTest();
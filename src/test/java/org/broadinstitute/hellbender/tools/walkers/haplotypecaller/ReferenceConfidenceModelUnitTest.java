@@ -583,6 +583,103 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    private static String randomBases(final Random random, final int length) {
+        final StringBuilder bases = new StringBuilder(length);
+        for ( int i = 0; i < length; i++ ) {
+            bases.append("ACGT".charAt(random.nextInt(4)));
+        }
+        return bases.toString();
+    }
+
+    // a read with mismatches, soft clips, insertions, deletions, and low quality bases relative to the reference of data
+    private GATKRead makeRandomRead(final RefConfData data, final Random random) {
+        final String ref = data.ref;
+        final StringBuilder bases = new StringBuilder();
+        final StringBuilder cigar = new StringBuilder();
+        final int start = random.nextInt(ref.length() - 10);
+        int refPos = start;
+        if ( random.nextInt(4) == 0 ) {
+            final int clipLength = 1 + random.nextInt(5);
+            bases.append(randomBases(random, clipLength));
+            cigar.append(clipLength).append('S');
+        }
+        final int nSegments = 1 + random.nextInt(3);
+        for ( int segment = 0; segment < nSegments && refPos < ref.length(); segment++ ) {
+            if ( segment > 0 ) {
+                final int indelLength = 1 + random.nextInt(3);
+                if ( random.nextBoolean() ) {
+                    bases.append(randomBases(random, indelLength));
+                    cigar.append(indelLength).append('I');
+                } else if ( refPos + indelLength < ref.length() ) {
+                    refPos += indelLength;
+                    cigar.append(indelLength).append('D');
+                }
+            }
+            final int matchLength = Math.min(ref.length() - refPos, 5 + random.nextInt(15));
+            for ( int i = 0; i < matchLength; i++ ) {
+                bases.append(random.nextInt(20) == 0 ? randomBases(random, 1).charAt(0) : ref.charAt(refPos + i));
+            }
+            cigar.append(matchLength).append('M');
+            refPos += matchLength;
+        }
+        if ( random.nextInt(4) == 0 ) {
+            final int clipLength = 1 + random.nextInt(5);
+            bases.append(randomBases(random, clipLength));
+            cigar.append(clipLength).append('S');
+        }
+        final byte[] quals = new byte[bases.length()];
+        for ( int i = 0; i < quals.length; i++ ) {
+            quals[i] = (byte)(2 + random.nextInt(39));
+        }
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read " + data.readCounter++, 0, start + data.getStart(),
+                bases.toString().getBytes(), quals, cigar.toString());
+        read.setReadGroup(rg.getId());
+        return read;
+    }
+
+    @DataProvider(name = "ArrayBasedRefConfidenceData")
+    public Object[][] makeArrayBasedRefConfidenceData() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final int nReads : Arrays.asList(0, 1, 5, 30, 100) ) {
+            for ( final int extension : Arrays.asList(0, 10) ) {
+                tests.add(new Object[]{nReads, extension});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "ArrayBasedRefConfidenceData")
+    public void testArrayBasedRefConfidenceMatchesPileups(final int nReads, final int extension) {
+        final Random random = new Random(nReads * 31 + extension);
+        final ReferenceConfidenceModel pileupModel = new ReferenceConfidenceModel(samples, header, 10, -1) {
+            @Override
+            protected boolean useArrayBasedRefConfidence() {
+                return false;
+            }
+        };
+        final PloidyModel ploidyModel = new HomogeneousPloidyModel(samples, 2);
+        // include a homopolymer and a tandem repeat so that some reads are not informative about indels
+        final RefConfData data = new RefConfData(randomBases(random, 20) + "AAAAAAAA" + randomBases(random, 10) + "CACACACA" + randomBases(random, 30), extension);
+        final List<Haplotype> haplotypes = Arrays.asList(data.getRefHap());
+        for ( int i = 0; i < nReads; i++ ) {
+            data.getActiveRegion().add(makeRandomRead(data, random));
+        }
+        final AlleleLikelihoods<GATKRead, Haplotype> likelihoods = createDummyStratifiedReadMap(data.getRefHap(), samples, data.getActiveRegion());
+        final VariantContext call = GATKVariantContextUtils.makeFromAlleles("test", "1", data.getStart() + 25, Arrays.asList("A", "C"));
+
+        for ( final List<VariantContext> calls : Arrays.asList(Collections.<VariantContext>emptyList(), Collections.singletonList(call)) ) {
+            final List<VariantContext> expected = pileupModel.calculateRefConfidence(data.getRefHap(), haplotypes, data.getPaddedRefLoc(), data.getActiveRegion(), likelihoods, ploidyModel, calls);
+            final List<VariantContext> actual = model.calculateRefConfidence(data.getRefHap(), haplotypes, data.getPaddedRefLoc(), data.getActiveRegion(), likelihoods, ploidyModel, calls);
+            Assert.assertEquals(actual.size(), expected.size());
+            for ( int i = 0; i < expected.size(); i++ ) {
+                Assert.assertEquals(actual.get(i).toStringDecodeGenotypes(), expected.get(i).toStringDecodeGenotypes());
+            }
+            for ( final GATKRead read : data.getActiveRegion().getReads() ) {
+                Assert.assertNull(read.getTransientAttribute(ReferenceConfidenceModel.INDEL_INFORMATIVE_BASES_CACHE_ATTRIBUTE_NAME));
+            }
+        }
+    }
+
     /**
      * Create a context that maps each read to the reference haplotype with log10 L of 0
      * @param refHaplotype a non-null reference haplotype
@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.tools.walkers.markduplicates;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MarkDuplicatesGATKIntegrationTest extends CommandLineProgramTest {
+
+    @DataProvider(name = "queryGroupedInputs")
+    public Object[][] queryGroupedInputs() {
+        return new Object[][]{
+                {new File(AbstractMarkDuplicatesCommandLineProgramTest.TEST_DATA_DIR, "example.chr1.1-1K.markedDups.queryname.bam"), "1"},
+                {new File(AbstractMarkDuplicatesCommandLineProgramTest.TEST_DATA_DIR, "example.chr1.1-1K.markedDups.querygrouped.bam"), "3"},
+                {new File(AbstractMarkDuplicatesCommandLineProgramTest.TEST_DATA_DIR, "optical_dupes.queryname.bam"), "2"},
+        };
+    }
+
+    @Test(dataProvider = "queryGroupedInputs")
+    public void testMatchesMarkDuplicatesSpark(final File input, final String markingThreads) throws IOException {
+        final File streamingOutput = createTempFile("markDuplicatesGATK", ".bam");
+        final ArgumentsBuilder streamingArgs = new ArgumentsBuilder();
+        streamingArgs.addInput(input).addOutput(streamingOutput)
+                .addArgument(MarkDuplicatesGATK.MARKING_THREADS_LONG_NAME, markingThreads)
+                // force the duplicate marking records to spill to disk
+                .addArgument(MarkDuplicatesGATK.MAX_RECORDS_IN_RAM_LONG_NAME, "10");
+        runCommandLine(streamingArgs);
+
+        final File sparkOutput = createTempFile("markDuplicatesSpark", ".bam");
+        final ArgumentsBuilder sparkArgs = new ArgumentsBuilder();
+        sparkArgs.addInput(input).addOutput(sparkOutput);
+        runCommandLine(sparkArgs, MarkDuplicatesSpark.class.getSimpleName());
+
+        final Map<String, Boolean> streamingDuplicates = getDuplicateFlags(streamingOutput);
+        final Map<String, Boolean> sparkDuplicates = getDuplicateFlags(sparkOutput);
+        Assert.assertEquals(streamingDuplicates.size(), sparkDuplicates.size());
+        Assert.assertEquals(streamingDuplicates, sparkDuplicates);
+        Assert.assertTrue(streamingDuplicates.containsValue(true));
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testCoordinateSortedInputIsRejected() {
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addInput(new File(AbstractMarkDuplicatesCommandLineProgramTest.TEST_DATA_DIR, "example.chr1.1-1K.unmarkedDups.bam"))
+                .addOutput(createTempFile("markDuplicatesGATK", ".bam"));
+        runCommandLine(args);
+    }
+
+    // Keys each record by its name and alignment so that outputs in different orders can be compared
+    private static Map<String, Boolean> getDuplicateFlags(final File bam) throws IOException {
+        final Map<String, Boolean> duplicateFlags = new HashMap<>();
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(bam)) {
+            for (final SAMRecord read : reader) {
+                final String key = read.getReadName() + ":" + (read.getFlags() & ~SAMRecord.DUPLICATE_READ_FLAG) + ":" + read.getReferenceName() + ":" + read.getAlignmentStart();
+                Assert.assertNull(duplicateFlags.put(key, read.getDuplicateReadFlag()), "Unexpected duplicate key " + key);
+            }
+        }
+        return duplicateFlags;
+    }
+}
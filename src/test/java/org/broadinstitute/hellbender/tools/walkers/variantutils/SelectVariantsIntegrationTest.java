@@ -984,4 +984,40 @@ public class SelectVariantsIntegrationTest extends CommandLineProgramTest {
                 .addOutput(output);
         runCommandLine(args);
     }
+
+    // selecting samples by name decodes only their genotypes, while selecting them by expression decodes all of them
+    @Test
+    public void testSampleNamesMatchSampleExpressions() throws IOException {
+        final File input = new File(getToolTestDataDir(), "vcfexample.loseAlleleInSelection.vcf");
+        final File byName = createTempFile("byName", ".vcf");
+        final File byExpression = createTempFile("byExpression", ".vcf");
+        runCommandLine(getSampleSelectionArgs(input, byName).addArgument(StandardArgumentDefinitions.SAMPLE_NAME_LONG_NAME, "NA12892"));
+        runCommandLine(getSampleSelectionArgs(input, byExpression).addArgument("sample-expressions", "^NA12892$"));
+
+        IntegrationTestSpec.assertEqualTextFiles(byName, byExpression);
+    }
+
+    // an excluded sample that is also selected by name must still be found in the header
+    @Test
+    public void testExcludedSampleNamesAreRemovedFromSampleNames() throws IOException {
+        final File input = new File(getToolTestDataDir(), "vcfexample.loseAlleleInSelection.vcf");
+        final File withExcluded = createTempFile("withExcluded", ".vcf");
+        final File withoutExcluded = createTempFile("withoutExcluded", ".vcf");
+        runCommandLine(getSampleSelectionArgs(input, withExcluded)
+                .addArgument(StandardArgumentDefinitions.SAMPLE_NAME_LONG_NAME, "NA12891")
+                .addArgument(StandardArgumentDefinitions.SAMPLE_NAME_LONG_NAME, "NA12892")
+                .addArgument("exclude-sample-name", "NA12892"));
+        runCommandLine(getSampleSelectionArgs(input, withoutExcluded).addArgument(StandardArgumentDefinitions.SAMPLE_NAME_LONG_NAME, "NA12891"));
+
+        IntegrationTestSpec.assertEqualTextFiles(withExcluded, withoutExcluded);
+    }
+
+    private static ArgumentsBuilder getSampleSelectionArgs(final File input, final File output) {
+        return new ArgumentsBuilder()
+                .addVCF(input)
+                .addOutput(output)
+                .addBooleanArgument("keep-original-ac", true)
+                .addBooleanArgument("remove-unused-alternates", true)
+                .addBooleanArgument(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, false);
+    }
 }
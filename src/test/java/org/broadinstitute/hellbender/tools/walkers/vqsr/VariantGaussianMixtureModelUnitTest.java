@@ -93,6 +93,45 @@ public final class VariantGaussianMixtureModelUnitTest extends GATKBaseTest {
         assertTranchesAreTheSame(read(EXPECTED_TRANCHES_NEW), tranches, true, false);
     }
 
+    @Test
+    public final void testFindTranchesFromTrancheData() throws java.io.IOException {
+        final TrancheData trancheData = TrancheData.of(readData());
+        final TrancheManager.SelectionMetric metric = new TrancheManager.TruthSensitivityMetric(trancheData.countCallsAtTruth(Double.NEGATIVE_INFINITY));
+        final List<TruthSensitivityTranche> tranches = TrancheManager.findTranches(trancheData, TRUTH_SENSITIVITY_CUTS, metric, VariantRecalibratorArgumentCollection.Mode.SNP, null);
+
+        assertTranchesAreTheSame(read(EXPECTED_TRANCHES_NEW), tranches, true, false);
+    }
+
+    @Test
+    public final void testTrancheDataSortsStablyByLod() {
+        final Random random = new Random(13);
+        final ArrayList<VariantDatum> vd = new ArrayList<>();
+        for ( int i = 0; i < 5000; i++ ) {
+            final VariantDatum datum = new VariantDatum();
+            // round the LODs so that there are plenty of ties
+            datum.lod = Math.round(random.nextGaussian() * 40.0) / 10.0;
+            datum.atTruthSite = random.nextDouble() < 0.3;
+            datum.isKnown = random.nextDouble() < 0.5;
+            datum.isSNP = random.nextDouble() < 0.8;
+            datum.isTransition = random.nextDouble() < 0.66;
+            vd.add(datum);
+        }
+        final TrancheData trancheData = TrancheData.of(vd);
+        Assert.assertEquals(trancheData.countCallsAtTruth(Double.NEGATIVE_INFINITY), TrancheManager.countCallsAtTruth(vd, Double.NEGATIVE_INFINITY));
+
+        trancheData.sortByLod();
+        vd.sort(VariantDatum.VariantDatumLODComparator);
+        Assert.assertEquals(trancheData.size(), vd.size());
+        for ( int i = 0; i < vd.size(); i++ ) {
+            final VariantDatum datum = vd.get(i);
+            Assert.assertEquals(trancheData.getLod(i), datum.lod);
+            Assert.assertEquals(trancheData.isAtTruthSite(i), datum.atTruthSite);
+            Assert.assertEquals(trancheData.isKnown(i), datum.isKnown);
+            Assert.assertEquals(trancheData.isSNP(i), datum.isSNP);
+            Assert.assertEquals(trancheData.isTransition(i), datum.isTransition);
+        }
+    }
+
     @Test(expectedExceptions = {UserException.class})
     public final void testBadFDR() throws java.io.IOException, java.io.FileNotFoundException {
         ArrayList<VariantDatum> vd = readData();
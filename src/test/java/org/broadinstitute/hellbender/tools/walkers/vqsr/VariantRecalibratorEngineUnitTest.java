@@ -0,0 +1,107 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class VariantRecalibratorEngineUnitTest extends GATKBaseTest {
+
+    // enough data for several blocks when running with more than one thread
+    private static final int NUM_DATA = 3 * DataBlockExecutor.BLOCK_SIZE + 123;
+    private static final int NUM_ANNOTATIONS = 3;
+
+    // two well separated clusters, with a missing annotation for every hundredth datum
+    private static List<VariantDatum> makeData() {
+        final Random random = new Random(13);
+        final List<VariantDatum> data = new ArrayList<>(NUM_DATA);
+        for( int n = 0; n < NUM_DATA; n++ ) {
+            final VariantDatum datum = new VariantDatum();
+            datum.annotations = new double[NUM_ANNOTATIONS];
+            datum.isNull = new boolean[NUM_ANNOTATIONS];
+            final double offset = n % 3 == 0 ? 2.0 : -1.0;
+            for( int jjj = 0; jjj < NUM_ANNOTATIONS; jjj++ ) {
+                datum.annotations[jjj] = offset + (jjj + 1) * 0.3 * random.nextGaussian();
+            }
+            if( n % 100 == 0 ) {
+                datum.isNull[n % NUM_ANNOTATIONS] = true;
+                datum.annotations[n % NUM_ANNOTATIONS] = 0.1 * random.nextGaussian();
+            }
+            datum.prior = 2.0;
+            data.add(datum);
+        }
+        return data;
+    }
+
+    private static List<VariantDatum> fitAndEvaluate( final int numThreads, final List<MultivariateGaussian> gaussians ) {
+        final VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
+        VRAC.numModelThreads = numThreads;
+        final VariantRecalibratorEngine engine = new VariantRecalibratorEngine(VRAC);
+        final List<VariantDatum> data = makeData();
+
+        Utils.resetRandomGenerator();
+        final GaussianMixtureModel model = engine.generateModel(data, 4);
+        engine.evaluateData(data, model, false);
+        Assert.assertFalse(model.failedToConverge);
+        gaussians.addAll(model.getModelGaussians());
+        return data;
+    }
+
+    @Test
+    public void testMultipleThreadsMatchOneThread() {
+        final List<MultivariateGaussian> expectedGaussians = new ArrayList<>();
+        final List<VariantDatum> expectedData = fitAndEvaluate(1, expectedGaussians);
+        final List<MultivariateGaussian> actualGaussians = new ArrayList<>();
+        final List<VariantDatum> actualData = fitAndEvaluate(4, actualGaussians);
+
+        Assert.assertEquals(actualGaussians.size(), expectedGaussians.size());
+        for( int k = 0; k < expectedGaussians.size(); k++ ) {
+            final MultivariateGaussian expected = expectedGaussians.get(k);
+            final MultivariateGaussian actual = actualGaussians.get(k);
+            Assert.assertEquals(actual.pMixtureLog10, expected.pMixtureLog10, 1e-8);
+            Assert.assertEquals(actual.mu, expected.mu, 1e-8);
+            for( int iii = 0; iii < NUM_ANNOTATIONS; iii++ ) {
+                Assert.assertEquals(actual.sigma.getArray()[iii], expected.sigma.getArray()[iii], 1e-8);
+            }
+        }
+        for( int n = 0; n < NUM_DATA; n++ ) {
+            Assert.assertEquals(actualData.get(n).lod, expectedData.get(n).lod, 1e-6);
+        }
+    }
+
+    @Test
+    public void testFitIsReproducible() {
+        final List<MultivariateGaussian> firstGaussians = new ArrayList<>();
+        final List<VariantDatum> firstData = fitAndEvaluate(2, firstGaussians);
+        final List<MultivariateGaussian> secondGaussians = new ArrayList<>();
+        final List<VariantDatum> secondData = fitAndEvaluate(3, secondGaussians);
+
+        // blocks are always combined in the same order, so the number of threads doesn't change the results
+        for( int k = 0; k < firstGaussians.size(); k++ ) {
+            Assert.assertEquals(secondGaussians.get(k).mu, firstGaussians.get(k).mu);
+        }
+        for( int n = 0; n < NUM_DATA; n++ ) {
+            Assert.assertEquals(secondData.get(n).lod, firstData.get(n).lod);
+        }
+    }
+
+    @Test
+    public void testDataBlockExecutorKeepsBlockOrder() {
+        try ( final DataBlockExecutor executor = new DataBlockExecutor(3) ) {
+            final List<int[]> blocks = executor.map(2 * DataBlockExecutor.BLOCK_SIZE + 1, (start, end) -> new int[]{start, end});
+            Assert.assertEquals(blocks.size(), 3);
+            Assert.assertEquals(blocks.get(0), new int[]{0, DataBlockExecutor.BLOCK_SIZE});
+            Assert.assertEquals(blocks.get(1), new int[]{DataBlockExecutor.BLOCK_SIZE, 2 * DataBlockExecutor.BLOCK_SIZE});
+            Assert.assertEquals(blocks.get(2), new int[]{2 * DataBlockExecutor.BLOCK_SIZE, 2 * DataBlockExecutor.BLOCK_SIZE + 1});
+        }
+        try ( final DataBlockExecutor executor = new DataBlockExecutor(1) ) {
+            Assert.assertEquals(executor.map(10 * DataBlockExecutor.BLOCK_SIZE, (start, end) -> end - start),
+                    Collections.singletonList(10 * DataBlockExecutor.BLOCK_SIZE));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package org.broadinstitute.hellbender.tools.walkers.vqsr;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.testng.Assert;
@@ -15,6 +19,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -232,6 +237,54 @@ public class VariantRecalibratorIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(varRecalTool.max_attempts, 4);
     }
 
+    @Test
+    public void testVariantRecalibratorTwoPassStreaming() throws IOException {
+        final List<String> defaultArgs = new ArrayList<>(Arrays.asList(VQSRParamsWithResources));
+        final File defaultRecal = createTempFile("testVarRecalDefault", ".vcf");
+        final File defaultTranches = createTempFile("testVarRecalDefault", ".txt");
+        defaultArgs.addAll(addTempFileArgs(defaultRecal, defaultTranches));
+        Assert.assertEquals(new VariantRecalibrator().instanceMain(defaultArgs.toArray(new String[defaultArgs.size()])), true);
+
+        final List<String> streamingArgs = new ArrayList<>(Arrays.asList(VQSRParamsWithResources));
+        final File streamingRecal = createTempFile("testVarRecalStreaming", ".vcf");
+        final File streamingTranches = createTempFile("testVarRecalStreaming", ".txt");
+        streamingArgs.addAll(addTempFileArgs(streamingRecal, streamingTranches));
+        streamingArgs.add("--" + VariantRecalibrator.TWO_PASS_STREAMING_LONG_NAME);
+        Assert.assertEquals(new VariantRecalibrator().instanceMain(streamingArgs.toArray(new String[streamingArgs.size()])), true);
+
+        // every variant is written, in the same order, with a score close to the one the default mode gives it
+        final List<VariantContext> expected = VariantContextTestUtils.streamVcf(defaultRecal).collect(Collectors.toList());
+        final List<VariantContext> actual = VariantContextTestUtils.streamVcf(streamingRecal).collect(Collectors.toList());
+        Assert.assertEquals(actual.size(), expected.size());
+        int sameSignLods = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(new SimpleInterval(actual.get(i)), new SimpleInterval(expected.get(i)));
+            Assert.assertEquals(actual.get(i).hasAttribute(GATKVCFConstants.POSITIVE_LABEL_KEY),
+                    expected.get(i).hasAttribute(GATKVCFConstants.POSITIVE_LABEL_KEY));
+            final double actualLod = actual.get(i).getAttributeAsDouble(GATKVCFConstants.VQS_LOD_KEY, Double.NaN);
+            final double expectedLod = expected.get(i).getAttributeAsDouble(GATKVCFConstants.VQS_LOD_KEY, Double.NaN);
+            Assert.assertFalse(Double.isNaN(actualLod));
+            sameSignLods += Math.signum(actualLod) == Math.signum(expectedLod) ? 1 : 0;
+        }
+        Assert.assertTrue(sameSignLods >= 0.95 * expected.size(), sameSignLods + " of " + expected.size() + " VQSLODs have the same sign");
+
+        // the tranches are cut at the same truth sensitivities, over the same truth sites, to nearly the same calls
+        final List<TruthSensitivityTranche> expectedTranches = TruthSensitivityTranche.readTranches(defaultTranches);
+        final List<TruthSensitivityTranche> actualTranches = TruthSensitivityTranche.readTranches(streamingTranches);
+        Assert.assertEquals(actualTranches.size(), expectedTranches.size());
+        for (int i = 0; i < expectedTranches.size(); i++) {
+            final TruthSensitivityTranche expectedTranche = expectedTranches.get(i);
+            final TruthSensitivityTranche actualTranche = actualTranches.get(i);
+            Assert.assertEquals(actualTranche.targetTruthSensitivity, expectedTranche.targetTruthSensitivity, 1e-6);
+            Assert.assertEquals(actualTranche.model, expectedTranche.model);
+            Assert.assertEquals(actualTranche.accessibleTruthSites, expectedTranche.accessibleTruthSites);
+            Assert.assertEquals(actualTranche.callsAtTruthSites, expectedTranche.callsAtTruthSites, 0.01 * expectedTranche.accessibleTruthSites);
+            final int expectedCalls = expectedTranche.numKnown + expectedTranche.numNovel;
+            Assert.assertEquals(actualTranche.numKnown + actualTranche.numNovel, expectedCalls, 0.05 * expectedCalls);
+            Assert.assertEquals(actualTranche.novelTiTv, expectedTranche.novelTiTv, 0.1);
+        }
+    }
+
     private List<String> addTempFileArgs(final File recalOutFile, final File tranchesOutFile) {
         List<java.lang.String> args = new ArrayList<>(2);
         args.add("--output");
@@ -0,0 +1,74 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.tribble.FeatureCodec;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public final class ClassIndexUnitTest extends GATKBaseTest {
+
+    private ClassIndex index;
+
+    @BeforeClass
+    public void writeIndex() throws IOException {
+        final File indexFile = createTempFile("classIndex", ".txt");
+        ClassIndex.write(indexFile.toPath(),
+                Arrays.asList("org.broadinstitute.hellbender.engine", "org.broadinstitute.hellbender.tools.examples"),
+                Arrays.asList(ReadFilter.class, CommandLineProgram.class));
+        try (final BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            index = new ClassIndex(reader, getClass().getClassLoader());
+        }
+    }
+
+    @DataProvider
+    public Object[][] getCoveredLookups() {
+        return new Object[][] {
+                { "org.broadinstitute.hellbender.engine", ReadFilter.class },
+                { "org.broadinstitute.hellbender.engine.filters", ReadFilter.class },
+                { "org.broadinstitute.hellbender.tools.examples", CommandLineProgram.class },
+                { "org.broadinstitute.hellbender.engine", CommandLineProgram.class }
+        };
+    }
+
+    @Test(dataProvider = "getCoveredLookups")
+    public void testLookupMatchesScan(final String packageName, final Class<?> baseClass) {
+        Assert.assertEquals(index.lookup(packageName, baseClass), ClassIndex.scan(packageName, baseClass));
+    }
+
+    @Test
+    public void testUncoveredLookups() {
+        // base class that wasn't indexed
+        Assert.assertNull(index.lookup("org.broadinstitute.hellbender.engine", FeatureCodec.class));
+        // package outside of the indexed ones, including one that merely shares a prefix
+        Assert.assertNull(index.lookup("org.broadinstitute.hellbender.tools.walkers", CommandLineProgram.class));
+        Assert.assertNull(index.lookup("org.broadinstitute.hellbender.tools.examplesX", CommandLineProgram.class));
+        Assert.assertNull(index.lookup("org.broadinstitute.hellbender", ReadFilter.class));
+    }
+
+    @Test
+    public void testFindClassesMatchesScan() {
+        // whether or not the packaged index is on the classpath, the results must be the same as scanning
+        Assert.assertEquals(ClassIndex.findClasses("org.broadinstitute.hellbender.engine.filters", ReadFilter.class),
+                ClassIndex.scan("org.broadinstitute.hellbender.engine.filters", ReadFilter.class));
+        Assert.assertEquals(ClassIndex.findClasses("no.such.package", ReadFilter.class), Collections.emptySet());
+    }
+
+    @Test
+    public void testIsConcrete() {
+        Assert.assertFalse(ClassIndex.isConcrete(ReadFilter.class));
+        Assert.assertFalse(ClassIndex.isConcrete(FeatureCodec.class));
+        Assert.assertTrue(ClassIndex.isConcrete(ClassIndex.class));
+    }
+}
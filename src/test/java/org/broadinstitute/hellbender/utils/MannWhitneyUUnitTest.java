@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.utils;
 
 import com.google.common.primitives.Doubles;
+import org.apache.commons.math3.distribution.NormalDistribution;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -10,6 +11,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
 
 public class MannWhitneyUUnitTest extends GATKBaseTest {
     private static double DELTA_PRECISION = 0.00001;
@@ -175,4 +179,99 @@ public class MannWhitneyUUnitTest extends GATKBaseTest {
             Assert.assertTrue(result < 0.01, String.format("%f %d %f", result, numToReduceIn2, dist2.get(0)));
         }
     }
+
+    @DataProvider(name = "RandomSeriesData")
+    public Object[][] makeRandomSeriesData() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random random = new Random(13);
+        for (final int n1 : Arrays.asList(1, 2, 5, 9, 12, 40)) {
+            for (final int n2 : Arrays.asList(1, 3, 8, 9, 25)) {
+                // a small range of values gives many ties, a large one almost none
+                for (final int range : Arrays.asList(3, 10, 1000000)) {
+                    final double[] series1 = random.doubles(n1).map(x -> Math.floor(x * range)).toArray();
+                    final double[] series2 = random.doubles(n2).map(x -> Math.floor(x * range)).toArray();
+                    for (final MannWhitneyU.TestType testType : MannWhitneyU.TestType.values()) {
+                        tests.add(new Object[]{series1, series2, testType});
+                    }
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "RandomSeriesData")
+    public void testMatchesRankedDataCalculation(final double[] series1, final double[] series2, final MannWhitneyU.TestType testType) {
+        final MannWhitneyU mannWhitneyU = new MannWhitneyU();
+        final MannWhitneyU.Result result = mannWhitneyU.test(series1.clone(), series2.clone(), testType);
+
+        // the statistics as computed from the ranked data objects, with the exact distribution from enumerating every
+        // assignment of the ranks to the two series
+        final MannWhitneyU.TestStatistic stat = testType == MannWhitneyU.TestType.TWO_SIDED ?
+                mannWhitneyU.calculateTwoSidedU(series1.clone(), series2.clone()) :
+                mannWhitneyU.calculateOneSidedU(series1.clone(), series2.clone(), testType);
+        final double u = stat.getTrueU();
+        final int n1 = series1.length;
+        final int n2 = series2.length;
+        final double expectedP;
+        final double expectedZ;
+        if (n1 >= 10 || n2 >= 10) {
+            expectedZ = mannWhitneyU.calculateZ(u, n1, n2, stat.getTies(), testType);
+            final double p = 2 * new NormalDistribution(0, 1).cumulativeProbability(expectedZ);
+            expectedP = testType == MannWhitneyU.TestType.TWO_SIDED ? p : p / 2;
+        } else {
+            final double[] ranks = rankTogether(series1, series2);
+            final Map<Long, Long> histogram = new TreeMap<>();
+            countAssignments(ranks, 0, n1, 0.0, n1, histogram);
+            final long observed = Math.round(2 * u);
+            double smaller = histogram.getOrDefault(observed, 0L) / 2.0;
+            double total = 0;
+            for (final Map.Entry<Long, Long> bin : histogram.entrySet()) {
+                if (bin.getKey() < observed) smaller += bin.getValue();
+                total += bin.getValue();
+            }
+            expectedP = smaller / total;
+            expectedZ = new NormalDistribution(0, 1).inverseCumulativeProbability(expectedP);
+        }
+
+        Assert.assertEquals(result.getU(), u);
+        Assert.assertEquals(result.getP(), expectedP);
+        Assert.assertEquals(result.getZ(), expectedZ);
+
+        final double[] sorted1 = series1.clone();
+        final double[] sorted2 = series2.clone();
+        Arrays.sort(sorted1);
+        Arrays.sort(sorted2);
+        Assert.assertEquals(result.getMedianShift(), Math.abs(mannWhitneyU.median(sorted1) - mannWhitneyU.median(sorted2)));
+
+        // the distributions are cached or buffered between calls, so a repeat must give the same answer
+        Assert.assertEquals(mannWhitneyU.test(series1.clone(), series2.clone(), testType).getP(), result.getP());
+    }
+
+    // the ranks of the values of both series, with ties given their average rank
+    private static double[] rankTogether(final double[] series1, final double[] series2) {
+        final double[] values = Doubles.concat(series1, series2);
+        Arrays.sort(values);
+        final double[] ranks = new double[values.length];
+        for (int i = 0; i < values.length; ) {
+            int j = i;
+            while (j < values.length && values[j] == values[i]) {
+                j++;
+            }
+            Arrays.fill(ranks, i, j, (i + 1 + j) / 2.0);
+            i = j;
+        }
+        return ranks;
+    }
+
+    // histogram of twice the U statistic over every choice of n1 of the ranks for the first series
+    private static void countAssignments(final double[] ranks, final int from, final int remaining, final double rankSum,
+                                         final int n1, final Map<Long, Long> histogram) {
+        if (remaining == 0) {
+            histogram.merge(Math.round(2 * (rankSum - n1 * (n1 + 1) / 2.0)), 1L, Long::sum);
+            return;
+        }
+        for (int i = from; i <= ranks.length - remaining; i++) {
+            countAssignments(ranks, i + 1, remaining - 1, rankSum + ranks[i], n1, histogram);
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package org.broadinstitute.hellbender.utils.bwa;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class BwaMemIndexImageMappingUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testLoadIntoPageCache() throws IOException {
+        final File image = createTempFile("fakeIndexImage", ".img");
+        final byte[] contents = new byte[3 << 20];
+        new Random(13).nextBytes(contents);
+        Files.write(image.toPath(), contents);
+
+        Assert.assertEquals(BwaMemIndexImageMapping.loadIntoPageCache(image.getAbsolutePath()), contents.length);
+        final double residentFraction = BwaMemIndexImageMapping.getPageCacheResidentFraction(image.getAbsolutePath());
+        Assert.assertTrue(residentFraction >= 0.0 && residentFraction <= 1.0);
+    }
+
+    @Test
+    public void testEmptyImage() {
+        final File image = createTempFile("emptyIndexImage", ".img");
+        Assert.assertEquals(BwaMemIndexImageMapping.loadIntoPageCache(image.getAbsolutePath()), 0L);
+        Assert.assertEquals(BwaMemIndexImageMapping.getPageCacheResidentFraction(image.getAbsolutePath()), 1.0);
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotReadInputFile.class)
+    public void testMissingImage() {
+        BwaMemIndexImageMapping.loadIntoPageCache(new File(createTempDir("bwaImage"), "missing.img").getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotReadInputFile.class)
+    public void testResidencyOfMissingImage() {
+        BwaMemIndexImageMapping.getPageCacheResidentFraction(new File(createTempDir("bwaImage"), "missing.img").getAbsolutePath());
+    }
+}
@@ -0,0 +1,128 @@
+package org.broadinstitute.hellbender.utils.codecs;
+
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
+import org.broadinstitute.hellbender.utils.variant.VariantProjection;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public final class ProjectingVCFCodecUnitTest extends GATKBaseTest {
+    private static final String TEST_DIR = toolsTestDir + "walkers/variantutils/VariantsToTable/";
+    private static final String MANY_SAMPLES_VCF = TEST_DIR + "vcfexample2.vcf";
+    private static final String NO_SAMPLES_VCF = TEST_DIR + "multiallelic.vcf";
+    private static final String GVCF = toolsTestDir + "walkers/CombineGVCFs/spanningDel.many.g.vcf";
+
+    @DataProvider
+    public Object[][] getProjections() {
+        return new Object[][] {
+                { MANY_SAMPLES_VCF, VariantProjection.ALL.withInfoKeys(Arrays.asList("DoC", "AF", "NotPresent")) },
+                { MANY_SAMPLES_VCF, VariantProjection.ALL.withInfoKeys(Collections.emptyList()).withSamples(Collections.emptyList()) },
+                { MANY_SAMPLES_VCF, VariantProjection.ALL.withFormatKeys(Arrays.asList("GQ")).withSamples(Arrays.asList("NA12414", "NA11992")) },
+                { MANY_SAMPLES_VCF, VariantProjection.ALL.withFormatKeys(Arrays.asList(VCFConstants.GENOTYPE_KEY, "RD")).withSamples(Arrays.asList("NA12006")) },
+                // none of the FORMAT keys are present
+                { MANY_SAMPLES_VCF, VariantProjection.ALL.withFormatKeys(Arrays.asList("PL")) },
+                { NO_SAMPLES_VCF, VariantProjection.ALL.withInfoKeys(Arrays.asList("DB", "AC", "QD")) },
+                { NO_SAMPLES_VCF, VariantProjection.ALL.withSamples(Arrays.asList("NA12414")) },
+                // END is kept even though it isn't projected
+                { GVCF, VariantProjection.ALL.withInfoKeys(Collections.emptyList()).withFormatKeys(Arrays.asList(VCFConstants.GENOTYPE_KEY)) },
+                { GVCF, VariantProjection.ALL.withInfoKeys(Arrays.asList("DP")).withSamples(Collections.emptyList()) }
+        };
+    }
+
+    @Test(dataProvider = "getProjections")
+    public void testProjectionMatchesFullDecoding(final String vcf, final VariantProjection projection) {
+        try (final FeatureDataSource<VariantContext> full = new FeatureDataSource<>(new FeatureInput<>(vcf), 0, VariantContext.class, 0, 0, (GenomicsDBOptions) null);
+             final FeatureDataSource<VariantContext> projected = new FeatureDataSource<>(new FeatureInput<>(vcf), 0, VariantContext.class, 0, 0, null, projection)) {
+            final List<String> allSamples = ((VCFHeader) full.getHeader()).getGenotypeSamples();
+            final List<String> projectedSamples = ((VCFHeader) projected.getHeader()).getGenotypeSamples();
+            Assert.assertEquals(projectedSamples, allSamples.stream().filter(projection::keepsSample).collect(Collectors.toList()));
+
+            final Iterator<VariantContext> projectedVariants = projected.iterator();
+            int numVariants = 0;
+            for (final VariantContext expected : full) {
+                Assert.assertTrue(projectedVariants.hasNext());
+                final VariantContext actual = projectedVariants.next();
+                numVariants++;
+
+                Assert.assertEquals(actual.getContig(), expected.getContig());
+                Assert.assertEquals(actual.getStart(), expected.getStart());
+                Assert.assertEquals(actual.getEnd(), expected.getEnd());
+                Assert.assertEquals(actual.getID(), expected.getID());
+                Assert.assertEquals(actual.getAlleles(), expected.getAlleles());
+                Assert.assertEquals(actual.getPhredScaledQual(), expected.getPhredScaledQual());
+                Assert.assertEquals(actual.getFilters(), expected.getFilters());
+
+                final Map<String, Object> expectedAttributes = new LinkedHashMap<>(expected.getAttributes());
+                expectedAttributes.keySet().removeIf(key -> !projection.keepsInfoKey(key));
+                Assert.assertEquals(actual.hasAttribute(VCFConstants.END_KEY), expected.hasAttribute(VCFConstants.END_KEY));
+                Assert.assertEquals(actual.getAttributes(), expectedAttributes);
+
+                Assert.assertEquals(new ArrayList<>(actual.getSampleNamesOrderedByName()),
+                        expected.getSampleNamesOrderedByName().stream().filter(projection::keepsSample).collect(Collectors.toList()));
+                for (final Genotype genotype : actual.getGenotypes()) {
+                    final Genotype expectedGenotype = expected.getGenotype(genotype.getSampleName());
+                    if (projection.keepsFormatKey(VCFConstants.GENOTYPE_KEY)) {
+                        Assert.assertEquals(genotype.getAlleles(), expectedGenotype.getAlleles());
+                    }
+                    if (projection.keepsFormatKey(VCFConstants.GENOTYPE_QUALITY_KEY)) {
+                        Assert.assertEquals(genotype.getGQ(), expectedGenotype.getGQ());
+                    } else {
+                        Assert.assertFalse(genotype.hasGQ());
+                    }
+                    for (final String key : Arrays.asList("RD", "NotPresent")) {
+                        Assert.assertEquals(genotype.getExtendedAttribute(key),
+                                projection.keepsFormatKey(key) ? expectedGenotype.getExtendedAttribute(key) : null);
+                    }
+                }
+            }
+            Assert.assertFalse(projectedVariants.hasNext());
+            Assert.assertTrue(numVariants > 0);
+        }
+    }
+
+    @Test
+    public void testGVCFBlocksKeepTheirEnd() {
+        final VariantProjection projection = VariantProjection.ALL.withInfoKeys(Collections.emptyList());
+        try (final FeatureDataSource<VariantContext> projected = new FeatureDataSource<>(new FeatureInput<>(GVCF), 0, VariantContext.class, 0, 0, null, projection)) {
+            final List<VariantContext> variants = new ArrayList<>();
+            projected.forEach(variants::add);
+            Assert.assertEquals(variants.size(), 3);
+            Assert.assertEquals(variants.get(0).getEnd(), 3944042);
+            Assert.assertEquals(variants.get(0).getAttributeAsInt(VCFConstants.END_KEY, 0), 3944042);
+            Assert.assertEquals(variants.get(2).getEnd(), 3944245);
+        }
+    }
+
+    @Test
+    public void testKeysMatchedInPlace() {
+        final VariantProjection projection = VariantProjection.ALL.withInfoKeys(Arrays.asList("AC", "DP", "MQRankSum"))
+                .withFormatKeys(Arrays.asList(VCFConstants.GENOTYPE_KEY, "AD"));
+        final String text = "xxACDPMQRankSumENDADGTAFMQ";
+        for (int start = 0; start <= text.length(); start++) {
+            for (int end = start; end <= text.length(); end++) {
+                final String key = text.substring(start, end);
+                Assert.assertEquals(projection.keepsInfoKey(text, start, end), projection.keepsInfoKey(key), key);
+                Assert.assertEquals(projection.keepsFormatKey(text, start, end), projection.keepsFormatKey(key), key);
+            }
+        }
+        Assert.assertTrue(projection.keepsInfoKey(VCFConstants.END_KEY));
+        Assert.assertFalse(projection.keepsFormatKey(VCFConstants.END_KEY));
+        Assert.assertTrue(VariantProjection.ALL.withInfoKeys(Collections.emptyList()).keepsInfoKey(text, 15, 18));
+    }
+
+    @Test
+    public void testNotDiscoverable() {
+        Assert.assertFalse(new ProjectingVCFCodec().canDecode(MANY_SAMPLES_VCF));
+        Assert.assertTrue(new ProjectingVCFCodec(VariantProjection.ALL.withSamples(Collections.emptyList())).canDecode(MANY_SAMPLES_VCF));
+    }
+}
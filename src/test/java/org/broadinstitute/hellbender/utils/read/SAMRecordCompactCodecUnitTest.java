@@ -0,0 +1,123 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordCompactCodec;
+import htsjdk.samtools.SAMRecordSparkCodec;
+import htsjdk.samtools.SAMTag;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SAMRecordCompactCodecUnitTest extends GATKBaseTest {
+
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeaderWithGroups(3, 1, 100000, 3);
+
+    // Reads covering mapped, unmapped, placed unmapped and paired reads, with and without read groups.
+    // The reads are headerless, as they are in Spark.
+    private static List<GATKRead> makeReads() {
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read" + (i % 7), i % 3, 1000 + (i % 5) * 10, 50);
+            read.setIsReverseStrand(i % 2 == 0);
+            read.setMappingQuality(i % 4 * 10);
+            read.setAttribute("NM", i % 3);
+            read.setAttribute(SAMTag.RG.name(), "ReadGroup" + (i % 4)); // ReadGroup3 is not in the header
+            read.setAttribute("XS", "tag" + i);
+            reads.add(read);
+        }
+        for (int i = 0; i < 10; i++) {
+            reads.addAll(ArtificialReadUtils.createPair(HEADER, "pair" + (i % 3), 50, i % 2, 2000 + i, 2100 + (i % 4) * 20, i % 2 == 0, i % 3 == 0));
+        }
+        final byte[] bases = {'A', 'C', 'G', 'T'};
+        final byte[] quals = {30, 30, 20, 10};
+        final GATKRead unmapped = ArtificialReadUtils.createArtificialUnmappedRead(HEADER, bases, quals);
+        unmapped.setName("unmapped");
+        reads.add(unmapped);
+        final GATKRead unmappedWithReadGroup = ArtificialReadUtils.createArtificialUnmappedRead(HEADER, bases, quals);
+        unmappedWithReadGroup.setName("unmappedWithReadGroup");
+        unmappedWithReadGroup.setReadGroup("ReadGroup1");
+        reads.add(unmappedWithReadGroup);
+        final GATKRead placedUnmapped = ArtificialReadUtils.createArtificialUnmappedReadWithAssignedPosition(HEADER, HEADER.getSequence(1).getSequenceName(), 1000, bases, quals);
+        placedUnmapped.setName("placedUnmapped");
+        reads.add(placedUnmapped);
+        reads.forEach(read -> read.convertToSAMRecord(null));
+        return reads;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(HEADER);
+        for (final GATKRead read : makeReads()) {
+            final GATKRead roundTrippedRead = SAMRecordToGATKReadAdapter.headerlessReadAdapter(codec.decode(codec.encode(read.convertToSAMRecord(null))));
+            Assert.assertEquals(roundTrippedRead, read);
+            Assert.assertEquals(roundTrippedRead.getSAMString(), read.getSAMString());
+            Assert.assertEquals(roundTrippedRead.getAttributeAsString(SAMTag.RG.name()), read.getAttributeAsString(SAMTag.RG.name()));
+        }
+    }
+
+    @Test
+    public void testRoundTripWithoutReadName() {
+        final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(HEADER);
+        final SAMRecord record = ArtificialReadUtils.createArtificialRead(HEADER, "read", 0, 1000, 50).convertToSAMRecord(null);
+        record.setAttribute("NM", 1);
+        record.setAttribute(SAMTag.RG.name(), "ReadGroup1");
+        record.setAttribute("XS", "tag");
+        record.setReadName(null);
+
+        // a missing read name comes back empty, as it does from a BAM
+        final SAMRecord roundTrippedRecord = codec.decode(codec.encode(record));
+        Assert.assertEquals(roundTrippedRecord.getReadName(), "");
+        Assert.assertEquals(roundTrippedRecord.getReferenceName(), record.getReferenceName());
+        Assert.assertEquals(roundTrippedRecord.getAlignmentStart(), record.getAlignmentStart());
+        Assert.assertEquals(roundTrippedRecord.getCigar(), record.getCigar());
+        Assert.assertEquals(roundTrippedRecord.getReadBases(), record.getReadBases());
+        Assert.assertEquals(roundTrippedRecord.getBaseQualities(), record.getBaseQualities());
+        for (final String tag : new String[]{"NM", SAMTag.RG.name(), "XS"}) {
+            Assert.assertEquals(roundTrippedRecord.getAttribute(tag), record.getAttribute(tag));
+        }
+    }
+
+    @Test
+    public void testEncodingIsSmallerThanSparkCodec() {
+        final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(HEADER);
+        final SAMRecordSparkCodec sparkCodec = new SAMRecordSparkCodec();
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read", 0, 1000, 50);
+        read.setReadGroup("ReadGroup1");
+        read.convertToSAMRecord(null);
+
+        final ByteArrayOutputStream sparkEncoded = new ByteArrayOutputStream();
+        sparkCodec.setOutputStream(sparkEncoded);
+        sparkCodec.encode(read.convertToSAMRecord(null));
+        // the existing serializers also write both reference names as strings on top of the spark codec encoding
+        Assert.assertTrue(codec.encode(read.convertToSAMRecord(null)).length < sparkEncoded.size());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testContigNotInHeader() {
+        final GATKRead read = ArtificialReadUtils.createHeaderlessSamBackedRead("read", "notInHeader", 100, 50);
+        new SAMRecordCompactCodec(HEADER).encode(read.convertToSAMRecord(null));
+    }
+
+    @Test
+    public void testComparatorMatchesReadCoordinateComparator() {
+        final SAMRecordCompactCodec codec = new SAMRecordCompactCodec(HEADER);
+        final List<GATKRead> reads = makeReads();
+        final List<byte[]> encodedReads = new ArrayList<>();
+        reads.forEach(read -> encodedReads.add(codec.encode(read.convertToSAMRecord(null))));
+
+        final ReadCoordinateComparator readComparator = new ReadCoordinateComparator(HEADER);
+        final CompactReadCoordinateComparator compactComparator = new CompactReadCoordinateComparator();
+        for (int i = 0; i < reads.size(); i++) {
+            for (int j = 0; j < reads.size(); j++) {
+                Assert.assertEquals(Integer.signum(compactComparator.compare(encodedReads.get(i), encodedReads.get(j))),
+                        Integer.signum(readComparator.compare(reads.get(i), reads.get(j))),
+                        "Comparators disagree on " + reads.get(i) + " and " + reads.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class MarkDuplicatesSparkRecordCodecUnitTest extends GATKBaseTest {
+
+    @DataProvider
+    public Object[][] records() {
+        return new Object[][]{
+                {new Fragment(0, "read1", (short) 1200, false)},
+                {new Fragment(123456789, "HWI-ST1234:8:1101:1234:5678", (short) -5000, true)},
+                {new EmptyFragment(true)},
+                {new EmptyFragment(false)},
+                {new Passthrough(7, "passthrough")},
+                {new Pair(0, "pair", (short) 3000, false, true, (short) 2, false)},
+                {new Pair(300, "pair:2", Short.MIN_VALUE, true, false, Short.MAX_VALUE, true)},
+                {new Pair(Integer.MAX_VALUE, "", (short) 0, true, true, (short) -1, true)},
+        };
+    }
+
+    @Test(dataProvider = "records")
+    public void testRoundTrip(final MarkDuplicatesSparkRecord record) {
+        final MarkDuplicatesSparkRecord decoded = MarkDuplicatesSparkRecordCodec.decode(MarkDuplicatesSparkRecordCodec.encode(record));
+
+        Assert.assertEquals(decoded.getClass(), record.getClass());
+        Assert.assertEquals(decoded.getType(), record.getType());
+        Assert.assertEquals(decoded.getName(), record.getName());
+        Assert.assertEquals(decoded.getPartitionIndex(), record.getPartitionIndex());
+        if (record instanceof PairedEnds) {
+            Assert.assertEquals(((PairedEnds) decoded).getScore(), ((PairedEnds) record).getScore());
+            Assert.assertEquals(((PairedEnds) decoded).isRead1ReverseStrand(), ((PairedEnds) record).isRead1ReverseStrand());
+            Assert.assertEquals(((PairedEnds) decoded).getOrientationForPCRDuplicates(), ((PairedEnds) record).getOrientationForPCRDuplicates());
+        }
+        if (record instanceof Pair) {
+            Assert.assertEquals(((Pair) decoded).getReadGroup(), ((Pair) record).getReadGroup());
+            Assert.assertEquals(((Pair) decoded).getOrientationForOpticalDuplicates(), ((Pair) record).getOrientationForOpticalDuplicates());
+        }
+    }
+
+    @Test
+    public void testEncodingIsCompact() {
+        // type + flags + 1 byte partition + 1 byte name length + 4 name bytes + score + read group
+        Assert.assertEquals(MarkDuplicatesSparkRecordCodec.encode(new Pair(0, "pair", (short) 3000, false, true, (short) 2, false)).length, 12);
+        Assert.assertEquals(MarkDuplicatesSparkRecordCodec.encode(new EmptyFragment(true)).length, 4);
+    }
+}
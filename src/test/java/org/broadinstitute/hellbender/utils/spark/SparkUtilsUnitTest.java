@@ -191,6 +191,31 @@ public class SparkUtilsUnitTest extends GATKBaseTest {
         assertSorted(coordinateSorted.stream().map(read -> read.convertToSAMRecord(header)).collect(Collectors.toList()), new SAMRecordCoordinateComparator());
     }
 
+    @Test
+    public void testCompactCoordinateSortMatchesObjectSort() {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithGroups(3, 1, 100000, 2);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        List<GATKRead> reads = new ArrayList<>();
+        for(int i = 0; i < 2000; i++){
+            //create reads with alternating contigs and strands, and many ties in start position
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "READ" + (i % 13), i % header.getSequenceDictionary().size(), 3000 - i % 50, 100);
+            read.setIsReverseStrand(i % 3 == 0);
+            read.setReadGroup("ReadGroup" + (i % 2));
+            read.convertToSAMRecord(null);
+            reads.add(read);
+        }
+        final JavaRDD<GATKRead> readsRDD = ctx.parallelize(reads, 4);
+        final List<GATKRead> objectSorted = SparkUtils.sortReadsAccordingToHeader(readsRDD, header, 3, false).collect();
+        final List<GATKRead> compactSorted = SparkUtils.sortReadsAccordingToHeader(readsRDD, header, 3, true).collect();
+        assertSorted(compactSorted, new ReadCoordinateComparator(header));
+        Assert.assertEquals(compactSorted.size(), objectSorted.size());
+        for (int i = 0; i < compactSorted.size(); i++) {
+            Assert.assertEquals(new ReadCoordinateComparator(header).compare(compactSorted.get(i), objectSorted.get(i)), 0);
+            Assert.assertEquals(compactSorted.get(i).getReadGroup(), objectSorted.get(i).getReadGroup());
+        }
+    }
+
     @Test
     public void testSortQuerynameSortMatchesHtsjdk() {
         JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
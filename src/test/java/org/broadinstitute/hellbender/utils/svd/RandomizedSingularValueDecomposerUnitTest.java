@@ -0,0 +1,141 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.QRDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public final class RandomizedSingularValueDecomposerUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 17;
+    private static final double[] TOP_SINGULAR_VALUES = {100., 50., 25., 12., 6.};
+    private static final double NOISE_SINGULAR_VALUE = 0.01;
+    private static final double EPSILON = 1E-6;
+
+    /**
+     * @return  a numRows x numColumns matrix with singular values {@link #TOP_SINGULAR_VALUES} followed by
+     *          {@link #NOISE_SINGULAR_VALUE} and random singular vectors
+     */
+    private static RealMatrix createMatrix(final int numRows,
+                                           final int numColumns) {
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+        final int rank = Math.min(numRows, numColumns);
+        final RealMatrix u = createOrthonormalColumns(numRows, rank, rng);
+        final RealMatrix v = createOrthonormalColumns(numColumns, rank, rng);
+        final RealMatrix s = new Array2DRowRealMatrix(rank, rank);
+        for (int i = 0; i < rank; i++) {
+            s.setEntry(i, i, i < TOP_SINGULAR_VALUES.length ? TOP_SINGULAR_VALUES[i] : NOISE_SINGULAR_VALUE);
+        }
+        return u.multiply(s).multiply(v.transpose());
+    }
+
+    private static RealMatrix createOrthonormalColumns(final int numRows,
+                                                       final int numColumns,
+                                                       final RandomGenerator rng) {
+        final RealMatrix gaussian = new Array2DRowRealMatrix(numRows, numColumns);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numColumns; j++) {
+                gaussian.setEntry(i, j, rng.nextGaussian());
+            }
+        }
+        return new QRDecomposition(gaussian).getQ().getSubMatrix(0, numRows - 1, 0, numColumns - 1);
+    }
+
+    @DataProvider(name = "dimensions")
+    public Object[][] dataDimensions() {
+        return new Object[][]{
+                {200, 80, 1},
+                {80, 200, 1},
+                {200, 80, 3},
+                {80, 200, 3}
+        };
+    }
+
+    @Test(dataProvider = "dimensions")
+    public void testTopComponents(final int numRows,
+                                  final int numColumns,
+                                  final int numThreads) {
+        final int numComponents = TOP_SINGULAR_VALUES.length;
+        final RealMatrix m = createMatrix(numRows, numColumns);
+        final SVD svd = new RandomizedSingularValueDecomposer(numComponents, numThreads).createSVD(m);
+        final SingularValueDecomposition exactSVD = new SingularValueDecomposition(m);
+
+        Assert.assertEquals(svd.getSingularValues().length, numComponents);
+        Assert.assertEquals(svd.getU().getRowDimension(), numRows);
+        Assert.assertEquals(svd.getU().getColumnDimension(), numComponents);
+        Assert.assertEquals(svd.getV().getRowDimension(), numColumns);
+        Assert.assertEquals(svd.getV().getColumnDimension(), numComponents);
+        for (int i = 0; i < numComponents; i++) {
+            Assert.assertEquals(svd.getSingularValues()[i], exactSVD.getSingularValues()[i], EPSILON * TOP_SINGULAR_VALUES[0]);
+            //singular vectors are determined up to sign
+            Assert.assertEquals(Math.abs(svd.getU().getColumnVector(i).dotProduct(exactSVD.getU().getColumnVector(i))), 1., EPSILON);
+            Assert.assertEquals(Math.abs(svd.getV().getColumnVector(i).dotProduct(exactSVD.getV().getColumnVector(i))), 1., EPSILON);
+        }
+        assertOrthonormalColumns(svd.getU());
+        assertOrthonormalColumns(svd.getV());
+
+        //check that U S V^T reconstructs the matrix up to the discarded components and that the pseudoinverse is consistent
+        final RealMatrix s = MatrixUtils.createRealDiagonalMatrix(svd.getSingularValues());
+        final RealMatrix residual = svd.getU().multiply(s).multiply(svd.getV().transpose()).subtract(m);
+        Assert.assertEquals(residual.getNorm(), 0., NOISE_SINGULAR_VALUE * Math.min(numRows, numColumns));
+        final RealMatrix projection = m.multiply(svd.getPinv());
+        Assert.assertEquals(projection.getRowDimension(), numRows);
+        Assert.assertEquals(projection.multiply(svd.getU()).subtract(svd.getU()).getNorm(), 0., EPSILON);
+    }
+
+    @Test
+    public void testDoesNotDependOnNumberOfThreads() {
+        //large enough to be split into multiple blocks
+        final int numRows = 40000;
+        final int numColumns = 60;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+        final RealMatrix m = new Array2DRowRealMatrix(numRows, numColumns);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numColumns; j++) {
+                m.setEntry(i, j, rng.nextGaussian());
+            }
+        }
+        final SVD svd1 = new RandomizedSingularValueDecomposer(5, 1).createSVD(m);
+        final SVD svd4 = new RandomizedSingularValueDecomposer(5, 4).createSVD(m);
+        Assert.assertEquals(svd4.getSingularValues(), svd1.getSingularValues());
+        Assert.assertEquals(svd4.getU(), svd1.getU());
+        Assert.assertEquals(svd4.getV(), svd1.getV());
+    }
+
+    @Test
+    public void testRankDeficient() {
+        final RealMatrix m = new Array2DRowRealMatrix(new double[][]{{1., 2., 3.}, {2., 4., 6.}, {0., 0., 0.}, {3., 6., 9.}});
+        final SVD svd = new RandomizedSingularValueDecomposer(2, 1).createSVD(m);
+        Assert.assertEquals(svd.getSingularValues().length, 1);
+        Assert.assertEquals(svd.getSingularValues()[0], new SingularValueDecomposition(m).getSingularValues()[0], EPSILON);
+        final RealMatrix s = MatrixUtils.createRealDiagonalMatrix(svd.getSingularValues());
+        Assert.assertEquals(svd.getU().multiply(s).multiply(svd.getV().transpose()).subtract(m).getNorm(), 0., EPSILON);
+    }
+
+    @Test
+    public void testZeroMatrix() {
+        final SVD svd = new RandomizedSingularValueDecomposer(2, 1).createSVD(new Array2DRowRealMatrix(5, 3));
+        Assert.assertEquals(svd.getSingularValues(), new double[]{0., 0.});
+        assertOrthonormalColumns(svd.getU());
+        assertOrthonormalColumns(svd.getV());
+    }
+
+    @Test
+    public void testRandomizedSVDPreference() {
+        Assert.assertTrue(SVDFactory.isRandomizedSVDPreferred(1000, 200, 20));
+        Assert.assertFalse(SVDFactory.isRandomizedSVDPreferred(1000, 100, 20));
+    }
+
+    private static void assertOrthonormalColumns(final RealMatrix m) {
+        final RealMatrix gram = m.transpose().multiply(m);
+        Assert.assertEquals(gram.subtract(MatrixUtils.createRealIdentityMatrix(m.getColumnDimension())).getNorm(), 0., EPSILON);
+    }
+}
@@ -300,6 +300,46 @@ public class GVCFWriterUnitTest extends GATKBaseTest {
     }
 
 
+    @Test
+    public void testHomRefSitesMatchVariantContexts() {
+        final MockWriter fromVariantContexts = new MockWriter();
+        final MockWriter fromSites = new MockWriter();
+        final GVCFWriter vcWriter = new GVCFWriter(fromVariantContexts, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+        final GVCFWriter siteWriter = new GVCFWriter(fromSites, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+        Assert.assertTrue(siteWriter.acceptsHomRefSites());
+
+        // two bands on contig 1, a gap, a variant in the middle of a block, and a switch of contig
+        final int[][] sites = { {1, 1, 5}, {1, 2, 8}, {1, 3, 15}, {1, 4, 12}, {1, 10, 30}, {1, 11, 99},
+                                {1, 13, 40}, {1, 14, 40}, {2, 1, 0}, {2, 2, 3} };
+        for (final int[] site : sites) {
+            final String contig = site[0] == 1 ? CHR1 : CHR2;
+            final int gq = site[2];
+            final int[] pls = {0, gq, gq + 10};
+            final Genotype g = new GenotypeBuilder(SAMPLE_NAME, Arrays.asList(REF, REF)).GQ(gq).DP(gq / 2).PL(pls).make();
+            vcWriter.add(new VariantContextBuilder("test", contig, site[1], site[1], ALLELES).genotypes(g).make());
+            siteWriter.addHomRefSite(contig, site[1], REF, SAMPLE_NAME, 2, gq, gq / 2, pls.clone());
+            if (site[1] == 11) {
+                final VariantContext variant = makeNonRef(CHR1, 12);
+                vcWriter.add(variant);
+                siteWriter.add(variant);
+            }
+        }
+        vcWriter.close();
+        siteWriter.close();
+
+        Assert.assertEquals(fromSites.emitted.size(), fromVariantContexts.emitted.size());
+        for (int i = 0; i < fromSites.emitted.size(); i++) {
+            final VariantContext expected = fromVariantContexts.emitted.get(i);
+            final VariantContext actual = fromSites.emitted.get(i);
+            Assert.assertEquals(actual.getContig(), expected.getContig());
+            Assert.assertEquals(actual.getStart(), expected.getStart());
+            Assert.assertEquals(actual.getEnd(), expected.getEnd());
+            Assert.assertEquals(actual.getAlleles(), expected.getAlleles());
+            Assert.assertEquals(actual.getAttributes(), expected.getAttributes());
+            Assert.assertEquals(actual.getGenotype(0).toString(), expected.getGenotype(0).toString());
+        }
+    }
+
     @Test
     public void testNonContiguousBlocks() {
         final MockWriter mockWriter = new MockWriter();
@@ -44,6 +44,12 @@ public class SomaticGVCFWriterUnitTest {
         Assert.assertTrue(writer.convertLODtoInt(2.0) == 2000);
     }
 
+    @Test
+    public void testDoesNotAcceptHomRefSites() {
+        // somatic blocks are banded by tumor LOD, which primitive hom-ref sites don't have
+        Assert.assertFalse(new SomaticGVCFWriter(new GVCFWriterUnitTest.MockWriter(), standardPartition).acceptsHomRefSites());
+    }
+
     @Test
     public void testAddingAndMerging() {
         final GVCFWriterUnitTest.MockWriter mockWriter = new GVCFWriterUnitTest.MockWriter();